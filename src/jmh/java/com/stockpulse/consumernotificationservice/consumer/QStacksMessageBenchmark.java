@@ -0,0 +1,159 @@
+package com.stockpulse.consumernotificationservice.consumer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stockpulse.consumernotificationservice.model.QStacksMessage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing and validation of a QStacks payload, and the id getters the processor calls on every message.
+ * The baseline* benchmarks keep the original implementation (ObjectMapper.readValue into a bean whose getters
+ * split the id on every call), so running with -prof gc compares bytes allocated per message before and after.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class QStacksMessageBenchmark {
+
+    private static final String PAYLOAD = "{\"id\":\"user-4711::stock-0815\"}";
+
+    private QStacksConsumer qStacksConsumer;
+    private QStacksMessage message;
+    private ObjectMapper objectMapper;
+    private BaselineMessage baselineMessage;
+
+    @Setup
+    public void setUp() {
+        // parseMessage and validateMessage only use the decoder
+        qStacksConsumer = new QStacksConsumer(null, new QStacksPayloadDecoder(new ObjectMapper()),
+                null, null, null, null, null, null);
+        message = qStacksConsumer.parseMessage(PAYLOAD);
+        objectMapper = new ObjectMapper();
+        baselineMessage = baselineParse();
+    }
+
+    @Benchmark
+    public QStacksMessage parse() {
+        return qStacksConsumer.parseMessage(PAYLOAD);
+    }
+
+    @Benchmark
+    public void validate() {
+        qStacksConsumer.validateMessage(message);
+    }
+
+    @Benchmark
+    public void parseAndValidate(Blackhole blackhole) {
+        QStacksMessage parsed = qStacksConsumer.parseMessage(PAYLOAD);
+        qStacksConsumer.validateMessage(parsed);
+        blackhole.consume(parsed);
+    }
+
+    @Benchmark
+    public void idGetters(Blackhole blackhole) {
+        blackhole.consume(message.getUserId());
+        blackhole.consume(message.getStockId());
+    }
+
+    @Benchmark
+    public QStacksMessage setIdAndSplit() {
+        return new QStacksMessage("user-4711::stock-0815");
+    }
+
+    @Benchmark
+    public BaselineMessage baselineParse() {
+        try {
+            return objectMapper.readValue(PAYLOAD, BaselineMessage.class);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Benchmark
+    public void baselineValidate() {
+        baselineValidate(baselineMessage);
+    }
+
+    @Benchmark
+    public void baselineParseAndValidate(Blackhole blackhole) {
+        BaselineMessage parsed = baselineParse();
+        baselineValidate(parsed);
+        blackhole.consume(parsed);
+    }
+
+    @Benchmark
+    public void baselineIdGetters(Blackhole blackhole) {
+        blackhole.consume(baselineMessage.getUserId());
+        blackhole.consume(baselineMessage.getStockId());
+    }
+
+    /**
+     * The original validateMessage, minus its INFO log line
+     */
+    private static void baselineValidate(BaselineMessage message) {
+        if (message == null) {
+            throw new IllegalArgumentException("QStacks message is null");
+        }
+        if (message.getId() == null || message.getId().trim().isEmpty()) {
+            throw new IllegalArgumentException("QStacks message ID is null or empty");
+        }
+        if (!message.getId().contains("::")) {
+            throw new IllegalArgumentException("Invalid QStacks message ID format: " + message.getId());
+        }
+        String userId = message.getUserId();
+        String stockId = message.getStockId();
+        if (userId == null || userId.trim().isEmpty()) {
+            throw new IllegalArgumentException("User ID is null or empty in message: " + message.getId());
+        }
+        if (stockId == null || stockId.trim().isEmpty()) {
+            throw new IllegalArgumentException("Stock ID is null or empty in message: " + message.getId());
+        }
+    }
+
+    /**
+     * The original QStacksMessage: every getter call runs contains() and split() on the id
+     */
+    public static class BaselineMessage {
+
+        private String id;
+
+        public String getId() {
+            return id;
+        }
+
+        public void setId(String id) {
+            this.id = id;
+        }
+
+        public String getUserId() {
+            if (id != null && id.contains("::")) {
+                return id.split("::")[0];
+            }
+            return null;
+        }
+
+        public String getStockId() {
+            if (id != null && id.contains("::")) {
+                String[] parts = id.split("::");
+                if (parts.length > 1) {
+                    return parts[1];
+                }
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.stockpulse.consumernotificationservice.loadtest;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time from launching a JVM to the first successfully processed message, against the in-memory database stand-in.
+ * Every invocation starts the application with the "startup" profile, whose {@link StartupProbe} processes one
+ * message and exits. Compares a plain launch with the launches the faststart Maven profile prepares; build them
+ * with the probe's profile first:
+ * mvn -Pfaststart package -Dfaststart.profiles=faststart,startup
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 10)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StartupBenchmark {
+
+    private static final Path FASTSTART_DIRECTORY = Path.of("target", "faststart");
+
+    public enum Launch {
+        PLAIN, // no lazy initialization, AOT or CDS
+        LAZY, // faststart profile: lazy initialization off the message path
+        AOT, // plus AOT-processed bean definitions
+        AOT_CDS // plus the class-data sharing archive of the training run
+    }
+
+    @Param({"PLAIN", "LAZY", "AOT", "AOT_CDS"})
+    public Launch launch;
+
+    private List<String> command;
+
+    @Setup
+    public void setUp() {
+        Path jar;
+        try (var files = Files.list(FASTSTART_DIRECTORY)) {
+            jar = files.filter(file -> file.getFileName().toString().endsWith(".jar")).findFirst()
+                    .orElseThrow(() -> new IllegalStateException("No application jar in " + FASTSTART_DIRECTORY));
+        } catch (IOException e) {
+            throw new IllegalStateException("Run mvn -Pfaststart package -Dfaststart.profiles=faststart,startup first", e);
+        }
+
+        command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        if (launch == Launch.AOT_CDS) {
+            command.add("-XX:SharedArchiveFile=" + FASTSTART_DIRECTORY.resolve("application.jsa"));
+        }
+        if (launch == Launch.AOT || launch == Launch.AOT_CDS) {
+            command.add("-Dspring.aot.enabled=true");
+        }
+        command.add("-Dspring.profiles.active=" + (launch == Launch.PLAIN ? "startup" : "faststart,startup"));
+        command.add("-jar");
+        command.add(jar.toString());
+    }
+
+    @Benchmark
+    public void timeToFirstMessage() throws IOException, InterruptedException {
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        try (BufferedReader output = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            for (String line = output.readLine(); line != null; line = output.readLine()) {
+                if (line.contains(StartupProbe.FIRST_MESSAGE_LINE)) {
+                    return;
+                }
+            }
+            throw new IllegalStateException("Application exited with " + process.waitFor()
+                    + " before processing its first message");
+        } finally {
+            process.destroy();
+            process.waitFor();
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.stockpulse.consumernotificationservice.service;
+
+import com.stockpulse.consumernotificationservice.model.Stock;
+import com.stockpulse.consumernotificationservice.model.User;
+import com.stockpulse.consumernotificationservice.model.Wishlist;
+import com.stockpulse.consumernotificationservice.repository.StockRepository;
+import com.stockpulse.consumernotificationservice.repository.UserRepository;
+import com.stockpulse.consumernotificationservice.repository.WishlistRepository;
+
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Map-backed stand-ins for the Mongo repositories, implementing only the methods the processor calls.
+ * Claims always succeed and are never recorded, so every benchmark invocation takes the full send path.
+ */
+final class InMemoryRepositories {
+
+    private InMemoryRepositories() {
+    }
+
+    static UserRepository users(Map<String, User> users) {
+        return proxy(UserRepository.class, (method, args) -> switch (method) {
+            case "findById" -> Optional.ofNullable(users.get((String) args[0]));
+            default -> throw new UnsupportedOperationException(method);
+        });
+    }
+
+    static StockRepository stocks(Map<String, Stock> stocks) {
+        return proxy(StockRepository.class, (method, args) -> switch (method) {
+            case "findById" -> Optional.ofNullable(stocks.get((String) args[0]));
+            default -> throw new UnsupportedOperationException(method);
+        });
+    }
+
+    static WishlistRepository wishlists(Map<String, Wishlist> wishlists) {
+        return proxy(WishlistRepository.class, (method, args) -> switch (method) {
+            case "findById", "claimForNotification" -> Optional.ofNullable(wishlists.get((String) args[0]));
+            case "releaseClaim", "clearDeliveredChannels" -> null;
+            case "claimAllForNotification" -> ((Collection<?>) args[0]).stream()
+                    .map(wishlists::get)
+                    .filter(Objects::nonNull)
+                    .toList();
+            default -> throw new UnsupportedOperationException(method);
+        });
+    }
+
+    private static <T> T proxy(Class<T> repositoryType, Handler handler) {
+        return repositoryType.cast(Proxy.newProxyInstance(repositoryType.getClassLoader(),
+                new Class<?>[]{repositoryType}, (proxy, method, args) -> {
+                    if (method.getDeclaringClass() == Object.class) {
+                        return switch (method.getName()) {
+                            case "hashCode" -> System.identityHashCode(proxy);
+                            case "equals" -> proxy == args[0];
+                            default -> "InMemory" + repositoryType.getSimpleName();
+                        };
+                    }
+                    return handler.invoke(method.getName(), args);
+                }));
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        Object invoke(String method, Object[] args);
+    }
+}
@@ -0,0 +1,131 @@
+package com.stockpulse.consumernotificationservice.service;
+
+import com.stockpulse.consumernotificationservice.cache.LookupCache;
+import com.stockpulse.consumernotificationservice.channel.EmailChannel;
+import com.stockpulse.consumernotificationservice.channel.NotificationFanOut;
+import com.stockpulse.consumernotificationservice.config.NotificationProperties;
+import com.stockpulse.consumernotificationservice.events.ProcessingEventRecorder;
+import com.stockpulse.consumernotificationservice.metrics.PipelineMetrics;
+import com.stockpulse.consumernotificationservice.model.ProcessingResult;
+import com.stockpulse.consumernotificationservice.model.QStacksMessage;
+import com.stockpulse.consumernotificationservice.model.Stock;
+import com.stockpulse.consumernotificationservice.model.User;
+import com.stockpulse.consumernotificationservice.model.Wishlist;
+import com.stockpulse.consumernotificationservice.repository.WishlistRepository;
+import com.stockpulse.consumernotificationservice.rule.WishlistRules;
+import com.stockpulse.consumernotificationservice.template.NotificationTemplates;
+import com.stockpulse.consumernotificationservice.tick.ThresholdIndex;
+import com.stockpulse.consumernotificationservice.template.Utf8Buffer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Email body rendering, and processWishlistNotification end to end against in-memory repositories and a
+ * zero-latency email transport. The end-to-end number includes the hand-off to the email send stage and back.
+ * baselineRenderBody keeps the original String.format rendering with its toLowerCase() rule switch, for
+ * comparison with the precompiled templates.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class NotificationBenchmark {
+
+    private static final String WISHLIST_ID = "user-4711::stock-0815";
+
+    private User user;
+    private Stock stock;
+    private Wishlist wishlist;
+    private QStacksMessage message;
+    private EmailService emailService;
+    private NotificationFanOut notificationFanOut;
+    private WishlistNotificationProcessor processor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        user = User.builder().id("user-4711").name("Alice").email("alice@example.com").build();
+        stock = Stock.builder().id("stock-0815").symbol("RELIANCE").name("Reliance Industries Ltd")
+                .currentPrice(2310.0).build();
+        wishlist = Wishlist.builder().id(WISHLIST_ID).userId(user.getId()).stockId(stock.getId())
+                .ruleType("percentage_increase").ruleValueInPercent("5%")
+                .rateValueTargeted(2310.0).ruleValueAtSet(2200.0)
+                .active(true).notified(false).build();
+        message = new QStacksMessage(WISHLIST_ID);
+
+        NotificationProperties properties = new NotificationProperties();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+        emailService = new EmailService((to, subject, body) -> { }, new EmailSendGovernor(properties, meterRegistry),
+                new NotificationTemplates(properties), properties);
+        WishlistRepository wishlistRepository = InMemoryRepositories.wishlists(Map.of(WISHLIST_ID, wishlist));
+        PipelineMetrics pipelineMetrics = new PipelineMetrics(meterRegistry);
+        WishlistRules wishlistRules = new WishlistRules(properties, meterRegistry);
+        ProcessingEventRecorder processingEventRecorder = new ProcessingEventRecorder(properties);
+        notificationFanOut = new NotificationFanOut(List.of(new EmailChannel(emailService, properties)), meterRegistry);
+        processor = new WishlistNotificationProcessor(
+                InMemoryRepositories.users(Map.of(user.getId(), user)),
+                InMemoryRepositories.stocks(Map.of(stock.getId(), stock)),
+                wishlistRepository,
+                emailService,
+                new LookupCache(properties, meterRegistry),
+                pipelineMetrics,
+                processingEventRecorder,
+                new NotificationDigest(emailService, pipelineMetrics, processingEventRecorder, properties, meterRegistry),
+                wishlistRules,
+                notificationFanOut,
+                new ThresholdIndex(wishlistRepository, wishlistRules, properties, meterRegistry));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        notificationFanOut.shutdown();
+        emailService.shutdown();
+    }
+
+    @Benchmark
+    public Utf8Buffer renderBody() {
+        return emailService.buildNotificationBody(user, stock, wishlist);
+    }
+
+    @Benchmark
+    public String baselineRenderBody() {
+        return String.format(
+                "Your wishlisted stock %s is %s. Please buy the stock quickly, before price drops or rises. Thank you for choosing Stock Pulse.",
+                stock.getName(),
+                baselineRuleDescription(wishlist));
+    }
+
+    @Benchmark
+    public ProcessingResult processEndToEnd() {
+        return processor.processWishlistNotification(message);
+    }
+
+    private static String baselineRuleDescription(Wishlist wishlist) {
+        String ruleValue = wishlist.getRuleValueInPercent();
+        switch (wishlist.getRuleType().toLowerCase()) {
+            case "percentage_increase":
+                return "up by " + ruleValue;
+            case "percentage_drop":
+                return "down by " + ruleValue;
+            default:
+                return "meeting your criteria";
+        }
+    }
+}
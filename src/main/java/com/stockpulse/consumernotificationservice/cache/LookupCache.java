@@ -0,0 +1,87 @@
+package com.stockpulse.consumernotificationservice.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.stockpulse.consumernotificationservice.config.NotificationProperties;
+import com.stockpulse.consumernotificationservice.model.Stock;
+import com.stockpulse.consumernotificationservice.model.User;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Function;
+
+/**
+ * Size- and TTL-bounded near-cache for user and stock lookups.
+ * Missing entities are not cached, so a user or stock created after a miss is found on the next lookup.
+ * Hit, miss and eviction counters are exported as the "cache.*" metrics tagged cache=users / cache=stocks.
+ */
+@Slf4j
+@Component
+public class LookupCache {
+
+    private final Cache<String, User> users;
+    private final Cache<String, Stock> stocks;
+
+    public LookupCache(NotificationProperties notificationProperties, MeterRegistry meterRegistry) {
+        NotificationProperties.Cache cache = notificationProperties.getCache();
+        this.users = build(cache.getUsers());
+        this.stocks = build(cache.getStocks());
+
+        CaffeineCacheMetrics.monitor(meterRegistry, users, "users");
+        CaffeineCacheMetrics.monitor(meterRegistry, stocks, "stocks");
+    }
+
+    private static <V> Cache<String, V> build(NotificationProperties.CacheSpec spec) {
+        return Caffeine.newBuilder()
+                .maximumSize(spec.getMaximumSize())
+                .expireAfterWrite(spec.getTtl())
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * @return the cached user, or the loader's result (null if not found)
+     */
+    public User getUser(String userId, Function<String, User> loader) {
+        return users.get(userId, loader);
+    }
+
+    /**
+     * @return the cached stock, or the loader's result (null if not found)
+     */
+    public Stock getStock(String stockId, Function<String, Stock> loader) {
+        return stocks.get(stockId, loader);
+    }
+
+    /**
+     * Apply a price tick to the stock if it is cached; an uncached stock is loaded with its stored price
+     */
+    public void updateStockPrice(String stockId, double price) {
+        stocks.asMap().computeIfPresent(stockId, (id, stock) -> Stock.builder()
+                .id(stock.getId())
+                .symbol(stock.getSymbol())
+                .name(stock.getName())
+                .currentPrice(price)
+                .exchange(stock.getExchange())
+                .sector(stock.getSector())
+                .build());
+    }
+
+    public void invalidateUser(String userId) {
+        log.info("Invalidating cached user: {}", userId);
+        users.invalidate(userId);
+    }
+
+    public void invalidateStock(String stockId) {
+        log.info("Invalidating cached stock: {}", stockId);
+        stocks.invalidate(stockId);
+    }
+
+    public void invalidateAll() {
+        log.info("Invalidating all cached users and stocks");
+        users.invalidateAll();
+        stocks.invalidateAll();
+    }
+}
\ No newline at end of file
@@ -0,0 +1,219 @@
+package com.stockpulse.consumernotificationservice.channel;
+
+import com.stockpulse.consumernotificationservice.config.NotificationProperties;
+import com.stockpulse.consumernotificationservice.model.ChannelAlert;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Queue and send stage of one {@link NotificationChannel}. Alerts wait in a bounded queue of their own; a
+ * dispatcher thread collects them into batches of up to batch-size (waiting at most max-wait for a batch to fill)
+ * and hands each batch to one of the channel's concurrency send threads. While all of them are busy, alerts keep
+ * queueing and the next batch grows.
+ *
+ * Nothing here blocks the caller: an alert arriving at a full queue fails right away, so a slow channel backs up
+ * only its own queue and never the processor or the other channels.
+ */
+@Slf4j
+public class ChannelPipeline {
+
+    private final NotificationChannel channel;
+    private final NotificationProperties.Channel channelProperties;
+    private final BlockingQueue<PendingAlert> queue;
+    private final Semaphore sendPermits;
+    private final ExecutorService sendThreads;
+    private final Thread dispatcher;
+    private volatile boolean running = true;
+
+    private final Timer deliveredTimer;
+    private final Timer failedTimer;
+    private final DistributionSummary batchSizes;
+    private final Counter rejectedCounter;
+
+    public ChannelPipeline(NotificationChannel channel, MeterRegistry meterRegistry) {
+        this.channel = channel;
+        this.channelProperties = channel.properties();
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, channelProperties.getQueueCapacity()));
+        int concurrency = Math.max(1, channelProperties.getConcurrency());
+        this.sendPermits = new Semaphore(concurrency);
+        this.sendThreads = Executors.newFixedThreadPool(concurrency,
+                new CustomizableThreadFactory("channel-" + channel.name() + "-"));
+
+        this.deliveredTimer = latencyTimer(meterRegistry, "delivered");
+        this.failedTimer = latencyTimer(meterRegistry, "failed");
+        this.batchSizes = DistributionSummary.builder("notification.channel.batch.size")
+                .description("Alerts handed to the channel's transport at a time")
+                .tag("channel", channel.name())
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("notification.channel.rejected")
+                .description("Alerts failed because the channel's queue was full")
+                .tag("channel", channel.name())
+                .register(meterRegistry);
+        Gauge.builder("notification.channel.queue", queue, BlockingQueue::size)
+                .description("Alerts waiting for the channel")
+                .tag("channel", channel.name())
+                .register(meterRegistry);
+
+        this.dispatcher = new Thread(this::dispatchLoop, "channel-" + channel.name() + "-dispatcher");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    public NotificationChannel getChannel() {
+        return channel;
+    }
+
+    /**
+     * Queue an alert for the channel without blocking
+     * @return future completed with true once the channel delivered the alert, false if it failed or the queue is full
+     */
+    public CompletableFuture<Boolean> submit(ChannelAlert alert) {
+        PendingAlert pending = new PendingAlert(alert, new CompletableFuture<>(), System.nanoTime());
+        if (!running || !queue.offer(pending)) {
+            rejectedCounter.increment();
+            log.debug("{} channel queue is full, alert for wishlist {} not sent", channel.name(), alert.wishlist().getId());
+            pending.delivered().complete(false);
+        } else if (!running) {
+            failQueued(); // shut down after the check above, possibly after shutdown() drained the queue
+        }
+        return pending.delivered();
+    }
+
+    private void dispatchLoop() {
+        while (running) {
+            try {
+                sendPermits.acquire();
+                List<PendingAlert> batch;
+                try {
+                    batch = nextBatch();
+                } catch (InterruptedException e) {
+                    sendPermits.release();
+                    throw e;
+                }
+                try {
+                    sendThreads.execute(() -> send(batch));
+                } catch (RejectedExecutionException e) {
+                    // Shutting down; nothing will send the batch
+                    sendPermits.release();
+                    log.warn("{} channel is shut down, failing batch of {} alerts", channel.name(), batch.size());
+                    fail(batch);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Wait for the first alert, then collect more for up to max-wait or until the batch is full
+     */
+    private List<PendingAlert> nextBatch() throws InterruptedException {
+        int batchSize = Math.max(1, channelProperties.getBatchSize());
+        List<PendingAlert> batch = new ArrayList<>(Math.min(batchSize, 256));
+        batch.add(queue.take());
+        queue.drainTo(batch, batchSize - batch.size());
+
+        long deadline = System.nanoTime() + channelProperties.getMaxWait().toNanos();
+        while (batch.size() < batchSize) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                break;
+            }
+            PendingAlert next;
+            try {
+                next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt(); // shutting down: send what was collected, then stop
+                break;
+            }
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+            queue.drainTo(batch, batchSize - batch.size());
+        }
+        return batch;
+    }
+
+    private void send(List<PendingAlert> batch) {
+        batchSizes.record(batch.size());
+        List<Boolean> delivered = null;
+        try {
+            List<ChannelAlert> alerts = new ArrayList<>(batch.size());
+            for (PendingAlert pending : batch) {
+                alerts.add(pending.alert());
+            }
+            delivered = channel.send(alerts);
+        } catch (Exception e) {
+            log.error("Failed to send batch of {} alerts on {} channel", batch.size(), channel.name(), e);
+        } finally {
+            sendPermits.release();
+        }
+
+        long now = System.nanoTime();
+        for (int i = 0; i < batch.size(); i++) {
+            PendingAlert pending = batch.get(i);
+            boolean sent = delivered != null && i < delivered.size() && Boolean.TRUE.equals(delivered.get(i));
+            (sent ? deliveredTimer : failedTimer).record(now - pending.queuedAt(), TimeUnit.NANOSECONDS);
+            pending.delivered().complete(sent);
+        }
+    }
+
+    private Timer latencyTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("notification.channel.latency")
+                .description("Time from queueing an alert for the channel until it was delivered or failed")
+                .tag("channel", channel.name())
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * Fail alerts that were never sent instead of leaving their wishlists waiting
+     */
+    public void shutdown() throws InterruptedException {
+        running = false;
+        dispatcher.interrupt();
+        try {
+            dispatcher.join();
+        } finally {
+            // Also when interrupted: a dispatcher still running then has its next batch rejected and failed
+            sendThreads.shutdown();
+            failQueued();
+        }
+    }
+
+    private void failQueued() {
+        List<PendingAlert> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        fail(remaining);
+    }
+
+    private void fail(List<PendingAlert> alerts) {
+        long now = System.nanoTime();
+        for (PendingAlert pending : alerts) {
+            failedTimer.record(now - pending.queuedAt(), TimeUnit.NANOSECONDS);
+            pending.delivered().complete(false);
+        }
+    }
+
+    private record PendingAlert(ChannelAlert alert, CompletableFuture<Boolean> delivered, long queuedAt) {
+    }
+}
@@ -0,0 +1,55 @@
+package com.stockpulse.consumernotificationservice.channel;
+
+import com.stockpulse.consumernotificationservice.config.NotificationProperties;
+import com.stockpulse.consumernotificationservice.model.ChannelAlert;
+import com.stockpulse.consumernotificationservice.model.User;
+import com.stockpulse.consumernotificationservice.service.EmailService;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Email, one message per alert. A batch is spread over the {@link EmailService} send stage, so the send governor
+ * still paces the provider.
+ */
+@Component
+public class EmailChannel implements NotificationChannel {
+    
+    private final EmailService emailService;
+    private final NotificationProperties.Channel channelProperties;
+    
+    public EmailChannel(EmailService emailService, NotificationProperties notificationProperties) {
+        this.emailService = emailService;
+        this.channelProperties = notificationProperties.getChannels().getEmail();
+    }
+    
+    @Override
+    public String name() {
+        return "email";
+    }
+    
+    @Override
+    public NotificationProperties.Channel properties() {
+        return channelProperties;
+    }
+    
+    @Override
+    public boolean canDeliver(User user) {
+        return emailService.isValidEmail(user.getEmail());
+    }
+    
+    @Override
+    public List<Boolean> send(List<ChannelAlert> alerts) {
+        List<CompletableFuture<Boolean>> sends = new ArrayList<>(alerts.size());
+        for (ChannelAlert alert : alerts) {
+            sends.add(emailService.sendWishlistNotificationAsync(alert.user(), alert.stock(), alert.wishlist()));
+        }
+        List<Boolean> sent = new ArrayList<>(sends.size());
+        for (CompletableFuture<Boolean> send : sends) {
+            sent.add(send.join());
+        }
+        return sent;
+    }
+}
@@ -0,0 +1,33 @@
+package com.stockpulse.consumernotificationservice.channel;
+
+import com.stockpulse.consumernotificationservice.config.NotificationProperties;
+import com.stockpulse.consumernotificationservice.model.ChannelAlert;
+import com.stockpulse.consumernotificationservice.model.User;
+
+import java.util.List;
+
+/**
+ * A way of telling a user about a triggered wishlist. {@link NotificationFanOut} gives every enabled channel its
+ * own {@link ChannelPipeline}, which collects alerts into batches and calls {@link #send} from the channel's
+ * own threads.
+ */
+public interface NotificationChannel {
+    
+    /**
+     * Short lowercase name, used as the metrics tag
+     */
+    String name();
+    
+    NotificationProperties.Channel properties();
+    
+    /**
+     * @return false if the user has no address on this channel, e.g. no phone number for SMS
+     */
+    boolean canDeliver(User user);
+    
+    /**
+     * Deliver a batch of alerts, blocking until the provider accepted them
+     * @return one entry per alert, in order: true if it was delivered; throwing fails the whole batch
+     */
+    List<Boolean> send(List<ChannelAlert> alerts);
+}
@@ -0,0 +1,141 @@
+package com.stockpulse.consumernotificationservice.channel;
+
+import com.stockpulse.consumernotificationservice.model.ChannelAlert;
+import com.stockpulse.consumernotificationservice.model.Stock;
+import com.stockpulse.consumernotificationservice.model.User;
+import com.stockpulse.consumernotificationservice.model.Wishlist;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Fans a triggered wishlist out to every enabled {@link NotificationChannel} that can reach the user.
+ * Each channel has its own {@link ChannelPipeline}, so channels queue, batch and send independently.
+ * Only required channels (notification.channels.*.required) decide the outcome: the wishlist counts as notified
+ * once all of them delivered, while optional channels deliver on their own time and never hold it up.
+ * Channels listed in the wishlist's deliveredChannels already delivered this alert on an earlier attempt and
+ * are skipped, so a retry after one required channel failed only sends on the channels that have not delivered.
+ * An alert that a required channel cannot reach the user on (e.g. SMS without a phone number) is not sent at all
+ * and never counts as delivered; at least one enabled channel has to be required.
+ */
+@Slf4j
+@Service
+public class NotificationFanOut {
+
+    private final List<ChannelPipeline> pipelines = new ArrayList<>();
+    private final Map<String, Counter> unreachableCounters = new HashMap<>(); // by required channel
+
+    public NotificationFanOut(List<NotificationChannel> channels, MeterRegistry meterRegistry) {
+        if (channels.stream().noneMatch(channel -> channel.properties().isEnabled() && channel.properties().isRequired())) {
+            // Nothing would decide whether an alert was delivered
+            throw new IllegalStateException("No enabled notification channel is required, "
+                    + "set notification.channels.<channel>.required=true on at least one");
+        }
+        for (NotificationChannel channel : channels) {
+            if (channel.properties().isEnabled()) {
+                pipelines.add(new ChannelPipeline(channel, meterRegistry));
+                log.info("Notification channel {} enabled ({})", channel.name(),
+                        channel.properties().isRequired() ? "required" : "optional");
+                if (channel.properties().isRequired()) {
+                    unreachableCounters.put(channel.name(), Counter.builder("notification.channel.unreachable")
+                            .description("Alerts not sent because a required channel cannot reach the user")
+                            .tag("channel", channel.name())
+                            .register(meterRegistry));
+                }
+            }
+        }
+    }
+
+    /**
+     * Queue the alert on every enabled channel that can reach the user and has not delivered it yet
+     * @return future completed once every required channel is done with the alert, or right away with an
+     * undelivered result if a required channel cannot reach the user
+     */
+    public CompletableFuture<Delivery> send(User user, Stock stock, Wishlist wishlist) {
+        ChannelAlert alert = new ChannelAlert(user, stock, wishlist);
+        Set<String> alreadyDelivered = wishlist.getDeliveredChannels() != null ? wishlist.getDeliveredChannels() : Set.of();
+        Set<String> unreachable = unreachableRequiredChannels(user, alreadyDelivered);
+        if (!unreachable.isEmpty()) {
+            log.warn("User {} cannot be reached on required channel(s) {}, wishlist {} not sent", user.getId(),
+                    unreachable, wishlist.getId());
+            unreachable.forEach(channel -> unreachableCounters.get(channel).increment());
+            return CompletableFuture.completedFuture(new Delivery(false, alreadyDelivered, unreachable));
+        }
+
+        Map<String, CompletableFuture<Boolean>> submitted = new LinkedHashMap<>();
+        List<CompletableFuture<Boolean>> required = new ArrayList<>(pipelines.size());
+        for (ChannelPipeline pipeline : pipelines) {
+            NotificationChannel channel = pipeline.getChannel();
+            if (alreadyDelivered.contains(channel.name())) {
+                log.debug("Wishlist {} was already delivered on {} channel", wishlist.getId(), channel.name());
+                continue;
+            }
+            if (!channel.canDeliver(user)) {
+                log.debug("User {} cannot be reached on {} channel", user.getId(), channel.name());
+                continue;
+            }
+            CompletableFuture<Boolean> delivered = pipeline.submit(alert);
+            submitted.put(channel.name(), delivered);
+            if (channel.properties().isRequired()) {
+                required.add(delivered);
+            }
+        }
+
+        return CompletableFuture.allOf(required.toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> {
+                    if (required.stream().allMatch(CompletableFuture::join)) {
+                        return new Delivery(true, alreadyDelivered);
+                    }
+                    // optional channels that are done by now count too, so a retry does not send them twice
+                    Set<String> deliveredChannels = new HashSet<>(alreadyDelivered);
+                    submitted.forEach((channel, delivered) -> {
+                        if (Boolean.TRUE.equals(delivered.getNow(false))) {
+                            deliveredChannels.add(channel);
+                        }
+                    });
+                    return new Delivery(false, deliveredChannels);
+                });
+    }
+
+    private Set<String> unreachableRequiredChannels(User user, Set<String> alreadyDelivered) {
+        Set<String> unreachable = new HashSet<>();
+        for (ChannelPipeline pipeline : pipelines) {
+            NotificationChannel channel = pipeline.getChannel();
+            if (channel.properties().isRequired() && !alreadyDelivered.contains(channel.name())
+                    && !channel.canDeliver(user)) {
+                unreachable.add(channel.name());
+            }
+        }
+        return unreachable;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        for (ChannelPipeline pipeline : pipelines) {
+            pipeline.shutdown();
+        }
+    }
+
+    /**
+     * @param delivered true if every required channel delivered the alert
+     * @param deliveredChannels channels that have delivered the alert, on this attempt or an earlier one
+     * @param unreachableChannels required channels that cannot reach the user; the alert was not sent
+     */
+    public record Delivery(boolean delivered, Set<String> deliveredChannels, Set<String> unreachableChannels) {
+
+        public Delivery(boolean delivered, Set<String> deliveredChannels) {
+            this(delivered, deliveredChannels, Set.of());
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.stockpulse.consumernotificationservice.channel;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Stand-in SMS provider that only logs the messages after a fixed delay per bulk request
+ */
+@Slf4j
+public class SimulatedSmsTransport implements SmsTransport {
+    
+    private final Duration latency;
+    
+    public SimulatedSmsTransport(Duration latency) {
+        this.latency = latency;
+    }
+    
+    @Override
+    public void send(List<SmsMessage> messages) {
+        try {
+            if (!latency.isZero()) {
+                Thread.sleep(latency);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("SMS sending interrupted", e);
+        }
+        for (SmsMessage message : messages) {
+            log.debug("Simulated SMS to: {}, text: {}", message.phone(), message.text());
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.stockpulse.consumernotificationservice.channel;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+
+/**
+ * Stand-in webhook endpoint that only logs the request after a fixed delay
+ */
+@Slf4j
+public class SimulatedWebhookTransport implements WebhookTransport {
+    
+    private final Duration latency;
+    
+    public SimulatedWebhookTransport(Duration latency) {
+        this.latency = latency;
+    }
+    
+    @Override
+    public void post(String url, byte[] jsonBody) {
+        try {
+            if (!latency.isZero()) {
+                Thread.sleep(latency);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Webhook request interrupted", e);
+        }
+        log.debug("Simulated webhook POST to: {}, {} bytes", url, jsonBody.length);
+    }
+}
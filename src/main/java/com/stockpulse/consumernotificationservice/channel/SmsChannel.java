@@ -0,0 +1,55 @@
+package com.stockpulse.consumernotificationservice.channel;
+
+import com.stockpulse.consumernotificationservice.config.NotificationProperties;
+import com.stockpulse.consumernotificationservice.model.ChannelAlert;
+import com.stockpulse.consumernotificationservice.model.User;
+import com.stockpulse.consumernotificationservice.template.NotificationTemplates;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * SMS to the user's phone, with the rendered email subject as text. A batch is one bulk request.
+ */
+@Component
+public class SmsChannel implements NotificationChannel {
+    
+    private final SmsTransport smsTransport;
+    private final NotificationTemplates notificationTemplates;
+    private final NotificationProperties.Channel channelProperties;
+    
+    public SmsChannel(SmsTransport smsTransport, NotificationTemplates notificationTemplates,
+                      NotificationProperties notificationProperties) {
+        this.smsTransport = smsTransport;
+        this.notificationTemplates = notificationTemplates;
+        this.channelProperties = notificationProperties.getChannels().getSms();
+    }
+    
+    @Override
+    public String name() {
+        return "sms";
+    }
+    
+    @Override
+    public NotificationProperties.Channel properties() {
+        return channelProperties;
+    }
+    
+    @Override
+    public boolean canDeliver(User user) {
+        return user.getPhone() != null && !user.getPhone().isBlank();
+    }
+    
+    @Override
+    public List<Boolean> send(List<ChannelAlert> alerts) {
+        List<SmsTransport.SmsMessage> messages = new ArrayList<>(alerts.size());
+        for (ChannelAlert alert : alerts) {
+            messages.add(new SmsTransport.SmsMessage(alert.user().getPhone(),
+                    notificationTemplates.renderSubject(alert.user(), alert.stock(), alert.wishlist())));
+        }
+        smsTransport.send(messages);
+        return Collections.nCopies(alerts.size(), true);
+    }
+}
@@ -0,0 +1,15 @@
+package com.stockpulse.consumernotificationservice.channel;
+
+import java.util.List;
+
+/**
+ * Delivers text messages through an SMS provider's bulk API. Implementations are expected to block until the
+ * provider accepted the messages and to throw on failure.
+ */
+public interface SmsTransport {
+    
+    void send(List<SmsMessage> messages);
+    
+    record SmsMessage(String phone, String text) {
+    }
+}
@@ -0,0 +1,69 @@
+package com.stockpulse.consumernotificationservice.channel;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.stockpulse.consumernotificationservice.config.NotificationProperties;
+import com.stockpulse.consumernotificationservice.model.ChannelAlert;
+import com.stockpulse.consumernotificationservice.model.User;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Webhook for downstream systems: every batch is POSTed to notification.channels.webhook-url as one JSON array
+ * with an entry per alert
+ */
+@Component
+public class WebhookChannel implements NotificationChannel {
+    
+    private final WebhookTransport webhookTransport;
+    private final ObjectMapper objectMapper;
+    private final NotificationProperties.Channel channelProperties;
+    private final String webhookUrl;
+    
+    public WebhookChannel(WebhookTransport webhookTransport, ObjectMapper objectMapper,
+                          NotificationProperties notificationProperties) {
+        this.webhookTransport = webhookTransport;
+        this.objectMapper = objectMapper;
+        this.channelProperties = notificationProperties.getChannels().getWebhook();
+        this.webhookUrl = notificationProperties.getChannels().getWebhookUrl();
+    }
+    
+    @Override
+    public String name() {
+        return "webhook";
+    }
+    
+    @Override
+    public NotificationProperties.Channel properties() {
+        return channelProperties;
+    }
+    
+    @Override
+    public boolean canDeliver(User user) {
+        return webhookUrl != null && !webhookUrl.isBlank();
+    }
+    
+    @Override
+    public List<Boolean> send(List<ChannelAlert> alerts) {
+        ArrayNode body = objectMapper.createArrayNode();
+        for (ChannelAlert alert : alerts) {
+            body.addObject()
+                    .put("wishlistId", alert.wishlist().getId())
+                    .put("userId", alert.user().getId())
+                    .put("stockId", alert.stock().getId())
+                    .put("symbol", alert.stock().getSymbol())
+                    .put("currentPrice", alert.stock().getCurrentPrice())
+                    .put("ruleType", alert.wishlist().getRuleType())
+                    .put("ruleValueInPercent", alert.wishlist().getRuleValueInPercent());
+        }
+        try {
+            webhookTransport.post(webhookUrl, objectMapper.writeValueAsBytes(body));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize webhook batch", e);
+        }
+        return Collections.nCopies(alerts.size(), true);
+    }
+}
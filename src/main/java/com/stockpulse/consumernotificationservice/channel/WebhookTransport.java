@@ -0,0 +1,10 @@
+package com.stockpulse.consumernotificationservice.channel;
+
+/**
+ * POSTs a JSON document to a webhook. Implementations are expected to block until the endpoint answered with
+ * a 2xx status and to throw otherwise.
+ */
+public interface WebhookTransport {
+    
+    void post(String url, byte[] jsonBody);
+}
@@ -0,0 +1,33 @@
+package com.stockpulse.consumernotificationservice.config;
+
+import com.stockpulse.consumernotificationservice.channel.SimulatedSmsTransport;
+import com.stockpulse.consumernotificationservice.channel.SimulatedWebhookTransport;
+import com.stockpulse.consumernotificationservice.channel.SmsTransport;
+import com.stockpulse.consumernotificationservice.channel.WebhookTransport;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class ChannelTransportConfig {
+    
+    /**
+     * Falls back to the simulated SMS provider until a real one (Twilio, SNS) is registered as an
+     * {@link SmsTransport} bean
+     */
+    @Bean
+    @ConditionalOnMissingBean(SmsTransport.class)
+    public SmsTransport simulatedSmsTransport(NotificationProperties notificationProperties) {
+        return new SimulatedSmsTransport(notificationProperties.getChannels().getSms().getSimulatedLatency());
+    }
+    
+    /**
+     * Falls back to the simulated webhook endpoint until an HTTP client is registered as a
+     * {@link WebhookTransport} bean
+     */
+    @Bean
+    @ConditionalOnMissingBean(WebhookTransport.class)
+    public WebhookTransport simulatedWebhookTransport(NotificationProperties notificationProperties) {
+        return new SimulatedWebhookTransport(notificationProperties.getChannels().getWebhook().getSimulatedLatency());
+    }
+}
@@ -0,0 +1,23 @@
+package com.stockpulse.consumernotificationservice.config;
+
+import com.stockpulse.consumernotificationservice.service.EmailTransport;
+import com.stockpulse.consumernotificationservice.service.SimulatedEmailTransport;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class EmailTransportConfig {
+    
+    /**
+     * Falls back to the simulated transport until a real provider (Spring Mail, SendGrid, SES) is registered
+     * as an {@link EmailTransport} bean
+     */
+    @Bean
+    @ConditionalOnMissingBean(EmailTransport.class)
+    public EmailTransport simulatedEmailTransport(NotificationProperties notificationProperties) {
+        NotificationProperties.Email email = notificationProperties.getEmail();
+        return new SimulatedEmailTransport(email.getSimulatedLatency(), email.getSimulatedThrottleRate(),
+                email.getSimulatedCapacity());
+    }
+}
@@ -0,0 +1,30 @@
+package com.stockpulse.consumernotificationservice.config;
+
+import com.stockpulse.consumernotificationservice.ConsumernotificationserviceApplication;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.stereotype.Controller;
+
+/**
+ * Which beans stay eager when spring.main.lazy-initialization is on (the "faststart" profile).
+ * Our own components are on the message path, so they, and everything they depend on, are created at startup
+ * and the first message does not pay for them. Controllers, repositories no component uses (e.g. the Mongo ones
+ * behind the load-test stand-in) and framework beans nothing on the message path needs, such as HATEOAS, are
+ * only created on first use.
+ */
+@Configuration
+public class LazyInitializationConfig {
+
+    private static final String BASE_PACKAGE = ConsumernotificationserviceApplication.class.getPackageName();
+    private static final String REPOSITORY_PACKAGE = BASE_PACKAGE + ".repository";
+
+    @Bean
+    static LazyInitializationExcludeFilter messagePathBeans() {
+        return (beanName, beanDefinition, beanType) -> beanType != null
+                && beanType.getPackageName().startsWith(BASE_PACKAGE)
+                && !beanType.getPackageName().startsWith(REPOSITORY_PACKAGE)
+                && !AnnotatedElementUtils.hasAnnotation(beanType, Controller.class);
+    }
+}
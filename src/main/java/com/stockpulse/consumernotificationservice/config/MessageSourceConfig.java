@@ -0,0 +1,31 @@
+package com.stockpulse.consumernotificationservice.config;
+
+import com.stockpulse.consumernotificationservice.ingress.InMemoryMessageSource;
+import com.stockpulse.consumernotificationservice.ingress.LocalMessageSource;
+import com.stockpulse.consumernotificationservice.ingress.SegmentLogMessageSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+@Configuration
+public class MessageSourceConfig {
+
+    /**
+     * The local source behind the publish endpoint (notification.ingress.type), created only with
+     * notification.ingress.enabled=true. Broker-backed sources are added by registering further
+     * {@link com.stockpulse.consumernotificationservice.ingress.MessageSource} beans.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "notification.ingress", name = "enabled", havingValue = "true")
+    public LocalMessageSource localMessageSource(NotificationProperties notificationProperties) throws IOException {
+        NotificationProperties.Ingress ingress = notificationProperties.getIngress();
+        return switch (ingress.getType()) {
+            case MEMORY -> new InMemoryMessageSource(ingress.getMemoryCapacity());
+            case SEGMENT_LOG -> SegmentLogMessageSource.open(Path.of(ingress.getDirectory()),
+                    (int) ingress.getSegmentSize().toBytes(), ingress.getMaxSize().toBytes(), ingress.getFlushInterval());
+        };
+    }
+}
@@ -0,0 +1,405 @@
+package com.stockpulse.consumernotificationservice.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * Tunables for the notification pipeline, bound from the "notification.*" properties
+ */
+@Data
+@ConfigurationProperties(prefix = "notification")
+public class NotificationProperties {
+
+    private Batch batch = new Batch();
+
+    private Execution execution = new Execution();
+
+    private Email email = new Email();
+
+    private Cache cache = new Cache();
+
+    private Templates templates = new Templates();
+
+    private Idempotency idempotency = new Idempotency();
+
+    private Retry retry = new Retry();
+
+    private DeadLetter deadLetter = new DeadLetter();
+
+    private Ingress ingress = new Ingress();
+
+    private LoadTest loadTest = new LoadTest();
+
+    private Events events = new Events();
+
+    private Digest digest = new Digest();
+
+    private Rules rules = new Rules();
+
+    private Ticks ticks = new Ticks();
+
+    private Reconciliation reconciliation = new Reconciliation();
+
+    private Intake intake = new Intake();
+
+    private Channels channels = new Channels();
+
+    /**
+     * Micro-batching of queue messages before they reach the processor
+     */
+    @Data
+    public static class Batch {
+
+        private boolean enabled = true;
+
+        private int maxSize = 500; // flush once this many messages are buffered
+
+        private Duration maxWait = Duration.ofMillis(50); // flush at the latest after this long
+
+        private int requestMaxInFlight = 1_000; // items of one /process-batch request processed at a time
+    }
+
+    /**
+     * Where each queue message is processed
+     */
+    @Data
+    public static class Execution {
+
+        private Mode mode = Mode.CALLER;
+
+        private int maxInFlight = 1000; // messages (or micro-batches) processed concurrently in VIRTUAL_THREAD mode
+
+        private int maxQueued = 10_000; // messages waiting for one of them; further messages are rejected
+
+        private Duration messageTimeout = Duration.ofSeconds(30); // processing is interrupted after this long
+
+        public enum Mode {
+            CALLER, // on the thread that delivered the message
+            VIRTUAL_THREAD // one virtual thread per message or micro-batch, bounded by max-in-flight
+        }
+    }
+
+    /**
+     * Email send stage and transport
+     */
+    @Data
+    public static class Email {
+
+        private int sendThreads = 32;
+
+        private int sendQueueCapacity = 10000; // callers send on their own thread once this is full
+
+        private Duration simulatedLatency = Duration.ofMillis(100); // delay of the simulated transport per email
+
+        private double simulatedThrottleRate = 0; // sends per second the simulated provider accepts; 0 never throttles
+
+        private int simulatedCapacity = 0; // concurrent sends the simulated provider serves at full speed; 0 unlimited
+
+        private Governor governor = new Governor();
+    }
+
+    /**
+     * Rate cap and adaptive concurrency limit in front of the email transport
+     */
+    @Data
+    public static class Governor {
+
+        private boolean enabled = true;
+
+        private double rate = 0; // sends per second; 0 leaves the rate uncapped
+
+        private double burst = 1; // sends allowed back to back before the rate applies
+
+        private int initialConcurrency = 8;
+
+        private int minConcurrency = 1;
+
+        private int maxConcurrency = 32; // sends beyond send-threads cannot be in flight anyway
+
+        private double backoffRatio = 0.9; // the limit is multiplied by this on an error, throttling or rising latency
+
+        private double latencyTolerance = 2.0; // latency has risen once the recent average exceeds the long-term one by this factor
+    }
+
+    /**
+     * In-process near-cache in front of user and stock lookups
+     */
+    @Data
+    public static class Cache {
+
+        private CacheSpec users = new CacheSpec(100_000, Duration.ofMinutes(10));
+
+        private CacheSpec stocks = new CacheSpec(10_000, Duration.ofSeconds(5)); // short TTL keeps currentPrice fresh
+
+        private CacheSpec rules = new CacheSpec(100_000, Duration.ofMinutes(10)); // compiled wishlist rules
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class CacheSpec {
+
+        private long maximumSize;
+
+        private Duration ttl; // entries expire this long after they were loaded
+    }
+
+    /**
+     * Notification subject/body templates
+     */
+    @Data
+    public static class Templates {
+
+        private String location = "notification-templates.properties"; // classpath resource
+    }
+
+    /**
+     * Window in which repeated deliveries of the same wishlist id are dropped
+     */
+    @Data
+    public static class Idempotency {
+
+        private boolean enabled = true;
+
+        private Duration window = Duration.ofSeconds(30);
+
+        private long maximumSize = 100_000; // ids tracked at once; the least recently used are forgotten first
+    }
+
+    /**
+     * Redelivery of messages that failed with a transient error, with exponential backoff and jitter
+     */
+    @Data
+    public static class Retry {
+
+        private boolean enabled = true;
+
+        private int maxAttempts = 5; // including the first delivery
+
+        private Duration initialBackoff = Duration.ofSeconds(1);
+
+        private Duration maxBackoff = Duration.ofMinutes(5);
+
+        private double multiplier = 2.0;
+
+        private double jitter = 0.2; // each backoff is randomly spread by up to this fraction either way
+
+        private Duration tickDuration = Duration.ofMillis(100); // timing wheel resolution
+
+        private int wheelSize = 512; // timing wheel buckets, rounded up to a power of two
+    }
+
+    /**
+     * Local dead-letter log for messages that failed permanently or ran out of retries
+     */
+    @Data
+    public static class DeadLetter {
+
+        private boolean enabled = true;
+
+        private String directory = "data/dead-letter";
+
+        private DataSize segmentSize = DataSize.ofMegabytes(16);
+
+        private double replayRate = 50; // records per second pushed back through the consumer on replay
+
+        private int replayBatchSize = 256; // records read from the log at a time during replay
+
+        private Duration replayTimeout = Duration.ofHours(1); // longest a replay streams, waiting for its retries included
+    }
+
+    /**
+     * Local message source that payloads are published to and that the consumer drains in batches
+     */
+    @Data
+    public static class Ingress {
+
+        private boolean enabled = false; // SEGMENT_LOG creates the directory and maps a segment at startup
+
+        private Type type = Type.SEGMENT_LOG;
+
+        private int memoryCapacity = 100_000; // payloads buffered by the MEMORY source
+
+        private String directory = "data/ingress";
+
+        private DataSize segmentSize = DataSize.ofMegabytes(64);
+
+        private DataSize maxSize = DataSize.ofGigabytes(4); // publishing is rejected once the log holds this much
+
+        private Duration flushInterval = Duration.ofSeconds(1); // force SEGMENT_LOG writes to disk this often; 0 only on shutdown
+
+        private int pollBatchSize = 500; // messages handed to the consumer at a time
+
+        private Duration pollTimeout = Duration.ofMillis(50); // wait for the first message of a batch at most this long
+
+        private int maxInFlightBatches = 4; // polled batches not yet acknowledged
+
+        public enum Type {
+            MEMORY, // bounded in-memory queue; unprocessed payloads are lost on restart
+            SEGMENT_LOG // memory-mapped segment log with an offset checkpoint; survives restarts
+        }
+    }
+
+    /**
+     * Synthetic alert storm run by the "loadtest" profile against an in-memory database stand-in
+     */
+    @Data
+    public static class LoadTest {
+
+        private int users = 10_000;
+
+        private int stocks = 2_000;
+
+        private int wishlists = 100_000;
+
+        private int messages = 200_000;
+
+        private int hotStocks = 20; // the first hotStocks stocks receive hot-stock-ratio of all messages
+
+        private double hotStockRatio = 0.5;
+
+        private double duplicateRatio = 0.1; // share of messages that repeat a recently sent wishlist id
+
+        private double invalidEmailRatio = 0.0; // share of users seeded with an unusable email
+
+        private double rate = 0; // messages per second; 0 sends as fast as max-in-flight allows
+
+        private int maxInFlight = 2_000; // messages submitted but not yet completed
+
+        private Duration databaseLatency = Duration.ZERO; // added to every repository call of the stand-in
+
+        private long seed = 42;
+
+        private boolean exitWhenDone = true;
+    }
+
+    /**
+     * Ring buffer of structured processing events that replaces per-message INFO logging
+     */
+    @Data
+    public static class Events {
+
+        private int capacity = 65_536; // events kept, rounded up to a power of two
+
+        private int queryLimit = 1_000; // events returned by /actuator/processingevents
+
+        private long logSampleRate = 0; // also log one in this many events at INFO; 0 turns sampling off
+    }
+
+    /**
+     * Per-user digest that coalesces the alerts of one user into a single email per window
+     */
+    @Data
+    public static class Digest {
+
+        private boolean enabled = false;
+
+        private Duration window = Duration.ofSeconds(10); // a digest is sent this long after its first alert
+
+        private int maxSize = 50; // a digest holding this many alerts is sent right away
+    }
+
+    /**
+     * Re-check of wishlist rules against the stock's current price before an alert is sent
+     */
+    @Data
+    public static class Rules {
+
+        private boolean verifyBeforeSend = true; // skip triggers whose rule the current price no longer meets
+    }
+
+    /**
+     * Price-tick ingestion backed by an in-memory index of wishlist trigger prices
+     */
+    @Data
+    public static class Ticks {
+
+        private boolean enabled = true;
+
+        private Duration rebuildInterval = Duration.ofMinutes(5); // full reload of the index; 0 loads it only at startup
+
+        private int pageSize = 1_000; // wishlists read from the cursor at a time during a reload
+    }
+
+    /**
+     * Periodic sweep over all active, unnotified wishlists that feeds the due ones into the pipeline
+     */
+    @Data
+    public static class Reconciliation {
+
+        private boolean enabled = false;
+
+        private Duration interval = Duration.ofMinutes(15); // between the end of one sweep and the start of the next
+
+        private int pageSize = 1_000; // wishlists read, priced and checked at a time
+
+        private int parallelism = 0; // rule-checking threads; 0 uses one per available processor
+
+        private double rate = 200; // due wishlists submitted per second; 0 submits as fast as max-in-flight allows
+
+        private int maxInFlight = 1_000; // submitted wishlists not yet processed
+
+        private String directory = "data/reconciliation"; // holds the progress of an unfinished sweep
+    }
+
+    /**
+     * Bounded intake queue and load shedding in front of the processor for REST intake
+     */
+    @Data
+    public static class Intake {
+
+        private boolean enabled = true;
+
+        private int highWatermark = 5_000; // queue depth at which new work is rejected; the queue never holds more
+
+        private int lowWatermark = 1_000; // ... until the queue has drained to this depth
+
+        private int maxInFlight = 1_000; // queued work processed at a time
+
+        private Duration retryAfter = Duration.ofSeconds(1); // sent as Retry-After with a 429
+    }
+
+    /**
+     * Notification channels an alert fans out to, each with its own queue and send pipeline
+     */
+    @Data
+    public static class Channels {
+
+        private Channel email = new Channel(true, true);
+
+        private Channel sms = new Channel(false, false);
+
+        private Channel webhook = new Channel(false, false);
+
+        private String webhookUrl; // alerts of the webhook channel are POSTed here as a JSON array per batch
+    }
+
+    @Data
+    @NoArgsConstructor
+    public static class Channel {
+
+        private boolean enabled;
+
+        private boolean required; // the wishlist is marked notified only once every required channel delivered
+
+        private int queueCapacity = 10_000; // alerts waiting for the channel; further alerts fail fast
+
+        private int batchSize = 100; // alerts handed to the channel's transport at a time
+
+        private Duration maxWait = Duration.ZERO; // wait for a batch to fill; with 0, batches only grow while all send threads are busy
+
+        private int concurrency = 4; // batches in flight at a time
+
+        private Duration simulatedLatency = Duration.ofMillis(100); // delay of the sms and webhook stand-in transports
+
+        public Channel(boolean enabled, boolean required) {
+            this.enabled = enabled;
+            this.required = required;
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.stockpulse.consumernotificationservice.consumer;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.stockpulse.consumernotificationservice.config.NotificationProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Drops wishlist ids that are already being processed, or were processed successfully within
+ * notification.idempotency.window, before they cause any Mongo I/O.
+ * Failed ids are released immediately so retries and redeliveries go through.
+ */
+@Component
+public class IdempotencyFilter {
+
+    private final boolean enabled;
+    private final ConcurrentMap<String, State> recentIds;
+    private final Counter droppedInFlight;
+    private final Counter droppedCompleted;
+
+    public IdempotencyFilter(NotificationProperties notificationProperties, MeterRegistry meterRegistry) {
+        NotificationProperties.Idempotency idempotency = notificationProperties.getIdempotency();
+        this.enabled = idempotency.isEnabled();
+
+        Cache<String, State> window = Caffeine.newBuilder()
+                .maximumSize(idempotency.getMaximumSize())
+                .expireAfterWrite(idempotency.getWindow())
+                .build();
+        this.recentIds = window.asMap();
+
+        this.droppedInFlight = Counter.builder("notification.idempotency.dropped")
+                .description("Duplicate wishlist ids dropped before processing")
+                .tag("state", "in_flight")
+                .register(meterRegistry);
+        this.droppedCompleted = Counter.builder("notification.idempotency.dropped")
+                .description("Duplicate wishlist ids dropped before processing")
+                .tag("state", "completed")
+                .register(meterRegistry);
+        Gauge.builder("notification.idempotency.window.size", window, Cache::estimatedSize)
+                .description("Wishlist ids currently tracked by the idempotency window")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Claim the id for processing
+     * @return false if the id is a duplicate and should be dropped
+     */
+    public boolean tryAcquire(String wishlistId) {
+        if (!enabled) {
+            return true;
+        }
+
+        State existing = recentIds.putIfAbsent(wishlistId, State.IN_FLIGHT);
+        if (existing == null) {
+            return true;
+        }
+        (existing == State.IN_FLIGHT ? droppedInFlight : droppedCompleted).increment();
+        return false;
+    }
+
+    /**
+     * Processing succeeded: keep dropping the id for the rest of the window
+     */
+    public void complete(String wishlistId) {
+        if (enabled) {
+            recentIds.put(wishlistId, State.COMPLETED);
+        }
+    }
+
+    /**
+     * Processing failed: let the next delivery of the id through
+     */
+    public void release(String wishlistId) {
+        if (enabled) {
+            recentIds.remove(wishlistId, State.IN_FLIGHT);
+        }
+    }
+
+    private enum State {
+        IN_FLIGHT,
+        COMPLETED
+    }
+}
\ No newline at end of file
@@ -0,0 +1,327 @@
+package com.stockpulse.consumernotificationservice.consumer;
+
+import com.stockpulse.consumernotificationservice.config.NotificationProperties;
+import com.stockpulse.consumernotificationservice.exception.IntakeSaturatedException;
+import com.stockpulse.consumernotificationservice.model.ProcessingResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded queue in front of the processor for work arriving over REST, with admission control.
+ * A dispatcher thread starts queued work on virtual threads, at most notification.intake.max-in-flight at a time.
+ *
+ * Once the queue holds notification.intake.high-watermark items, its bound, it is saturated: {@link #submit} rejects new
+ * work with an {@link IntakeSaturatedException}, callers that already hold admitted work (streamed batches)
+ * block in {@link #put}, and queue pollers wait in {@link #awaitAdmitting} before polling more. Admission resumes
+ * once the queue has drained to notification.intake.low-watermark, so a burst is shed at the edge instead of
+ * piling up on request threads.
+ *
+ * Time spent queued and time spent processing are recorded separately as notification.intake.wait and
+ * notification.intake.processing.
+ */
+@Slf4j
+@Component
+public class IntakeQueue {
+
+    private final QStacksConsumer qStacksConsumer;
+    private final QStacksMessageBatcher qStacksMessageBatcher;
+    private final NotificationProperties.Intake intakeProperties;
+    private final NotificationProperties.Batch batchProperties;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition admitting = lock.newCondition();
+    private final ArrayDeque<Intake<?>> queue = new ArrayDeque<>();
+    private boolean saturated; // guarded by lock
+
+    private final Semaphore inFlight;
+    private final ExecutorService workers = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("intake-worker-", 0).factory());
+    private final Thread dispatcher;
+    private volatile boolean running = true;
+
+    private final Timer waitTimer;
+    private final Timer processingTimer;
+    private final Counter rejectedCounter;
+
+    public IntakeQueue(QStacksConsumer qStacksConsumer, QStacksMessageBatcher qStacksMessageBatcher,
+                       NotificationProperties notificationProperties, MeterRegistry meterRegistry) {
+        this.qStacksConsumer = qStacksConsumer;
+        this.qStacksMessageBatcher = qStacksMessageBatcher;
+        this.intakeProperties = notificationProperties.getIntake();
+        this.batchProperties = notificationProperties.getBatch();
+
+        if (intakeProperties.getLowWatermark() < 0
+                || intakeProperties.getLowWatermark() >= intakeProperties.getHighWatermark()) {
+            throw new IllegalArgumentException("Intake watermarks must satisfy 0 <= low < high: "
+                    + intakeProperties.getLowWatermark() + ", " + intakeProperties.getHighWatermark());
+        }
+        this.inFlight = new Semaphore(Math.max(1, intakeProperties.getMaxInFlight()));
+
+        this.waitTimer = Timer.builder("notification.intake.wait")
+                .description("Time work spent in the intake queue before it started")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.processingTimer = Timer.builder("notification.intake.processing")
+                .description("Time from leaving the intake queue until the work completed")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("notification.intake.rejected")
+                .description("Work rejected because the intake queue was saturated")
+                .register(meterRegistry);
+        Gauge.builder("notification.intake.depth", this, IntakeQueue::size)
+                .description("Work waiting in the intake queue")
+                .register(meterRegistry);
+        Gauge.builder("notification.intake.saturated", this, intake -> intake.isSaturated() ? 1 : 0)
+                .description("1 while the intake queue sheds new work")
+                .register(meterRegistry);
+
+        this.dispatcher = new Thread(this::dispatchLoop, "intake-dispatcher");
+        this.dispatcher.setDaemon(true);
+        if (intakeProperties.isEnabled()) {
+            this.dispatcher.start();
+        }
+    }
+
+    /**
+     * Queue a message payload for processing, or reject it right away if the queue is saturated
+     * @return future completed with the message's result
+     * @throws IntakeSaturatedException if the queue is above its high watermark
+     */
+    public CompletableFuture<ProcessingResult> submitMessage(String messagePayload) {
+        return submit(() -> process(messagePayload));
+    }
+
+    /**
+     * Queue a message payload for processing, waiting while the queue is saturated
+     */
+    public CompletableFuture<ProcessingResult> putMessage(String messagePayload) throws InterruptedException {
+        return put(() -> process(messagePayload));
+    }
+
+    /**
+     * Queue a task, or reject it right away if the queue is saturated
+     * @throws IntakeSaturatedException if the queue is above its high watermark
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> task) {
+        if (!intakeProperties.isEnabled()) {
+            return runNow(task);
+        }
+        lock.lock();
+        try {
+            if (saturated) {
+                rejectedCounter.increment();
+                throw saturatedException();
+            }
+            return enqueue(task);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Queue a task, waiting while the queue is saturated
+     */
+    public <T> CompletableFuture<T> put(Callable<T> task) throws InterruptedException {
+        if (!intakeProperties.isEnabled()) {
+            return runNow(task);
+        }
+        lock.lockInterruptibly();
+        try {
+            while (saturated) {
+                admitting.await();
+            }
+            return enqueue(task);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Fail fast if new work would be rejected, e.g. before accepting a streamed batch
+     * @throws IntakeSaturatedException if the queue is above its high watermark
+     */
+    public void checkAdmitting() {
+        if (isSaturated()) {
+            rejectedCounter.increment();
+            throw saturatedException();
+        }
+    }
+
+    /**
+     * Wait until the queue admits new work; used by queue pollers to pause while it is saturated
+     * @return false if it is still saturated after the timeout
+     */
+    public boolean awaitAdmitting(Duration timeout) throws InterruptedException {
+        if (!intakeProperties.isEnabled()) {
+            return true;
+        }
+        long remaining = timeout.toNanos();
+        lock.lockInterruptibly();
+        try {
+            while (saturated) {
+                if (remaining <= 0) {
+                    return false;
+                }
+                remaining = admitting.awaitNanos(remaining);
+            }
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean isSaturated() {
+        lock.lock();
+        try {
+            return saturated;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Duration getRetryAfter() {
+        return intakeProperties.getRetryAfter();
+    }
+
+    /**
+     * Caller holds the lock
+     */
+    private <T> CompletableFuture<T> enqueue(Callable<T> task) {
+        if (!running) {
+            throw new RejectedExecutionException("Intake queue is shut down");
+        }
+        Intake<T> intake = new Intake<>(task, new CompletableFuture<>(), System.nanoTime());
+        queue.add(intake);
+        if (!saturated && queue.size() >= intakeProperties.getHighWatermark()) {
+            saturated = true;
+            log.warn("Intake queue saturated at {} items, shedding new work until it drains to {}",
+                    queue.size(), intakeProperties.getLowWatermark());
+        }
+        notEmpty.signal();
+        return intake.result();
+    }
+
+    private void dispatchLoop() {
+        while (running) {
+            try {
+                inFlight.acquire();
+                Intake<?> intake;
+                lock.lockInterruptibly();
+                try {
+                    while (queue.isEmpty()) {
+                        notEmpty.await();
+                    }
+                    intake = queue.poll();
+                    if (saturated && queue.size() <= intakeProperties.getLowWatermark()) {
+                        saturated = false;
+                        admitting.signalAll();
+                        log.info("Intake queue drained to {} items, admitting new work", queue.size());
+                    }
+                } catch (InterruptedException e) {
+                    inFlight.release();
+                    throw e;
+                } finally {
+                    lock.unlock();
+                }
+                workers.execute(() -> run(intake));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private <T> void run(Intake<T> intake) {
+        long start = System.nanoTime();
+        waitTimer.record(start - intake.enqueuedAt(), TimeUnit.NANOSECONDS);
+        try {
+            intake.result().complete(intake.task().call());
+        } catch (Throwable e) {
+            intake.result().completeExceptionally(e);
+        } finally {
+            processingTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            inFlight.release();
+        }
+    }
+
+    private <T> CompletableFuture<T> runNow(Callable<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        workers.execute(() -> {
+            try {
+                result.complete(task.call());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Runs on an intake worker: through the micro-batcher when batching is on, so concurrent intake still
+     * shares lookups
+     */
+    private ProcessingResult process(String messagePayload) {
+        if (batchProperties.isEnabled()) {
+            return qStacksMessageBatcher.submit(messagePayload).join();
+        }
+        return qStacksConsumer.submitQStacksMessage(messagePayload).join();
+    }
+
+    private IntakeSaturatedException saturatedException() {
+        return new IntakeSaturatedException("Intake queue is saturated, retry later", intakeProperties.getRetryAfter());
+    }
+
+    /**
+     * Fail work that never started instead of leaving its callers waiting
+     */
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        dispatcher.interrupt();
+        List<Intake<?>> remaining;
+        lock.lock();
+        try {
+            remaining = List.copyOf(queue);
+            queue.clear();
+            saturated = false;
+            admitting.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        for (Intake<?> intake : remaining) {
+            intake.result().completeExceptionally(new RejectedExecutionException("Intake queue is shut down"));
+        }
+        workers.shutdown();
+    }
+
+    private record Intake<T>(Callable<T> task, CompletableFuture<T> result, long enqueuedAt) {
+    }
+}
@@ -0,0 +1,159 @@
+package com.stockpulse.consumernotificationservice.consumer;
+
+import com.stockpulse.consumernotificationservice.config.NotificationProperties;
+import com.stockpulse.consumernotificationservice.ingress.MessageSource;
+import com.stockpulse.consumernotificationservice.ingress.SourceMessage;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Drains every {@link MessageSource} bean into {@link QStacksConsumer#submitQStacksMessages}, one polling
+ * thread per source. Up to notification.ingress.max-in-flight-batches polled batches are processed at once,
+ * but offsets are acknowledged strictly in poll order, so a restart never skips a message whose batch was
+ * overtaken by a later one. A batch is acknowledged only once it has settled: every message has succeeded,
+ * been skipped or been dead-lettered. Retries live in memory, so a batch waiting for one holds back the
+ * acknowledgement and a crash redelivers it; it no longer counts against max-in-flight-batches meanwhile.
+ * Polling pauses while the {@link IntakeQueue} is saturated, so queued sources back off together with REST intake.
+ */
+@Slf4j
+@Component
+public class MessageSourcePoller {
+
+    private static final Duration SHUTDOWN_DRAIN_TIMEOUT = Duration.ofSeconds(30);
+
+    private final List<MessageSource> messageSources;
+    private final QStacksConsumer qStacksConsumer;
+    private final IntakeQueue intakeQueue;
+    private final NotificationProperties.Ingress ingressProperties;
+    private final List<Thread> pollingThreads = new ArrayList<>();
+
+    private volatile boolean running;
+
+    public MessageSourcePoller(List<MessageSource> messageSources, QStacksConsumer qStacksConsumer,
+                               IntakeQueue intakeQueue, NotificationProperties notificationProperties,
+                               MeterRegistry meterRegistry) {
+        this.messageSources = messageSources;
+        this.qStacksConsumer = qStacksConsumer;
+        this.intakeQueue = intakeQueue;
+        this.ingressProperties = notificationProperties.getIngress();
+
+        for (MessageSource source : messageSources) {
+            Gauge.builder("notification.ingress.backlog", source, MessageSource::backlog)
+                    .description("Messages waiting to be polled from the source")
+                    .tag("source", source.name())
+                    .register(meterRegistry);
+        }
+    }
+
+    /**
+     * Start polling once the application is ready to process messages
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        for (MessageSource source : messageSources) {
+            Thread thread = new Thread(() -> pollLoop(source), "qstacks-poller-" + source.name());
+            thread.setDaemon(true);
+            thread.start();
+            pollingThreads.add(thread);
+            log.info("Polling QStacks messages from {} source", source.name());
+        }
+    }
+
+    private void pollLoop(MessageSource source) {
+        Semaphore inFlightBatches = new Semaphore(Math.max(1, ingressProperties.getMaxInFlightBatches()));
+        CompletableFuture<Void> acknowledged = CompletableFuture.completedFuture(null);
+
+        while (running) {
+            try {
+                if (!intakeQueue.awaitAdmitting(ingressProperties.getPollTimeout())) {
+                    continue;
+                }
+                inFlightBatches.acquire();
+                List<SourceMessage> messages = source.poll(ingressProperties.getPollBatchSize(),
+                        ingressProperties.getPollTimeout());
+                if (messages.isEmpty()) {
+                    inFlightBatches.release();
+                    continue;
+                }
+
+                long nextOffset = messages.getLast().nextOffset();
+                List<String> payloads = messages.stream().map(SourceMessage::payload).toList();
+                CompletableFuture<Void> batchSettled = new CompletableFuture<>();
+                qStacksConsumer.submitQStacksMessages(payloads, batchSettled)
+                        .whenComplete((results, e) -> inFlightBatches.release());
+                CompletableFuture<Void> settled = batchSettled.handle((ignored, e) -> {
+                    if (e != null) {
+                        log.error("Unexpected error processing batch of {} messages from {} source",
+                                payloads.size(), source.name(), e);
+                    }
+                    return null;
+                });
+                acknowledged = acknowledged.thenCombine(settled, (previous, current) -> {
+                    acknowledge(source, nextOffset);
+                    return null;
+                });
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (RuntimeException e) {
+                inFlightBatches.release();
+                log.error("Failed to poll {} source", source.name(), e);
+            }
+        }
+
+        // let the batches still in flight settle and acknowledge their offsets before the source is closed
+        long deadline = System.nanoTime() + SHUTDOWN_DRAIN_TIMEOUT.toNanos();
+        try {
+            if (!inFlightBatches.tryAcquire(Math.max(1, ingressProperties.getMaxInFlightBatches()),
+                    SHUTDOWN_DRAIN_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS)) {
+                log.warn("Stopped polling {} source with batches still in flight", source.name());
+            }
+            acknowledged.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            log.warn("Stopped polling {} source with batches waiting for retries, they are delivered again on restart",
+                    source.name());
+        } catch (ExecutionException e) {
+            log.error("Failed to acknowledge {} source on shutdown", source.name(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * A failed acknowledgement is only logged: the next batch acknowledges a later offset, and after a restart
+     * the unacknowledged messages are delivered again
+     */
+    private void acknowledge(MessageSource source, long offset) {
+        try {
+            source.acknowledge(offset);
+        } catch (RuntimeException e) {
+            log.error("Failed to acknowledge offset {} of {} source", offset, source.name(), e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        for (Thread thread : pollingThreads) {
+            thread.join();
+        }
+    }
+}
@@ -1,13 +1,30 @@
 package com.stockpulse.consumernotificationservice.consumer;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stockpulse.consumernotificationservice.config.NotificationProperties;
+import com.stockpulse.consumernotificationservice.deadletter.DeadLetterLog;
+import com.stockpulse.consumernotificationservice.events.ProcessingEventRecorder;
+import com.stockpulse.consumernotificationservice.events.ProcessingEventRecorder.Outcome;
+import com.stockpulse.consumernotificationservice.events.ProcessingEventRecorder.Stage;
+import com.stockpulse.consumernotificationservice.exception.TransientProcessingException;
 import com.stockpulse.consumernotificationservice.exception.WishlistProcessingException;
+import com.stockpulse.consumernotificationservice.model.ProcessingResult;
 import com.stockpulse.consumernotificationservice.model.QStacksMessage;
+import com.stockpulse.consumernotificationservice.retry.FailureClassifier;
+import com.stockpulse.consumernotificationservice.retry.RetryScheduler;
 import com.stockpulse.consumernotificationservice.service.WishlistNotificationProcessor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+
 /**
  * QStacks Queue Consumer for processing wishlist notification messages
  * Queue name: QStacks
@@ -18,15 +35,45 @@ import org.springframework.stereotype.Component;
 @RequiredArgsConstructor
 public class QStacksConsumer {
     
+    private static final String DUPLICATE = "duplicate";
+    
     private final WishlistNotificationProcessor wishlistNotificationProcessor;
-    private final ObjectMapper objectMapper;
+    private final QStacksPayloadDecoder qStacksPayloadDecoder;
+    private final IdempotencyFilter idempotencyFilter;
+    private final VirtualThreadMessageExecutor virtualThreadMessageExecutor;
+    private final NotificationProperties notificationProperties;
+    private final RetryScheduler retryScheduler;
+    private final DeadLetterLog deadLetterLog;
+    private final ProcessingEventRecorder processingEventRecorder;
     
     /**
      * Generic message consumer method for QStacks queue
      * Adapt this for your specific queue system (RabbitMQ, Kafka, SQS, etc.)
      */
-    public void consumeQStacksMessage(String messagePayload) {
-        log.info("Received QStacks message: {}", messagePayload);
+    public ProcessingResult consumeQStacksMessage(String messagePayload) {
+        return consumeQStacksMessage(messagePayload, new CompletableFuture<>());
+    }
+    
+    private ProcessingResult consumeQStacksMessage(String messagePayload, CompletableFuture<Void> settled) {
+        return await(messagePayload, consumeQStacksMessageAsync(messagePayload, 1, settled));
+    }
+    
+    /**
+     * Non-blocking variant of {@link #consumeQStacksMessage}: returns once the message is handed to the email send stage.
+     * The future never completes exceptionally; failures are reported in the result.
+     */
+    public CompletableFuture<ProcessingResult> consumeQStacksMessageAsync(String messagePayload) {
+        return consumeQStacksMessageAsync(messagePayload, 1, new CompletableFuture<>());
+    }
+    
+    /**
+     * @param attempt 1 for the first delivery, incremented by each retry
+     * @param settled completed once the message succeeded, was skipped or was dead-lettered, retries included
+     */
+    private CompletableFuture<ProcessingResult> consumeQStacksMessageAsync(String messagePayload, int attempt,
+                                                                          CompletableFuture<Void> settled) {
+        log.debug("Received QStacks message (attempt {}): {}", attempt, messagePayload);
+        long start = System.nanoTime();
         
         try {
             // Parse the message payload
@@ -35,21 +82,229 @@ public class QStacksConsumer {
             // Validate the message
             validateMessage(qStacksMessage);
             
-            // Process the wishlist notification
-            wishlistNotificationProcessor.processWishlistNotification(qStacksMessage);
-            
-            log.info("Successfully processed QStacks message: {}", qStacksMessage.getId());
+            // Drop redeliveries of an id that is in flight or was just processed
+            String wishlistId = qStacksMessage.getId();
+            if (!idempotencyFilter.tryAcquire(wishlistId)) {
+                log.debug("Dropping duplicate QStacks message: {}", wishlistId);
+                processingEventRecorder.record(wishlistId, Stage.DEDUPLICATE, Outcome.SKIPPED, 0, DUPLICATE);
+                settled.complete(null);
+                return CompletableFuture.completedFuture(ProcessingResult.skipped(wishlistId, DUPLICATE));
+            }
             
-        } catch (WishlistProcessingException e) {
-            log.error("Business logic error processing QStacks message: {}", messagePayload, e);
-            // Handle business logic errors - might want to send to dead letter queue
-            handleBusinessError(messagePayload, e);
+            // Process the wishlist notification
+            return wishlistNotificationProcessor.processWishlistNotificationAsync(qStacksMessage)
+                    .handle((result, e) -> {
+                        if (e != null) {
+                            idempotencyFilter.release(wishlistId);
+                            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                            ProcessingResult failure = ProcessingResult.failure(wishlistId, cause);
+                            recordProcessed(wishlistId, failure, start);
+                            handleFailure(messagePayload, cause, attempt, settled);
+                            return failure;
+                        }
+                        idempotencyFilter.complete(wishlistId);
+                        retryScheduler.recordSucceeded(attempt);
+                        settled.complete(null);
+                        recordProcessed(wishlistId, result, start);
+                        log.debug("Successfully processed QStacks message: {}", wishlistId);
+                        return result;
+                    });
             
         } catch (Exception e) {
-            log.error("Unexpected error processing QStacks message: {}", messagePayload, e);
-            // Handle unexpected errors - might want to retry or alert
-            handleUnexpectedError(messagePayload, e);
+            ProcessingResult failure = ProcessingResult.failure(messagePayload, e);
+            recordProcessed(messagePayload, failure, start);
+            handleFailure(messagePayload, e, attempt, settled);
+            return CompletableFuture.completedFuture(failure);
+        }
+    }
+    
+    /**
+     * Batch consumer method for QStacks queue.
+     * Lookups and the notified update are shared across the batch, but every message gets its own result.
+     * @return one result per payload, in input order
+     */
+    public List<ProcessingResult> consumeQStacksMessages(List<String> messagePayloads) {
+        return consumeQStacksMessages(messagePayloads, unsettled(messagePayloads.size()));
+    }
+    
+    private List<ProcessingResult> consumeQStacksMessages(List<String> messagePayloads,
+                                                          List<CompletableFuture<Void>> settled) {
+        try {
+            return consumeQStacksMessagesAsync(messagePayloads, settled).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            WishlistProcessingException error = new WishlistProcessingException("Interrupted while processing QStacks batch", e);
+            return messagePayloads.stream().map(payload -> ProcessingResult.failure(payload, error)).toList();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("QStacks batch future failed", e.getCause());
+        }
+    }
+    
+    /**
+     * Non-blocking variant of {@link #consumeQStacksMessages}: the next batch can be looked up while
+     * this batch's emails are still being sent
+     */
+    public CompletableFuture<List<ProcessingResult>> consumeQStacksMessagesAsync(List<String> messagePayloads) {
+        return consumeQStacksMessagesAsync(messagePayloads, unsettled(messagePayloads.size()));
+    }
+    
+    /**
+     * @param settled one future per payload, completed once that message reached its final outcome
+     */
+    private CompletableFuture<List<ProcessingResult>> consumeQStacksMessagesAsync(List<String> messagePayloads,
+                                                                                 List<CompletableFuture<Void>> settled) {
+        log.info("Received batch of {} QStacks messages", messagePayloads.size());
+        long start = System.nanoTime();
+        
+        ProcessingResult[] results = new ProcessingResult[messagePayloads.size()];
+        List<QStacksMessage> validMessages = new ArrayList<>(messagePayloads.size());
+        List<Integer> validPositions = new ArrayList<>(messagePayloads.size());
+        
+        for (int i = 0; i < messagePayloads.size(); i++) {
+            String messagePayload = messagePayloads.get(i);
+            try {
+                QStacksMessage qStacksMessage = parseMessage(messagePayload);
+                validateMessage(qStacksMessage);
+                if (!idempotencyFilter.tryAcquire(qStacksMessage.getId())) {
+                    log.debug("Dropping duplicate QStacks message: {}", qStacksMessage.getId());
+                    processingEventRecorder.record(qStacksMessage.getId(), Stage.DEDUPLICATE, Outcome.SKIPPED, 0, DUPLICATE);
+                    results[i] = ProcessingResult.skipped(qStacksMessage.getId(), DUPLICATE);
+                    settled.get(i).complete(null);
+                    continue;
+                }
+                validMessages.add(qStacksMessage);
+                validPositions.add(i);
+            } catch (Exception e) {
+                results[i] = ProcessingResult.failure(messagePayload, e);
+                recordProcessed(messagePayload, results[i], start);
+                handleFailure(messagePayload, e, 1, settled.get(i));
+            }
+        }
+        
+        if (validMessages.isEmpty()) {
+            return CompletableFuture.completedFuture(Arrays.asList(results));
+        }
+        
+        return wishlistNotificationProcessor.processWishlistNotificationsAsync(validMessages)
+                .thenApply(processed -> {
+                    for (int j = 0; j < processed.size(); j++) {
+                        int position = validPositions.get(j);
+                        ProcessingResult result = processed.get(j);
+                        recordProcessed(validMessages.get(j).getId(), result, start);
+                        if (result.isSuccess()) {
+                            idempotencyFilter.complete(validMessages.get(j).getId());
+                            settled.get(position).complete(null);
+                        } else {
+                            idempotencyFilter.release(validMessages.get(j).getId());
+                            handleFailure(messagePayloads.get(position), result.getCause(), 1, settled.get(position));
+                        }
+                        results[position] = result;
+                    }
+                    log.info("Processed batch of {} QStacks messages", messagePayloads.size());
+                    return Arrays.asList(results);
+                });
+    }
+    
+    /**
+     * Consume a message using the configured execution mode (notification.execution.mode).
+     * In CALLER mode the message is processed before this method returns; in VIRTUAL_THREAD mode
+     * it is processed on its own virtual thread and the future completes when it is done or timed out.
+     * A message rejected by a saturated executor is handed to the retry scheduler like any transient failure.
+     * The future never completes exceptionally.
+     */
+    public CompletableFuture<ProcessingResult> submitQStacksMessage(String messagePayload) {
+        return submitQStacksMessage(messagePayload, new CompletableFuture<>());
+    }
+    
+    /**
+     * Variant of {@link #submitQStacksMessage} for callers that need the final outcome of a message that is retried
+     * @param settled completed once the message succeeded, was skipped or was dead-lettered, retries included,
+     *                or exceptionally if it failed unexpectedly
+     */
+    public CompletableFuture<ProcessingResult> submitQStacksMessage(String messagePayload,
+                                                                    CompletableFuture<Void> settled) {
+        if (isCallerMode()) {
+            return CompletableFuture.completedFuture(consumeQStacksMessage(messagePayload, settled));
+        }
+        
+        return virtualThreadMessageExecutor.submit(() -> consumeQStacksMessage(messagePayload, settled))
+                .exceptionally(e -> executionFailure(messagePayload, e, settled));
+    }
+    
+    /**
+     * Batch variant of {@link #submitQStacksMessage}: in CALLER mode the batch's lookups run on the calling
+     * thread, in VIRTUAL_THREAD mode the whole batch runs on one virtual thread and counts as one in flight
+     * @return one result per payload, in input order; the future never completes exceptionally
+     */
+    public CompletableFuture<List<ProcessingResult>> submitQStacksMessages(List<String> messagePayloads) {
+        return submitQStacksMessages(messagePayloads, unsettled(messagePayloads.size()));
+    }
+    
+    /**
+     * Variant of {@link #submitQStacksMessages} for sources that acknowledge what they delivered.
+     * The batch settles once every message has succeeded, been skipped or been dead-lettered, so a message still
+     * waiting for a retry is not acknowledged and is delivered again after a crash.
+     * @param batchSettled completed once the batch has settled, or exceptionally if the batch failed unexpectedly
+     */
+    public CompletableFuture<List<ProcessingResult>> submitQStacksMessages(List<String> messagePayloads,
+                                                                          CompletableFuture<Void> batchSettled) {
+        List<CompletableFuture<Void>> settled = unsettled(messagePayloads.size());
+        CompletableFuture<List<ProcessingResult>> results = submitQStacksMessages(messagePayloads, settled);
+        results.thenCompose(ignored -> CompletableFuture.allOf(settled.toArray(CompletableFuture[]::new)))
+                .whenComplete((ignored, e) -> {
+                    if (e != null) {
+                        batchSettled.completeExceptionally(e);
+                    } else {
+                        batchSettled.complete(null);
+                    }
+                });
+        return results;
+    }
+    
+    private CompletableFuture<List<ProcessingResult>> submitQStacksMessages(List<String> messagePayloads,
+                                                                           List<CompletableFuture<Void>> settled) {
+        if (isCallerMode()) {
+            return consumeQStacksMessagesAsync(messagePayloads, settled);
+        }
+        
+        return virtualThreadMessageExecutor.submit(() -> consumeQStacksMessages(messagePayloads, settled))
+                .exceptionally(e -> {
+                    List<ProcessingResult> results = new ArrayList<>(messagePayloads.size());
+                    for (int i = 0; i < messagePayloads.size(); i++) {
+                        results.add(executionFailure(messagePayloads.get(i), e, settled.get(i)));
+                    }
+                    return results;
+                });
+    }
+    
+    private static List<CompletableFuture<Void>> unsettled(int messages) {
+        List<CompletableFuture<Void>> settled = new ArrayList<>(messages);
+        for (int i = 0; i < messages; i++) {
+            settled.add(new CompletableFuture<>());
+        }
+        return settled;
+    }
+    
+    private boolean isCallerMode() {
+        return notificationProperties.getExecution().getMode() == NotificationProperties.Execution.Mode.CALLER;
+    }
+    
+    /**
+     * A message that did not complete on its virtual thread. A timed-out message keeps being processed and
+     * reports its own outcome; a rejected one never started, so it is retried. Any other failure settles it as failed.
+     */
+    private ProcessingResult executionFailure(String messagePayload, Throwable e, CompletableFuture<Void> settled) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof RejectedExecutionException) {
+            TransientProcessingException rejected = new TransientProcessingException(cause.getMessage(), cause);
+            handleFailure(messagePayload, rejected, 1, settled);
+            return ProcessingResult.failure(messagePayload, rejected);
+        }
+        log.error("QStacks message did not complete on virtual thread: {}", messagePayload, cause);
+        if (!(cause instanceof TimeoutException)) {
+            settled.completeExceptionally(cause);
         }
+        return ProcessingResult.failure(messagePayload, cause);
     }
     
     /**
@@ -83,88 +338,149 @@ public class QStacksConsumer {
     */
     
     /**
-     * Parse JSON message to QStacksMessage object
+     * Parse JSON message to QStacksMessage object (package-private for QStacksMessageBenchmark)
      */
-    private QStacksMessage parseMessage(String messagePayload) {
+    QStacksMessage parseMessage(String messagePayload) {
         try {
-            return objectMapper.readValue(messagePayload, QStacksMessage.class);
-        } catch (Exception e) {
+            return qStacksPayloadDecoder.decode(messagePayload);
+        } catch (WishlistProcessingException e) {
             log.error("Failed to parse QStacks message: {}", messagePayload, e);
-            throw new WishlistProcessingException("Invalid message format: " + messagePayload, e);
+            throw e;
         }
     }
     
     /**
-     * Validate QStacks message
+     * Validate QStacks message (package-private for QStacksMessageBenchmark)
      */
-    private void validateMessage(QStacksMessage message) {
+    void validateMessage(QStacksMessage message) {
         if (message == null) {
             throw new WishlistProcessingException("QStacks message is null");
         }
         
-        if (message.getId() == null || message.getId().trim().isEmpty()) {
+        if (message.getId() == null || message.getId().isBlank()) {
             throw new WishlistProcessingException("QStacks message ID is null or empty");
         }
         
-        if (!message.getId().contains("::")) {
-            throw new WishlistProcessingException("Invalid QStacks message ID format. Expected format: 'userId::stockId', got: " + message.getId());
-        }
-        
+        // The user ID is only parsed when the id contains the "::" separator
         String userId = message.getUserId();
         String stockId = message.getStockId();
         
-        if (userId == null || userId.trim().isEmpty()) {
+        if (userId == null) {
+            throw new WishlistProcessingException("Invalid QStacks message ID format. Expected format: 'userId::stockId', got: " + message.getId());
+        }
+        
+        if (userId.isBlank()) {
             throw new WishlistProcessingException("User ID is null or empty in message: " + message.getId());
         }
         
-        if (stockId == null || stockId.trim().isEmpty()) {
+        if (stockId == null || stockId.isBlank()) {
             throw new WishlistProcessingException("Stock ID is null or empty in message: " + message.getId());
         }
         
-        log.info("QStacks message validated successfully - Wishlist ID: {}, User ID: {}, Stock ID: {}", 
+        log.debug("QStacks message validated successfully - Wishlist ID: {}, User ID: {}, Stock ID: {}", 
                 message.getId(), userId, stockId);
     }
     
     /**
-     * Handle business logic errors
+     * Wait for a single message's result; an interrupt (e.g. a virtual-thread timeout) is reported as a failure
      */
-    private void handleBusinessError(String messagePayload, WishlistProcessingException e) {
+    private ProcessingResult await(String messagePayload, CompletableFuture<ProcessingResult> result) {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return ProcessingResult.failure(messagePayload,
+                    new WishlistProcessingException("Interrupted while processing QStacks message", e));
+        } catch (ExecutionException e) {
+            return ProcessingResult.failure(messagePayload, e.getCause());
+        }
+    }
+    
+    /**
+     * Wait for a directly processed message on its virtual thread, rethrowing what it failed with
+     */
+    private static void awaitDirect(CompletableFuture<ProcessingResult> result) {
+        try {
+            result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TransientProcessingException("Interrupted while processing QStacks message", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw FailureClassifier.wrap("QStacks message did not complete on virtual thread", e.getCause());
+        }
+    }
+    
+    /**
+     * Route a failed message to the matching error handler: permanent business errors are not retried,
+     * transient and unexpected errors are. The settled future completes once the message is dead-lettered,
+     * or with the outcome of its last retry.
+     */
+    private void handleFailure(String messagePayload, Throwable e, int attempt, CompletableFuture<Void> settled) {
+        if (e instanceof WishlistProcessingException wishlistProcessingException && !FailureClassifier.isRetryable(e)) {
+            log.error("Business logic error processing QStacks message: {}", messagePayload, e);
+            // Handle business logic errors - might want to send to dead letter queue
+            retryScheduler.recordPermanentFailure(attempt);
+            handleBusinessError(messagePayload, wishlistProcessingException, attempt);
+            settled.complete(null);
+        } else {
+            log.error("Transient or unexpected error processing QStacks message: {}", messagePayload, e);
+            handleUnexpectedError(messagePayload, e, attempt, settled);
+        }
+    }
+    
+    /**
+     * Handle business logic errors: the message goes to the dead-letter log for manual review and replay
+     */
+    private void handleBusinessError(String messagePayload, WishlistProcessingException e, int attempt) {
         log.warn("Business error occurred, message might need manual intervention: {}", messagePayload);
-        
-        // TODO: Implement error handling strategy:
-        // 1. Send to dead letter queue for manual review
-        // 2. Store in error log table
-        // 3. Send alert to monitoring system
-        // 4. Update metrics
-        
-        // For now, just log the error
         log.error("Business error details: {}", e.getMessage());
+        
+        deadLetterLog.append(messagePayload, e, attempt);
+        processingEventRecorder.record(messagePayload, Stage.DEAD_LETTER, Outcome.OK, 0, e.getMessage());
     }
     
     /**
-     * Handle unexpected system errors
+     * Handle transient and unexpected system errors by redelivering the message with backoff; the retry scheduler
+     * records the retry event
      */
-    private void handleUnexpectedError(String messagePayload, Exception e) {
-        log.error("Unexpected error occurred, might need retry: {}", messagePayload);
-        
-        // TODO: Implement retry strategy:
-        // 1. Retry with exponential backoff
-        // 2. Send to dead letter queue after max retries
-        // 3. Alert monitoring system
-        // 4. Update metrics
+    private void handleUnexpectedError(String messagePayload, Throwable e, int attempt, CompletableFuture<Void> settled) {
+        if (retryScheduler.scheduleRetry(messagePayload, attempt,
+                nextAttempt -> consumeQStacksMessageAsync(messagePayload, nextAttempt, settled))) {
+            return;
+        }
         
-        // For now, just log the error
-        log.error("Unexpected error details: {}", e.getMessage());
+        log.error("Unexpected error details after {} attempts: {}", attempt, e.getMessage());
+        deadLetterLog.append(messagePayload, e, attempt);
+        processingEventRecorder.record(messagePayload, Stage.DEAD_LETTER, Outcome.OK, 0, e.getMessage());
+        settled.complete(null);
+    }
+    
+    /**
+     * Record the end-to-end event of a message that was received at the given System.nanoTime()
+     */
+    private void recordProcessed(String id, ProcessingResult result, long start) {
+        Outcome outcome = !result.isSuccess() ? Outcome.FAILED
+                : result.getSkipReason() != null ? Outcome.SKIPPED : Outcome.OK;
+        processingEventRecorder.record(id, Stage.PROCESS, outcome, System.nanoTime() - start,
+                result.isSuccess() ? result.getSkipReason() : result.getError());
     }
     
     /**
-     * Manual message processing for testing or direct invocation
+     * Manual message processing for testing or direct invocation, in the configured execution mode
      */
     public void processMessageDirectly(QStacksMessage qStacksMessage) {
         try {
             validateMessage(qStacksMessage);
-            wishlistNotificationProcessor.processWishlistNotification(qStacksMessage);
-            log.info("Direct processing completed successfully for: {}", qStacksMessage.getId());
+            if (isCallerMode()) {
+                wishlistNotificationProcessor.processWishlistNotification(qStacksMessage);
+            } else {
+                awaitDirect(virtualThreadMessageExecutor.submit(
+                        () -> wishlistNotificationProcessor.processWishlistNotification(qStacksMessage)));
+            }
+            log.debug("Direct processing completed successfully for: {}", qStacksMessage.getId());
         } catch (Exception e) {
             log.error("Direct processing failed for: {}", qStacksMessage.getId(), e);
             throw e;
@@ -0,0 +1,140 @@
+package com.stockpulse.consumernotificationservice.consumer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stockpulse.consumernotificationservice.config.NotificationProperties;
+import com.stockpulse.consumernotificationservice.model.ProcessingResult;
+import com.stockpulse.consumernotificationservice.model.QStacksMessage;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects QStacks messages into micro-batches and hands them to {@link QStacksConsumer#submitQStacksMessages}.
+ * A batch is flushed once it reaches notification.batch.max-size, or notification.batch.max-wait
+ * after its first message arrived, whichever comes first.
+ */
+@Slf4j
+@Component
+public class QStacksMessageBatcher {
+
+    private final QStacksConsumer qStacksConsumer;
+    private final ObjectMapper objectMapper;
+    private final NotificationProperties.Batch batchProperties;
+    private final ScheduledExecutorService flushScheduler;
+
+    private final Object lock = new Object();
+    private List<PendingMessage> pending = new ArrayList<>();
+    private long generation;
+
+    public QStacksMessageBatcher(QStacksConsumer qStacksConsumer, ObjectMapper objectMapper,
+                                 NotificationProperties notificationProperties) {
+        this.qStacksConsumer = qStacksConsumer;
+        this.objectMapper = objectMapper;
+        this.batchProperties = notificationProperties.getBatch();
+        this.flushScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "qstacks-batch-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Queue a message payload for the next batch
+     * @return future completed with the message's own result once its batch has been processed
+     */
+    public CompletableFuture<ProcessingResult> submit(String messagePayload) {
+        if (!batchProperties.isEnabled()) {
+            return qStacksConsumer.submitQStacksMessage(messagePayload);
+        }
+
+        PendingMessage message = new PendingMessage(messagePayload, new CompletableFuture<>());
+        List<PendingMessage> fullBatch = null;
+
+        synchronized (lock) {
+            pending.add(message);
+            if (pending.size() == 1) {
+                long batchGeneration = generation;
+                flushScheduler.schedule(() -> flush(batchGeneration),
+                        batchProperties.getMaxWait().toNanos(), TimeUnit.NANOSECONDS);
+            }
+            if (pending.size() >= batchProperties.getMaxSize()) {
+                fullBatch = drain();
+            }
+        }
+
+        if (fullBatch != null) {
+            dispatch(fullBatch);
+        }
+        return message.result();
+    }
+
+    /**
+     * Queue a message detected inside the service, e.g. by a price tick; its payload is serialized here,
+     * so ids with quotes or backslashes stay valid JSON
+     */
+    public CompletableFuture<ProcessingResult> submit(QStacksMessage message) {
+        return submit(objectMapper.createObjectNode().put("id", message.getId()).toString());
+    }
+
+    /**
+     * Time-window flush; skipped if the batch it was scheduled for has already been flushed by size
+     */
+    private void flush(long batchGeneration) {
+        List<PendingMessage> batch;
+        synchronized (lock) {
+            if (batchGeneration != generation || pending.isEmpty()) {
+                return;
+            }
+            batch = drain();
+        }
+        dispatch(batch);
+    }
+
+    private List<PendingMessage> drain() {
+        List<PendingMessage> batch = pending;
+        pending = new ArrayList<>();
+        generation++;
+        return batch;
+    }
+
+    /**
+     * Hand the batch to the consumer without waiting for its emails, so the next batch's lookups overlap
+     * with this batch's sends
+     */
+    private void dispatch(List<PendingMessage> batch) {
+        List<String> payloads = batch.stream().map(PendingMessage::payload).toList();
+        qStacksConsumer.submitQStacksMessages(payloads).whenComplete((results, e) -> {
+            if (e != null) {
+                log.error("Unexpected error processing batch of {} QStacks messages", batch.size(), e);
+                batch.forEach(message -> message.result().completeExceptionally(e));
+                return;
+            }
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result().complete(results.get(i));
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        List<PendingMessage> remaining;
+        synchronized (lock) {
+            remaining = drain();
+        }
+        if (!remaining.isEmpty()) {
+            log.info("Flushing {} buffered QStacks messages before shutdown", remaining.size());
+            dispatch(remaining);
+        }
+        flushScheduler.shutdown();
+    }
+
+    private record PendingMessage(String payload, CompletableFuture<ProcessingResult> result) {
+    }
+}
\ No newline at end of file
@@ -0,0 +1,80 @@
+package com.stockpulse.consumernotificationservice.consumer;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stockpulse.consumernotificationservice.exception.WishlistProcessingException;
+import com.stockpulse.consumernotificationservice.model.QStacksMessage;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.function.Consumer;
+
+/**
+ * Streaming decoder for the QStacks payload format { "id": "ABC::PQR" }.
+ * Reads the id token directly instead of binding the payload through ObjectMapper;
+ * fields other than "id" are skipped.
+ */
+@Component
+public class QStacksPayloadDecoder {
+
+    private static final String ID_FIELD = "id";
+
+    private final JsonFactory jsonFactory;
+
+    public QStacksPayloadDecoder(ObjectMapper objectMapper) {
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    /**
+     * Decode a single payload
+     */
+    public QStacksMessage decode(String messagePayload) {
+        try (JsonParser parser = jsonFactory.createParser(messagePayload)) {
+            return readMessage(parser, parser.nextToken());
+        } catch (IOException | RuntimeException e) {
+            throw invalidFormat(messagePayload, e);
+        }
+    }
+
+    /**
+     * Decode newline-delimited payloads, handing each message to the sink as soon as it is read
+     */
+    public void decodeAll(Reader payloads, Consumer<QStacksMessage> sink) {
+        try (JsonParser parser = jsonFactory.createParser(payloads)) {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                sink.accept(readMessage(parser, token));
+            }
+        } catch (IOException e) {
+            throw new WishlistProcessingException("Invalid message format in payload stream", e);
+        }
+    }
+
+    private QStacksMessage readMessage(JsonParser parser, JsonToken token) throws IOException {
+        if (token != JsonToken.START_OBJECT) {
+            throw new WishlistProcessingException("Expected a JSON object, got: " + token);
+        }
+
+        String id = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String fieldName = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (ID_FIELD.equals(fieldName)) {
+                if (value != JsonToken.VALUE_STRING && value != JsonToken.VALUE_NULL) {
+                    throw new WishlistProcessingException("Expected a string id, got: " + value);
+                }
+                id = parser.getValueAsString();
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return new QStacksMessage(id);
+    }
+
+    private static WishlistProcessingException invalidFormat(String messagePayload, Exception cause) {
+        return new WishlistProcessingException("Invalid message format: " + messagePayload, cause);
+    }
+}
\ No newline at end of file
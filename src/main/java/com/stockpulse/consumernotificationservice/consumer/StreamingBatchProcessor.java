@@ -0,0 +1,139 @@
+package com.stockpulse.consumernotificationservice.consumer;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stockpulse.consumernotificationservice.config.NotificationProperties;
+import com.stockpulse.consumernotificationservice.exception.WishlistProcessingException;
+import com.stockpulse.consumernotificationservice.model.ProcessingResult;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Processes a request body of many messages, either one JSON array or NDJSON (one message per line).
+ * The body is parsed one item at a time and every item is put on the {@link IntakeQueue} as soon as it is read,
+ * waiting while the queue is saturated, with at most notification.batch.request-max-in-flight items of a request
+ * unfinished at a time, so a request holds the same memory whether it carries ten ids or a million.
+ * Each result is reported as soon as its item completes, not in input order. Reports are serialized with a
+ * ReentrantLock rather than a monitor: the listener writes to the response, and a virtual thread blocked on
+ * that write inside synchronized would pin its carrier thread.
+ *
+ * An item is a QStacks message object, or a bare wishlist id string.
+ */
+@Slf4j
+@Component
+public class StreamingBatchProcessor {
+
+    private final IntakeQueue intakeQueue;
+    private final ObjectMapper objectMapper;
+    private final NotificationProperties.Batch batchProperties;
+
+    public StreamingBatchProcessor(IntakeQueue intakeQueue, ObjectMapper objectMapper,
+                                   NotificationProperties notificationProperties) {
+        this.intakeQueue = intakeQueue;
+        this.objectMapper = objectMapper;
+        this.batchProperties = notificationProperties.getBatch();
+    }
+
+    /**
+     * Process every item of the body, reporting each result to the listener; the listener is never called
+     * concurrently. Returns once every item has completed.
+     * @throws IOException if the body cannot be read or the listener failed to write a result; items already
+     * submitted still complete, unreported
+     */
+    public BatchSummary process(InputStream body, Consumer<ProcessingResult> listener) throws IOException, InterruptedException {
+        int maxInFlight = Math.max(1, batchProperties.getRequestMaxInFlight());
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        AtomicReference<RuntimeException> listenerFailure = new AtomicReference<>();
+        ReentrantLock listenerLock = new ReentrantLock();
+        AtomicLong succeeded = new AtomicLong();
+        AtomicLong skipped = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        long items = 0;
+
+        Consumer<ProcessingResult> report = result -> {
+            if (!result.isSuccess()) {
+                failed.incrementAndGet();
+            } else if (result.getSkipReason() != null) {
+                skipped.incrementAndGet();
+            } else {
+                succeeded.incrementAndGet();
+            }
+            listenerLock.lock();
+            try {
+                if (listenerFailure.get() != null) {
+                    return;
+                }
+                listener.accept(result);
+            } catch (RuntimeException e) {
+                listenerFailure.set(e);
+            } finally {
+                listenerLock.unlock();
+            }
+        };
+
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            JsonToken first = parser.nextToken();
+            boolean array = first == JsonToken.START_ARRAY;
+            JsonToken token = array ? parser.nextToken() : first;
+
+            while (token != null && token != JsonToken.END_ARRAY && listenerFailure.get() == null) {
+                JsonNode item = objectMapper.readTree(parser);
+                items++;
+                inFlight.acquire();
+                CompletableFuture<ProcessingResult> submitted;
+                try {
+                    submitted = submit(item);
+                } catch (InterruptedException | RuntimeException e) {
+                    inFlight.release();
+                    throw e;
+                }
+                submitted.whenComplete((result, e) -> {
+                    try {
+                        report.accept(result != null ? result : ProcessingResult.failure(item.toString(), e));
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+                token = parser.nextToken();
+            }
+        } finally {
+            // Let every submitted item finish before the response ends
+            inFlight.acquire(maxInFlight);
+        }
+
+        if (listenerFailure.get() != null) {
+            throw new IOException("Failed to report batch results", listenerFailure.get());
+        }
+        BatchSummary summary = new BatchSummary(items, succeeded.get(), skipped.get(), failed.get());
+        log.info("Processed request batch of {} items: {} succeeded, {} skipped, {} failed",
+                summary.items(), summary.succeeded(), summary.skipped(), summary.failed());
+        return summary;
+    }
+
+    private CompletableFuture<ProcessingResult> submit(JsonNode item) throws InterruptedException {
+        String payload;
+        if (item.isObject()) {
+            payload = item.toString();
+        } else if (item.isTextual()) {
+            payload = objectMapper.createObjectNode().put("id", item.asText()).toString();
+        } else {
+            return CompletableFuture.completedFuture(ProcessingResult.failure(item.toString(),
+                    new WishlistProcessingException("Batch item must be a message object or a wishlist id")));
+        }
+        return intakeQueue.putMessage(payload);
+    }
+
+    public record BatchSummary(long items, long succeeded, long skipped, long failed) {
+    }
+}
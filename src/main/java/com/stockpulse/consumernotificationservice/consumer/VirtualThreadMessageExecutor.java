@@ -0,0 +1,130 @@
+package com.stockpulse.consumernotificationservice.consumer;
+
+import com.stockpulse.consumernotificationservice.config.NotificationProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs each message on its own virtual thread.
+ * A semaphore caps the number of messages in flight; messages waiting for a permit are counted as queued, and
+ * once notification.execution.max-queued are waiting, further messages are rejected instead of parking yet
+ * another virtual thread.
+ * A message that runs longer than notification.execution.message-timeout is interrupted and its future fails
+ * with a {@link TimeoutException}.
+ */
+@Slf4j
+@Component
+public class VirtualThreadMessageExecutor {
+
+    private final ExecutorService virtualThreads = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("qstacks-vt-", 0).factory());
+    private final ScheduledExecutorService timeoutScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "qstacks-vt-timeouts");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Semaphore permits;
+    private final int maxInFlight;
+    private final int maxQueued;
+    private final Duration messageTimeout;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Counter rejected;
+
+    public VirtualThreadMessageExecutor(NotificationProperties notificationProperties, MeterRegistry meterRegistry) {
+        NotificationProperties.Execution execution = notificationProperties.getExecution();
+        this.permits = new Semaphore(execution.getMaxInFlight());
+        this.maxInFlight = execution.getMaxInFlight();
+        this.maxQueued = Math.max(0, execution.getMaxQueued());
+        this.messageTimeout = execution.getMessageTimeout();
+
+        Gauge.builder("notification.execution.in.flight", inFlight, AtomicInteger::get)
+                .description("Messages currently being processed on virtual threads")
+                .register(meterRegistry);
+        Gauge.builder("notification.execution.queued", queued, AtomicInteger::get)
+                .description("Messages waiting for an in-flight permit")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("notification.execution.rejected")
+                .description("Messages rejected because max-queued messages were already waiting")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Run the task on a new virtual thread once an in-flight permit is available
+     * @return future failed with a {@link RejectedExecutionException} if max-queued tasks are already waiting
+     */
+    public <T> CompletableFuture<T> submit(Callable<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        if (queued.incrementAndGet() + inFlight.get() > maxInFlight + maxQueued) {
+            queued.decrementAndGet();
+            rejected.increment();
+            result.completeExceptionally(new RejectedExecutionException(
+                    "Too many messages waiting for a virtual thread: " + maxQueued));
+            return result;
+        }
+
+        virtualThreads.execute(() -> {
+            try {
+                permits.acquire();
+            } catch (InterruptedException e) {
+                queued.decrementAndGet();
+                result.completeExceptionally(e);
+                return;
+            }
+            queued.decrementAndGet();
+            inFlight.incrementAndGet();
+
+            Thread worker = Thread.currentThread();
+            ScheduledFuture<?> timeout = timeoutScheduler.schedule(() -> {
+                if (result.completeExceptionally(new TimeoutException("Message processing timed out after " + messageTimeout))) {
+                    worker.interrupt();
+                }
+            }, messageTimeout.toNanos(), TimeUnit.NANOSECONDS);
+
+            try {
+                result.complete(task.call());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            } finally {
+                timeout.cancel(false);
+                inFlight.decrementAndGet();
+                permits.release();
+                Thread.interrupted(); // clear a timeout interrupt that arrived after the task finished
+            }
+        });
+
+        return result;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public int getQueued() {
+        return queued.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        virtualThreads.shutdown();
+        timeoutScheduler.shutdown();
+    }
+}
\ No newline at end of file
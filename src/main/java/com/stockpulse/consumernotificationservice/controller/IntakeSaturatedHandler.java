@@ -0,0 +1,26 @@
+package com.stockpulse.consumernotificationservice.controller;
+
+import com.stockpulse.consumernotificationservice.exception.IntakeSaturatedException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+
+/**
+ * Shared by every controller that admits work through the intake queue
+ */
+@RestControllerAdvice
+public class IntakeSaturatedHandler {
+
+    /**
+     * Shed load: the intake queue is saturated, tell the caller when to come back
+     */
+    @ExceptionHandler(IntakeSaturatedException.class)
+    public ResponseEntity<String> intakeSaturated(IntakeSaturatedException e) {
+        long retryAfterSeconds = Math.max(1, (e.getRetryAfter().toMillis() + 999) / 1000);
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds))
+                .body(e.getMessage());
+    }
+}
@@ -0,0 +1,131 @@
+package com.stockpulse.consumernotificationservice.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stockpulse.consumernotificationservice.config.NotificationProperties;
+import com.stockpulse.consumernotificationservice.consumer.IntakeQueue;
+import com.stockpulse.consumernotificationservice.model.PriceTick;
+import com.stockpulse.consumernotificationservice.model.Wishlist;
+import com.stockpulse.consumernotificationservice.tick.PriceTickProcessor;
+import com.stockpulse.consumernotificationservice.tick.ThresholdIndex;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * Price-tick ingestion: ticks are matched against the in-memory threshold index and crossed wishlists are
+ * fed into the notification pipeline. Also keeps the index current for wishlists created or changed upstream.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/api/price-ticks")
+@RequiredArgsConstructor
+public class PriceTickController {
+    
+    private final PriceTickProcessor priceTickProcessor;
+    private final ThresholdIndex thresholdIndex;
+    private final IntakeQueue intakeQueue;
+    private final ObjectMapper objectMapper;
+    private final NotificationProperties notificationProperties;
+    
+    /**
+     * Ingest one tick; rejected with 429 while the intake queue is saturated
+     */
+    @PostMapping
+    public ResponseEntity<TickResult> ingestTick(@RequestBody PriceTick tick) throws InterruptedException {
+        if (!notificationProperties.getTicks().isEnabled()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        intakeQueue.checkAdmitting();
+        try {
+            return ResponseEntity.ok(new TickResult(1, priceTickProcessor.onTick(tick), 0));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    /**
+     * Ingest a stream of ticks, one JSON object per line; malformed lines are counted and skipped.
+     * The stream is rejected with 429 if the intake queue is saturated when it arrives; once accepted, reading
+     * pauses while the queue is saturated.
+     */
+    @PostMapping(value = "/stream", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<TickResult> ingestTickStream(InputStream body) throws IOException, InterruptedException {
+        if (!notificationProperties.getTicks().isEnabled()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        intakeQueue.checkAdmitting();
+        
+        long ticks = 0;
+        long triggered = 0;
+        long rejected = 0;
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                triggered += priceTickProcessor.onTick(objectMapper.readValue(line, PriceTick.class));
+                ticks++;
+            } catch (JsonProcessingException | IllegalArgumentException e) {
+                rejected++;
+            }
+        }
+        if (rejected > 0) {
+            log.warn("Rejected {} malformed price ticks of a stream of {}", rejected, ticks + rejected);
+        }
+        return ResponseEntity.ok(new TickResult(ticks, triggered, rejected));
+    }
+    
+    /**
+     * Index a wishlist created or changed upstream
+     */
+    @PutMapping("/index/wishlists")
+    public ResponseEntity<String> upsertWishlist(@RequestBody Wishlist wishlist) {
+        if (wishlist.getId() == null || wishlist.getStockId() == null) {
+            return ResponseEntity.badRequest().body("Wishlist id and stockId are required");
+        }
+        return thresholdIndex.upsert(wishlist)
+                ? ResponseEntity.ok("Wishlist indexed: " + wishlist.getId())
+                : ResponseEntity.ok("Wishlist not watched (inactive, notified or rule not evaluable): " + wishlist.getId());
+    }
+    
+    /**
+     * Stop watching a deleted or notified wishlist
+     */
+    @DeleteMapping("/index/wishlists/{wishlistId}")
+    public ResponseEntity<String> removeWishlist(@PathVariable String wishlistId) {
+        thresholdIndex.remove(wishlistId);
+        return ResponseEntity.ok("Wishlist removed from index: " + wishlistId);
+    }
+    
+    /**
+     * Admin endpoint: reload the index from all active, unnotified wishlists
+     */
+    @PostMapping("/index/rebuild")
+    public ResponseEntity<Map<String, Integer>> rebuildIndex() {
+        int indexed = thresholdIndex.rebuild();
+        return ResponseEntity.ok(Map.of("wishlists", indexed, "stocks", thresholdIndex.stockCount()));
+    }
+    
+    @GetMapping("/index")
+    public ResponseEntity<Map<String, Integer>> indexStats() {
+        return ResponseEntity.ok(Map.of("wishlists", thresholdIndex.size(), "stocks", thresholdIndex.stockCount()));
+    }
+    
+    /**
+     * @param triggered wishlists whose threshold the ticks crossed
+     */
+    public record TickResult(long ticks, long triggered, long rejected) {
+    }
+}
@@ -1,11 +1,38 @@
 package com.stockpulse.consumernotificationservice.controller;
 
+import com.stockpulse.consumernotificationservice.cache.LookupCache;
+import com.stockpulse.consumernotificationservice.config.NotificationProperties;
+import com.stockpulse.consumernotificationservice.consumer.IntakeQueue;
 import com.stockpulse.consumernotificationservice.consumer.QStacksConsumer;
+import com.stockpulse.consumernotificationservice.consumer.StreamingBatchProcessor;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stockpulse.consumernotificationservice.deadletter.DeadLetterLog;
+import com.stockpulse.consumernotificationservice.deadletter.DeadLetterReplayer;
+import com.stockpulse.consumernotificationservice.ingress.LocalMessageSource;
+import com.stockpulse.consumernotificationservice.model.DeadLetterRecord;
+import com.stockpulse.consumernotificationservice.model.ProcessingResult;
 import com.stockpulse.consumernotificationservice.model.QStacksMessage;
+import com.stockpulse.consumernotificationservice.reconcile.ReconciliationSweep;
+import com.stockpulse.consumernotificationservice.storage.MappedSegmentLog;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * REST Controller for testing wishlist notification processing
@@ -17,6 +44,15 @@ import org.springframework.web.bind.annotation.*;
 public class WishlistNotificationController {
     
     private final QStacksConsumer qStacksConsumer;
+    private final StreamingBatchProcessor streamingBatchProcessor;
+    private final IntakeQueue intakeQueue;
+    private final LookupCache lookupCache;
+    private final DeadLetterLog deadLetterLog;
+    private final DeadLetterReplayer deadLetterReplayer;
+    private final ObjectMapper objectMapper;
+    private final ObjectProvider<LocalMessageSource> localMessageSource;
+    private final ReconciliationSweep reconciliationSweep;
+    private final NotificationProperties notificationProperties;
     
     /**
      * Health check endpoint
@@ -27,15 +63,19 @@ public class WishlistNotificationController {
     }
     
     /**
-     * Process QStacks message directly (for testing)
+     * Process QStacks message directly (for testing); rejected with 429 while the intake queue is saturated
      */
     @PostMapping("/process")
     public ResponseEntity<String> processWishlistNotification(@RequestBody QStacksMessage qStacksMessage) {
+        CompletableFuture<Void> processed = intakeQueue.submit(() -> {
+            qStacksConsumer.processMessageDirectly(qStacksMessage);
+            return null;
+        });
         try {
             log.info("Processing wishlist notification directly via REST API for wishlist ID: {}", 
                     qStacksMessage.getId());
             
-            qStacksConsumer.processMessageDirectly(qStacksMessage);
+            awaitIntake(processed);
             
             return ResponseEntity.ok("Wishlist notification processed successfully");
         } catch (Exception e) {
@@ -46,14 +86,16 @@ public class WishlistNotificationController {
     }
     
     /**
-     * Process QStacks message from JSON string (for testing queue message format)
+     * Process QStacks message from JSON string (for testing queue message format); rejected with 429 while the
+     * intake queue is saturated
      */
     @PostMapping("/process-json")
     public ResponseEntity<String> processWishlistNotificationFromJson(@RequestBody String jsonMessage) {
+        CompletableFuture<ProcessingResult> processed = intakeQueue.submitMessage(jsonMessage);
         try {
-            log.info("Processing wishlist notification from JSON: {}", jsonMessage);
+            log.debug("Processing wishlist notification from JSON: {}", jsonMessage);
             
-            qStacksConsumer.consumeQStacksMessage(jsonMessage);
+            awaitIntake(processed);
             
             return ResponseEntity.ok("Wishlist notification processed successfully from JSON");
         } catch (Exception e) {
@@ -63,19 +105,74 @@ public class WishlistNotificationController {
         }
     }
     
+    /**
+     * Process many QStacks messages, sent as one JSON array or as NDJSON, concurrently. The body is read
+     * incrementally and one NDJSON result line is streamed back per message as soon as it completes.
+     * A malformed body ends the stream with a failure line for the rest of it. The batch is rejected with 429 if
+     * the intake queue is saturated when it arrives; once accepted, reading pauses while the queue is saturated.
+     */
+    @PostMapping(value = "/process-batch",
+            consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> processWishlistNotificationBatch(InputStream body) {
+        intakeQueue.checkAdmitting();
+        StreamingResponseBody responseBody = outputStream -> {
+            try {
+                streamingBatchProcessor.process(body, result -> {
+                    try {
+                        writeResultLine(outputStream, result);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (JsonProcessingException e) {
+                log.warn("Stopped reading malformed batch body: {}", e.getOriginalMessage());
+                writeResultLine(outputStream, ProcessingResult.failure("body", e));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("Batch processing interrupted");
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(responseBody);
+    }
+    
+    /**
+     * Queue a QStacks message JSON for asynchronous processing; returns once it is stored in the local message source
+     */
+    @PostMapping("/enqueue")
+    public ResponseEntity<String> enqueueWishlistNotification(@RequestBody String jsonMessage) {
+        LocalMessageSource source = localMessageSource.getIfAvailable();
+        if (source == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Message ingress is disabled");
+        }
+        
+        try {
+            long offset = source.publish(jsonMessage);
+            return ResponseEntity.accepted().body("Wishlist notification queued at offset " + offset);
+        } catch (RejectedExecutionException e) {
+            log.warn("Rejected wishlist notification, {} message source is full", source.name());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+    
     /**
      * Test endpoint with sample wishlist ID
      */
     @GetMapping("/test/{wishlistId}")
     public ResponseEntity<String> testWishlistNotification(@PathVariable String wishlistId) {
+        QStacksMessage testMessage = QStacksMessage.builder()
+                .id(wishlistId)
+                .build();
+        CompletableFuture<Void> processed = intakeQueue.submit(() -> {
+            qStacksConsumer.processMessageDirectly(testMessage);
+            return null;
+        });
         try {
-            QStacksMessage testMessage = QStacksMessage.builder()
-                    .id(wishlistId)
-                    .build();
-            
             log.info("Testing wishlist notification for ID: {}", wishlistId);
             
-            qStacksConsumer.processMessageDirectly(testMessage);
+            awaitIntake(processed);
             
             return ResponseEntity.ok("Test wishlist notification processed successfully for ID: " + wishlistId);
         } catch (Exception e) {
@@ -84,4 +181,132 @@ public class WishlistNotificationController {
                     .body("Error in test: " + e.getMessage());
         }
     }
-}
\ No newline at end of file
+    
+    /**
+     * Admin endpoint: drop all cached users and stocks
+     */
+    @DeleteMapping("/admin/cache")
+    public ResponseEntity<String> invalidateCache() {
+        lookupCache.invalidateAll();
+        return ResponseEntity.ok("User and stock caches invalidated");
+    }
+    
+    /**
+     * Admin endpoint: drop one cached user, e.g. after an email change
+     */
+    @DeleteMapping("/admin/cache/users/{userId}")
+    public ResponseEntity<String> invalidateCachedUser(@PathVariable String userId) {
+        lookupCache.invalidateUser(userId);
+        return ResponseEntity.ok("Cached user invalidated: " + userId);
+    }
+    
+    /**
+     * Admin endpoint: drop one cached stock, e.g. after a price or name change
+     */
+    @DeleteMapping("/admin/cache/stocks/{stockId}")
+    public ResponseEntity<String> invalidateCachedStock(@PathVariable String stockId) {
+        lookupCache.invalidateStock(stockId);
+        return ResponseEntity.ok("Cached stock invalidated: " + stockId);
+    }
+    
+    /**
+     * Admin endpoint: list dead-lettered messages that have not been replayed yet
+     */
+    @GetMapping("/admin/dead-letters")
+    public ResponseEntity<List<DeadLetterRecord>> listDeadLetters(@RequestParam(defaultValue = "0") long fromOffset,
+                                                                  @RequestParam(defaultValue = "100") int limit) {
+        return ResponseEntity.ok(deadLetterLog.read(fromOffset, limit).records());
+    }
+    
+    /**
+     * Admin endpoint: push all dead-lettered messages back through the consumer at the given rate (records per
+     * second, default notification.dead-letter.replay-rate), streaming one NDJSON line per record as it is replayed
+     * and per retried record as its retry settles. The response times out after notification.dead-letter.replay-timeout,
+     * which also stops the replay at its next record.
+     */
+    @PostMapping(value = "/admin/dead-letters/replay", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<ResponseBodyEmitter> replayDeadLetters(@RequestParam(required = false) Double rate) {
+        if (rate != null && rate <= 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (deadLetterReplayer.isRunning()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(
+                notificationProperties.getDeadLetter().getReplayTimeout().toMillis());
+        Thread.ofVirtual().name("dead-letter-replay").start(() -> {
+            try {
+                deadLetterReplayer.replay(rate, outcome -> {
+                    try {
+                        emitter.send(objectMapper.writeValueAsString(outcome) + "\n", MediaType.APPLICATION_NDJSON);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                emitter.complete();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("Dead-letter replay interrupted");
+                emitter.complete();
+            } catch (RuntimeException e) {
+                // The client went away or the response timed out
+                log.warn("Dead-letter replay stopped: {}", e.getMessage());
+                emitter.completeWithError(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(emitter);
+    }
+    
+    /**
+     * Admin endpoint: drop replayed dead letters from disk
+     */
+    @PostMapping("/admin/dead-letters/compact")
+    public ResponseEntity<MappedSegmentLog.CompactionResult> compactDeadLetters() {
+        try {
+            return ResponseEntity.ok(deadLetterReplayer.compact());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+    }
+    
+    /**
+     * Admin endpoint: start a reconciliation sweep in the background
+     */
+    @PostMapping("/admin/reconciliation")
+    public ResponseEntity<ReconciliationSweep.SweepStatus> startReconciliation() {
+        if (!reconciliationSweep.trigger()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(reconciliationSweep.status());
+        }
+        return ResponseEntity.accepted().body(reconciliationSweep.status());
+    }
+    
+    /**
+     * Admin endpoint: progress of the current or last reconciliation sweep
+     */
+    @GetMapping("/admin/reconciliation")
+    public ResponseEntity<ReconciliationSweep.SweepStatus> reconciliationStatus() {
+        return ResponseEntity.ok(reconciliationSweep.status());
+    }
+    
+    /**
+     * Write one NDJSON result line. Serialized to bytes first: writing through the mapper would close the
+     * response stream after the first line (JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+     */
+    private void writeResultLine(OutputStream outputStream, ProcessingResult result) throws IOException {
+        outputStream.write(objectMapper.writeValueAsBytes(result));
+        outputStream.write('\n');
+        outputStream.flush();
+    }
+    
+    /**
+     * Wait for work handed to the intake queue, rethrowing what it failed with
+     */
+    private static <T> T awaitIntake(CompletableFuture<T> processed) throws Exception {
+        try {
+            return processed.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.stockpulse.consumernotificationservice.deadletter;
+
+import com.stockpulse.consumernotificationservice.config.NotificationProperties;
+import com.stockpulse.consumernotificationservice.model.DeadLetterRecord;
+import com.stockpulse.consumernotificationservice.storage.MappedSegmentLog;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.NavigableSet;
+
+/**
+ * Dead-letter store for messages that failed permanently or ran out of retries, backed by a
+ * {@link MappedSegmentLog} under notification.dead-letter.directory. Appending is a memory copy into the
+ * mapped segment, so dead-lettering stays on the consumer thread even during a failure storm.
+ * The log is opened on first use.
+ */
+@Slf4j
+@Component
+public class DeadLetterLog {
+
+    private static final int MAX_ERROR_MESSAGE_LENGTH = 1024;
+
+    private final NotificationProperties.DeadLetter deadLetterProperties;
+    private final Counter appended;
+    private final Counter appendFailures;
+    private final Object openLock = new Object();
+
+    private volatile MappedSegmentLog segmentLog;
+
+    public DeadLetterLog(NotificationProperties notificationProperties, MeterRegistry meterRegistry) {
+        this.deadLetterProperties = notificationProperties.getDeadLetter();
+        this.appended = Counter.builder("notification.deadletter.appended")
+                .description("Messages written to the dead-letter log")
+                .register(meterRegistry);
+        this.appendFailures = Counter.builder("notification.deadletter.append.failures")
+                .description("Messages that could not be written to the dead-letter log")
+                .register(meterRegistry);
+        Gauge.builder("notification.deadletter.size", this, DeadLetterLog::sizeBytes)
+                .description("Bytes held by the dead-letter log, including replayed records not yet compacted")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Dead-letter a message; never throws, a failed write is logged and counted
+     */
+    public void append(String messagePayload, Throwable error, int attempts) {
+        if (!deadLetterProperties.isEnabled()) {
+            return;
+        }
+
+        try {
+            segmentLog().append(encode(messagePayload, error, attempts));
+            appended.increment();
+        } catch (RuntimeException e) {
+            appendFailures.increment();
+            log.error("Failed to dead-letter QStacks message: {}", messagePayload, e);
+        }
+    }
+
+    /**
+     * Read up to limit dead-lettered records starting at fromOffset; replayed records are skipped
+     */
+    public Batch read(long fromOffset, int limit) {
+        if (!deadLetterProperties.isEnabled()) {
+            return new Batch(List.of(), fromOffset);
+        }
+
+        MappedSegmentLog.ReadBatch batch = segmentLog().read(fromOffset, limit);
+        List<DeadLetterRecord> records = batch.records().stream()
+                .map(record -> decode(record.offset(), record.payload()))
+                .toList();
+        return new Batch(records, batch.nextOffset());
+    }
+
+    /**
+     * Offset the next dead letter will be written at
+     */
+    public long endOffset() {
+        return deadLetterProperties.isEnabled() ? segmentLog().endOffset() : 0;
+    }
+
+    /**
+     * The record was replayed and is dropped by the next compaction
+     */
+    public void markReplayed(long offset) {
+        if (!deadLetterProperties.isEnabled()) {
+            return;
+        }
+        segmentLog().markDeleted(offset);
+    }
+
+    /**
+     * Drop replayed records by rewriting the sealed segments that contain them
+     * @param pinnedOffsets records that will still be flagged by offset; their segments are left as they are
+     */
+    public MappedSegmentLog.CompactionResult compact(NavigableSet<Long> pinnedOffsets) {
+        if (!deadLetterProperties.isEnabled()) {
+            return new MappedSegmentLog.CompactionResult(0, 0);
+        }
+        return segmentLog().compact(pinnedOffsets);
+    }
+
+    private MappedSegmentLog segmentLog() {
+        MappedSegmentLog current = segmentLog;
+        if (current != null) {
+            return current;
+        }
+
+        synchronized (openLock) {
+            if (segmentLog == null) {
+                Path directory = Path.of(deadLetterProperties.getDirectory());
+                try {
+                    segmentLog = MappedSegmentLog.open(directory, (int) deadLetterProperties.getSegmentSize().toBytes());
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Failed to open dead-letter log in " + directory, e);
+                }
+                log.info("Opened dead-letter log in {}", directory);
+            }
+            return segmentLog;
+        }
+    }
+
+    private double sizeBytes() {
+        MappedSegmentLog current = segmentLog;
+        return current == null ? 0 : current.endOffset() - current.startOffset();
+    }
+
+    /**
+     * [int attempts][long failedAt millis][payload][error class][error message], strings as [int length][UTF-8]
+     */
+    private static byte[] encode(String messagePayload, Throwable error, int attempts) {
+        String errorMessage = error.getMessage();
+        if (errorMessage != null && errorMessage.length() > MAX_ERROR_MESSAGE_LENGTH) {
+            errorMessage = errorMessage.substring(0, MAX_ERROR_MESSAGE_LENGTH);
+        }
+
+        byte[] payload = utf8(messagePayload);
+        byte[] errorClass = utf8(error.getClass().getName());
+        byte[] message = utf8(errorMessage);
+
+        ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + Long.BYTES
+                + 3 * Integer.BYTES + lengthOf(payload) + lengthOf(errorClass) + lengthOf(message));
+        buffer.putInt(attempts);
+        buffer.putLong(System.currentTimeMillis());
+        putString(buffer, payload);
+        putString(buffer, errorClass);
+        putString(buffer, message);
+        return buffer.array();
+    }
+
+    private static DeadLetterRecord decode(long offset, byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        int attempts = buffer.getInt();
+        Instant failedAt = Instant.ofEpochMilli(buffer.getLong());
+        return DeadLetterRecord.builder()
+                .offset(offset)
+                .attempts(attempts)
+                .failedAt(failedAt)
+                .payload(getString(buffer))
+                .errorClass(getString(buffer))
+                .errorMessage(getString(buffer))
+                .build();
+    }
+
+    private static byte[] utf8(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int lengthOf(byte[] value) {
+        return value == null ? 0 : value.length;
+    }
+
+    private static void putString(ByteBuffer buffer, byte[] value) {
+        if (value == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        buffer.putInt(value.length);
+        buffer.put(value);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] value = new byte[length];
+        buffer.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    @PreDestroy
+    public void close() {
+        MappedSegmentLog current = segmentLog;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException e) {
+                log.warn("Failed to close dead-letter log", e);
+            }
+        }
+    }
+
+    /**
+     * Dead letters of one read and the offset to continue reading from
+     */
+    public record Batch(List<DeadLetterRecord> records, long nextOffset) {
+    }
+}
\ No newline at end of file
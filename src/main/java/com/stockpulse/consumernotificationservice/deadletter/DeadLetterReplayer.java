@@ -0,0 +1,202 @@
+package com.stockpulse.consumernotificationservice.deadletter;
+
+import com.stockpulse.consumernotificationservice.config.NotificationProperties;
+import com.stockpulse.consumernotificationservice.consumer.QStacksConsumer;
+import com.stockpulse.consumernotificationservice.model.DeadLetterRecord;
+import com.stockpulse.consumernotificationservice.model.ProcessingResult;
+import com.stockpulse.consumernotificationservice.ratelimit.TokenBucket;
+import com.stockpulse.consumernotificationservice.retry.FailureClassifier;
+import com.stockpulse.consumernotificationservice.storage.MappedSegmentLog;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * Pushes dead-lettered messages back through {@link QStacksConsumer#submitQStacksMessage} at a bounded rate.
+ * Replayed records are flagged in the log and dropped by the compaction that follows the replay:
+ * records that succeed, and records that failed permanently again (those were dead-lettered anew with the
+ * latest error). A record that failed transiently is retried by the consumer; the replay waits for the retry to
+ * settle, up to notification.dead-letter.replay-timeout, and flags the record once it has. Until its retry settles,
+ * even after the replay stopped waiting, the segment holding the record is left out of compaction, so the record
+ * keeps the offset it is flagged by.
+ * Only records that existed when the replay started are replayed, and only one replay runs at a time.
+ */
+@Slf4j
+@Component
+public class DeadLetterReplayer {
+
+    private final DeadLetterLog deadLetterLog;
+    private final QStacksConsumer qStacksConsumer;
+    private final NotificationProperties.DeadLetter deadLetterProperties;
+    private final ReentrantLock replayLock = new ReentrantLock();
+    private final ConcurrentSkipListSet<Long> unsettledRetries = new ConcurrentSkipListSet<>(); // record offsets
+
+    public DeadLetterReplayer(DeadLetterLog deadLetterLog, QStacksConsumer qStacksConsumer,
+                              NotificationProperties notificationProperties) {
+        this.deadLetterLog = deadLetterLog;
+        this.qStacksConsumer = qStacksConsumer;
+        this.deadLetterProperties = notificationProperties.getDeadLetter();
+    }
+
+    /**
+     * Replay all dead letters, reporting each outcome to the listener as soon as it is known
+     * @param ratePerSecond records per second, or null for notification.dead-letter.replay-rate
+     * @throws IllegalStateException if another replay is running
+     */
+    public ReplaySummary replay(Double ratePerSecond, Consumer<ReplayOutcome> listener) throws InterruptedException {
+        if (!replayLock.tryLock()) {
+            throw new IllegalStateException("A dead-letter replay is already running");
+        }
+
+        try {
+            long deadline = System.nanoTime() + deadLetterProperties.getReplayTimeout().toNanos();
+            double rate = ratePerSecond != null ? ratePerSecond : deadLetterProperties.getReplayRate();
+            TokenBucket rateLimit = new TokenBucket(rate, 1);
+            long end = deadLetterLog.endOffset();
+            long offset = 0;
+            int replayed = 0;
+            int failed = 0;
+            int retrying = 0;
+            List<PendingRetry> pendingRetries = new ArrayList<>();
+
+            log.info("Replaying dead letters up to offset {} at {} records/s", end, rate);
+            while (offset < end) {
+                DeadLetterLog.Batch batch = deadLetterLog.read(offset, deadLetterProperties.getReplayBatchSize());
+                for (DeadLetterRecord record : batch.records()) {
+                    if (record.getOffset() >= end) {
+                        break;
+                    }
+                    rateLimit.acquire();
+
+                    CompletableFuture<Void> settled = new CompletableFuture<>();
+                    ReplayOutcome outcome = replayRecord(record, settled);
+                    switch (outcome.outcome()) {
+                        case REPLAYED -> replayed++;
+                        case DEAD_LETTERED -> failed++;
+                        default -> {
+                            retrying++;
+                            pendingRetries.add(new PendingRetry(record, settled));
+                        }
+                    }
+                    listener.accept(outcome);
+                }
+                if (batch.nextOffset() <= offset) {
+                    break;
+                }
+                offset = batch.nextOffset();
+            }
+
+            int retried = awaitRetries(pendingRetries, deadline, listener);
+            MappedSegmentLog.CompactionResult compaction = deadLetterLog.compact(unsettledRetries);
+            log.info("Dead-letter replay finished: {} replayed, {} dead-lettered again, {} retried of {} retrying; "
+                            + "compaction removed {} segments and moved {} records, {} retries still unsettled",
+                    replayed, failed, retried, retrying, compaction.removedSegments(), compaction.movedRecords(),
+                    unsettledRetries.size());
+            return new ReplaySummary(replayed, failed, retrying, retried, compaction);
+        } finally {
+            replayLock.unlock();
+        }
+    }
+
+    /**
+     * Drop replayed records from disk; not while a replay is running, since compaction moves records
+     * @throws IllegalStateException if a replay is running
+     */
+    public MappedSegmentLog.CompactionResult compact() {
+        if (!replayLock.tryLock()) {
+            throw new IllegalStateException("A dead-letter replay is running");
+        }
+        try {
+            return deadLetterLog.compact(unsettledRetries);
+        } finally {
+            replayLock.unlock();
+        }
+    }
+
+    public boolean isRunning() {
+        return replayLock.isLocked();
+    }
+
+    /**
+     * Wait, until the deadline, for the retries of records that failed transiently, reporting each as it settles.
+     * A settled record is flagged as replayed even if it settles after the deadline; one whose retry failed
+     * unexpectedly stays in the log for the next replay.
+     * @return number of records whose retry settled in time
+     */
+    private int awaitRetries(List<PendingRetry> pendingRetries, long deadline, Consumer<ReplayOutcome> listener)
+            throws InterruptedException {
+        int retried = 0;
+        for (PendingRetry pending : pendingRetries) {
+            DeadLetterRecord record = pending.record();
+            try {
+                pending.settled().get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                deadLetterLog.markReplayed(record.getOffset()); // flagged before the compaction that follows
+                retried++;
+                listener.accept(new ReplayOutcome(record.getOffset(), record.getPayload(), Outcome.RETRIED, null));
+            } catch (ExecutionException e) {
+                listener.accept(new ReplayOutcome(record.getOffset(), record.getPayload(), Outcome.RETRY_FAILED,
+                        e.getCause().getMessage()));
+            } catch (TimeoutException e) {
+                log.warn("Stopped waiting for {} dead-letter retries after {}", pendingRetries.size() - retried,
+                        deadLetterProperties.getReplayTimeout());
+                break;
+            }
+        }
+        return retried;
+    }
+
+    private ReplayOutcome replayRecord(DeadLetterRecord record, CompletableFuture<Void> settled) {
+        ProcessingResult result = qStacksConsumer.submitQStacksMessage(record.getPayload(), settled).join();
+
+        Outcome outcome;
+        if (result.isSuccess()) {
+            outcome = Outcome.REPLAYED;
+        } else if (result.getCause() != null && FailureClassifier.isRetryable(result.getCause())) {
+            outcome = Outcome.RETRYING;
+        } else {
+            outcome = Outcome.DEAD_LETTERED;
+        }
+
+        if (outcome != Outcome.RETRYING) {
+            deadLetterLog.markReplayed(record.getOffset());
+        } else {
+            // Once the retry succeeded or dead-lettered the message anew, the record is no longer needed
+            long offset = record.getOffset();
+            unsettledRetries.add(offset);
+            settled.whenComplete((ignored, error) -> {
+                if (error == null) {
+                    deadLetterLog.markReplayed(offset);
+                }
+                unsettledRetries.remove(offset);
+            });
+        }
+        return new ReplayOutcome(record.getOffset(), record.getPayload(), outcome, result.getError());
+    }
+
+    public enum Outcome {
+        REPLAYED, // processed successfully
+        DEAD_LETTERED, // failed permanently again and was written back with the new error
+        RETRYING, // failed transiently; the record is kept until the retry settles
+        RETRIED, // the retry settled: it succeeded, or the message was dead-lettered anew
+        RETRY_FAILED // the retry failed unexpectedly; the record is kept for the next replay
+    }
+
+    public record ReplayOutcome(long offset, String payload, Outcome outcome, String error) {
+    }
+
+    public record ReplaySummary(int replayed, int deadLettered, int retrying, int retried,
+                                MappedSegmentLog.CompactionResult compaction) {
+    }
+
+    private record PendingRetry(DeadLetterRecord record, CompletableFuture<Void> settled) {
+    }
+}
\ No newline at end of file
@@ -0,0 +1,13 @@
+package com.stockpulse.consumernotificationservice.events;
+
+import java.time.Instant;
+
+/**
+ * One entry of the {@link ProcessingEventRecorder} ring buffer
+ * @param id wishlist id, or the raw payload if it could not be parsed
+ * @param nanos duration of the stage, 0 if not timed
+ * @param detail skip reason or error message
+ */
+public record ProcessingEvent(long sequence, Instant timestamp, String id, ProcessingEventRecorder.Stage stage,
+                              ProcessingEventRecorder.Outcome outcome, long nanos, String detail) {
+}
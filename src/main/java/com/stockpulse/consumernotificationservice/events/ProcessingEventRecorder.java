@@ -0,0 +1,148 @@
+package com.stockpulse.consumernotificationservice.events;
+
+import com.stockpulse.consumernotificationservice.config.NotificationProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.lang.invoke.VarHandle;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Predicate;
+
+/**
+ * Records fixed-shape processing events into a preallocated ring buffer instead of formatting log lines.
+ * Recording claims a slot with one atomic increment and writes into parallel arrays, so it neither locks nor
+ * allocates; the oldest events are overwritten once notification.events.capacity is reached.
+ *
+ * Each slot carries the sequence of the event in it. A writer clears the sequence before writing the fields and
+ * publishes it afterwards; a reader keeps an event only if the sequence was the same before and after reading,
+ * so an event overwritten mid-read is dropped rather than returned torn.
+ *
+ * One in notification.events.log-sample-rate events is also logged at INFO (0 disables sampling); failures keep
+ * their ERROR log lines at the place they are handled.
+ */
+@Slf4j
+@Component
+public class ProcessingEventRecorder {
+
+    private static final long EMPTY = -1;
+
+    private final int mask;
+    private final AtomicLong nextSequence = new AtomicLong();
+    private final AtomicLongArray sequences;
+    private final long[] timestamps;
+    private final long[] nanos;
+    private final String[] ids;
+    private final byte[] stages;
+    private final byte[] outcomes;
+    private final String[] details;
+    private final long logSampleRate;
+
+    public ProcessingEventRecorder(NotificationProperties notificationProperties) {
+        NotificationProperties.Events events = notificationProperties.getEvents();
+        int capacity = Math.max(2, Integer.highestOneBit(Math.max(1, events.getCapacity() - 1)) << 1); // power of two
+        this.mask = capacity - 1;
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, EMPTY);
+        }
+        this.timestamps = new long[capacity];
+        this.nanos = new long[capacity];
+        this.ids = new String[capacity];
+        this.stages = new byte[capacity];
+        this.outcomes = new byte[capacity];
+        this.details = new String[capacity];
+        this.logSampleRate = events.getLogSampleRate();
+    }
+
+    /**
+     * Record an event
+     * @param id wishlist id, or the raw payload if it could not be parsed
+     * @param nanos duration of the stage, 0 if not timed
+     * @param detail skip reason or error message, null otherwise
+     */
+    public void record(String id, Stage stage, Outcome outcome, long nanos, String detail) {
+        long sequence = nextSequence.getAndIncrement();
+        int slot = (int) (sequence & mask);
+
+        sequences.set(slot, EMPTY);
+        VarHandle.storeStoreFence();
+        timestamps[slot] = System.currentTimeMillis();
+        this.nanos[slot] = nanos;
+        ids[slot] = id;
+        stages[slot] = (byte) stage.ordinal();
+        outcomes[slot] = (byte) outcome.ordinal();
+        details[slot] = detail;
+        sequences.set(slot, sequence);
+
+        if (logSampleRate > 0 && sequence % logSampleRate == 0) {
+            log.info("event seq={} id={} stage={} outcome={} nanos={} detail={}", sequence, id, stage, outcome, nanos, detail);
+        }
+    }
+
+    /**
+     * The most recent events, oldest first
+     */
+    public List<ProcessingEvent> recent(int limit) {
+        return recent(limit, event -> true);
+    }
+
+    /**
+     * The most recent events of one wishlist id, oldest first
+     */
+    public List<ProcessingEvent> recentFor(String id, int limit) {
+        return recent(limit, event -> id.equals(event.id()));
+    }
+
+    /**
+     * Events recorded so far, including overwritten ones
+     */
+    public long recordedCount() {
+        return nextSequence.get();
+    }
+
+    private List<ProcessingEvent> recent(int limit, Predicate<ProcessingEvent> filter) {
+        long end = nextSequence.get();
+        long start = Math.max(0, end - (mask + 1));
+        List<ProcessingEvent> events = new ArrayList<>(Math.min(limit, (int) (end - start)));
+
+        for (long sequence = end - 1; sequence >= start && events.size() < limit; sequence--) {
+            ProcessingEvent event = read(sequence);
+            if (event != null && filter.test(event)) {
+                events.add(event);
+            }
+        }
+        return events.reversed();
+    }
+
+    private ProcessingEvent read(long sequence) {
+        int slot = (int) (sequence & mask);
+        if (sequences.get(slot) != sequence) {
+            return null;
+        }
+        ProcessingEvent event = new ProcessingEvent(sequence, Instant.ofEpochMilli(timestamps[slot]), ids[slot],
+                Stage.values()[stages[slot]], Outcome.values()[outcomes[slot]], nanos[slot], details[slot]);
+        VarHandle.loadLoadFence();
+        return sequences.get(slot) == sequence ? event : null;
+    }
+
+    /**
+     * Pipeline step an event was recorded at
+     */
+    public enum Stage {
+        PROCESS, // end to end, from receipt to the message's result
+        DEDUPLICATE,
+        CLAIM,
+        RULE,
+        SEND,
+        RETRY,
+        DEAD_LETTER
+    }
+
+    public enum Outcome {
+        OK, SKIPPED, FAILED
+    }
+}
@@ -0,0 +1,37 @@
+package com.stockpulse.consumernotificationservice.events;
+
+import com.stockpulse.consumernotificationservice.config.NotificationProperties;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * /actuator/processingevents lists the most recent processing events, /actuator/processingevents/{id} those of
+ * one wishlist id; at most notification.events.query-limit events, oldest first
+ */
+@Component
+@Endpoint(id = "processingevents")
+public class ProcessingEventsEndpoint {
+
+    private final ProcessingEventRecorder processingEventRecorder;
+    private final int queryLimit;
+
+    public ProcessingEventsEndpoint(ProcessingEventRecorder processingEventRecorder,
+                                    NotificationProperties notificationProperties) {
+        this.processingEventRecorder = processingEventRecorder;
+        this.queryLimit = notificationProperties.getEvents().getQueryLimit();
+    }
+
+    @ReadOperation
+    public List<ProcessingEvent> recent() {
+        return processingEventRecorder.recent(queryLimit);
+    }
+
+    @ReadOperation
+    public List<ProcessingEvent> forWishlist(@Selector String id) {
+        return processingEventRecorder.recentFor(id, queryLimit);
+    }
+}
@@ -0,0 +1,16 @@
+package com.stockpulse.consumernotificationservice.exception;
+
+/**
+ * The email provider rejected a send because we exceeded its rate or concurrency limit (e.g. HTTP 429).
+ * Transient: the send is expected to succeed once the governor has backed off.
+ */
+public class EmailThrottledException extends TransientProcessingException {
+    
+    public EmailThrottledException(String message) {
+        super(message);
+    }
+    
+    public EmailThrottledException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
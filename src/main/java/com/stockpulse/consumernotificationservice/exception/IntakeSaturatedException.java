@@ -0,0 +1,21 @@
+package com.stockpulse.consumernotificationservice.exception;
+
+import java.time.Duration;
+
+/**
+ * The intake queue is above its high watermark and sheds new work until it drains below the low watermark.
+ * Not a processing failure: nothing was attempted, and the caller should come back after retryAfter.
+ */
+public class IntakeSaturatedException extends RuntimeException {
+    
+    private final Duration retryAfter;
+    
+    public IntakeSaturatedException(String message, Duration retryAfter) {
+        super(message);
+        this.retryAfter = retryAfter;
+    }
+    
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+}
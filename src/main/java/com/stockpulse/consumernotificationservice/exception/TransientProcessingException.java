@@ -0,0 +1,16 @@
+package com.stockpulse.consumernotificationservice.exception;
+
+/**
+ * Processing failure caused by a dependency that is expected to recover, e.g. a Mongo timeout or an SMTP error.
+ * Messages that fail with it are retried; other WishlistProcessingExceptions are permanent.
+ */
+public class TransientProcessingException extends WishlistProcessingException {
+    
+    public TransientProcessingException(String message) {
+        super(message);
+    }
+    
+    public TransientProcessingException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,70 @@
+package com.stockpulse.consumernotificationservice.ingress;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded in-memory message source. Offsets are sequence numbers; messages that are not processed yet
+ * are lost on restart.
+ */
+public class InMemoryMessageSource implements LocalMessageSource {
+
+    private final BlockingQueue<SourceMessage> queue;
+    private final AtomicLong nextSequence = new AtomicLong();
+
+    private volatile long acknowledgedOffset;
+
+    public InMemoryMessageSource(int capacity) {
+        this.queue = new LinkedBlockingQueue<>(capacity);
+    }
+
+    @Override
+    public String name() {
+        return "memory";
+    }
+
+    @Override
+    public long publish(String messagePayload) {
+        synchronized (nextSequence) {
+            long offset = nextSequence.get();
+            if (!queue.offer(new SourceMessage(offset, offset + 1, messagePayload))) {
+                throw new RejectedExecutionException("In-memory message source is full");
+            }
+            nextSequence.incrementAndGet();
+            return offset;
+        }
+    }
+
+    @Override
+    public List<SourceMessage> poll(int maxMessages, Duration timeout) throws InterruptedException {
+        SourceMessage first = queue.poll(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        if (first == null) {
+            return List.of();
+        }
+
+        List<SourceMessage> messages = new ArrayList<>(Math.min(maxMessages, queue.size() + 1));
+        messages.add(first);
+        queue.drainTo(messages, maxMessages - 1);
+        return messages;
+    }
+
+    @Override
+    public void acknowledge(long offset) {
+        acknowledgedOffset = Math.max(acknowledgedOffset, offset);
+    }
+
+    @Override
+    public long backlog() {
+        return queue.size();
+    }
+
+    public long getAcknowledgedOffset() {
+        return acknowledgedOffset;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,16 @@
+package com.stockpulse.consumernotificationservice.ingress;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Message source owned by this service; payloads are published to it directly, e.g. by the REST API
+ */
+public interface LocalMessageSource extends MessageSource {
+
+    /**
+     * Accept a payload for processing
+     * @return offset of the payload
+     * @throws RejectedExecutionException if the source cannot take more payloads
+     */
+    long publish(String messagePayload);
+}
\ No newline at end of file
@@ -0,0 +1,33 @@
+package com.stockpulse.consumernotificationservice.ingress;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Source of QStacks message payloads that the consumer polls in batches.
+ * Implement it to plug in a broker (RabbitMQ, Kafka, SQS, ...) or use one of the local sources.
+ */
+public interface MessageSource {
+
+    /**
+     * Name used in logs and metrics
+     */
+    String name();
+
+    /**
+     * Take up to maxMessages messages, waiting up to timeout for the first one
+     * @return the messages in source order, empty if none arrived in time
+     */
+    List<SourceMessage> poll(int maxMessages, Duration timeout) throws InterruptedException;
+
+    /**
+     * All messages before the offset are processed; after a restart, polling resumes at the offset.
+     * Pass {@link SourceMessage#nextOffset()} of the last processed message.
+     */
+    void acknowledge(long offset);
+
+    /**
+     * Messages waiting to be polled
+     */
+    long backlog();
+}
\ No newline at end of file
@@ -0,0 +1,208 @@
+package com.stockpulse.consumernotificationservice.ingress;
+
+import com.stockpulse.consumernotificationservice.storage.MappedSegmentLog;
+import com.stockpulse.consumernotificationservice.storage.OffsetCheckpoint;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Durable message source backed by a {@link MappedSegmentLog}. Publishing is a copy into the mapped active
+ * segment, so bursts are accepted at memory/disk speed and drained at whatever rate the pipeline allows.
+ * Offsets are byte positions in the log. The acknowledged offset is kept in an {@link OffsetCheckpoint} next to
+ * the segments: after a restart polling resumes there, and segments below it are deleted.
+ * Messages polled but not acknowledged before a crash are delivered again.
+ *
+ * Appends and checkpoint writes land in the page cache, so they survive a process crash at once; a flusher forces
+ * both to disk every flush interval, which bounds what a power loss can take. Without one they are forced on close.
+ */
+@Slf4j
+public class SegmentLogMessageSource implements LocalMessageSource, Closeable {
+
+    private static final String CHECKPOINT_FILE = "consumer.checkpoint";
+
+    private final MappedSegmentLog segmentLog;
+    private final OffsetCheckpoint checkpoint;
+    private final long maxBytes;
+    private final AtomicLong backlog = new AtomicLong();
+    private final Object signal = new Object();
+    private final ScheduledExecutorService flusher;
+
+    private volatile boolean waiting;
+    private long readOffset; // only touched by the polling thread
+
+    private SegmentLogMessageSource(MappedSegmentLog segmentLog, OffsetCheckpoint checkpoint, long maxBytes,
+                                    Duration flushInterval) {
+        this.segmentLog = segmentLog;
+        this.checkpoint = checkpoint;
+        this.maxBytes = maxBytes;
+        this.readOffset = Math.max(checkpoint.read(), segmentLog.startOffset());
+
+        if (flushInterval.isPositive()) {
+            this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "segment-log-flusher");
+                thread.setDaemon(true);
+                return thread;
+            });
+            flusher.scheduleWithFixedDelay(this::flush, flushInterval.toNanos(), flushInterval.toNanos(),
+                    TimeUnit.NANOSECONDS);
+        } else {
+            this.flusher = null;
+        }
+    }
+
+    /**
+     * Open the source in the directory, resuming after the last acknowledged offset
+     * @param maxBytes publishing is rejected once the log holds this many bytes
+     * @param flushInterval how often appends and the checkpoint are forced to disk; zero forces them only on close
+     */
+    public static SegmentLogMessageSource open(Path directory, int segmentSize, long maxBytes,
+                                               Duration flushInterval) throws IOException {
+        MappedSegmentLog segmentLog = MappedSegmentLog.open(directory, segmentSize);
+        OffsetCheckpoint checkpoint = OffsetCheckpoint.open(directory.resolve(CHECKPOINT_FILE));
+        SegmentLogMessageSource source = new SegmentLogMessageSource(segmentLog, checkpoint, maxBytes, flushInterval);
+        source.recoverBacklog();
+        return source;
+    }
+
+    @Override
+    public String name() {
+        return "segment-log";
+    }
+
+    @Override
+    public long publish(String messagePayload) {
+        if (segmentLog.endOffset() - segmentLog.startOffset() >= maxBytes) {
+            throw new RejectedExecutionException("Segment log message source is full");
+        }
+
+        long offset = segmentLog.append(messagePayload.getBytes(StandardCharsets.UTF_8));
+        backlog.incrementAndGet();
+        if (waiting) {
+            synchronized (signal) {
+                signal.notifyAll();
+            }
+        }
+        return offset;
+    }
+
+    /**
+     * Must only be called from one thread at a time
+     */
+    @Override
+    public List<SourceMessage> poll(int maxMessages, Duration timeout) throws InterruptedException {
+        awaitRecords(timeout);
+
+        MappedSegmentLog.ReadBatch batch = segmentLog.read(readOffset, maxMessages);
+        List<MappedSegmentLog.LogRecord> records = batch.records();
+        List<SourceMessage> messages = new ArrayList<>(records.size());
+        for (int i = 0; i < records.size(); i++) {
+            MappedSegmentLog.LogRecord record = records.get(i);
+            long nextOffset = i + 1 < records.size() ? records.get(i + 1).offset() : batch.nextOffset();
+            messages.add(new SourceMessage(record.offset(), nextOffset,
+                    new String(record.payload(), StandardCharsets.UTF_8)));
+        }
+
+        readOffset = batch.nextOffset();
+        backlog.addAndGet(-messages.size());
+        return messages;
+    }
+
+    @Override
+    public void acknowledge(long offset) {
+        if (offset <= checkpoint.read()) {
+            return;
+        }
+        checkpoint.write(offset);
+        segmentLog.deleteSegmentsBefore(offset);
+    }
+
+    @Override
+    public long backlog() {
+        return backlog.get();
+    }
+
+    public long getAcknowledgedOffset() {
+        return checkpoint.read();
+    }
+
+    /**
+     * Bytes held by the log, acknowledged messages of the active segment included
+     */
+    public long sizeBytes() {
+        return segmentLog.endOffset() - segmentLog.startOffset();
+    }
+
+    /**
+     * Block until a record lies beyond the read offset or the timeout passes.
+     * publish() only takes the monitor when a poller has announced that it is waiting.
+     */
+    private void awaitRecords(Duration timeout) throws InterruptedException {
+        if (segmentLog.endOffset() > readOffset) {
+            return;
+        }
+
+        long deadline = System.nanoTime() + timeout.toNanos();
+        synchronized (signal) {
+            waiting = true;
+            try {
+                long remaining;
+                while (segmentLog.endOffset() <= readOffset && (remaining = deadline - System.nanoTime()) > 0) {
+                    signal.wait(Math.max(1, remaining / 1_000_000));
+                }
+            } finally {
+                waiting = false;
+            }
+        }
+    }
+
+    /**
+     * Force the log before the checkpoint, so a checkpoint on disk never points past records that are not
+     */
+    private void flush() {
+        try {
+            segmentLog.flush();
+            checkpoint.flush();
+        } catch (RuntimeException e) {
+            log.warn("Failed to flush segment log message source", e);
+        }
+    }
+
+    private void recoverBacklog() {
+        long offset = readOffset;
+        long count = 0;
+        while (offset < segmentLog.endOffset()) {
+            MappedSegmentLog.ReadBatch batch = segmentLog.read(offset, 4096);
+            count += batch.records().size();
+            if (batch.nextOffset() <= offset) {
+                break;
+            }
+            offset = batch.nextOffset();
+        }
+        backlog.set(count);
+        if (count > 0) {
+            log.info("Resuming segment log message source at offset {} with {} unacknowledged messages",
+                    readOffset, count);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (flusher != null) {
+            flusher.shutdown();
+        }
+        segmentLog.close();
+        checkpoint.close();
+    }
+}
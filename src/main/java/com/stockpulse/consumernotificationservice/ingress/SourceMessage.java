@@ -0,0 +1,9 @@
+package com.stockpulse.consumernotificationservice.ingress;
+
+/**
+ * A payload polled from a {@link MessageSource}
+ * @param offset position of the message in its source
+ * @param nextOffset offset to acknowledge once this message and all before it are processed
+ */
+public record SourceMessage(long offset, long nextOffset, String payload) {
+}
\ No newline at end of file
@@ -0,0 +1,250 @@
+package com.stockpulse.consumernotificationservice.loadtest;
+
+import com.stockpulse.consumernotificationservice.model.Stock;
+import com.stockpulse.consumernotificationservice.model.User;
+import com.stockpulse.consumernotificationservice.model.Wishlist;
+import com.stockpulse.consumernotificationservice.model.WishlistNotificationView;
+import com.stockpulse.consumernotificationservice.repository.StockRepository;
+import com.stockpulse.consumernotificationservice.repository.UserRepository;
+import com.stockpulse.consumernotificationservice.repository.WishlistRepository;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * In-memory stand-in for the users, stocks and wishlists collections, used by the load-test profile.
+ * The repositories it hands out implement the methods the pipeline calls with the same semantics as the Mongo
+ * implementations (the claim is atomic per wishlist); any other repository method throws.
+ * Every repository call is delayed by a fixed round-trip latency to approximate a remote database.
+ */
+public class InMemoryMongoStore {
+
+    private final Map<String, User> users = new ConcurrentHashMap<>();
+    private final Map<String, Stock> stocks = new ConcurrentHashMap<>();
+    private final Map<String, Wishlist> wishlists = new ConcurrentHashMap<>();
+    private final Duration roundTripLatency;
+
+    public InMemoryMongoStore(Duration roundTripLatency) {
+        this.roundTripLatency = roundTripLatency;
+    }
+
+    public void save(User user) {
+        users.put(user.getId(), user);
+    }
+
+    public void save(Stock stock) {
+        stocks.put(stock.getId(), stock);
+    }
+
+    public void save(Wishlist wishlist) {
+        wishlists.put(wishlist.getId(), copy(wishlist));
+    }
+
+    public void clear() {
+        users.clear();
+        stocks.clear();
+        wishlists.clear();
+    }
+
+    public UserRepository userRepository() {
+        return repository(UserRepository.class, (method, args) -> switch (method) {
+            case "findById" -> Optional.ofNullable(users.get((String) args[0]));
+            case "findByEmail" -> users.values().stream().filter(user -> Objects.equals(user.getEmail(), args[0])).findFirst();
+            case "count" -> (long) users.size();
+            default -> throw new UnsupportedOperationException("UserRepository." + method);
+        });
+    }
+
+    public StockRepository stockRepository() {
+        return repository(StockRepository.class, (method, args) -> switch (method) {
+            case "findById" -> Optional.ofNullable(stocks.get((String) args[0]));
+            case "findAllById" -> findAllStocksById((Iterable<?>) args[0]);
+            case "findBySymbol" -> stocks.values().stream().filter(stock -> Objects.equals(stock.getSymbol(), args[0])).findFirst();
+            case "count" -> (long) stocks.size();
+            default -> throw new UnsupportedOperationException("StockRepository." + method);
+        });
+    }
+
+    public WishlistRepository wishlistRepository() {
+        return repository(WishlistRepository.class, (method, args) -> switch (method) {
+            case "findById" -> Optional.ofNullable(wishlists.get((String) args[0])).map(InMemoryMongoStore::copy);
+            case "findByUserId" -> wishlists.values().stream()
+                    .filter(wishlist -> Objects.equals(wishlist.getUserId(), args[0]))
+                    .map(InMemoryMongoStore::copy)
+                    .toList();
+            case "findActiveUnnotifiedWishlists" -> wishlists.values().stream()
+                    .filter(wishlist -> Boolean.TRUE.equals(wishlist.getActive()) && !Boolean.TRUE.equals(wishlist.getNotified()))
+                    .map(InMemoryMongoStore::copy)
+                    .toList();
+            case "findNotificationViews" -> findNotificationViews((Collection<?>) args[0]);
+            case "claimForNotification" -> claimForNotification((String) args[0]);
+            case "releaseClaim" -> {
+                releaseClaim((String) args[0], (Collection<?>) args[1]);
+                yield null;
+            }
+            case "clearDeliveredChannels" -> {
+                wishlists.computeIfPresent((String) args[0], (id, wishlist) -> {
+                    Wishlist updated = copy(wishlist);
+                    updated.setDeliveredChannels(null);
+                    return updated;
+                });
+                yield null;
+            }
+            case "claimAllForNotification" -> claimAllForNotification((Collection<?>) args[0]);
+            case "streamActiveUnnotifiedWishlists" -> wishlists.values().stream()
+                    .filter(wishlist -> Boolean.TRUE.equals(wishlist.getActive()) && !Boolean.TRUE.equals(wishlist.getNotified()))
+                    .filter(wishlist -> args[0] == null || wishlist.getId().compareTo((String) args[0]) > 0)
+                    .sorted(Comparator.comparing(Wishlist::getId))
+                    .map(InMemoryMongoStore::copy);
+            case "count" -> (long) wishlists.size();
+            default -> throw new UnsupportedOperationException("WishlistRepository." + method);
+        });
+    }
+
+    private List<Stock> findAllStocksById(Iterable<?> stockIds) {
+        List<Stock> found = new ArrayList<>();
+        for (Object stockId : stockIds) {
+            Stock stock = stocks.get((String) stockId);
+            if (stock != null) {
+                found.add(stock);
+            }
+        }
+        return found;
+    }
+
+    private List<WishlistNotificationView> findNotificationViews(Collection<?> wishlistIds) {
+        List<WishlistNotificationView> views = new ArrayList<>(wishlistIds.size());
+        for (Object wishlistId : wishlistIds) {
+            Wishlist wishlist = wishlists.get((String) wishlistId);
+            if (wishlist != null) {
+                views.add(toView(wishlist));
+            }
+        }
+        return views;
+    }
+
+    private Optional<Wishlist> claimForNotification(String wishlistId) {
+        AtomicBoolean claimed = new AtomicBoolean();
+        Wishlist current = wishlists.computeIfPresent(wishlistId, (id, wishlist) -> {
+            if (!Boolean.TRUE.equals(wishlist.getActive()) || Boolean.TRUE.equals(wishlist.getNotified())) {
+                return wishlist;
+            }
+            claimed.set(true);
+            return withNotified(wishlist, true);
+        });
+        return claimed.get() ? Optional.of(copy(current)) : Optional.empty();
+    }
+
+    private List<Wishlist> claimAllForNotification(Collection<?> wishlistIds) {
+        List<Wishlist> claimed = new ArrayList<>(wishlistIds.size());
+        for (Object wishlistId : wishlistIds) {
+            claimForNotification((String) wishlistId).ifPresent(claimed::add);
+        }
+        return claimed;
+    }
+
+    private void releaseClaim(String wishlistId, Collection<?> deliveredChannels) {
+        wishlists.computeIfPresent(wishlistId, (id, wishlist) -> {
+            if (!Boolean.TRUE.equals(wishlist.getNotified())) {
+                return wishlist;
+            }
+            Wishlist updated = withNotified(wishlist, false);
+            if (!deliveredChannels.isEmpty()) {
+                Set<String> channels = new HashSet<>(wishlist.getDeliveredChannels() != null ? wishlist.getDeliveredChannels() : Set.of());
+                deliveredChannels.forEach(channel -> channels.add((String) channel));
+                updated.setDeliveredChannels(channels);
+            }
+            return updated;
+        });
+    }
+
+    private WishlistNotificationView toView(Wishlist wishlist) {
+        User user = users.get(wishlist.getUserId());
+        Stock stock = stocks.get(wishlist.getStockId());
+        return WishlistNotificationView.builder()
+                .id(wishlist.getId())
+                .userId(wishlist.getUserId())
+                .stockId(wishlist.getStockId())
+                .ruleType(wishlist.getRuleType())
+                .ruleValueInPercent(wishlist.getRuleValueInPercent())
+                .rateValueTargeted(wishlist.getRateValueTargeted())
+                .ruleValueAtSet(wishlist.getRuleValueAtSet())
+                .active(wishlist.getActive())
+                .notified(wishlist.getNotified())
+                .userFound(user != null)
+                .userName(user != null ? user.getName() : null)
+                .email(user != null ? user.getEmail() : null)
+                .phone(user != null ? user.getPhone() : null)
+                .stockFound(stock != null)
+                .stockName(stock != null ? stock.getName() : null)
+                .stockSymbol(stock != null ? stock.getSymbol() : null)
+                .currentPrice(stock != null ? stock.getCurrentPrice() : null)
+                .build();
+    }
+
+    private <T> T repository(Class<T> repositoryType, Handler handler) {
+        return repositoryType.cast(Proxy.newProxyInstance(repositoryType.getClassLoader(),
+                new Class<?>[]{repositoryType}, (proxy, method, args) -> {
+                    if (method.getDeclaringClass() == Object.class) {
+                        return switch (method.getName()) {
+                            case "hashCode" -> System.identityHashCode(proxy);
+                            case "equals" -> proxy == args[0];
+                            default -> "InMemory" + repositoryType.getSimpleName();
+                        };
+                    }
+                    simulateRoundTrip();
+                    return handler.invoke(method.getName(), args);
+                }));
+    }
+
+    private void simulateRoundTrip() {
+        if (roundTripLatency.isZero()) {
+            return;
+        }
+        try {
+            Thread.sleep(roundTripLatency);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted during simulated database round trip", e);
+        }
+    }
+
+    private static Wishlist withNotified(Wishlist wishlist, boolean notified) {
+        Wishlist updated = copy(wishlist);
+        updated.setNotified(notified);
+        return updated;
+    }
+
+    private static Wishlist copy(Wishlist wishlist) {
+        return Wishlist.builder()
+                .id(wishlist.getId())
+                .userId(wishlist.getUserId())
+                .stockId(wishlist.getStockId())
+                .ruleType(wishlist.getRuleType())
+                .ruleValueInPercent(wishlist.getRuleValueInPercent())
+                .rateValueTargeted(wishlist.getRateValueTargeted())
+                .ruleValueAtSet(wishlist.getRuleValueAtSet())
+                .createdAt(wishlist.getCreatedAt())
+                .updatedAt(wishlist.getUpdatedAt())
+                .active(wishlist.getActive())
+                .notified(wishlist.getNotified())
+                .deliveredChannels(wishlist.getDeliveredChannels() != null ? Set.copyOf(wishlist.getDeliveredChannels()) : null)
+                .build();
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        Object invoke(String method, Object[] args);
+    }
+}
@@ -0,0 +1,42 @@
+package com.stockpulse.consumernotificationservice.loadtest;
+
+import com.stockpulse.consumernotificationservice.config.NotificationProperties;
+import com.stockpulse.consumernotificationservice.repository.StockRepository;
+import com.stockpulse.consumernotificationservice.repository.UserRepository;
+import com.stockpulse.consumernotificationservice.repository.WishlistRepository;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Points the pipeline at an {@link InMemoryMongoStore} in the "loadtest" and "startup" profiles. The Mongo
+ * repositories are still defined, but the primary in-memory ones are injected instead, so no Mongo server is needed.
+ */
+@Configuration
+@Profile({"loadtest", "startup"})
+public class LoadTestConfig {
+
+    @Bean
+    public InMemoryMongoStore inMemoryMongoStore(NotificationProperties notificationProperties) {
+        return new InMemoryMongoStore(notificationProperties.getLoadTest().getDatabaseLatency());
+    }
+
+    @Bean
+    @Primary
+    public UserRepository inMemoryUserRepository(InMemoryMongoStore inMemoryMongoStore) {
+        return inMemoryMongoStore.userRepository();
+    }
+
+    @Bean
+    @Primary
+    public StockRepository inMemoryStockRepository(InMemoryMongoStore inMemoryMongoStore) {
+        return inMemoryMongoStore.stockRepository();
+    }
+
+    @Bean
+    @Primary
+    public WishlistRepository inMemoryWishlistRepository(InMemoryMongoStore inMemoryMongoStore) {
+        return inMemoryMongoStore.wishlistRepository();
+    }
+}
@@ -0,0 +1,288 @@
+package com.stockpulse.consumernotificationservice.loadtest;
+
+import com.stockpulse.consumernotificationservice.config.NotificationProperties;
+import com.stockpulse.consumernotificationservice.consumer.QStacksConsumer;
+import com.stockpulse.consumernotificationservice.consumer.QStacksMessageBatcher;
+import com.stockpulse.consumernotificationservice.model.ProcessingResult;
+import com.stockpulse.consumernotificationservice.model.Stock;
+import com.stockpulse.consumernotificationservice.model.User;
+import com.stockpulse.consumernotificationservice.model.Wishlist;
+import com.stockpulse.consumernotificationservice.ratelimit.TokenBucket;
+import com.stockpulse.consumernotificationservice.service.EmailSendGovernor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Load-test mode ("loadtest" profile): seeds users, stocks and wishlists into the {@link InMemoryMongoStore},
+ * fires notification.load-test.messages synthetic "userId::stockId" messages through the consumer (via the
+ * micro-batcher when notification.batch.enabled) and prints sustained throughput, latency percentiles and error
+ * counts. Email latency is the simulated transport's notification.email.simulated-latency; its simulated-throttle-rate
+ * and simulated-capacity make it behave like a throttling provider, to see where the send governor settles.
+ *
+ * Message ids are skewed: hot-stock-ratio of them target wishlists of the first hot-stocks stocks, and
+ * duplicate-ratio of them repeat one of the last few ids sent, the way a market-open storm redelivers alerts.
+ */
+@Slf4j
+@Component
+@Profile("loadtest")
+public class LoadTestRunner implements ApplicationRunner {
+
+    private static final int RECENT_IDS = 1024;
+
+    private final InMemoryMongoStore inMemoryMongoStore;
+    private final QStacksConsumer qStacksConsumer;
+    private final QStacksMessageBatcher qStacksMessageBatcher;
+    private final EmailSendGovernor emailSendGovernor;
+    private final NotificationProperties notificationProperties;
+    private final ConfigurableApplicationContext applicationContext;
+
+    public LoadTestRunner(InMemoryMongoStore inMemoryMongoStore, QStacksConsumer qStacksConsumer,
+                          QStacksMessageBatcher qStacksMessageBatcher, EmailSendGovernor emailSendGovernor,
+                          NotificationProperties notificationProperties,
+                          ConfigurableApplicationContext applicationContext) {
+        this.inMemoryMongoStore = inMemoryMongoStore;
+        this.qStacksConsumer = qStacksConsumer;
+        this.qStacksMessageBatcher = qStacksMessageBatcher;
+        this.emailSendGovernor = emailSendGovernor;
+        this.notificationProperties = notificationProperties;
+        this.applicationContext = applicationContext;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws InterruptedException {
+        NotificationProperties.LoadTest loadTest = notificationProperties.getLoadTest();
+        Random random = new Random(loadTest.getSeed());
+
+        List<String> hotWishlistIds = new ArrayList<>();
+        List<String> wishlistIds = seed(loadTest, random, hotWishlistIds);
+        if (wishlistIds.isEmpty()) {
+            log.warn("Load test seeded no wishlists, nothing to send");
+            return;
+        }
+
+        Report report = fire(loadTest, generateMessages(loadTest, random, wishlistIds, hotWishlistIds));
+        log.info("{}", report.format(notificationProperties, emailSendGovernor));
+
+        if (loadTest.isExitWhenDone()) {
+            System.exit(SpringApplication.exit(applicationContext, () -> 0));
+        }
+    }
+
+    /**
+     * @return ids of all seeded wishlists; the ids on hot stocks are also added to hotWishlistIds
+     */
+    private List<String> seed(NotificationProperties.LoadTest loadTest, Random random, List<String> hotWishlistIds) {
+        long start = System.nanoTime();
+        inMemoryMongoStore.clear();
+
+        for (int i = 0; i < loadTest.getUsers(); i++) {
+            boolean invalidEmail = random.nextDouble() < loadTest.getInvalidEmailRatio();
+            inMemoryMongoStore.save(User.builder()
+                    .id("user-" + i)
+                    .name("Load Test User " + i)
+                    .email(invalidEmail ? "invalid" : "user-" + i + "@loadtest.example.com")
+                    .build());
+        }
+        for (int i = 0; i < loadTest.getStocks(); i++) {
+            inMemoryMongoStore.save(Stock.builder()
+                    .id("stock-" + i)
+                    .symbol("SYM" + i)
+                    .name("Load Test Stock " + i)
+                    .currentPrice(100.0 + random.nextInt(5000))
+                    .exchange("NSE")
+                    .build());
+        }
+
+        long maxWishlists = Math.min(loadTest.getWishlists(), (long) loadTest.getUsers() * loadTest.getStocks());
+        Set<String> seeded = new HashSet<>();
+        List<String> wishlistIds = new ArrayList<>();
+        while (wishlistIds.size() < maxWishlists) {
+            int user = random.nextInt(loadTest.getUsers());
+            int stock = random.nextInt(loadTest.getStocks());
+            String id = "user-" + user + "::stock-" + stock;
+            if (!seeded.add(id)) {
+                continue;
+            }
+            boolean increase = random.nextBoolean();
+            inMemoryMongoStore.save(Wishlist.builder()
+                    .id(id)
+                    .userId("user-" + user)
+                    .stockId("stock-" + stock)
+                    .ruleType(increase ? "percentage_increase" : "percentage_drop")
+                    .ruleValueInPercent((1 + random.nextInt(20)) + "%")
+                    .active(true)
+                    .notified(false)
+                    .build());
+            wishlistIds.add(id);
+            if (stock < loadTest.getHotStocks()) {
+                hotWishlistIds.add(id);
+            }
+        }
+
+        log.info("Seeded {} users, {} stocks and {} wishlists ({} on hot stocks) in {} ms",
+                loadTest.getUsers(), loadTest.getStocks(), wishlistIds.size(), hotWishlistIds.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        return wishlistIds;
+    }
+
+    private static String[] generateMessages(NotificationProperties.LoadTest loadTest, Random random,
+                                             List<String> wishlistIds, List<String> hotWishlistIds) {
+        String[] payloads = new String[loadTest.getMessages()];
+        String[] recent = new String[RECENT_IDS];
+        for (int i = 0; i < payloads.length; i++) {
+            String id;
+            if (i > 0 && random.nextDouble() < loadTest.getDuplicateRatio()) {
+                id = recent[random.nextInt(Math.min(i, RECENT_IDS))];
+            } else if (!hotWishlistIds.isEmpty() && random.nextDouble() < loadTest.getHotStockRatio()) {
+                id = hotWishlistIds.get(random.nextInt(hotWishlistIds.size()));
+            } else {
+                id = wishlistIds.get(random.nextInt(wishlistIds.size()));
+            }
+            recent[i % RECENT_IDS] = id;
+            payloads[i] = "{\"id\":\"" + id + "\"}";
+        }
+        return payloads;
+    }
+
+    /**
+     * Submit every payload from a virtual thread of its own, at most max-in-flight at a time and at most rate per
+     * second, and wait until all have completed
+     */
+    private Report fire(NotificationProperties.LoadTest loadTest, String[] payloads) throws InterruptedException {
+        Report report = new Report(payloads.length);
+        Semaphore inFlight = new Semaphore(Math.max(1, loadTest.getMaxInFlight()));
+        TokenBucket rateLimit = loadTest.getRate() > 0 ? new TokenBucket(loadTest.getRate(), 1) : null;
+        CountDownLatch completed = new CountDownLatch(payloads.length);
+        boolean batching = notificationProperties.getBatch().isEnabled();
+
+        log.info("Sending {} messages (max in flight {}, rate {}, batching {})", payloads.length,
+                loadTest.getMaxInFlight(), loadTest.getRate() > 0 ? loadTest.getRate() + "/s" : "unlimited", batching);
+
+        long start = System.nanoTime();
+        try (ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < payloads.length; i++) {
+                if (rateLimit != null) {
+                    rateLimit.acquire();
+                }
+                inFlight.acquire();
+
+                int index = i;
+                String payload = payloads[i];
+                senders.execute(() -> {
+                    long submitted = System.nanoTime();
+                    CompletableFuture<ProcessingResult> result;
+                    try {
+                        result = batching
+                                ? qStacksMessageBatcher.submit(payload)
+                                : qStacksConsumer.submitQStacksMessage(payload);
+                    } catch (RuntimeException e) {
+                        result = CompletableFuture.failedFuture(e);
+                    }
+                    result.whenComplete((processingResult, e) -> {
+                        report.record(index, System.nanoTime() - submitted, processingResult, e);
+                        inFlight.release();
+                        completed.countDown();
+                    });
+                });
+            }
+            completed.await();
+        }
+        report.elapsedNanos = System.nanoTime() - start;
+        return report;
+    }
+
+    /**
+     * Latency of every message plus outcome counts
+     */
+    private static final class Report {
+
+        private final long[] latencies;
+        private final LongAdder succeeded = new LongAdder();
+        private final Map<String, LongAdder> skipped = new ConcurrentHashMap<>();
+        private final Map<String, LongAdder> errors = new ConcurrentHashMap<>();
+        private long elapsedNanos;
+
+        Report(int messages) {
+            this.latencies = new long[messages];
+        }
+
+        void record(int index, long latencyNanos, ProcessingResult result, Throwable e) {
+            latencies[index] = latencyNanos;
+            if (e != null || result == null) {
+                String error = e != null ? e.getClass().getSimpleName() : "NoResult";
+                errors.computeIfAbsent(error, key -> new LongAdder()).increment();
+            } else if (!result.isSuccess()) {
+                String error = result.getCause() != null ? result.getCause().getClass().getSimpleName() : "Unknown";
+                errors.computeIfAbsent(error, key -> new LongAdder()).increment();
+            } else if (result.getSkipReason() != null) {
+                skipped.computeIfAbsent(result.getSkipReason(), key -> new LongAdder()).increment();
+            } else {
+                succeeded.increment();
+            }
+        }
+
+        String format(NotificationProperties notificationProperties, EmailSendGovernor emailSendGovernor) {
+            long[] sorted = latencies.clone();
+            Arrays.sort(sorted);
+            double seconds = elapsedNanos / 1e9;
+
+            StringBuilder report = new StringBuilder("\n=== LOAD TEST REPORT ===\n");
+            report.append(String.format("Messages:    %d in %.2f s (batching %s, execution %s, email latency %s)%n",
+                    sorted.length, seconds, notificationProperties.getBatch().isEnabled(),
+                    notificationProperties.getExecution().getMode(),
+                    notificationProperties.getEmail().getSimulatedLatency()));
+            report.append(String.format("Throughput:  %.1f messages/s%n", sorted.length / seconds));
+            report.append(String.format("Latency:     p50 %.2f ms, p99 %.2f ms, p999 %.2f ms, max %.2f ms%n",
+                    percentileMillis(sorted, 0.50), percentileMillis(sorted, 0.99),
+                    percentileMillis(sorted, 0.999), percentileMillis(sorted, 1.0)));
+            report.append(String.format("Succeeded:   %d%n", succeeded.sum()));
+            report.append(String.format("Skipped:     %d %s%n", total(skipped), counts(skipped)));
+            report.append(String.format("Failed:      %d %s%n", total(errors), counts(errors)));
+            report.append(String.format("Email:       concurrency limit %d, rate cap %s%n",
+                    emailSendGovernor.getConcurrencyLimit(),
+                    emailSendGovernor.getRate() > 0 ? emailSendGovernor.getRate() + "/s" : "none"));
+            report.append("========================");
+            return report.toString();
+        }
+
+        private static double percentileMillis(long[] sorted, double percentile) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.min(sorted.length - 1, Math.ceil(percentile * sorted.length) - 1);
+            return sorted[Math.max(0, index)] / 1e6;
+        }
+
+        private static long total(Map<String, LongAdder> counts) {
+            return counts.values().stream().mapToLong(LongAdder::sum).sum();
+        }
+
+        private static Map<String, Long> counts(Map<String, LongAdder> counts) {
+            Map<String, Long> sorted = new TreeMap<>();
+            counts.forEach((key, count) -> sorted.put(key, count.sum()));
+            return sorted;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.stockpulse.consumernotificationservice.loadtest;
+
+import com.stockpulse.consumernotificationservice.consumer.QStacksConsumer;
+import com.stockpulse.consumernotificationservice.model.ProcessingResult;
+import com.stockpulse.consumernotificationservice.model.Stock;
+import com.stockpulse.consumernotificationservice.model.User;
+import com.stockpulse.consumernotificationservice.model.Wishlist;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Startup probe ("startup" profile): as soon as the context is up, seeds one due wishlist into the
+ * {@link InMemoryMongoStore}, processes one message for it through the consumer, logs how long after JVM start
+ * the context was ready and the message had been processed, and exits. Launched repeatedly by the
+ * StartupBenchmark to compare a plain launch with the lazy, AOT and CDS launches of the "faststart" build.
+ */
+@Slf4j
+@Component
+@Profile("startup")
+public class StartupProbe implements ApplicationRunner {
+
+    static final String FIRST_MESSAGE_LINE = "First message processed";
+
+    private final InMemoryMongoStore inMemoryMongoStore;
+    private final QStacksConsumer qStacksConsumer;
+    private final ConfigurableApplicationContext applicationContext;
+
+    public StartupProbe(InMemoryMongoStore inMemoryMongoStore, QStacksConsumer qStacksConsumer,
+                        ConfigurableApplicationContext applicationContext) {
+        this.inMemoryMongoStore = inMemoryMongoStore;
+        this.qStacksConsumer = qStacksConsumer;
+        this.applicationContext = applicationContext;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long contextReadyMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+
+        inMemoryMongoStore.save(User.builder()
+                .id("user-0")
+                .name("Startup Probe User")
+                .email("user-0@loadtest.example.com")
+                .build());
+        inMemoryMongoStore.save(Stock.builder()
+                .id("stock-0")
+                .symbol("SYM0")
+                .name("Startup Probe Stock")
+                .currentPrice(120.0)
+                .exchange("NSE")
+                .build());
+        inMemoryMongoStore.save(Wishlist.builder()
+                .id("user-0::stock-0")
+                .userId("user-0")
+                .stockId("stock-0")
+                .ruleType("percentage_increase")
+                .ruleValueInPercent("10%")
+                .ruleValueAtSet(100.0)
+                .active(true)
+                .notified(false)
+                .build());
+
+        ProcessingResult result = qStacksConsumer.consumeQStacksMessage("{\"id\":\"user-0::stock-0\"}");
+        long firstMessageMillis = ManagementFactory.getRuntimeMXBean().getUptime();
+
+        int exitCode = 0;
+        if (result.isSuccess() && result.getSkipReason() == null) {
+            log.info("{} {} ms after JVM start (context ready after {} ms)", FIRST_MESSAGE_LINE,
+                    firstMessageMillis, contextReadyMillis);
+        } else {
+            log.error("Startup probe message was not processed: {}",
+                    result.isSuccess() ? result.getSkipReason() : result.getError());
+            exitCode = 1;
+        }
+        int status = exitCode;
+        System.exit(SpringApplication.exit(applicationContext, () -> status));
+    }
+}
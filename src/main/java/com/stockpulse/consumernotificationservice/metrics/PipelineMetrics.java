@@ -0,0 +1,144 @@
+package com.stockpulse.consumernotificationservice.metrics;
+
+import com.stockpulse.consumernotificationservice.model.ProcessingResult;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Latency, failure and throughput meters of the notification pipeline.
+ * All meters are registered up front and looked up through enum maps, so recording a stage costs two
+ * System.nanoTime() calls and a lock-free histogram update; there is no registry lookup per message.
+ *
+ * Meters:
+ * - notification.pipeline.stage (timer, tag stage) with a percentile histogram per stage
+ * - notification.pipeline.processing (timer, tag outcome) end-to-end, from the processor picking a message up
+ *   until its result is known
+ * - notification.pipeline.failures (counter, tag type)
+ * - notification.pipeline.throughput (gauge) messages per second finished over the last sample interval
+ */
+@Component
+public class PipelineMetrics {
+
+    private static final long THROUGHPUT_SAMPLE_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    public enum Stage {
+        FETCH_USER, FETCH_STOCK, CLAIM_WISHLIST, BATCH_LOOKUP, SEND, RELEASE_CLAIM
+    }
+
+    public enum Outcome {
+        SUCCESS, SKIPPED, FAILURE;
+
+        public static Outcome of(ProcessingResult result) {
+            if (!result.isSuccess()) {
+                return FAILURE;
+            }
+            return result.getSkipReason() != null ? SKIPPED : SUCCESS;
+        }
+    }
+
+    public enum Failure {
+        INVALID_ID, USER_NOT_FOUND, INVALID_EMAIL, STOCK_NOT_FOUND, WISHLIST_NOT_FOUND,
+        CLAIM_FAILED, SEND_FAILED, UNEXPECTED
+    }
+
+    private final Map<Stage, Timer> stageTimers = new EnumMap<>(Stage.class);
+    private final Map<Outcome, Timer> processingTimers = new EnumMap<>(Outcome.class);
+    private final Map<Failure, Counter> failureCounters = new EnumMap<>(Failure.class);
+    private final LongAdder finished = new LongAdder();
+
+    private long lastSampleNanos = System.nanoTime();
+    private long lastSampleCount;
+    private double throughput;
+
+    public PipelineMetrics(MeterRegistry meterRegistry) {
+        for (Stage stage : Stage.values()) {
+            stageTimers.put(stage, Timer.builder("notification.pipeline.stage")
+                    .description("Latency of one notification pipeline stage")
+                    .tag("stage", tagValue(stage))
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+        for (Outcome outcome : Outcome.values()) {
+            processingTimers.put(outcome, Timer.builder("notification.pipeline.processing")
+                    .description("End-to-end processing latency of a QStacks message")
+                    .tag("outcome", tagValue(outcome))
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+        for (Failure failure : Failure.values()) {
+            failureCounters.put(failure, Counter.builder("notification.pipeline.failures")
+                    .description("Messages that failed, by failure type")
+                    .tag("type", tagValue(failure))
+                    .register(meterRegistry));
+        }
+        Gauge.builder("notification.pipeline.throughput", this, PipelineMetrics::sampleThroughput)
+                .description("Messages finished per second, sampled at most once per second")
+                .baseUnit("messages/s")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Run a synchronous stage and record its latency, whether it returns or throws
+     */
+    public <T> T time(Stage stage, Supplier<T> step) {
+        long start = System.nanoTime();
+        try {
+            return step.get();
+        } finally {
+            recordStage(stage, start);
+        }
+    }
+
+    /**
+     * Record a stage that started at the given System.nanoTime()
+     */
+    public void recordStage(Stage stage, long startNanos) {
+        stageTimers.get(stage).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Record the end-to-end latency of messages that were picked up at the given System.nanoTime()
+     */
+    public void recordProcessed(Outcome outcome, long startNanos, int messages) {
+        long elapsed = System.nanoTime() - startNanos;
+        Timer timer = processingTimers.get(outcome);
+        for (int i = 0; i < messages; i++) {
+            timer.record(elapsed, TimeUnit.NANOSECONDS);
+        }
+        finished.add(messages);
+    }
+
+    public void recordFailure(Failure failure) {
+        failureCounters.get(failure).increment();
+    }
+
+    public void recordFailures(Failure failure, int messages) {
+        failureCounters.get(failure).increment(messages);
+    }
+
+    private synchronized double sampleThroughput() {
+        long now = System.nanoTime();
+        long elapsed = now - lastSampleNanos;
+        if (elapsed >= THROUGHPUT_SAMPLE_NANOS) {
+            long count = finished.sum();
+            throughput = (count - lastSampleCount) * 1e9 / elapsed;
+            lastSampleCount = count;
+            lastSampleNanos = now;
+        }
+        return throughput;
+    }
+
+    private static String tagValue(Enum<?> value) {
+        return value.name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,7 @@
+package com.stockpulse.consumernotificationservice.model;
+
+/**
+ * One triggered wishlist handed to a notification channel
+ */
+public record ChannelAlert(User user, Stock stock, Wishlist wishlist) {
+}
@@ -0,0 +1,30 @@
+package com.stockpulse.consumernotificationservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * A message that failed permanently or ran out of retries, as stored in the dead-letter log
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class DeadLetterRecord {
+
+    private long offset; // position in the dead-letter log
+
+    private String payload; // raw queue message
+
+    private String errorClass;
+
+    private String errorMessage;
+
+    private int attempts;
+
+    private Instant failedAt;
+}
\ No newline at end of file
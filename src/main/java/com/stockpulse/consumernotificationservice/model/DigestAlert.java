@@ -0,0 +1,7 @@
+package com.stockpulse.consumernotificationservice.model;
+
+/**
+ * One triggered wishlist listed in a user's digest email
+ */
+public record DigestAlert(Stock stock, Wishlist wishlist) {
+}
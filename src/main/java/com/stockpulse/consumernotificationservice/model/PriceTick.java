@@ -0,0 +1,7 @@
+package com.stockpulse.consumernotificationservice.model;
+
+/**
+ * Latest traded price of a stock, as received on the price-tick ingestion path
+ */
+public record PriceTick(String stockId, double price) {
+}
@@ -0,0 +1,52 @@
+package com.stockpulse.consumernotificationservice.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of processing a single QStacks message
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ProcessingResult {
+
+    private String id; // wishlist id, or the raw payload when it could not be parsed
+
+    private boolean success;
+
+    private String error; // null on success
+
+    private String skipReason; // set when the message was dropped without processing, e.g. as a duplicate
+
+    @JsonIgnore
+    private Throwable cause; // null on success
+
+    public static ProcessingResult success(String id) {
+        return ProcessingResult.builder()
+                .id(id)
+                .success(true)
+                .build();
+    }
+
+    public static ProcessingResult skipped(String id, String skipReason) {
+        return ProcessingResult.builder()
+                .id(id)
+                .success(true)
+                .skipReason(skipReason)
+                .build();
+    }
+
+    public static ProcessingResult failure(String id, Throwable cause) {
+        return ProcessingResult.builder()
+                .id(id)
+                .success(false)
+                .error(cause.getMessage())
+                .cause(cause)
+                .build();
+    }
+}
\ No newline at end of file
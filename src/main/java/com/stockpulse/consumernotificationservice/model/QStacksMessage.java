@@ -1,40 +1,72 @@
 package com.stockpulse.consumernotificationservice.model;
 
-import lombok.AllArgsConstructor;
+import lombok.AccessLevel;
 import lombok.Builder;
 import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 
 @Data
-@Builder
 @NoArgsConstructor
-@AllArgsConstructor
 public class QStacksMessage {
-    
+
+    private static final String SEPARATOR = "::";
+
     private String id; // "ABC::PQR" (wishlist id)
-    
+
+    // Parsed once per id instead of on every getter call
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private transient String parsedUserId;
+
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @ToString.Exclude
+    private transient String parsedStockId;
+
+    @Builder
+    public QStacksMessage(String id) {
+        setId(id);
+    }
+
+    public void setId(String id) {
+        this.id = id;
+        this.parsedUserId = null;
+        this.parsedStockId = null;
+
+        int separator = id != null ? id.indexOf(SEPARATOR) : -1;
+        if (separator < 0) {
+            return;
+        }
+
+        this.parsedUserId = id.substring(0, separator);
+
+        int stockStart = separator + SEPARATOR.length();
+        int stockEnd = id.indexOf(SEPARATOR, stockStart);
+        if (stockEnd < 0) {
+            stockEnd = id.length();
+        }
+        if (stockEnd > stockStart) {
+            this.parsedStockId = id.substring(stockStart, stockEnd);
+        }
+    }
+
     /**
      * Extract user ID from the wishlist ID
      * @return user ID (first part before ::)
      */
     public String getUserId() {
-        if (id != null && id.contains("::")) {
-            return id.split("::")[0];
-        }
-        return null;
+        return parsedUserId;
     }
-    
+
     /**
      * Extract stock ID from the wishlist ID
      * @return stock ID (second part after ::)
      */
     public String getStockId() {
-        if (id != null && id.contains("::")) {
-            String[] parts = id.split("::");
-            if (parts.length > 1) {
-                return parts[1];
-            }
-        }
-        return null;
+        return parsedStockId;
     }
 }
\ No newline at end of file
@@ -8,6 +8,7 @@ import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
+import java.util.Set;
 
 @Data
 @Builder
@@ -38,4 +39,6 @@ public class Wishlist {
     private Boolean active; // will fetch the prices of stocks that are in active state
     
     private Boolean notified; // if once user is notified, will set to true
+    
+    private Set<String> deliveredChannels; // channels that delivered an alert whose other required channels failed; skipped on retry
 }
\ No newline at end of file
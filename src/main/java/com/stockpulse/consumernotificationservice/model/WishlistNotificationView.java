@@ -0,0 +1,71 @@
+package com.stockpulse.consumernotificationservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.annotation.Id;
+
+/**
+ * Lean projection of a wishlist joined with the user and stock fields a notification needs.
+ * Produced by a single $lookup aggregation instead of three full-document reads.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class WishlistNotificationView {
+
+    @Id
+    private String id; // "userId::stockId"
+
+    private String userId;
+
+    private String stockId;
+
+    private String ruleType;
+
+    private String ruleValueInPercent;
+
+    private Double rateValueTargeted;
+
+    private Double ruleValueAtSet;
+
+    private Boolean active;
+
+    private Boolean notified;
+
+    private boolean userFound;
+
+    private String userName;
+
+    private String email;
+
+    private String phone;
+
+    private boolean stockFound;
+
+    private String stockName;
+
+    private String stockSymbol;
+
+    private Double currentPrice;
+
+    public User toUser() {
+        return User.builder()
+                .id(userId)
+                .name(userName)
+                .email(email)
+                .phone(phone)
+                .build();
+    }
+
+    public Stock toStock() {
+        return Stock.builder()
+                .id(stockId)
+                .name(stockName)
+                .symbol(stockSymbol)
+                .currentPrice(currentPrice)
+                .build();
+    }
+}
\ No newline at end of file
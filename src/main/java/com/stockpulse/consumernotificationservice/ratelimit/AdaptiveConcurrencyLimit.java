@@ -0,0 +1,131 @@
+package com.stockpulse.consumernotificationservice.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * AIMD concurrency limit for calls to a remote dependency.
+ * The limit grows by one for every limit calls that succeed while latency is stable, and is multiplied by the
+ * backoff ratio on a failed call or once latency rises: the short-term latency average exceeds the long-term one
+ * by the latency tolerance. After a decrease, the next one waits at least one short-term latency so that a burst
+ * of failures from calls that were already in flight only counts once.
+ * The limit only grows while at least half of it is in use, so an idle dependency does not inflate it.
+ */
+public class AdaptiveConcurrencyLimit {
+
+    private static final double SHORT_LATENCY_WEIGHT = 0.2;
+    private static final double LONG_LATENCY_WEIGHT = 0.01;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final double latencyTolerance;
+
+    private double limit;
+    private int inFlight;
+    private double shortLatencyNanos;
+    private double longLatencyNanos;
+    private long lastDecreaseNanos;
+
+    public AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, double backoffRatio, double latencyTolerance) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Limits must satisfy 1 <= min <= max: " + minLimit + ", " + maxLimit);
+        }
+        if (backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("backoffRatio must be between 0 and 1: " + backoffRatio);
+        }
+        if (latencyTolerance <= 1) {
+            throw new IllegalArgumentException("latencyTolerance must be greater than 1: " + latencyTolerance);
+        }
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.backoffRatio = backoffRatio;
+        this.latencyTolerance = latencyTolerance;
+        this.limit = Math.clamp(initialLimit, minLimit, maxLimit);
+        this.lastDecreaseNanos = System.nanoTime();
+    }
+
+    /**
+     * Wait until fewer than limit calls are in flight and count this one in
+     */
+    public synchronized void acquire() throws InterruptedException {
+        while (inFlight >= (int) limit) {
+            wait();
+        }
+        inFlight++;
+    }
+
+    /**
+     * The call succeeded after latencyNanos
+     * @return false if its latency made the limit back off
+     */
+    public synchronized boolean onSuccess(long latencyNanos) {
+        boolean utilized = inFlight * 2 >= limit;
+        release();
+
+        if (longLatencyNanos == 0) {
+            shortLatencyNanos = latencyNanos;
+            longLatencyNanos = latencyNanos;
+        } else {
+            shortLatencyNanos += SHORT_LATENCY_WEIGHT * (latencyNanos - shortLatencyNanos);
+            longLatencyNanos += LONG_LATENCY_WEIGHT * (latencyNanos - longLatencyNanos);
+        }
+
+        if (shortLatencyNanos > longLatencyNanos * latencyTolerance) {
+            return !decrease();
+        }
+        if (utilized && limit < maxLimit) {
+            limit = Math.min(maxLimit, limit + 1 / limit);
+            notifyAll();
+        }
+        return true;
+    }
+
+    /**
+     * The call failed or was rejected by the dependency
+     * @return true if the limit backed off, false if it did so too recently
+     */
+    public synchronized boolean onFailure() {
+        release();
+        return decrease();
+    }
+
+    /**
+     * The call was given up before it reached the dependency; the limit is left alone
+     */
+    public synchronized void onIgnored() {
+        release();
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * Short-term average latency of successful calls
+     */
+    public synchronized double getLatencyMillis() {
+        return shortLatencyNanos / TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    /**
+     * @return true if the limit was decreased, false if the last decrease is too recent
+     */
+    private boolean decrease() {
+        long now = System.nanoTime();
+        if (now - lastDecreaseNanos < shortLatencyNanos) {
+            return false;
+        }
+        lastDecreaseNanos = now;
+        limit = Math.max(minLimit, limit * backoffRatio);
+        return true;
+    }
+
+    private void release() {
+        inFlight--;
+        notify();
+    }
+}
@@ -0,0 +1,80 @@
+package com.stockpulse.consumernotificationservice.ratelimit;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token bucket rate limiter: tokens refill continuously at the configured rate up to the burst size.
+ * {@link #acquire()} may take a token the bucket does not have yet and waits until it would have refilled,
+ * so concurrent callers are spaced out at the configured rate.
+ */
+public class TokenBucket {
+
+    private final double burst;
+
+    private double tokensPerNano;
+    private double tokens;
+    private long lastRefillNanos;
+
+    public TokenBucket(double ratePerSecond, double burst) {
+        if (burst < 1) {
+            throw new IllegalArgumentException("burst must be at least 1: " + burst);
+        }
+        this.burst = burst;
+        this.tokens = burst;
+        this.lastRefillNanos = System.nanoTime();
+        setRate(ratePerSecond);
+    }
+
+    /**
+     * Take a token, waiting until one is available
+     */
+    public void acquire() throws InterruptedException {
+        long waitNanos = reserve();
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    /**
+     * Take a token if one is available right now
+     */
+    public synchronized boolean tryAcquire() {
+        refill();
+        if (tokens < 1) {
+            return false;
+        }
+        tokens -= 1;
+        return true;
+    }
+
+    /**
+     * Change the refill rate; tokens already in the bucket are kept
+     */
+    public synchronized void setRate(double ratePerSecond) {
+        if (ratePerSecond <= 0) {
+            throw new IllegalArgumentException("ratePerSecond must be positive: " + ratePerSecond);
+        }
+        refill();
+        this.tokensPerNano = ratePerSecond / TimeUnit.SECONDS.toNanos(1);
+    }
+
+    public synchronized double getRate() {
+        return tokensPerNano * TimeUnit.SECONDS.toNanos(1);
+    }
+
+    /**
+     * Take a token now, possibly going into debt
+     * @return nanos until the token is actually covered by the refill
+     */
+    private synchronized long reserve() {
+        refill();
+        tokens -= 1;
+        return tokens >= 0 ? 0 : (long) Math.ceil(-tokens / tokensPerNano);
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(burst, tokens + (now - lastRefillNanos) * tokensPerNano);
+        lastRefillNanos = now;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,289 @@
+package com.stockpulse.consumernotificationservice.reconcile;
+
+import com.stockpulse.consumernotificationservice.config.NotificationProperties;
+import com.stockpulse.consumernotificationservice.consumer.QStacksMessageBatcher;
+import com.stockpulse.consumernotificationservice.model.QStacksMessage;
+import com.stockpulse.consumernotificationservice.model.Stock;
+import com.stockpulse.consumernotificationservice.model.Wishlist;
+import com.stockpulse.consumernotificationservice.ratelimit.TokenBucket;
+import com.stockpulse.consumernotificationservice.repository.StockRepository;
+import com.stockpulse.consumernotificationservice.repository.WishlistRepository;
+import com.stockpulse.consumernotificationservice.rule.WishlistRules;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/**
+ * Scheduled sweep over all active, unnotified wishlists that catches alerts the queue missed.
+ * Wishlists are read through a Mongo cursor in pages of notification.reconciliation.page-size. The stock prices
+ * of a page are loaded with one bulk query and its rules are checked on a fork-join pool. Due wishlists are fed
+ * into the pipeline through the micro-batcher, at most notification.reconciliation.rate per second and at most
+ * max-in-flight at a time, so heap use stays at one page plus the alerts in flight whatever the collection size.
+ *
+ * The id of the last wishlist of every finished page is persisted, so a sweep interrupted by a failure or a
+ * restart resumes after it; a sweep that completed starts over from the beginning.
+ */
+@Slf4j
+@Component
+public class ReconciliationSweep {
+
+    private static final String PROGRESS_FILE = "sweep.progress";
+
+    private final WishlistRepository wishlistRepository;
+    private final StockRepository stockRepository;
+    private final WishlistRules wishlistRules;
+    private final QStacksMessageBatcher qStacksMessageBatcher;
+    private final NotificationProperties.Reconciliation reconciliationProperties;
+    private final Path progressFile;
+    private final ScheduledExecutorService sweepScheduler;
+    private final ForkJoinPool rulePool;
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    private final Counter scannedCounter;
+    private final Counter dueCounter;
+
+    private volatile long scanned; // of the current or last sweep
+    private volatile long due;
+    private volatile long completedSweeps;
+    private volatile Instant lastCompletedAt;
+
+    public ReconciliationSweep(WishlistRepository wishlistRepository, StockRepository stockRepository,
+                               WishlistRules wishlistRules, QStacksMessageBatcher qStacksMessageBatcher,
+                               NotificationProperties notificationProperties, MeterRegistry meterRegistry) {
+        this.wishlistRepository = wishlistRepository;
+        this.stockRepository = stockRepository;
+        this.wishlistRules = wishlistRules;
+        this.qStacksMessageBatcher = qStacksMessageBatcher;
+        this.reconciliationProperties = notificationProperties.getReconciliation();
+        this.progressFile = Path.of(reconciliationProperties.getDirectory(), PROGRESS_FILE);
+        this.sweepScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "reconciliation-sweep");
+            thread.setDaemon(true);
+            return thread;
+        });
+        int parallelism = reconciliationProperties.getParallelism();
+        this.rulePool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+
+        this.scannedCounter = Counter.builder("notification.reconciliation.scanned")
+                .description("Active, unnotified wishlists checked by the reconciliation sweep")
+                .register(meterRegistry);
+        this.dueCounter = Counter.builder("notification.reconciliation.due")
+                .description("Wishlists the reconciliation sweep found due and fed into the pipeline")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Schedule sweeps every notification.reconciliation.interval; an interrupted sweep resumes right away
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!reconciliationProperties.isEnabled()) {
+            return;
+        }
+        long interval = reconciliationProperties.getInterval().toMillis();
+        long initialDelay = readProgress() != null ? 0 : interval;
+        sweepScheduler.scheduleWithFixedDelay(this::sweepQuietly, initialDelay, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Start a sweep in the background now
+     * @return false if one is already running
+     */
+    public boolean trigger() {
+        if (running.get()) {
+            return false;
+        }
+        sweepScheduler.execute(this::sweepQuietly);
+        return true;
+    }
+
+    public boolean isRunning() {
+        return running.get();
+    }
+
+    public SweepStatus status() {
+        return new SweepStatus(running.get(), scanned, due, readProgress(), completedSweeps, lastCompletedAt);
+    }
+
+    /**
+     * Run one sweep from the persisted progress to the end of the collection
+     * @return false if a sweep was already running
+     */
+    public boolean sweep() throws InterruptedException {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            String afterId = readProgress();
+            log.info("Starting reconciliation sweep {}", afterId != null ? "after wishlist " + afterId : "from the beginning");
+            long start = System.nanoTime();
+            scanned = 0;
+            due = 0;
+
+            int pageSize = Math.max(1, reconciliationProperties.getPageSize());
+            int maxInFlight = Math.max(1, reconciliationProperties.getMaxInFlight());
+            TokenBucket rateLimit = reconciliationProperties.getRate() > 0
+                    ? new TokenBucket(reconciliationProperties.getRate(), 1)
+                    : null;
+            Semaphore inFlight = new Semaphore(maxInFlight);
+
+            try (Stream<Wishlist> wishlists = wishlistRepository.streamActiveUnnotifiedWishlists(afterId, pageSize)) {
+                Iterator<Wishlist> cursor = wishlists.iterator();
+                List<Wishlist> page = new ArrayList<>(pageSize);
+                while (cursor.hasNext()) {
+                    page.add(cursor.next());
+                    if (page.size() == pageSize || !cursor.hasNext()) {
+                        submitDue(checkPage(page), rateLimit, inFlight);
+                        writeProgress(page.getLast().getId());
+                        page.clear();
+                    }
+                }
+            }
+
+            // Wait for the last alerts before the sweep counts as complete
+            inFlight.acquire(maxInFlight);
+            writeProgress(null);
+            completedSweeps++;
+            lastCompletedAt = Instant.now();
+            log.info("Reconciliation sweep checked {} wishlists and found {} due in {} ms", scanned, due,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            return true;
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Load the page's stock prices with one query and check its rules on the fork-join pool
+     * @return the due wishlists of the page
+     */
+    private List<Wishlist> checkPage(List<Wishlist> page) throws InterruptedException {
+        Set<String> stockIds = new HashSet<>();
+        for (Wishlist wishlist : page) {
+            if (wishlist.getStockId() != null) {
+                stockIds.add(wishlist.getStockId());
+            }
+        }
+        Map<String, Double> prices = new HashMap<>(stockIds.size() * 2);
+        for (Stock stock : stockRepository.findAllById(stockIds)) {
+            prices.put(stock.getId(), stock.getCurrentPrice());
+        }
+
+        List<Wishlist> dueWishlists;
+        try {
+            dueWishlists = rulePool.submit(() -> page.parallelStream()
+                    .filter(wishlist -> wishlistRules.isDue(wishlist, prices.get(wishlist.getStockId())))
+                    .toList()).get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Failed to check reconciliation page", e.getCause());
+        }
+
+        scanned += page.size();
+        due += dueWishlists.size();
+        scannedCounter.increment(page.size());
+        dueCounter.increment(dueWishlists.size());
+        return dueWishlists;
+    }
+
+    private void submitDue(List<Wishlist> dueWishlists, TokenBucket rateLimit, Semaphore inFlight) throws InterruptedException {
+        for (Wishlist wishlist : dueWishlists) {
+            if (rateLimit != null) {
+                rateLimit.acquire();
+            }
+            inFlight.acquire();
+            try {
+                qStacksMessageBatcher.submit(new QStacksMessage(wishlist.getId()))
+                        .whenComplete((result, e) -> inFlight.release());
+            } catch (RuntimeException e) {
+                inFlight.release();
+                throw e;
+            }
+        }
+    }
+
+    private void sweepQuietly() {
+        try {
+            sweep();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.info("Reconciliation sweep interrupted, it resumes from the last finished page");
+        } catch (Exception e) {
+            log.error("Reconciliation sweep failed, it resumes from the last finished page", e);
+        }
+    }
+
+    /**
+     * @return id of the last wishlist of the last finished page, null if no sweep is in progress
+     */
+    private String readProgress() {
+        try {
+            if (!Files.exists(progressFile)) {
+                return null;
+            }
+            String afterId = Files.readString(progressFile, StandardCharsets.UTF_8).strip();
+            return afterId.isEmpty() ? null : afterId;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read reconciliation progress from " + progressFile, e);
+        }
+    }
+
+    /**
+     * Replace the progress atomically, so a crash leaves either the old or the new id; null clears it
+     */
+    private void writeProgress(String afterId) {
+        try {
+            if (afterId == null) {
+                Files.deleteIfExists(progressFile);
+                return;
+            }
+            Files.createDirectories(progressFile.toAbsolutePath().getParent());
+            Path temp = progressFile.resolveSibling(PROGRESS_FILE + ".tmp");
+            Files.writeString(temp, Objects.requireNonNull(afterId), StandardCharsets.UTF_8);
+            Files.move(temp, progressFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write reconciliation progress to " + progressFile, e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sweepScheduler.shutdownNow();
+        rulePool.shutdownNow();
+    }
+
+    /**
+     * @param scanned wishlists checked by the current or last sweep
+     * @param resumeAfterId where the next sweep starts, null for the beginning
+     */
+    public record SweepStatus(boolean running, long scanned, long due, String resumeAfterId,
+                              long completedSweeps, Instant lastCompletedAt) {
+    }
+}
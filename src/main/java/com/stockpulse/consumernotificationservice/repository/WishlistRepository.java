@@ -9,7 +9,7 @@ import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface WishlistRepository extends MongoRepository<Wishlist, String> {
+public interface WishlistRepository extends MongoRepository<Wishlist, String>, WishlistRepositoryCustom {
     
     /**
      * Find wishlist by ID (wishlist ID = "userId::stockId")
@@ -0,0 +1,56 @@
+package com.stockpulse.consumernotificationservice.repository;
+
+import com.stockpulse.consumernotificationservice.model.Wishlist;
+import com.stockpulse.consumernotificationservice.model.WishlistNotificationView;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Wishlist operations that need MongoTemplate rather than derived queries
+ */
+public interface WishlistRepositoryCustom {
+
+    /**
+     * Wishlists joined with their users and stocks in one aggregation round trip; wishlists that do not exist
+     * are left out
+     */
+    List<WishlistNotificationView> findNotificationViews(Collection<String> wishlistIds);
+
+    /**
+     * Atomically claim an active, not yet notified wishlist for notification by setting notified = true.
+     * Only one caller can claim a wishlist, so concurrent consumers cannot both send for it.
+     * @return the claimed wishlist, or empty if it does not exist, is inactive or was already notified
+     */
+    Optional<Wishlist> claimForNotification(String wishlistId);
+
+    /**
+     * Batch variant of {@link #claimForNotification}: one conditional multi-update claims every active, not yet
+     * notified wishlist among the ids, a second query reads back the ones this call claimed. If the read-back fails,
+     * the claims of this call are released before the exception is rethrown
+     * @return the wishlists claimed by this call; ids that do not exist, are inactive, already notified or claimed
+     * by a concurrent caller are left out
+     */
+    List<Wishlist> claimAllForNotification(Collection<String> wishlistIds);
+
+    /**
+     * Undo a claim after the notification could not be sent on every required channel, so the wishlist can be
+     * claimed again
+     * @param deliveredChannels channels that did deliver; they are added to deliveredChannels and skipped on retry
+     */
+    void releaseClaim(String wishlistId, Collection<String> deliveredChannels);
+
+    /**
+     * Forget the channels recorded by {@link #releaseClaim} once the alert has been delivered on all of them
+     */
+    void clearDeliveredChannels(String wishlistId);
+
+    /**
+     * Active, unnotified wishlists in _id order, read through a cursor that fetches batchSize documents at a time.
+     * Only the id and rule fields are loaded. The stream must be closed.
+     * @param afterId resume after this wishlist id, null to start at the beginning
+     */
+    Stream<Wishlist> streamActiveUnnotifiedWishlists(String afterId, int batchSize);
+}
\ No newline at end of file
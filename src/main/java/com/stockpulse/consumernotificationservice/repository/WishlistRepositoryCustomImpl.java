@@ -0,0 +1,165 @@
+package com.stockpulse.consumernotificationservice.repository;
+
+import com.stockpulse.consumernotificationservice.model.Stock;
+import com.stockpulse.consumernotificationservice.model.User;
+import com.stockpulse.consumernotificationservice.model.Wishlist;
+import com.stockpulse.consumernotificationservice.model.WishlistNotificationView;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+@Slf4j
+@RequiredArgsConstructor
+public class WishlistRepositoryCustomImpl implements WishlistRepositoryCustom {
+
+    /**
+     * Keeps only the fields a notification needs; user and stock are reduced from joined arrays to scalars
+     */
+    private static final AggregationOperation NOTIFICATION_VIEW_PROJECTION = context -> new Document("$project", new Document()
+            .append("userId", 1)
+            .append("stockId", 1)
+            .append("ruleType", 1)
+            .append("ruleValueInPercent", 1)
+            .append("rateValueTargeted", 1)
+            .append("ruleValueAtSet", 1)
+            .append("active", 1)
+            .append("notified", 1)
+            .append("userFound", found("$user"))
+            .append("userName", first("$user.name"))
+            .append("email", first("$user.email"))
+            .append("phone", first("$user.phone"))
+            .append("stockFound", found("$stock"))
+            .append("stockName", first("$stock.name"))
+            .append("stockSymbol", first("$stock.symbol"))
+            .append("currentPrice", first("$stock.currentPrice")));
+
+    /**
+     * Field set by a batch claim to tell the wishlists it won apart; not mapped on Wishlist
+     */
+    private static final String CLAIM_TOKEN = "claimToken";
+
+    private final MongoTemplate mongoTemplate;
+
+    @Override
+    public List<WishlistNotificationView> findNotificationViews(Collection<String> wishlistIds) {
+        if (wishlistIds.isEmpty()) {
+            return List.of();
+        }
+
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("_id").in(wishlistIds)),
+                Aggregation.lookup(mongoTemplate.getCollectionName(User.class), "userId", "_id", "user"),
+                Aggregation.lookup(mongoTemplate.getCollectionName(Stock.class), "stockId", "_id", "stock"),
+                NOTIFICATION_VIEW_PROJECTION);
+
+        return mongoTemplate.aggregate(aggregation, mongoTemplate.getCollectionName(Wishlist.class),
+                WishlistNotificationView.class).getMappedResults();
+    }
+
+    @Override
+    public Optional<Wishlist> claimForNotification(String wishlistId) {
+        Query unclaimed = Query.query(Criteria.where("_id").is(wishlistId)
+                .and("active").is(true)
+                .and("notified").is(false));
+        Update claim = new Update().set("notified", true).set("updatedAt", LocalDateTime.now());
+
+        return Optional.ofNullable(mongoTemplate.findAndModify(unclaimed, claim,
+                FindAndModifyOptions.options().returnNew(true), Wishlist.class));
+    }
+
+    @Override
+    public List<Wishlist> claimAllForNotification(Collection<String> wishlistIds) {
+        if (wishlistIds.isEmpty()) {
+            return List.of();
+        }
+
+        // Each document is claimed atomically and tagged with this call's token, so the read-back returns exactly
+        // the wishlists this call won, even while other consumers claim overlapping ids
+        String claimToken = UUID.randomUUID().toString();
+        mongoTemplate.updateMulti(
+                Query.query(Criteria.where("_id").in(wishlistIds).and("active").is(true).and("notified").is(false)),
+                new Update().set("notified", true).set(CLAIM_TOKEN, claimToken).set("updatedAt", LocalDateTime.now()),
+                Wishlist.class);
+
+        Query claimedByThisCall = Query.query(Criteria.where("_id").in(wishlistIds).and(CLAIM_TOKEN).is(claimToken));
+        List<Wishlist> claimed;
+        try {
+            claimed = mongoTemplate.find(claimedByThisCall, Wishlist.class);
+        } catch (RuntimeException e) {
+            // The caller never learns which wishlists it won, so nobody would alert them: hand the claims back
+            try {
+                mongoTemplate.updateMulti(claimedByThisCall,
+                        new Update().set("notified", false).unset(CLAIM_TOKEN).set("updatedAt", LocalDateTime.now()),
+                        Wishlist.class);
+            } catch (RuntimeException releaseFailure) {
+                e.addSuppressed(releaseFailure);
+            }
+            throw e;
+        }
+
+        try {
+            mongoTemplate.updateMulti(claimedByThisCall, new Update().unset(CLAIM_TOKEN), Wishlist.class);
+        } catch (RuntimeException e) {
+            // The claims stand; a leftover token is never matched again
+            log.warn("Failed to clear the claim token of {} claimed wishlists", claimed.size(), e);
+        }
+        return claimed;
+    }
+
+    @Override
+    public void releaseClaim(String wishlistId, Collection<String> deliveredChannels) {
+        Update release = new Update().set("notified", false).unset(CLAIM_TOKEN).set("updatedAt", LocalDateTime.now());
+        if (!deliveredChannels.isEmpty()) {
+            release.addToSet("deliveredChannels").each(deliveredChannels.toArray());
+        }
+        mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(wishlistId).and("notified").is(true)),
+                release,
+                Wishlist.class);
+    }
+
+    @Override
+    public void clearDeliveredChannels(String wishlistId) {
+        mongoTemplate.updateFirst(
+                Query.query(Criteria.where("_id").is(wishlistId)),
+                new Update().unset("deliveredChannels"),
+                Wishlist.class);
+    }
+
+    @Override
+    public Stream<Wishlist> streamActiveUnnotifiedWishlists(String afterId, int batchSize) {
+        Criteria criteria = Criteria.where("active").is(true).and("notified").is(false);
+        if (afterId != null) {
+            criteria = criteria.and("_id").gt(afterId);
+        }
+        Query query = Query.query(criteria)
+                .with(Sort.by(Sort.Direction.ASC, "_id"))
+                .cursorBatchSize(batchSize);
+        query.fields().include("userId", "stockId", "ruleType", "ruleValueInPercent", "rateValueTargeted",
+                "ruleValueAtSet", "active", "notified");
+        return mongoTemplate.stream(query, Wishlist.class);
+    }
+
+    private static Document first(String arrayField) {
+        return new Document("$arrayElemAt", List.of(arrayField, 0));
+    }
+
+    private static Document found(String arrayField) {
+        return new Document("$gt", List.of(new Document("$size", arrayField), 0));
+    }
+}
\ No newline at end of file
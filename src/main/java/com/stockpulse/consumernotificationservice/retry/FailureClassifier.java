@@ -0,0 +1,71 @@
+package com.stockpulse.consumernotificationservice.retry;
+
+import com.mongodb.MongoException;
+import com.mongodb.MongoSocketException;
+import com.mongodb.MongoTimeoutException;
+import com.stockpulse.consumernotificationservice.exception.TransientProcessingException;
+import com.stockpulse.consumernotificationservice.exception.WishlistProcessingException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+
+import java.io.IOException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Tells failures worth retrying apart from permanent ones
+ */
+public final class FailureClassifier {
+
+    private static final int MAX_CAUSE_DEPTH = 16;
+
+    private FailureClassifier() {
+    }
+
+    /**
+     * Whether a message that failed with this exception should be retried.
+     * WishlistProcessingExceptions are permanent (e.g. "User not found") unless they are transient;
+     * anything else escaped the processor unexpectedly and is retried.
+     */
+    public static boolean isRetryable(Throwable failure) {
+        return failure instanceof TransientProcessingException || !(failure instanceof WishlistProcessingException);
+    }
+
+    /**
+     * Whether the exception or one of its causes comes from a dependency that is expected to recover:
+     * Mongo connectivity and timeouts, I/O errors, timeouts and a saturated executor
+     */
+    public static boolean isTransient(Throwable failure) {
+        Throwable current = failure;
+        for (int depth = 0; current != null && depth < MAX_CAUSE_DEPTH; depth++) {
+            if (current instanceof TransientProcessingException
+                    || current instanceof TransientDataAccessException
+                    || current instanceof RecoverableDataAccessException
+                    || current instanceof DataAccessResourceFailureException
+                    || current instanceof MongoSocketException
+                    || current instanceof MongoTimeoutException
+                    || current instanceof IOException
+                    || current instanceof TimeoutException
+                    || current instanceof RejectedExecutionException) {
+                return true;
+            }
+            if (current instanceof MongoException mongoException
+                    && (mongoException.hasErrorLabel(MongoException.TRANSIENT_TRANSACTION_ERROR_LABEL)
+                    || mongoException.hasErrorLabel("RetryableWriteError"))) {
+                return true;
+            }
+            current = current.getCause() == current ? null : current.getCause();
+        }
+        return false;
+    }
+
+    /**
+     * Wrap a failure in the matching processing exception: transient causes stay retryable
+     */
+    public static WishlistProcessingException wrap(String message, Throwable cause) {
+        return isTransient(cause)
+                ? new TransientProcessingException(message, cause)
+                : new WishlistProcessingException(message, cause);
+    }
+}
\ No newline at end of file
@@ -0,0 +1,177 @@
+package com.stockpulse.consumernotificationservice.retry;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hashed timing wheel for large numbers of delayed tasks.
+ * Scheduling is O(1): the task is appended to a lock-free queue and placed into its bucket by the single
+ * worker thread on the next tick. Each tick the worker runs the expired tasks of one bucket on the task executor,
+ * so tasks fire up to one tick late and never run on the worker itself.
+ */
+@Slf4j
+public class HashedTimingWheel {
+
+    private static final int MAX_TRANSFERS_PER_TICK = 100_000;
+
+    private final long tickNanos;
+    private final int mask;
+    private final List<Timeout>[] buckets;
+    private final Queue<Timeout> incoming = new ConcurrentLinkedQueue<>();
+    private final AtomicLong pending = new AtomicLong();
+    private final Executor taskExecutor;
+    private final Thread worker;
+    private final long startNanos;
+
+    private volatile boolean running = true;
+    private long tick; // worker thread only
+
+    @SuppressWarnings("unchecked")
+    public HashedTimingWheel(String name, Duration tickDuration, int wheelSize, Executor taskExecutor) {
+        if (tickDuration.isNegative() || tickDuration.isZero()) {
+            throw new IllegalArgumentException("tickDuration must be positive: " + tickDuration);
+        }
+        if (wheelSize <= 0) {
+            throw new IllegalArgumentException("wheelSize must be positive: " + wheelSize);
+        }
+
+        int size = Integer.highestOneBit(wheelSize - 1) << 1; // round up to a power of two
+        this.tickNanos = tickDuration.toNanos();
+        this.mask = Math.max(size, 1) - 1;
+        this.buckets = new List[mask + 1];
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new ArrayList<>();
+        }
+        this.taskExecutor = taskExecutor;
+        this.startNanos = System.nanoTime();
+
+        this.worker = new Thread(this::run, name);
+        this.worker.setDaemon(true);
+        this.worker.start();
+    }
+
+    /**
+     * Run the task on the task executor once the delay has passed
+     * @throws RejectedExecutionException if the wheel has been stopped
+     */
+    public void schedule(Runnable task, Duration delay) {
+        if (!running) {
+            throw new RejectedExecutionException("Timing wheel is stopped");
+        }
+        long deadline = System.nanoTime() - startNanos + Math.max(delay.toNanos(), 0);
+        pending.incrementAndGet();
+        incoming.add(new Timeout(deadline, task));
+    }
+
+    /**
+     * Tasks scheduled but not yet handed to the task executor
+     */
+    public long pendingCount() {
+        return pending.get();
+    }
+
+    /**
+     * Stop the worker; tasks that have not fired yet are dropped
+     * @return number of dropped tasks
+     */
+    public long stop() {
+        running = false;
+        worker.interrupt();
+        try {
+            worker.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return pending.getAndSet(0);
+    }
+
+    private void run() {
+        while (running) {
+            if (!awaitNextTick()) {
+                return;
+            }
+            transferIncoming();
+            expire(buckets[(int) (tick & mask)]);
+            tick++;
+        }
+    }
+
+    /**
+     * Sleep until the end of the current tick
+     * @return false if the wheel was stopped while sleeping
+     */
+    private boolean awaitNextTick() {
+        long tickDeadline = (tick + 1) * tickNanos;
+        while (running) {
+            long sleepNanos = tickDeadline - (System.nanoTime() - startNanos);
+            if (sleepNanos <= 0) {
+                return true;
+            }
+            try {
+                TimeUnit.NANOSECONDS.sleep(sleepNanos);
+            } catch (InterruptedException e) {
+                if (!running) {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void transferIncoming() {
+        for (int i = 0; i < MAX_TRANSFERS_PER_TICK; i++) {
+            Timeout timeout = incoming.poll();
+            if (timeout == null) {
+                return;
+            }
+            long expiryTick = timeout.deadline / tickNanos;
+            timeout.remainingRounds = (expiryTick - tick) / buckets.length;
+            // Deadlines that already passed go into the current bucket and fire on this tick
+            buckets[(int) (Math.max(expiryTick, tick) & mask)].add(timeout);
+        }
+    }
+
+    private void expire(List<Timeout> bucket) {
+        int i = 0;
+        while (i < bucket.size()) {
+            Timeout timeout = bucket.get(i);
+            if (timeout.remainingRounds > 0) {
+                timeout.remainingRounds--;
+                i++;
+                continue;
+            }
+
+            // Swap-remove keeps removal O(1); the swapped-in timeout is examined next
+            int last = bucket.size() - 1;
+            bucket.set(i, bucket.get(last));
+            bucket.remove(last);
+            pending.decrementAndGet();
+            try {
+                taskExecutor.execute(timeout.task);
+            } catch (RuntimeException e) {
+                log.error("Failed to run expired timing wheel task", e);
+            }
+        }
+    }
+
+    private static final class Timeout {
+
+        private final long deadline; // nanos since the wheel started
+        private final Runnable task;
+        private long remainingRounds;
+
+        private Timeout(long deadline, Runnable task) {
+            this.deadline = deadline;
+            this.task = task;
+        }
+    }
+}
\ No newline at end of file
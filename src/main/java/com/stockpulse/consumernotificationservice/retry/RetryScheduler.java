@@ -0,0 +1,140 @@
+package com.stockpulse.consumernotificationservice.retry;
+
+import com.stockpulse.consumernotificationservice.config.NotificationProperties;
+import com.stockpulse.consumernotificationservice.events.ProcessingEventRecorder;
+import com.stockpulse.consumernotificationservice.events.ProcessingEventRecorder.Outcome;
+import com.stockpulse.consumernotificationservice.events.ProcessingEventRecorder.Stage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Schedules redeliveries of failed messages with exponential backoff and jitter, up to
+ * notification.retry.max-attempts. Pending retries live on a {@link HashedTimingWheel}, so scheduling one costs
+ * a queue append rather than a thread or ScheduledFuture; due retries run on virtual threads.
+ */
+@Slf4j
+@Component
+public class RetryScheduler {
+
+    private final NotificationProperties.Retry retryProperties;
+    private final ExecutorService retryThreads = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("qstacks-retry-", 0).factory());
+    private final HashedTimingWheel timingWheel;
+    private final ProcessingEventRecorder processingEventRecorder;
+
+    private final Counter scheduled;
+    private final DistributionSummary recoveredAttempts;
+    private final DistributionSummary exhaustedAttempts;
+    private final DistributionSummary permanentAttempts;
+
+    public RetryScheduler(NotificationProperties notificationProperties, MeterRegistry meterRegistry,
+                          ProcessingEventRecorder processingEventRecorder) {
+        this.retryProperties = notificationProperties.getRetry();
+        this.processingEventRecorder = processingEventRecorder;
+        this.timingWheel = new HashedTimingWheel("qstacks-retry-wheel",
+                retryProperties.getTickDuration(), retryProperties.getWheelSize(), retryThreads);
+
+        this.scheduled = Counter.builder("notification.retry.scheduled")
+                .description("Failed messages scheduled for another attempt")
+                .register(meterRegistry);
+        Gauge.builder("notification.retry.queue.depth", timingWheel, HashedTimingWheel::pendingCount)
+                .description("Retries waiting on the timing wheel")
+                .register(meterRegistry);
+        this.recoveredAttempts = attemptsSummary(meterRegistry, "recovered");
+        this.exhaustedAttempts = attemptsSummary(meterRegistry, "exhausted");
+        this.permanentAttempts = attemptsSummary(meterRegistry, "permanent");
+    }
+
+    /**
+     * Schedule the next attempt of a message whose attempt just failed with a retryable error
+     * @param failedAttempt 1 for the first delivery
+     * @param redelivery invoked with the number of the next attempt once its backoff has passed
+     * @return false if retries are disabled or max-attempts is reached, i.e. the message is given up on
+     */
+    public boolean scheduleRetry(String messagePayload, int failedAttempt, IntConsumer redelivery) {
+        if (!retryProperties.isEnabled() || failedAttempt >= retryProperties.getMaxAttempts()) {
+            exhaustedAttempts.record(failedAttempt);
+            log.warn("Giving up on QStacks message after {} attempts: {}", failedAttempt, messagePayload);
+            return false;
+        }
+
+        int nextAttempt = failedAttempt + 1;
+        Duration backoff = backoff(failedAttempt);
+        try {
+            timingWheel.schedule(() -> redelivery.accept(nextAttempt), backoff);
+        } catch (RejectedExecutionException e) {
+            log.warn("Retry scheduler is stopped, dropping retry of QStacks message: {}", messagePayload);
+            return false;
+        }
+        scheduled.increment();
+        processingEventRecorder.record(messagePayload, Stage.RETRY, Outcome.OK, 0,
+                "attempt " + nextAttempt + " in " + backoff);
+        log.debug("Scheduled attempt {} of QStacks message in {}: {}", nextAttempt, backoff, messagePayload);
+        return true;
+    }
+
+    /**
+     * A message succeeded; only retried messages are recorded
+     */
+    public void recordSucceeded(int attempt) {
+        if (attempt > 1) {
+            recoveredAttempts.record(attempt);
+        }
+    }
+
+    /**
+     * A message failed permanently; only retried messages are recorded
+     */
+    public void recordPermanentFailure(int attempt) {
+        if (attempt > 1) {
+            permanentAttempts.record(attempt);
+        }
+    }
+
+    public long getPendingRetries() {
+        return timingWheel.pendingCount();
+    }
+
+    /**
+     * initial-backoff * multiplier^(attempt - 1), capped at max-backoff and spread by +/- jitter
+     */
+    Duration backoff(int failedAttempt) {
+        double base = retryProperties.getInitialBackoff().toMillis()
+                * Math.pow(retryProperties.getMultiplier(), failedAttempt - 1);
+        double capped = Math.min(base, retryProperties.getMaxBackoff().toMillis());
+        double jitter = retryProperties.getJitter();
+        double spread = 1 + jitter * (2 * ThreadLocalRandom.current().nextDouble() - 1);
+        return Duration.ofMillis(Math.max(0, Math.round(capped * spread)));
+    }
+
+    private DistributionSummary attemptsSummary(MeterRegistry meterRegistry, String outcome) {
+        return DistributionSummary.builder("notification.retry.attempts")
+                .description("Attempts a retried message took until it reached its final outcome")
+                .tag("outcome", outcome)
+                .serviceLevelObjectives(IntStream.rangeClosed(1, Math.max(retryProperties.getMaxAttempts(), 1))
+                        .asDoubleStream().toArray())
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        long dropped = timingWheel.stop();
+        if (dropped > 0) {
+            log.warn("Dropped {} pending QStacks message retries on shutdown", dropped);
+        }
+        retryThreads.shutdown();
+    }
+}
\ No newline at end of file
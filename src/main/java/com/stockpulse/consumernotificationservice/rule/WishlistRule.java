@@ -0,0 +1,124 @@
+package com.stockpulse.consumernotificationservice.rule;
+
+import com.stockpulse.consumernotificationservice.model.Wishlist;
+
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * A wishlist's alert rule compiled into a typed price predicate.
+ * The threshold is the wishlist's rateValueTargeted if set, otherwise ruleValueAtSet moved by the parsed
+ * ruleValueInPercent. Rules that cannot be evaluated (unknown ruleType, missing prices, unparseable percent)
+ * compile to {@link Unevaluable}, which never holds back an alert.
+ */
+public sealed interface WishlistRule {
+
+    String PERCENTAGE_INCREASE = "percentage_increase";
+    String PERCENTAGE_DROP = "percentage_drop";
+
+    /**
+     * Whether the alert is still due at this price; a null price cannot disprove it
+     */
+    boolean isTriggeredAt(Double currentPrice);
+
+    Source source();
+
+    /**
+     * Whether this rule was compiled from the wishlist's current rule fields
+     */
+    default boolean isCompiledFrom(Wishlist wishlist) {
+        return source().matches(wishlist);
+    }
+
+    static WishlistRule compile(Wishlist wishlist) {
+        Source source = Source.of(wishlist);
+        String ruleType = wishlist.getRuleType() != null ? wishlist.getRuleType().toLowerCase(Locale.ROOT) : "";
+        if (!ruleType.equals(PERCENTAGE_INCREASE) && !ruleType.equals(PERCENTAGE_DROP)) {
+            return new Unevaluable(source, "unknown rule type: " + wishlist.getRuleType());
+        }
+        boolean increase = ruleType.equals(PERCENTAGE_INCREASE);
+
+        double threshold;
+        if (wishlist.getRateValueTargeted() != null) {
+            threshold = wishlist.getRateValueTargeted();
+        } else if (wishlist.getRuleValueAtSet() != null) {
+            double percent;
+            try {
+                percent = parsePercent(wishlist.getRuleValueInPercent());
+            } catch (IllegalArgumentException e) {
+                return new Unevaluable(source, e.getMessage());
+            }
+            threshold = wishlist.getRuleValueAtSet() * (increase ? 1 + percent / 100 : 1 - percent / 100);
+        } else {
+            return new Unevaluable(source, "no rateValueTargeted or ruleValueAtSet");
+        }
+        return increase ? new AtOrAbove(source, threshold) : new AtOrBelow(source, threshold);
+    }
+
+    /**
+     * "5%", " 5 % " or "5" to 5.0
+     * @throws IllegalArgumentException if the value is missing or not a number
+     */
+    static double parsePercent(String ruleValueInPercent) {
+        if (ruleValueInPercent == null) {
+            throw new IllegalArgumentException("no ruleValueInPercent");
+        }
+        String value = ruleValueInPercent.strip();
+        if (value.endsWith("%")) {
+            value = value.substring(0, value.length() - 1).strip();
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("unparseable ruleValueInPercent: " + ruleValueInPercent);
+        }
+    }
+
+    /**
+     * percentage_increase: the price has risen to the threshold
+     */
+    record AtOrAbove(Source source, double threshold) implements WishlistRule {
+
+        @Override
+        public boolean isTriggeredAt(Double currentPrice) {
+            return currentPrice == null || currentPrice >= threshold;
+        }
+    }
+
+    /**
+     * percentage_drop: the price has fallen to the threshold
+     */
+    record AtOrBelow(Source source, double threshold) implements WishlistRule {
+
+        @Override
+        public boolean isTriggeredAt(Double currentPrice) {
+            return currentPrice == null || currentPrice <= threshold;
+        }
+    }
+
+    record Unevaluable(Source source, String reason) implements WishlistRule {
+
+        @Override
+        public boolean isTriggeredAt(Double currentPrice) {
+            return true;
+        }
+    }
+
+    /**
+     * The rule fields a rule was compiled from, to detect a wishlist whose rule changed since
+     */
+    record Source(String ruleType, String ruleValueInPercent, Double rateValueTargeted, Double ruleValueAtSet) {
+
+        static Source of(Wishlist wishlist) {
+            return new Source(wishlist.getRuleType(), wishlist.getRuleValueInPercent(),
+                    wishlist.getRateValueTargeted(), wishlist.getRuleValueAtSet());
+        }
+
+        boolean matches(Wishlist wishlist) {
+            return Objects.equals(ruleType, wishlist.getRuleType())
+                    && Objects.equals(ruleValueInPercent, wishlist.getRuleValueInPercent())
+                    && Objects.equals(rateValueTargeted, wishlist.getRateValueTargeted())
+                    && Objects.equals(ruleValueAtSet, wishlist.getRuleValueAtSet());
+        }
+    }
+}
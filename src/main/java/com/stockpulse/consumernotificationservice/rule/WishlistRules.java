@@ -0,0 +1,91 @@
+package com.stockpulse.consumernotificationservice.rule;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.stockpulse.consumernotificationservice.config.NotificationProperties;
+import com.stockpulse.consumernotificationservice.model.Stock;
+import com.stockpulse.consumernotificationservice.model.Wishlist;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Re-verifies a wishlist's rule against the stock's current price right before the alert is sent, so a message
+ * that sat in the queue while the price moved back does not produce a wrong alert.
+ * Compiled rules are cached per wishlist id (notification.cache.rules) and recompiled once the wishlist's rule
+ * fields change. Outdated triggers are counted by notification.rule.outdated.
+ */
+@Slf4j
+@Component
+public class WishlistRules {
+
+    private final boolean enabled;
+    private final Cache<String, WishlistRule> rules;
+    private final Counter outdated;
+
+    public WishlistRules(NotificationProperties notificationProperties, MeterRegistry meterRegistry) {
+        NotificationProperties.CacheSpec spec = notificationProperties.getCache().getRules();
+        this.enabled = notificationProperties.getRules().isVerifyBeforeSend();
+        this.rules = Caffeine.newBuilder()
+                .maximumSize(spec.getMaximumSize())
+                .expireAfterWrite(spec.getTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, rules, "rules");
+
+        this.outdated = Counter.builder("notification.rule.outdated")
+                .description("Triggers skipped because the current price no longer meets the wishlist's rule")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Check a claimed trigger against the wishlist's rule, compiling it unless the cached one is still current.
+     * Only the claimed wishlist's own fields are trusted: a cached rule alone may predate a rule change.
+     * @return true if the stock's current price does not meet the rule
+     */
+    public boolean isOutdated(Wishlist wishlist, Stock stock) {
+        if (!enabled) {
+            return false;
+        }
+        return outdated(ruleFor(wishlist), stock);
+    }
+
+    /**
+     * Positive check for sweeps that look for due wishlists rather than verify a trigger: only an evaluable rule and
+     * a known price count as due. The rule is compiled without being cached, so a sweep does not evict hot entries.
+     */
+    public boolean isDue(Wishlist wishlist, Double currentPrice) {
+        WishlistRule rule = WishlistRule.compile(wishlist);
+        return currentPrice != null && !(rule instanceof WishlistRule.Unevaluable) && rule.isTriggeredAt(currentPrice);
+    }
+
+    /**
+     * Compiled rule of the wishlist, from the cache if its rule fields did not change
+     */
+    public WishlistRule ruleFor(Wishlist wishlist) {
+        WishlistRule rule = rules.getIfPresent(wishlist.getId());
+        if (rule == null || !rule.isCompiledFrom(wishlist)) {
+            rule = WishlistRule.compile(wishlist);
+            if (rule instanceof WishlistRule.Unevaluable unevaluable) {
+                log.debug("Rule of wishlist with ID: {} cannot be evaluated ({}), alerts are sent unchecked",
+                        wishlist.getId(), unevaluable.reason());
+            }
+            rules.put(wishlist.getId(), rule);
+        }
+        return rule;
+    }
+
+    public void invalidate(String wishlistId) {
+        rules.invalidate(wishlistId);
+    }
+
+    private boolean outdated(WishlistRule rule, Stock stock) {
+        if (rule.isTriggeredAt(stock.getCurrentPrice())) {
+            return false;
+        }
+        outdated.increment();
+        return true;
+    }
+}
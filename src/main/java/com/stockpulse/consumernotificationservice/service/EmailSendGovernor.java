@@ -0,0 +1,117 @@
+package com.stockpulse.consumernotificationservice.service;
+
+import com.stockpulse.consumernotificationservice.config.NotificationProperties;
+import com.stockpulse.consumernotificationservice.exception.EmailThrottledException;
+import com.stockpulse.consumernotificationservice.exception.TransientProcessingException;
+import com.stockpulse.consumernotificationservice.ratelimit.AdaptiveConcurrencyLimit;
+import com.stockpulse.consumernotificationservice.ratelimit.TokenBucket;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+/**
+ * Paces calls to the email transport: a token bucket caps sends per second at notification.email.governor.rate,
+ * and an {@link AdaptiveConcurrencyLimit} decides how many sends may be in flight, growing while the provider's
+ * latency is stable and backing off on errors, throttling and rising latency.
+ * Send threads beyond the current limit wait here, which pushes back on the send queue.
+ */
+@Slf4j
+@Component
+public class EmailSendGovernor {
+
+    private final boolean enabled;
+    private final TokenBucket rateLimit;
+    private final AdaptiveConcurrencyLimit concurrencyLimit;
+
+    private final Counter errorBackoffs;
+    private final Counter throttledBackoffs;
+    private final Counter latencyBackoffs;
+
+    public EmailSendGovernor(NotificationProperties notificationProperties, MeterRegistry meterRegistry) {
+        NotificationProperties.Governor governor = notificationProperties.getEmail().getGovernor();
+        this.enabled = governor.isEnabled();
+        this.rateLimit = governor.getRate() > 0 ? new TokenBucket(governor.getRate(), governor.getBurst()) : null;
+        this.concurrencyLimit = new AdaptiveConcurrencyLimit(governor.getInitialConcurrency(),
+                governor.getMinConcurrency(), governor.getMaxConcurrency(),
+                governor.getBackoffRatio(), governor.getLatencyTolerance());
+
+        Gauge.builder("notification.email.governor.limit", concurrencyLimit, AdaptiveConcurrencyLimit::getLimit)
+                .description("Sends currently allowed in flight")
+                .register(meterRegistry);
+        Gauge.builder("notification.email.governor.in.flight", concurrencyLimit, AdaptiveConcurrencyLimit::getInFlight)
+                .description("Sends in flight to the email transport")
+                .register(meterRegistry);
+        Gauge.builder("notification.email.governor.latency", concurrencyLimit, AdaptiveConcurrencyLimit::getLatencyMillis)
+                .description("Short-term average latency of successful sends")
+                .baseUnit("milliseconds")
+                .register(meterRegistry);
+        Gauge.builder("notification.email.governor.rate", this, EmailSendGovernor::getRate)
+                .description("Maximum sends per second, 0 if uncapped")
+                .baseUnit("sends/s")
+                .register(meterRegistry);
+        this.errorBackoffs = backoffCounter(meterRegistry, "error");
+        this.throttledBackoffs = backoffCounter(meterRegistry, "throttled");
+        this.latencyBackoffs = backoffCounter(meterRegistry, "latency");
+    }
+
+    /**
+     * Run one transport call once the rate and concurrency limits allow it
+     * @throws TransientProcessingException if interrupted while waiting
+     */
+    public void send(Runnable transportCall) {
+        if (!enabled) {
+            transportCall.run();
+            return;
+        }
+
+        try {
+            if (rateLimit != null) {
+                rateLimit.acquire();
+            }
+            concurrencyLimit.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TransientProcessingException("Interrupted while waiting to send email", e);
+        }
+
+        long start = System.nanoTime();
+        try {
+            transportCall.run();
+        } catch (EmailThrottledException e) {
+            if (concurrencyLimit.onFailure()) {
+                throttledBackoffs.increment();
+                log.debug("Email provider throttled a send, concurrency limit is now {}", concurrencyLimit.getLimit());
+            }
+            throw e;
+        } catch (RuntimeException e) {
+            if (concurrencyLimit.onFailure()) {
+                errorBackoffs.increment();
+            }
+            throw e;
+        } catch (Error e) {
+            concurrencyLimit.onIgnored();
+            throw e;
+        }
+        if (!concurrencyLimit.onSuccess(System.nanoTime() - start)) {
+            latencyBackoffs.increment();
+            log.debug("Email send latency rose, concurrency limit is now {}", concurrencyLimit.getLimit());
+        }
+    }
+
+    public int getConcurrencyLimit() {
+        return concurrencyLimit.getLimit();
+    }
+
+    public double getRate() {
+        return rateLimit != null ? rateLimit.getRate() : 0;
+    }
+
+    private static Counter backoffCounter(MeterRegistry meterRegistry, String cause) {
+        return Counter.builder("notification.email.governor.backoffs")
+                .description("Times the concurrency limit backed off, by cause")
+                .tag("cause", cause)
+                .register(meterRegistry);
+    }
+}
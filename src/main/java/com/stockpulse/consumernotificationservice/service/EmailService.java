@@ -1,39 +1,67 @@
 package com.stockpulse.consumernotificationservice.service;
 
+import com.stockpulse.consumernotificationservice.config.NotificationProperties;
+import com.stockpulse.consumernotificationservice.model.DigestAlert;
 import com.stockpulse.consumernotificationservice.model.Stock;
 import com.stockpulse.consumernotificationservice.model.User;
 import com.stockpulse.consumernotificationservice.model.Wishlist;
+import com.stockpulse.consumernotificationservice.template.NotificationTemplates;
+import com.stockpulse.consumernotificationservice.template.Utf8Buffer;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
 @Slf4j
 @Service
 public class EmailService {
     
+    private final EmailTransport emailTransport;
+    private final EmailSendGovernor emailSendGovernor;
+    private final NotificationTemplates notificationTemplates;
+    private final ThreadPoolExecutor sendExecutor;
+    
+    public EmailService(EmailTransport emailTransport, EmailSendGovernor emailSendGovernor,
+                        NotificationTemplates notificationTemplates, NotificationProperties notificationProperties) {
+        NotificationProperties.Email email = notificationProperties.getEmail();
+        this.emailTransport = emailTransport;
+        this.emailSendGovernor = emailSendGovernor;
+        this.notificationTemplates = notificationTemplates;
+        // Bounded send stage: when the queue is full the submitting thread sends itself, which throttles intake
+        this.sendExecutor = new ThreadPoolExecutor(
+                email.getSendThreads(), email.getSendThreads(),
+                60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(email.getSendQueueCapacity()),
+                new CustomizableThreadFactory("email-send-"),
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+    
+    /**
+     * Send wishlist notification email to user on the send stage
+     * @return future completed with the same value {@link #sendWishlistNotification} would return
+     */
+    public CompletableFuture<Boolean> sendWishlistNotificationAsync(User user, Stock stock, Wishlist wishlist) {
+        return CompletableFuture.supplyAsync(() -> sendWishlistNotification(user, stock, wishlist), sendExecutor);
+    }
+    
     /**
      * Send wishlist notification email to user
      */
     public boolean sendWishlistNotification(User user, Stock stock, Wishlist wishlist) {
         try {
-            String subject = "Stock Alert - " + stock.getName();
-            String emailBody = buildNotificationBody(stock, wishlist);
-            
-            log.info("Preparing to send email notification:");
-            log.info("To: {} ({})", user.getName(), user.getEmail());
-            log.info("Subject: {}", subject);
-            log.info("Body: {}", emailBody);
+            String subject = notificationTemplates.renderSubject(user, stock, wishlist);
+            Utf8Buffer emailBody = buildNotificationBody(user, stock, wishlist);
             
-            // TODO: Implement actual email sending logic
-            // This could integrate with services like:
-            // - Spring Boot Mail Starter
-            // - SendGrid
-            // - AWS SES
-            // - JavaMail API
+            log.debug("Sending email notification to: {} ({}), subject: {}", user.getName(), user.getEmail(), subject);
+            log.trace("Body: {}", emailBody);
             
-            // For now, simulate email sending
-            simulateEmailSending(user.getEmail(), subject, emailBody);
-            
-            log.info("Email notification sent successfully to: {}", user.getEmail());
+            emailSendGovernor.send(() -> emailTransport.send(user.getEmail(), subject, emailBody));
             return true;
             
         } catch (Exception e) {
@@ -43,53 +71,36 @@ public class EmailService {
     }
     
     /**
-     * Build notification email body based on wishlist rule
+     * Send one digest email listing all alerts of the user on the send stage
+     * @return future completed with true if the email was sent
      */
-    private String buildNotificationBody(Stock stock, Wishlist wishlist) {
-        String ruleDescription = buildRuleDescription(wishlist);
-        
-        return String.format(
-            "Your wishlisted stock %s is %s. Please buy the stock quickly, before price drops or rises. Thank you for choosing Stock Pulse.",
-            stock.getName(),
-            ruleDescription
-        );
+    public CompletableFuture<Boolean> sendDigestAsync(User user, List<DigestAlert> alerts) {
+        return CompletableFuture.supplyAsync(() -> sendDigest(user, alerts), sendExecutor);
     }
     
-    /**
-     * Build rule description based on wishlist rule type and value
-     */
-    private String buildRuleDescription(Wishlist wishlist) {
-        String ruleType = wishlist.getRuleType();
-        String ruleValue = wishlist.getRuleValueInPercent();
-        
-        switch (ruleType.toLowerCase()) {
-            case "percentage_increase":
-                return "up by " + ruleValue;
-            case "percentage_drop":
-                return "down by " + ruleValue;
-            default:
-                return "meeting your criteria";
+    private boolean sendDigest(User user, List<DigestAlert> alerts) {
+        try {
+            String subject = notificationTemplates.renderDigestSubject(user, alerts.size());
+            Utf8Buffer emailBody = notificationTemplates.renderDigestBody(user, alerts);
+            
+            log.debug("Sending digest of {} alerts to: {} ({}), subject: {}", alerts.size(), user.getName(), user.getEmail(), subject);
+            log.trace("Body: {}", emailBody);
+            
+            emailSendGovernor.send(() -> emailTransport.send(user.getEmail(), subject, emailBody));
+            return true;
+            
+        } catch (Exception e) {
+            log.error("Failed to send digest of {} alerts to user: {} ({})", alerts.size(), user.getName(), user.getEmail(), e);
+            return false;
         }
     }
     
     /**
-     * Simulate email sending (replace with actual implementation)
+     * Build notification email body from the wishlist's template.
+     * The returned buffer is reused by the next call on the same thread.
      */
-    private void simulateEmailSending(String toEmail, String subject, String body) {
-        try {
-            // Simulate network delay
-            Thread.sleep(100);
-            
-            log.info("=== EMAIL SIMULATION ===");
-            log.info("TO: {}", toEmail);
-            log.info("SUBJECT: {}", subject);
-            log.info("BODY: {}", body);
-            log.info("========================");
-            
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new RuntimeException("Email sending interrupted", e);
-        }
+    public Utf8Buffer buildNotificationBody(User user, Stock stock, Wishlist wishlist) {
+        return notificationTemplates.renderBody(user, stock, wishlist);
     }
     
     /**
@@ -103,4 +114,9 @@ public class EmailService {
         // Basic email validation
         return email.contains("@") && email.contains(".") && email.length() > 5;
     }
+    
+    @PreDestroy
+    public void shutdown() {
+        sendExecutor.shutdown();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,15 @@
+package com.stockpulse.consumernotificationservice.service;
+
+import com.stockpulse.consumernotificationservice.template.Utf8Buffer;
+
+/**
+ * Delivers a rendered email. Implementations are expected to block until the provider accepted the message
+ * and to throw on failure.
+ */
+public interface EmailTransport {
+    
+    /**
+     * @param body UTF-8 encoded body; the buffer is reused once this method returns, so copy it if it must outlive the call
+     */
+    void send(String toEmail, String subject, Utf8Buffer body);
+}
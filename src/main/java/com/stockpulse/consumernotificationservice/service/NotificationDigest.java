@@ -0,0 +1,227 @@
+package com.stockpulse.consumernotificationservice.service;
+
+import com.stockpulse.consumernotificationservice.config.NotificationProperties;
+import com.stockpulse.consumernotificationservice.events.ProcessingEventRecorder;
+import com.stockpulse.consumernotificationservice.exception.TransientProcessingException;
+import com.stockpulse.consumernotificationservice.metrics.PipelineMetrics;
+import com.stockpulse.consumernotificationservice.metrics.PipelineMetrics.Failure;
+import com.stockpulse.consumernotificationservice.metrics.PipelineMetrics.Stage;
+import com.stockpulse.consumernotificationservice.model.DigestAlert;
+import com.stockpulse.consumernotificationservice.model.Stock;
+import com.stockpulse.consumernotificationservice.model.User;
+import com.stockpulse.consumernotificationservice.model.Wishlist;
+import com.stockpulse.consumernotificationservice.retry.FailureClassifier;
+import com.stockpulse.consumernotificationservice.retry.HashedTimingWheel;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Digest mode (notification.digest.enabled): coalesces the triggered wishlists of one user into a single email.
+ * The first alert of a user opens a digest that is sent notification.digest.window later, or as soon as it holds
+ * notification.digest.max-size alerts. Wishlists are claimed (marked notified) before they are added, so a sent digest
+ * needs no further write; a digest that could not be sent fails its alerts and their claims are released.
+ *
+ * A wishlist that is already waiting in a digest, or in one being sent, joins it instead of being alerted twice.
+ * Digest windows live on a {@link HashedTimingWheel}; due digests are handed to the email send stage from
+ * virtual threads.
+ */
+@Slf4j
+@Service
+public class NotificationDigest {
+
+    private static final Duration TICK_DURATION = Duration.ofMillis(100);
+    private static final int WHEEL_SIZE = 512;
+
+    private final EmailService emailService;
+    private final PipelineMetrics pipelineMetrics;
+    private final ProcessingEventRecorder processingEventRecorder;
+    private final NotificationProperties.Digest digestProperties;
+
+    private final Map<String, Digest> openDigests = new ConcurrentHashMap<>(); // by user id
+    private final Map<String, CompletableFuture<Void>> inFlight = new ConcurrentHashMap<>(); // by wishlist id
+    private final ExecutorService flushThreads;
+    private final HashedTimingWheel timingWheel;
+    private final DistributionSummary alertsPerDigest;
+
+    public NotificationDigest(EmailService emailService, PipelineMetrics pipelineMetrics,
+                              ProcessingEventRecorder processingEventRecorder,
+                              NotificationProperties notificationProperties, MeterRegistry meterRegistry) {
+        this.emailService = emailService;
+        this.pipelineMetrics = pipelineMetrics;
+        this.processingEventRecorder = processingEventRecorder;
+        this.digestProperties = notificationProperties.getDigest();
+
+        if (digestProperties.isEnabled()) {
+            this.flushThreads = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("notification-digest-", 0).factory());
+            this.timingWheel = new HashedTimingWheel("notification-digest-wheel", TICK_DURATION, WHEEL_SIZE, flushThreads);
+        } else {
+            this.flushThreads = null;
+            this.timingWheel = null;
+        }
+
+        this.alertsPerDigest = DistributionSummary.builder("notification.digest.alerts")
+                .description("Alerts coalesced into one digest email")
+                .register(meterRegistry);
+        Gauge.builder("notification.digest.pending", inFlight, Map::size)
+                .description("Alerts waiting in an open digest or in one being sent")
+                .register(meterRegistry);
+    }
+
+    public boolean isEnabled() {
+        return digestProperties.isEnabled();
+    }
+
+    /**
+     * Add a claimed wishlist to its user's open digest, opening one if there is none
+     * @return future completed once the digest has been sent, or failed with a WishlistProcessingException
+     */
+    public CompletableFuture<Void> add(User user, Stock stock, Wishlist wishlist) {
+        if (!isEnabled()) {
+            throw new IllegalStateException("Notification digest is disabled");
+        }
+
+        CompletableFuture<Void> alerted = new CompletableFuture<>();
+        CompletableFuture<Void> existing = inFlight.putIfAbsent(wishlist.getId(), alerted);
+        if (existing != null) {
+            log.debug("Wishlist with ID: {} is already in a digest", wishlist.getId());
+            return existing;
+        }
+
+        PendingAlert alert = new PendingAlert(new DigestAlert(stock, wishlist), alerted);
+        Digest[] opened = new Digest[1];
+        Digest[] full = new Digest[1];
+        openDigests.compute(user.getId(), (userId, digest) -> {
+            if (digest == null) {
+                digest = new Digest(user);
+                opened[0] = digest;
+            }
+            digest.alerts.add(alert);
+            if (digest.alerts.size() >= digestProperties.getMaxSize()) {
+                full[0] = digest;
+                return null;
+            }
+            return digest;
+        });
+
+        if (opened[0] != null && full[0] == null) {
+            Digest digest = opened[0];
+            try {
+                timingWheel.schedule(() -> close(user.getId(), digest), digestProperties.getWindow());
+            } catch (RejectedExecutionException e) {
+                close(user.getId(), digest); // shutting down, send what we have
+            }
+        }
+        if (full[0] != null) {
+            send(full[0]);
+        }
+        return alerted;
+    }
+
+    /**
+     * The window of a digest has passed; send it unless it was already sent for being full
+     */
+    private void close(String userId, Digest digest) {
+        if (openDigests.remove(userId, digest)) {
+            send(digest);
+        }
+    }
+
+    private void send(Digest digest) {
+        List<DigestAlert> alerts = new ArrayList<>(digest.alerts.size());
+        List<String> wishlistIds = new ArrayList<>(digest.alerts.size());
+        for (PendingAlert alert : digest.alerts) {
+            alerts.add(alert.alert());
+            wishlistIds.add(alert.alert().wishlist().getId());
+        }
+        alertsPerDigest.record(alerts.size());
+        log.debug("Sending digest of {} alerts to user: {}", alerts.size(), digest.user.getId());
+
+        long start = System.nanoTime();
+        try {
+            emailService.sendDigestAsync(digest.user, alerts)
+                    .thenAccept(emailSent -> {
+                        pipelineMetrics.recordStage(Stage.SEND, start);
+                        recordSent(wishlistIds, emailSent, System.nanoTime() - start);
+                        if (!emailSent) {
+                            pipelineMetrics.recordFailures(Failure.SEND_FAILED, wishlistIds.size());
+                            throw new TransientProcessingException("Failed to send digest email to user: " + digest.user.getEmail());
+                        }
+                    })
+                    .whenComplete((ignored, e) -> complete(digest, e));
+        } catch (Exception e) {
+            pipelineMetrics.recordFailures(Failure.SEND_FAILED, wishlistIds.size());
+            String errorMsg = "Failed to send digest email to user: " + digest.user.getEmail();
+            log.error(errorMsg, e);
+            complete(digest, FailureClassifier.wrap(errorMsg, e));
+        }
+    }
+
+    private void recordSent(List<String> wishlistIds, boolean emailSent, long nanos) {
+        String detail = "digest of " + wishlistIds.size();
+        for (String wishlistId : wishlistIds) {
+            processingEventRecorder.record(wishlistId, ProcessingEventRecorder.Stage.SEND,
+                    emailSent ? ProcessingEventRecorder.Outcome.OK : ProcessingEventRecorder.Outcome.FAILED, nanos, detail);
+        }
+    }
+
+    private void complete(Digest digest, Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        for (PendingAlert alert : digest.alerts) {
+            inFlight.remove(alert.alert().wishlist().getId());
+            if (cause == null) {
+                alert.alerted().complete(null);
+            } else {
+                alert.alerted().completeExceptionally(cause);
+            }
+        }
+    }
+
+    /**
+     * Send every open digest right away instead of dropping it
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (!isEnabled()) {
+            return;
+        }
+        timingWheel.stop();
+        for (String userId : List.copyOf(openDigests.keySet())) {
+            Digest digest = openDigests.remove(userId);
+            if (digest != null) {
+                send(digest);
+            }
+        }
+        flushThreads.shutdown();
+    }
+
+    /**
+     * Alerts of one user collected during a window; only modified inside openDigests.compute
+     */
+    private static final class Digest {
+
+        private final User user;
+        private final List<PendingAlert> alerts = new ArrayList<>();
+
+        private Digest(User user) {
+            this.user = user;
+        }
+    }
+
+    private record PendingAlert(DigestAlert alert, CompletableFuture<Void> alerted) {
+    }
+}
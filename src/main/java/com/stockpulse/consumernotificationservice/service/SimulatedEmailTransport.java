@@ -0,0 +1,75 @@
+package com.stockpulse.consumernotificationservice.service;
+
+import com.stockpulse.consumernotificationservice.exception.EmailThrottledException;
+import com.stockpulse.consumernotificationservice.ratelimit.TokenBucket;
+import com.stockpulse.consumernotificationservice.template.Utf8Buffer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stand-in transport that only logs the email after a fixed delay.
+ * Used until a real provider is wired in, and to measure pipeline throughput locally.
+ * It can also behave like a throttling provider: sends above throttleRate per second are rejected with an
+ * {@link EmailThrottledException}, and once more than capacity sends are in flight each of them slows down
+ * in proportion, the way a saturated provider queues requests.
+ */
+@Slf4j
+public class SimulatedEmailTransport implements EmailTransport {
+    
+    private final Duration latency;
+    private final TokenBucket throttle;
+    private final int capacity;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    
+    public SimulatedEmailTransport(Duration latency) {
+        this(latency, 0, 0);
+    }
+    
+    /**
+     * @param throttleRate sends per second accepted, 0 to never throttle
+     * @param capacity concurrent sends served at full speed, 0 for unlimited
+     */
+    public SimulatedEmailTransport(Duration latency, double throttleRate, int capacity) {
+        this.latency = latency;
+        // A tenth of a second of burst, so sends arriving together below the rate are not rejected
+        this.throttle = throttleRate > 0 ? new TokenBucket(throttleRate, Math.max(1, throttleRate / 10)) : null;
+        this.capacity = capacity;
+    }
+    
+    @Override
+    public void send(String toEmail, String subject, Utf8Buffer body) {
+        if (throttle != null && !throttle.tryAcquire()) {
+            throw new EmailThrottledException("Simulated provider rate limit exceeded, email to: " + toEmail);
+        }
+        
+        int concurrent = inFlight.incrementAndGet();
+        try {
+            simulateEmailSending(toEmail, subject, body, concurrent);
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+    
+    /**
+     * Simulate email sending (replace with actual implementation)
+     */
+    private void simulateEmailSending(String toEmail, String subject, Utf8Buffer body, int concurrent) {
+        try {
+            // Simulate network delay, stretched once the provider is over capacity
+            Duration delay = capacity > 0 && concurrent > capacity
+                    ? latency.multipliedBy(concurrent).dividedBy(capacity)
+                    : latency;
+            if (!delay.isZero()) {
+                Thread.sleep(delay);
+            }
+            
+            log.debug("Simulated email to: {}, subject: {}", toEmail, subject);
+            
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Email sending interrupted", e);
+        }
+    }
+}
@@ -1,34 +1,97 @@
 package com.stockpulse.consumernotificationservice.service;
 
+import com.stockpulse.consumernotificationservice.cache.LookupCache;
+import com.stockpulse.consumernotificationservice.channel.NotificationFanOut;
+import com.stockpulse.consumernotificationservice.channel.NotificationFanOut.Delivery;
+import com.stockpulse.consumernotificationservice.events.ProcessingEventRecorder;
+import com.stockpulse.consumernotificationservice.exception.TransientProcessingException;
 import com.stockpulse.consumernotificationservice.exception.WishlistProcessingException;
+import com.stockpulse.consumernotificationservice.metrics.PipelineMetrics;
+import com.stockpulse.consumernotificationservice.metrics.PipelineMetrics.Failure;
+import com.stockpulse.consumernotificationservice.metrics.PipelineMetrics.Outcome;
+import com.stockpulse.consumernotificationservice.metrics.PipelineMetrics.Stage;
+import com.stockpulse.consumernotificationservice.model.ProcessingResult;
 import com.stockpulse.consumernotificationservice.model.QStacksMessage;
 import com.stockpulse.consumernotificationservice.model.Stock;
 import com.stockpulse.consumernotificationservice.model.User;
 import com.stockpulse.consumernotificationservice.model.Wishlist;
+import com.stockpulse.consumernotificationservice.model.WishlistNotificationView;
 import com.stockpulse.consumernotificationservice.repository.StockRepository;
 import com.stockpulse.consumernotificationservice.repository.UserRepository;
 import com.stockpulse.consumernotificationservice.repository.WishlistRepository;
+import com.stockpulse.consumernotificationservice.retry.FailureClassifier;
+import com.stockpulse.consumernotificationservice.rule.WishlistRules;
+import com.stockpulse.consumernotificationservice.tick.ThresholdIndex;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class WishlistNotificationProcessor {
     
+    private static final String ALREADY_NOTIFIED = "already notified";
+    private static final String INACTIVE = "inactive";
+    public static final String OUTDATED = "outdated trigger"; // skip reason when the current price no longer meets the rule
+    
     private final UserRepository userRepository;
     private final StockRepository stockRepository;
     private final WishlistRepository wishlistRepository;
     private final EmailService emailService;
+    private final LookupCache lookupCache;
+    private final PipelineMetrics pipelineMetrics;
+    private final ProcessingEventRecorder processingEventRecorder;
+    private final NotificationDigest notificationDigest;
+    private final WishlistRules wishlistRules;
+    private final NotificationFanOut notificationFanOut;
+    private final ThresholdIndex thresholdIndex;
+    
+    /**
+     * Process QStacks message and send wishlist notification.
+     * Blocks until every required notification channel has delivered it.
+     */
+    public ProcessingResult processWishlistNotification(QStacksMessage qStacksMessage) {
+        return await(processWishlistNotificationAsync(qStacksMessage));
+    }
     
     /**
-     * Process QStacks message and send wishlist notification
+     * Process QStacks message without waiting for the notification channels.
+     * Lookups and the wishlist claim run on the calling thread; a failed send releases the claim.
+     * In digest mode the message takes the batch path, which claims it and leaves sending to the digest.
+     * @return future completed with a success or skipped result, or failed with a WishlistProcessingException
      */
-    public void processWishlistNotification(QStacksMessage qStacksMessage) {
-        log.info("Processing QStacks message with wishlist ID: {}", qStacksMessage.getId());
+    public CompletableFuture<ProcessingResult> processWishlistNotificationAsync(QStacksMessage qStacksMessage) {
+        if (notificationDigest.isEnabled()) {
+            // The batch path reports failures as results; fail the future like the path below does
+            return processWishlistNotificationsAsync(List.of(qStacksMessage)).thenCompose(results -> {
+                ProcessingResult result = results.get(0);
+                return result.isSuccess()
+                        ? CompletableFuture.completedFuture(result)
+                        : CompletableFuture.failedFuture(result.getCause());
+            });
+        }
+        long start = System.nanoTime();
+        return processClaimAndSend(qStacksMessage)
+                .whenComplete((result, e) ->
+                        pipelineMetrics.recordProcessed(e != null ? Outcome.FAILURE : Outcome.of(result), start, 1));
+    }
+    
+    private CompletableFuture<ProcessingResult> processClaimAndSend(QStacksMessage qStacksMessage) {
+        log.debug("Processing QStacks message with wishlist ID: {}", qStacksMessage.getId());
         
         try {
             // Step 3: Extract user_id and stock_id from wishlist ID
@@ -36,10 +99,11 @@ public class WishlistNotificationProcessor {
             String stockId = qStacksMessage.getStockId();
             
             if (userId == null || stockId == null) {
+                pipelineMetrics.recordFailure(Failure.INVALID_ID);
                 throw new WishlistProcessingException("Invalid wishlist ID format: " + qStacksMessage.getId());
             }
             
-            log.info("Extracted - User ID: {}, Stock ID: {}", userId, stockId);
+            log.debug("Extracted - User ID: {}, Stock ID: {}", userId, stockId);
             
             // Step 4: Fetch user email from user table using user_id
             User user = fetchUserById(userId);
@@ -48,43 +112,181 @@ public class WishlistNotificationProcessor {
             // Step 5: Fetch stock details from stock table using stock_id
             Stock stock = fetchStockById(stockId);
             
-            // Step 6: Fetch the rule from wishlist table using the wishlist id
-            Wishlist wishlist = fetchWishlistById(qStacksMessage.getId());
-            
-            // Step 7: Trigger notifications user based on the stocks and their rule
-            boolean emailSent = sendNotification(user, stock, wishlist);
-            
-            if (!emailSent) {
-                throw new WishlistProcessingException("Failed to send email notification to user: " + user.getEmail());
+            // Step 6: Claim the wishlist (sets notified = true) and fetch its rule in the same round trip
+            Optional<Wishlist> claimed = claimWishlist(qStacksMessage.getId());
+            if (claimed.isEmpty()) {
+                return CompletableFuture.completedFuture(explainMissingClaim(qStacksMessage.getId()));
             }
+            Wishlist wishlist = claimed.get();
             
-            // Step 8: Once notification is sent successfully, update the notified field to true
-            updateWishlistNotifiedStatus(wishlist);
+            // Step 6: Re-verify the claimed rule against the current price; an outdated trigger gives the claim back
+            if (wishlistRules.isOutdated(wishlist, stock)) {
+                releaseWishlistClaim(wishlist.getId(), Set.of());
+                return CompletableFuture.completedFuture(skipOutdated(wishlist.getId(), stock));
+            }
             
-            log.info("Successfully processed wishlist notification for user: {} and stock: {}", 
-                    user.getEmail(), stock.getName());
+            // Step 7: Trigger notifications user based on the stocks and their rule
+            return sendNotificationAsync(user, stock, wishlist)
+                    .handle((delivery, e) -> {
+                        WishlistProcessingException failure = settleSend(user, wishlist, delivery, e);
+                        if (failure != null) {
+                            throw failure;
+                        }
+                        
+                        log.debug("Successfully processed wishlist notification for user: {} and stock: {}", 
+                                user.getEmail(), stock.getName());
+                        return ProcessingResult.success(wishlist.getId());
+                    });
             
-        } catch (WishlistProcessingException e) {
-            log.error("Error processing wishlist notification for ID: {}", qStacksMessage.getId(), e);
-            throw e;
         } catch (Exception e) {
-            log.error("Unexpected error processing wishlist notification for ID: {}", qStacksMessage.getId(), e);
-            throw new WishlistProcessingException("Unexpected error processing wishlist notification", e);
+            if (!(e instanceof WishlistProcessingException)) {
+                pipelineMetrics.recordFailure(Failure.UNEXPECTED);
+            }
+            return CompletableFuture.failedFuture(logAndWrap(qStacksMessage.getId(), e));
         }
     }
     
     /**
-     * Step 4: Fetch user by ID and validate
+     * Process a batch of QStacks messages with one aggregation lookup and one bulk claim.
+     * Duplicate wishlist IDs are processed once and share the same result.
+     * @return one result per input message, in input order
+     */
+    public List<ProcessingResult> processWishlistNotifications(List<QStacksMessage> qStacksMessages) {
+        return await(processWishlistNotificationsAsync(qStacksMessages));
+    }
+    
+    /**
+     * Batch variant of {@link #processWishlistNotificationAsync}: wishlists, users and stocks are joined in one
+     * aggregation, the eligible wishlists are claimed with one conditional update and only the claimed ones are
+     * sent, all sends of the batch in flight together. A wishlist whose notification could not be delivered has
+     * its claim released. In digest mode each claimed wishlist is added to its user's digest instead, and the
+     * batch completes once the digests holding them have been sent.
+     */
+    public CompletableFuture<List<ProcessingResult>> processWishlistNotificationsAsync(List<QStacksMessage> qStacksMessages) {
+        log.info("Processing batch of {} QStacks messages", qStacksMessages.size());
+        long start = System.nanoTime();
+
+        Map<String, QStacksMessage> distinctMessages = new LinkedHashMap<>();
+        for (QStacksMessage message : qStacksMessages) {
+            distinctMessages.putIfAbsent(message.getId(), message);
+        }
+
+        Map<String, ProcessingResult> results = new ConcurrentHashMap<>();
+        Map<String, WishlistNotificationView> views;
+        Map<String, Wishlist> claimed;
+        List<Candidate> candidates = new ArrayList<>(distinctMessages.size());
+        try {
+            views = indexById(pipelineMetrics.time(Stage.BATCH_LOOKUP,
+                    () -> wishlistRepository.findNotificationViews(distinctMessages.keySet())), WishlistNotificationView::getId);
+            for (QStacksMessage message : distinctMessages.values()) {
+                Candidate candidate = toCandidate(message, views.get(message.getId()), results);
+                if (candidate != null) {
+                    candidates.add(candidate);
+                }
+            }
+            claimed = indexById(claimWishlists(candidates), Wishlist::getId);
+        } catch (Exception e) {
+            log.error("Unexpected error fetching or claiming batch of {} wishlist notifications", distinctMessages.size(), e);
+            WishlistProcessingException error;
+            if (e instanceof WishlistProcessingException wishlistProcessingException) {
+                error = wishlistProcessingException;
+            } else {
+                pipelineMetrics.recordFailures(Failure.UNEXPECTED, qStacksMessages.size());
+                error = FailureClassifier.wrap("Unexpected error processing wishlist notification", e);
+            }
+            pipelineMetrics.recordProcessed(Outcome.FAILURE, start, qStacksMessages.size());
+            return CompletableFuture.completedFuture(qStacksMessages.stream()
+                    .map(message -> ProcessingResult.failure(message.getId(), error))
+                    .toList());
+        }
+
+        List<CompletableFuture<Void>> sends = new ArrayList<>();
+        for (Candidate candidate : candidates) {
+            String wishlistId = candidate.message().getId();
+            Wishlist wishlist = claimed.get(wishlistId);
+            if (wishlist == null) {
+                // Notified (or deactivated) since the lookup, e.g. by a concurrent consumer
+                results.put(wishlistId, skip(wishlistId, ALREADY_NOTIFIED));
+                continue;
+            }
+
+            // Re-verify the rule as claimed, not as looked up; an outdated trigger gives the claim back
+            if (wishlistRules.isOutdated(wishlist, candidate.stock())) {
+                releaseWishlistClaim(wishlistId, Set.of());
+                results.put(wishlistId, skipOutdated(wishlistId, candidate.stock()));
+                continue;
+            }
+
+            CompletableFuture<Delivery> send = notificationDigest.isEnabled()
+                    ? notificationDigest.add(candidate.user(), candidate.stock(), wishlist)
+                            .thenApply(ignored -> new Delivery(true, Set.of()))
+                    : sendNotificationAsync(candidate.user(), candidate.stock(), wishlist);
+            sends.add(send.handle((delivery, e) -> {
+                WishlistProcessingException failure = settleSend(candidate.user(), wishlist, delivery, e);
+                results.put(wishlistId, failure == null
+                        ? ProcessingResult.success(wishlistId)
+                        : ProcessingResult.failure(wishlistId, failure));
+                return null;
+            }));
+        }
+
+        return CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new))
+                .thenApply(ignored -> {
+                    List<ProcessingResult> ordered = qStacksMessages.stream()
+                            .map(message -> results.get(message.getId()))
+                            .toList();
+                    recordProcessed(ordered, start);
+                    return ordered;
+                });
+    }
+
+    /**
+     * Batch steps 3-5 for one message: check its ids, user and stock against the looked-up view
+     * @return the wishlist to claim, or null with the message's result already recorded
+     */
+    private Candidate toCandidate(QStacksMessage message, WishlistNotificationView view,
+                                  Map<String, ProcessingResult> results) {
+        try {
+            String userId = message.getUserId();
+            String stockId = message.getStockId();
+
+            if (userId == null || stockId == null) {
+                pipelineMetrics.recordFailure(Failure.INVALID_ID);
+                throw new WishlistProcessingException("Invalid wishlist ID format: " + message.getId());
+            }
+
+            view = requireFound(view, Failure.WISHLIST_NOT_FOUND, "Wishlist not found with ID: " + message.getId());
+            User user = requireFound(view.isUserFound() ? view.toUser() : null, Failure.USER_NOT_FOUND,
+                    "User not found with ID: " + userId);
+            validateUserEmail(user);
+            Stock stock = requireFound(view.isStockFound() ? view.toStock() : null, Failure.STOCK_NOT_FOUND,
+                    "Stock not found with ID: " + stockId);
+
+            // Not worth a claim attempt; the claim itself is what rules out concurrent sends
+            if (!Boolean.TRUE.equals(view.getActive()) || Boolean.TRUE.equals(view.getNotified())) {
+                String skipReason = Boolean.TRUE.equals(view.getNotified()) ? ALREADY_NOTIFIED : INACTIVE;
+                results.put(message.getId(), skip(message.getId(), skipReason));
+                return null;
+            }
+            return new Candidate(message, user, stock);
+        } catch (Exception e) {
+            if (!(e instanceof WishlistProcessingException)) {
+                pipelineMetrics.recordFailure(Failure.UNEXPECTED);
+            }
+            results.put(message.getId(), ProcessingResult.failure(message.getId(), logAndWrap(message.getId(), e)));
+            return null;
+        }
+    }
+
+    /**
+     * Step 4: Fetch user by ID (near-cached) and validate
      */
     private User fetchUserById(String userId) {
-        log.info("Fetching user with ID: {}", userId);
+        log.debug("Fetching user with ID: {}", userId);
         
-        return userRepository.findById(userId)
-                .orElseThrow(() -> {
-                    String errorMsg = "User not found with ID: " + userId;
-                    log.error(errorMsg);
-                    return new WishlistProcessingException(errorMsg);
-                });
+        User user = pipelineMetrics.time(Stage.FETCH_USER,
+                () -> lookupCache.getUser(userId, id -> userRepository.findById(id).orElse(null)));
+        return requireFound(user, Failure.USER_NOT_FOUND, "User not found with ID: " + userId);
     }
     
     /**
@@ -94,70 +296,241 @@ public class WishlistNotificationProcessor {
         if (!emailService.isValidEmail(user.getEmail())) {
             String errorMsg = "Invalid or missing email for user: " + user.getId() + ", email: " + user.getEmail();
             log.error(errorMsg);
+            pipelineMetrics.recordFailure(Failure.INVALID_EMAIL);
             throw new WishlistProcessingException(errorMsg);
         }
-        log.info("User email validated: {}", user.getEmail());
+        log.debug("User email validated: {}", user.getEmail());
     }
     
     /**
-     * Step 5: Fetch stock by ID and validate
+     * Step 5: Fetch stock by ID (near-cached) and validate
      */
     private Stock fetchStockById(String stockId) {
-        log.info("Fetching stock with ID: {}", stockId);
+        log.debug("Fetching stock with ID: {}", stockId);
         
-        return stockRepository.findById(stockId)
-                .orElseThrow(() -> {
-                    String errorMsg = "Stock not found with ID: " + stockId;
-                    log.error(errorMsg);
-                    return new WishlistProcessingException(errorMsg);
-                });
+        Stock stock = pipelineMetrics.time(Stage.FETCH_STOCK,
+                () -> lookupCache.getStock(stockId, id -> stockRepository.findById(id).orElse(null)));
+        return requireFound(stock, Failure.STOCK_NOT_FOUND, "Stock not found with ID: " + stockId);
     }
     
     /**
-     * Step 6: Fetch wishlist by ID and validate
+     * Step 6: Claim the wishlist for notification
      */
-    private Wishlist fetchWishlistById(String wishlistId) {
-        log.info("Fetching wishlist with ID: {}", wishlistId);
+    private Optional<Wishlist> claimWishlist(String wishlistId) {
+        log.debug("Claiming wishlist with ID: {}", wishlistId);
         
-        return wishlistRepository.findById(wishlistId)
+        try {
+            return pipelineMetrics.time(Stage.CLAIM_WISHLIST, () -> wishlistRepository.claimForNotification(wishlistId));
+        } catch (Exception e) {
+            pipelineMetrics.recordFailure(Failure.CLAIM_FAILED);
+            String errorMsg = "Failed to claim wishlist with ID: " + wishlistId;
+            log.error(errorMsg, e);
+            throw FailureClassifier.wrap(errorMsg, e);
+        }
+    }
+    
+    /**
+     * Step 6 (batch): Claim all candidate wishlists with one conditional update
+     */
+    private List<Wishlist> claimWishlists(List<Candidate> candidates) {
+        if (candidates.isEmpty()) {
+            return List.of();
+        }
+        List<String> wishlistIds = candidates.stream().map(candidate -> candidate.message().getId()).toList();
+        try {
+            return pipelineMetrics.time(Stage.CLAIM_WISHLIST, () -> wishlistRepository.claimAllForNotification(wishlistIds));
+        } catch (Exception e) {
+            pipelineMetrics.recordFailures(Failure.CLAIM_FAILED, wishlistIds.size());
+            throw FailureClassifier.wrap("Failed to claim batch of " + wishlistIds.size() + " wishlists", e);
+        }
+    }
+    
+    /**
+     * Step 6: The claim matched nothing - find out whether the wishlist is missing, inactive or already notified.
+     * Only reached on the miss path, so the extra read does not cost anything for claimed wishlists.
+     */
+    private ProcessingResult explainMissingClaim(String wishlistId) {
+        Wishlist wishlist = wishlistRepository.findById(wishlistId)
                 .orElseThrow(() -> {
                     String errorMsg = "Wishlist not found with ID: " + wishlistId;
                     log.error(errorMsg);
+                    pipelineMetrics.recordFailure(Failure.WISHLIST_NOT_FOUND);
                     return new WishlistProcessingException(errorMsg);
                 });
+        
+        return skip(wishlistId, Boolean.TRUE.equals(wishlist.getNotified()) ? ALREADY_NOTIFIED : INACTIVE);
+    }
+    
+    private ProcessingResult skip(String wishlistId, String skipReason) {
+        log.debug("Skipping wishlist with ID: {} ({})", wishlistId, skipReason);
+        processingEventRecorder.record(wishlistId, ProcessingEventRecorder.Stage.CLAIM,
+                ProcessingEventRecorder.Outcome.SKIPPED, 0, skipReason);
+        return ProcessingResult.skipped(wishlistId, skipReason);
     }
     
     /**
-     * Step 7: Send notification to user
+     * Step 6: The current price no longer meets the wishlist's rule, e.g. the message sat in the queue while the
+     * price moved back
      */
-    private boolean sendNotification(User user, Stock stock, Wishlist wishlist) {
-        log.info("Sending notification to user: {} for stock: {}", user.getEmail(), stock.getName());
+    private ProcessingResult skipOutdated(String wishlistId, Stock stock) {
+        log.debug("Skipping wishlist with ID: {} ({}, current price {})", wishlistId, OUTDATED, stock.getCurrentPrice());
+        processingEventRecorder.record(wishlistId, ProcessingEventRecorder.Stage.RULE,
+                ProcessingEventRecorder.Outcome.SKIPPED, 0, "current price " + stock.getCurrentPrice());
+        return ProcessingResult.skipped(wishlistId, OUTDATED);
+    }
+    
+    /**
+     * Step 7: Fan the notification out to the user's channels; completes once the required ones are done
+     */
+    private CompletableFuture<Delivery> sendNotificationAsync(User user, Stock stock, Wishlist wishlist) {
+        log.debug("Sending notification to user: {} for stock: {}", user.getId(), stock.getName());
         
+        long start = System.nanoTime();
         try {
-            return emailService.sendWishlistNotification(user, stock, wishlist);
+            return notificationFanOut.send(user, stock, wishlist)
+                    .whenComplete((delivery, e) -> {
+                        pipelineMetrics.recordStage(Stage.SEND, start);
+                        boolean sent = e == null && delivery.delivered();
+                        if (!sent) {
+                            pipelineMetrics.recordFailure(Failure.SEND_FAILED);
+                        }
+                        processingEventRecorder.record(wishlist.getId(), ProcessingEventRecorder.Stage.SEND,
+                                sent ? ProcessingEventRecorder.Outcome.OK : ProcessingEventRecorder.Outcome.FAILED,
+                                System.nanoTime() - start, e != null ? e.getMessage() : null);
+                    });
         } catch (Exception e) {
+            pipelineMetrics.recordStage(Stage.SEND, start);
+            pipelineMetrics.recordFailure(Failure.SEND_FAILED);
             String errorMsg = "Failed to send notification to user: " + user.getEmail();
             log.error(errorMsg, e);
-            throw new WishlistProcessingException(errorMsg, e);
+            return CompletableFuture.failedFuture(FailureClassifier.wrap(errorMsg, e));
         }
     }
     
     /**
-     * Step 8: Update wishlist notified status to true
+     * Step 8: Settle a finished send. A delivered wishlist stays claimed and leaves the tick index; otherwise the
+     * claim is released, recording the channels that did deliver so the retry only sends on the others.
+     * @return null if the wishlist was delivered, else the failure to report
      */
-    private void updateWishlistNotifiedStatus(Wishlist wishlist) {
-        log.info("Updating wishlist notified status to true for ID: {}", wishlist.getId());
+    private WishlistProcessingException settleSend(User user, Wishlist wishlist, Delivery delivery, Throwable e) {
+        if (e == null && delivery.delivered()) {
+            if (wishlist.getDeliveredChannels() != null && !wishlist.getDeliveredChannels().isEmpty()) {
+                clearDeliveredChannels(wishlist.getId());
+            }
+            // Notified now, so price ticks must not trigger it again
+            thresholdIndex.remove(wishlist.getId());
+            return null;
+        }
         
+        releaseWishlistClaim(wishlist.getId(), delivery != null ? delivery.deliveredChannels() : Set.of());
+        Throwable cause;
+        if (e != null) {
+            cause = e;
+        } else if (!delivery.unreachableChannels().isEmpty()) {
+            // Permanent until the user's profile changes; retrying cannot help
+            cause = new WishlistProcessingException("User " + user.getId() + " cannot be reached on required channel(s) "
+                    + delivery.unreachableChannels());
+        } else {
+            cause = new TransientProcessingException("Failed to deliver notification to user: " + user.getId());
+        }
+        return logAndWrap(wishlist.getId(), cause);
+    }
+    
+    /**
+     * The alert reached every channel, so a later alert of the wishlist must not skip any of them.
+     * The notification is already delivered, so a failed write is only logged.
+     */
+    private void clearDeliveredChannels(String wishlistId) {
         try {
-            wishlist.setNotified(true);
-            wishlist.setUpdatedAt(LocalDateTime.now());
-            wishlistRepository.save(wishlist);
-            
-            log.info("Successfully updated wishlist notified status for ID: {}", wishlist.getId());
+            wishlistRepository.clearDeliveredChannels(wishlistId);
         } catch (Exception e) {
-            String errorMsg = "Failed to update wishlist notified status for ID: " + wishlist.getId();
-            log.error(errorMsg, e);
-            throw new WishlistProcessingException(errorMsg, e);
+            log.error("Failed to clear delivered channels of wishlist with ID: {}, it needs manual reset", wishlistId, e);
+        }
+    }
+    
+    /**
+     * Step 8: Release the claim of a wishlist whose notification could not be sent on every required channel
+     */
+    private void releaseWishlistClaim(String wishlistId, Set<String> deliveredChannels) {
+        log.debug("Releasing claim on wishlist with ID: {} (delivered on {})", wishlistId, deliveredChannels);
+        
+        long start = System.nanoTime();
+        try {
+            wishlistRepository.releaseClaim(wishlistId, deliveredChannels);
+        } catch (Exception e) {
+            // The wishlist stays notified = true without an email having been sent
+            log.error("Failed to release claim on wishlist with ID: {}, it needs manual reset", wishlistId, e);
+        } finally {
+            pipelineMetrics.recordStage(Stage.RELEASE_CLAIM, start);
+        }
+    }
+    
+    /**
+     * Record the end-to-end latency of a finished batch, one sample per message
+     */
+    private void recordProcessed(List<ProcessingResult> results, long start) {
+        int[] counts = new int[Outcome.values().length];
+        for (ProcessingResult result : results) {
+            counts[Outcome.of(result).ordinal()]++;
+        }
+        for (Outcome outcome : Outcome.values()) {
+            if (counts[outcome.ordinal()] > 0) {
+                pipelineMetrics.recordProcessed(outcome, start, counts[outcome.ordinal()]);
+            }
+        }
+    }
+
+    /**
+     * Log a processing failure and make sure it surfaces as a WishlistProcessingException,
+     * a TransientProcessingException if the cause is expected to recover
+     */
+    private static WishlistProcessingException logAndWrap(String wishlistId, Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof WishlistProcessingException wishlistProcessingException) {
+            log.error("Error processing wishlist notification for ID: {}", wishlistId, cause);
+            return wishlistProcessingException;
+        }
+        log.error("Unexpected error processing wishlist notification for ID: {}", wishlistId, cause);
+        return FailureClassifier.wrap("Unexpected error processing wishlist notification", cause);
+    }
+
+    /**
+     * Wait for an async step, rethrowing its failure as a WishlistProcessingException
+     */
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TransientProcessingException("Interrupted while processing wishlist notification", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof WishlistProcessingException wishlistProcessingException) {
+                throw wishlistProcessingException;
+            }
+            throw FailureClassifier.wrap("Unexpected error processing wishlist notification", e.getCause());
+        }
+    }
+
+    private <T> T requireFound(T entity, Failure failure, String errorMsg) {
+        if (entity == null) {
+            log.error(errorMsg);
+            pipelineMetrics.recordFailure(failure);
+            throw new WishlistProcessingException(errorMsg);
+        }
+        return entity;
+    }
+
+    /**
+     * A batch message whose user and stock checked out, waiting to be claimed
+     */
+    private record Candidate(QStacksMessage message, User user, Stock stock) {
+    }
+
+    private static <T> Map<String, T> indexById(Iterable<? extends T> entities, Function<T, String> idGetter) {
+        Map<String, T> index = new HashMap<>();
+        for (T entity : entities) {
+            index.put(idGetter.apply(entity), entity);
         }
+        return index;
     }
 }
\ No newline at end of file
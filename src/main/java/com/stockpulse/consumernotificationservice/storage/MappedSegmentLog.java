@@ -0,0 +1,409 @@
+package com.stockpulse.consumernotificationservice.storage;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Append-only log of byte records stored in fixed-size, memory-mapped segment files.
+ * An append copies the record into the mapped active segment and publishes it with a volatile write;
+ * there is no system call per record. A new segment is started once a record does not fit the active one.
+ * Appended records survive a process crash but reach the disk only on {@link #flush()} or close.
+ *
+ * Record offsets are global byte positions (segment index * segment size + position in the segment),
+ * so a record is located without an index. Record layout: [int length][int crc32c][byte flags][payload].
+ */
+@Slf4j
+public class MappedSegmentLog implements Closeable {
+
+    private static final int HEADER_SIZE = 9;
+    private static final int END_OF_SEGMENT = -1;
+    private static final byte FLAG_DELETED = 1;
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final ConcurrentNavigableMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    private final Object appendLock = new Object();
+
+    private volatile long endOffset; // offset of the next append; everything below it is fully written
+
+    private MappedSegmentLog(Path directory, int segmentSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+    }
+
+    /**
+     * Open the log in the directory, creating it if needed, and recover the append position.
+     * A partially written record at the end of the last segment is discarded.
+     * @param segmentSize size of new segment files; existing segments keep the size they were created with
+     */
+    public static MappedSegmentLog open(Path directory, int segmentSize) throws IOException {
+        if (segmentSize <= HEADER_SIZE) {
+            throw new IllegalArgumentException("segmentSize too small: " + segmentSize);
+        }
+        Files.createDirectories(directory);
+
+        List<Path> segmentFiles;
+        try (Stream<Path> files = Files.list(directory)) {
+            segmentFiles = files.filter(file -> file.getFileName().toString().endsWith(SEGMENT_SUFFIX)).sorted().toList();
+        }
+
+        int existingSize = segmentFiles.isEmpty() ? segmentSize : (int) Files.size(segmentFiles.getFirst());
+        if (existingSize != segmentSize) {
+            log.warn("Segment log {} was created with segment size {}, ignoring configured size {}",
+                    directory, existingSize, segmentSize);
+        }
+
+        MappedSegmentLog segmentLog = new MappedSegmentLog(directory, existingSize);
+        for (Path segmentFile : segmentFiles) {
+            String name = segmentFile.getFileName().toString();
+            long index = Long.parseLong(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+            segmentLog.segments.put(index, segmentLog.mapSegment(index));
+        }
+        segmentLog.endOffset = segmentLog.recoverEndOffset();
+        return segmentLog;
+    }
+
+    /**
+     * Append a record
+     * @return offset of the record
+     */
+    public long append(byte[] payload) {
+        int recordSize = HEADER_SIZE + payload.length;
+        if (payload.length == 0 || recordSize > segmentSize) {
+            throw new IllegalArgumentException("Record size must be between 1 and " + (segmentSize - HEADER_SIZE)
+                    + " bytes, got " + payload.length);
+        }
+
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+
+        synchronized (appendLock) {
+            long offset = endOffset;
+            int position = position(offset);
+            if (position + recordSize > segmentSize) {
+                Segment full = segments.get(segmentIndex(offset));
+                if (full != null && position + Integer.BYTES <= segmentSize) {
+                    full.buffer.putInt(position, END_OF_SEGMENT);
+                }
+                offset = (segmentIndex(offset) + 1) * segmentSize;
+                position = 0;
+            }
+
+            Segment segment = segments.computeIfAbsent(segmentIndex(offset), this::mapSegment);
+            segment.buffer.putInt(position + 4, (int) crc.getValue());
+            segment.buffer.put(position + 8, (byte) 0);
+            segment.buffer.put(position + HEADER_SIZE, payload);
+            segment.buffer.putInt(position, payload.length); // written last, a record is complete once its length is set
+
+            endOffset = offset + recordSize;
+            return offset;
+        }
+    }
+
+    /**
+     * Read up to maxRecords records starting at fromOffset, skipping deleted records
+     */
+    public ReadBatch read(long fromOffset, int maxRecords) {
+        List<LogRecord> records = new ArrayList<>(Math.min(maxRecords, 1024));
+        long end = endOffset;
+        long offset = Math.max(fromOffset, startOffset());
+
+        while (offset < end && records.size() < maxRecords) {
+            Segment segment = segments.get(segmentIndex(offset));
+            if (segment == null) {
+                offset = nextSegmentOffset(offset);
+                continue;
+            }
+
+            int position = position(offset);
+            int length = position + HEADER_SIZE <= segmentSize ? segment.buffer.getInt(position) : END_OF_SEGMENT;
+            if (length <= 0) {
+                offset = (segmentIndex(offset) + 1) * segmentSize;
+                continue;
+            }
+
+            if ((segment.buffer.get(position + 8) & FLAG_DELETED) == 0) {
+                byte[] payload = new byte[length];
+                segment.buffer.get(position + HEADER_SIZE, payload);
+                records.add(new LogRecord(offset, payload));
+            }
+            offset += HEADER_SIZE + length;
+        }
+
+        return new ReadBatch(records, Math.min(offset, end));
+    }
+
+    /**
+     * Flag a record as deleted; it is skipped by reads and dropped by {@link #compact()}.
+     * Takes the append lock so the flag is not lost to a compaction that is copying the record's segment.
+     */
+    public void markDeleted(long offset) {
+        synchronized (appendLock) {
+            Segment segment = segments.get(segmentIndex(offset));
+            if (segment != null && offset < endOffset) {
+                int position = position(offset);
+                segment.buffer.put(position + 8, (byte) (segment.buffer.get(position + 8) | FLAG_DELETED));
+            }
+        }
+    }
+
+    /**
+     * Delete whole segments that lie entirely below the offset; the active segment is kept
+     * @return number of deleted segments
+     */
+    public int deleteSegmentsBefore(long offset) {
+        long activeIndex = segmentIndex(endOffset);
+        int deleted = 0;
+        for (Map.Entry<Long, Segment> entry : segments.headMap(Math.min(segmentIndex(offset), activeIndex)).entrySet()) {
+            deleteSegment(entry.getKey(), entry.getValue());
+            deleted++;
+        }
+        return deleted;
+    }
+
+    /**
+     * Rewrite segments that contain deleted records: live records are appended again at the end of the log
+     * and the old segment is deleted. An active segment with deleted records is sealed first.
+     * Each segment is rewritten under the append lock, so appends and deletes wait for one segment at most.
+     * Offsets of moved records change, so only use this for logs that are not consumed by offset.
+     */
+    public CompactionResult compact() {
+        return compact(new ConcurrentSkipListSet<>());
+    }
+
+    /**
+     * {@link #compact()}, keeping the segments that hold a pinned offset in place, so a caller that will still
+     * flag one of those records by its offset does not flag a stale one
+     * @param pinnedOffsets offsets of records that must not move
+     */
+    public CompactionResult compact(NavigableSet<Long> pinnedOffsets) {
+        sealActiveSegmentIfDeleted();
+        long activeIndex = segmentIndex(endOffset);
+        int removedSegments = 0;
+        int movedRecords = 0;
+
+        for (Map.Entry<Long, Segment> entry : segments.headMap(activeIndex).entrySet()) {
+            long segmentStart = entry.getKey() * segmentSize;
+            if (!pinnedOffsets.subSet(segmentStart, segmentStart + segmentSize).isEmpty()) {
+                continue;
+            }
+            int moved = compactSegment(entry.getKey(), entry.getValue());
+            if (moved >= 0) {
+                removedSegments++;
+                movedRecords += moved;
+            }
+        }
+
+        return new CompactionResult(removedSegments, movedRecords);
+    }
+
+    /**
+     * @return number of live records moved out of the segment, or -1 if it holds no deleted record and is kept
+     */
+    private int compactSegment(long index, Segment segment) {
+        synchronized (appendLock) {
+            long segmentStart = index * segmentSize;
+            long segmentEnd = segmentStart + segmentSize;
+
+            List<LogRecord> live = new ArrayList<>();
+            boolean anyDeleted = false;
+            long offset = segmentStart;
+            while (offset < segmentEnd) {
+                int position = position(offset);
+                int length = position + HEADER_SIZE <= segmentSize ? segment.buffer.getInt(position) : END_OF_SEGMENT;
+                if (length <= 0) {
+                    break;
+                }
+                if ((segment.buffer.get(position + 8) & FLAG_DELETED) != 0) {
+                    anyDeleted = true;
+                } else {
+                    byte[] payload = new byte[length];
+                    segment.buffer.get(position + HEADER_SIZE, payload);
+                    live.add(new LogRecord(offset, payload));
+                }
+                offset += HEADER_SIZE + length;
+            }
+
+            if (!anyDeleted) {
+                return -1;
+            }
+            for (LogRecord record : live) {
+                append(record.payload());
+            }
+            deleteSegment(index, segment);
+            return live.size();
+        }
+    }
+
+    /**
+     * Offset of the oldest record still on disk
+     */
+    public long startOffset() {
+        Map.Entry<Long, Segment> first = segments.firstEntry();
+        return first == null ? endOffset : first.getKey() * segmentSize;
+    }
+
+    /**
+     * Offset the next record will be appended at
+     */
+    public long endOffset() {
+        return endOffset;
+    }
+
+    public int segmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Force written records of all segments to disk
+     */
+    public void flush() {
+        for (Segment segment : segments.values()) {
+            segment.buffer.force();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (appendLock) {
+            flush();
+            for (Segment segment : segments.values()) {
+                segment.channel.close();
+            }
+            segments.clear();
+        }
+    }
+
+    private void sealActiveSegmentIfDeleted() {
+        synchronized (appendLock) {
+            long offset = endOffset;
+            Segment active = segments.get(segmentIndex(offset));
+            if (active == null || position(offset) == 0) {
+                return;
+            }
+
+            int position = 0;
+            boolean anyDeleted = false;
+            while (position < position(offset)) {
+                anyDeleted |= (active.buffer.get(position + 8) & FLAG_DELETED) != 0;
+                position += HEADER_SIZE + active.buffer.getInt(position);
+            }
+            if (!anyDeleted) {
+                return;
+            }
+
+            if (position + Integer.BYTES <= segmentSize) {
+                active.buffer.putInt(position, END_OF_SEGMENT);
+            }
+            endOffset = (segmentIndex(offset) + 1) * segmentSize;
+        }
+    }
+
+    private long recoverEndOffset() {
+        if (segments.isEmpty()) {
+            return 0;
+        }
+
+        long lastIndex = segments.lastKey();
+        Segment last = segments.get(lastIndex);
+        int position = 0;
+        while (position + HEADER_SIZE <= segmentSize) {
+            int length = last.buffer.getInt(position);
+            if (length == END_OF_SEGMENT) {
+                return (lastIndex + 1) * segmentSize;
+            }
+            if (length <= 0 || position + HEADER_SIZE + length > segmentSize || !checksumMatches(last, position, length)) {
+                break;
+            }
+            position += HEADER_SIZE + length;
+        }
+
+        if (position + Integer.BYTES <= segmentSize && last.buffer.getInt(position) != 0) {
+            log.warn("Discarding partially written record at offset {} of segment log {}",
+                    lastIndex * segmentSize + position, directory);
+            for (int i = position; i < segmentSize; i++) {
+                last.buffer.put(i, (byte) 0);
+            }
+        }
+        return lastIndex * segmentSize + position;
+    }
+
+    private boolean checksumMatches(Segment segment, int position, int length) {
+        byte[] payload = new byte[length];
+        segment.buffer.get(position + HEADER_SIZE, payload);
+        CRC32C crc = new CRC32C();
+        crc.update(payload);
+        return (int) crc.getValue() == segment.buffer.getInt(position + 4);
+    }
+
+    private Segment mapSegment(long index) {
+        Path file = directory.resolve(String.format("%020d%s", index, SEGMENT_SUFFIX));
+        try {
+            FileChannel channel = FileChannel.open(file,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+            return new Segment(file, channel, buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to map segment " + file, e);
+        }
+    }
+
+    private void deleteSegment(long index, Segment segment) {
+        segments.remove(index);
+        try {
+            segment.channel.close();
+            Files.deleteIfExists(segment.file);
+        } catch (IOException e) {
+            log.warn("Failed to delete segment {}", segment.file, e);
+        }
+    }
+
+    private long nextSegmentOffset(long offset) {
+        Long next = segments.higherKey(segmentIndex(offset));
+        return next == null ? endOffset : next * segmentSize;
+    }
+
+    private long segmentIndex(long offset) {
+        return offset / segmentSize;
+    }
+
+    private int position(long offset) {
+        return (int) (offset % segmentSize);
+    }
+
+    /**
+     * A record and the offset it was read from
+     */
+    public record LogRecord(long offset, byte[] payload) {
+    }
+
+    /**
+     * Records of one read and the offset to continue reading from
+     */
+    public record ReadBatch(List<LogRecord> records, long nextOffset) {
+    }
+
+    public record CompactionResult(int removedSegments, int movedRecords) {
+    }
+
+    private record Segment(Path file, FileChannel channel, MappedByteBuffer buffer) {
+    }
+}
\ No newline at end of file
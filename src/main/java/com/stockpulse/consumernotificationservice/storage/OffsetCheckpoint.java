@@ -0,0 +1,77 @@
+package com.stockpulse.consumernotificationservice.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A single offset persisted in a small memory-mapped file.
+ * Writes alternate between two slots of [long sequence][long offset][long check], so a write torn by a crash
+ * leaves the previous checkpoint intact; reading picks the valid slot with the highest sequence.
+ */
+public class OffsetCheckpoint implements Closeable {
+
+    private static final int SLOT_SIZE = 3 * Long.BYTES;
+    private static final long CHECK_MAGIC = 0x5153_5441_434b_5321L;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+
+    private long sequence;
+    private long offset;
+
+    private OffsetCheckpoint(FileChannel channel, MappedByteBuffer buffer) {
+        this.channel = channel;
+        this.buffer = buffer;
+        for (int slot = 0; slot < 2; slot++) {
+            long slotSequence = buffer.getLong(slot * SLOT_SIZE);
+            long slotOffset = buffer.getLong(slot * SLOT_SIZE + Long.BYTES);
+            long check = buffer.getLong(slot * SLOT_SIZE + 2 * Long.BYTES);
+            if (check == (slotSequence ^ slotOffset ^ CHECK_MAGIC) && slotSequence > sequence) {
+                sequence = slotSequence;
+                offset = slotOffset;
+            }
+        }
+    }
+
+    /**
+     * Open the checkpoint file, creating it with offset 0 if it does not exist
+     */
+    public static OffsetCheckpoint open(Path file) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return new OffsetCheckpoint(channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, 2L * SLOT_SIZE));
+    }
+
+    public synchronized long read() {
+        return offset;
+    }
+
+    public synchronized void write(long newOffset) {
+        long nextSequence = sequence + 1;
+        int base = (int) (nextSequence % 2) * SLOT_SIZE;
+        buffer.putLong(base, nextSequence);
+        buffer.putLong(base + Long.BYTES, newOffset);
+        buffer.putLong(base + 2 * Long.BYTES, nextSequence ^ newOffset ^ CHECK_MAGIC);
+        sequence = nextSequence;
+        offset = newOffset;
+    }
+
+    /**
+     * Force the last written offset to disk; until then it survives a process crash but not a power loss
+     */
+    public synchronized void flush() {
+        buffer.force();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        buffer.force();
+        channel.close();
+    }
+}
\ No newline at end of file
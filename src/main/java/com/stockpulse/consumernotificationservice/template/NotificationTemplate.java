@@ -0,0 +1,125 @@
+package com.stockpulse.consumernotificationservice.template;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A template compiled once into alternating literal and placeholder segments.
+ * Placeholders are written as {name}; literal segments are pre-encoded to UTF-8.
+ */
+public final class NotificationTemplate {
+
+    private final String source;
+    private final Segment[] segments;
+
+    private NotificationTemplate(String source, Segment[] segments) {
+        this.source = source;
+        this.segments = segments;
+    }
+
+    /**
+     * Split the template text into segments
+     * @throws IllegalArgumentException on an unterminated or unknown placeholder
+     */
+    public static NotificationTemplate compile(String source) {
+        List<Segment> segments = new ArrayList<>();
+        int position = 0;
+        while (position < source.length()) {
+            int open = source.indexOf('{', position);
+            if (open < 0) {
+                segments.add(Segment.literal(source.substring(position)));
+                break;
+            }
+            if (open > position) {
+                segments.add(Segment.literal(source.substring(position, open)));
+            }
+            int close = source.indexOf('}', open);
+            if (close < 0) {
+                throw new IllegalArgumentException("Unterminated placeholder in template: " + source);
+            }
+            segments.add(Segment.placeholder(Placeholder.fromName(source.substring(open + 1, close), source)));
+            position = close + 1;
+        }
+        return new NotificationTemplate(source, segments.toArray(Segment[]::new));
+    }
+
+    /**
+     * Render into the buffer
+     */
+    public void render(Utf8Buffer out, TemplateContext context) {
+        for (Segment segment : segments) {
+            if (segment.placeholder() == null) {
+                out.append(segment.literal());
+                continue;
+            }
+            Object value = context.value(segment.placeholder());
+            if (value instanceof byte[] utf8) {
+                out.append(utf8);
+            } else if (value != null) {
+                out.append(value.toString());
+            }
+        }
+    }
+
+    /**
+     * Render to a String, for short texts such as the subject line
+     */
+    public String renderToString(TemplateContext context) {
+        StringBuilder out = new StringBuilder(source.length() + 32);
+        for (Segment segment : segments) {
+            if (segment.placeholder() == null) {
+                out.append(segment.text());
+                continue;
+            }
+            Object value = context.value(segment.placeholder());
+            if (value instanceof byte[] utf8) {
+                out.append(new String(utf8, StandardCharsets.UTF_8));
+            } else if (value != null) {
+                out.append(value);
+            }
+        }
+        return out.toString();
+    }
+
+    @Override
+    public String toString() {
+        return source;
+    }
+
+    public enum Placeholder {
+        USER_NAME("userName"),
+        STOCK_NAME("stockName"),
+        STOCK_SYMBOL("stockSymbol"),
+        RULE("rule"),
+        RULE_VALUE("ruleValue"),
+        ALERT_COUNT("alertCount"),
+        ALERTS("alerts");
+
+        private final String placeholderName;
+
+        Placeholder(String placeholderName) {
+            this.placeholderName = placeholderName;
+        }
+
+        static Placeholder fromName(String name, String source) {
+            for (Placeholder placeholder : values()) {
+                if (placeholder.placeholderName.equals(name)) {
+                    return placeholder;
+                }
+            }
+            throw new IllegalArgumentException("Unknown placeholder {" + name + "} in template: " + source);
+        }
+    }
+
+    private record Segment(String text, byte[] literal, Placeholder placeholder) {
+
+        static Segment literal(String text) {
+            return new Segment(text, text.getBytes(StandardCharsets.UTF_8), null);
+        }
+
+        static Segment placeholder(Placeholder placeholder) {
+            return new Segment(null, null, placeholder);
+        }
+    }
+}
\ No newline at end of file
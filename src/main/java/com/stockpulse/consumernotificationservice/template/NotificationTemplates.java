@@ -0,0 +1,193 @@
+package com.stockpulse.consumernotificationservice.template;
+
+import com.stockpulse.consumernotificationservice.config.NotificationProperties;
+import com.stockpulse.consumernotificationservice.model.DigestAlert;
+import com.stockpulse.consumernotificationservice.model.Stock;
+import com.stockpulse.consumernotificationservice.model.User;
+import com.stockpulse.consumernotificationservice.model.Wishlist;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Named notification templates loaded from the classpath and compiled once at startup.
+ * The template for a wishlist is picked by its ruleType, falling back to "default".
+ * Rendered rule fragments ("up by 5%") are cached per (ruleType, ruleValueInPercent).
+ * A digest email uses the "digest" template's subject and body, with one line per alert rendered from the
+ * alert part of that wishlist's template.
+ */
+@Slf4j
+@Component
+public class NotificationTemplates {
+
+    public static final String DEFAULT_TEMPLATE = "default";
+
+    public static final String DIGEST_TEMPLATE = "digest";
+
+    private static final int MAX_CACHED_RULE_FRAGMENTS = 10_000;
+
+    private final Map<String, TemplateSet> templates;
+    private final Map<String, TemplateSet> templatesByRuleType = new ConcurrentHashMap<>();
+    private final Map<RuleKey, byte[]> ruleFragments = new ConcurrentHashMap<>();
+
+    private final ThreadLocal<Utf8Buffer> bodyBuffers = ThreadLocal.withInitial(() -> new Utf8Buffer(512));
+    private final ThreadLocal<Utf8Buffer> alertBuffers = ThreadLocal.withInitial(() -> new Utf8Buffer(1024));
+    private final ThreadLocal<TemplateContext> contexts = ThreadLocal.withInitial(TemplateContext::new);
+
+    public NotificationTemplates(NotificationProperties notificationProperties) {
+        String location = notificationProperties.getTemplates().getLocation();
+        this.templates = compile(load(location));
+        log.info("Compiled notification templates {} from {}", templates.keySet(), location);
+    }
+
+    /**
+     * Template used for the wishlist's ruleType
+     */
+    public TemplateSet forRuleType(String ruleType) {
+        String key = ruleType != null ? ruleType : "";
+        return templatesByRuleType.computeIfAbsent(key,
+                type -> templates.getOrDefault(type.toLowerCase(Locale.ROOT), templates.get(DEFAULT_TEMPLATE)));
+    }
+
+    /**
+     * Template registered under the given name, e.g. "digest"
+     */
+    public TemplateSet named(String name) {
+        TemplateSet templateSet = templates.get(name);
+        if (templateSet == null) {
+            throw new IllegalArgumentException("No notification template named: " + name);
+        }
+        return templateSet;
+    }
+
+    public String renderSubject(User user, Stock stock, Wishlist wishlist) {
+        return forRuleType(wishlist.getRuleType()).subject().renderToString(fill(user, stock, wishlist));
+    }
+
+    /**
+     * Render the body into this thread's reusable buffer.
+     * The returned buffer is overwritten by the next render on the same thread.
+     */
+    public Utf8Buffer renderBody(User user, Stock stock, Wishlist wishlist) {
+        Utf8Buffer out = bodyBuffers.get().reset();
+        forRuleType(wishlist.getRuleType()).body().render(out, fill(user, stock, wishlist));
+        return out;
+    }
+
+    public String renderDigestSubject(User user, int alertCount) {
+        return named(DIGEST_TEMPLATE).subject().renderToString(contexts.get().clear()
+                .setUserName(user.getName())
+                .setAlertCount(alertCount));
+    }
+
+    /**
+     * Render a digest body listing every alert, one line each, into this thread's reusable buffer.
+     * The returned buffer is overwritten by the next render on the same thread.
+     */
+    public Utf8Buffer renderDigestBody(User user, List<DigestAlert> alerts) {
+        Utf8Buffer lines = alertBuffers.get().reset();
+        for (int i = 0; i < alerts.size(); i++) {
+            DigestAlert alert = alerts.get(i);
+            if (i > 0) {
+                lines.append("\n");
+            }
+            forRuleType(alert.wishlist().getRuleType()).alert().render(lines, fill(user, alert.stock(), alert.wishlist()));
+        }
+
+        Utf8Buffer out = bodyBuffers.get().reset();
+        named(DIGEST_TEMPLATE).body().render(out, contexts.get().clear()
+                .setUserName(user.getName())
+                .setAlertCount(alerts.size())
+                .setAlerts(lines.toByteArray()));
+        return out;
+    }
+
+    /**
+     * Rendered rule fragment for the wishlist, e.g. "up by 5%", as UTF-8
+     */
+    public byte[] ruleFragment(Wishlist wishlist) {
+        RuleKey key = new RuleKey(wishlist.getRuleType(), wishlist.getRuleValueInPercent());
+        byte[] fragment = ruleFragments.get(key);
+        if (fragment == null) {
+            TemplateContext context = new TemplateContext().setRuleValue(wishlist.getRuleValueInPercent());
+            Utf8Buffer out = new Utf8Buffer(32);
+            forRuleType(wishlist.getRuleType()).rule().render(out, context);
+            fragment = out.toByteArray();
+            if (ruleFragments.size() < MAX_CACHED_RULE_FRAGMENTS) {
+                ruleFragments.putIfAbsent(key, fragment);
+            }
+        }
+        return fragment;
+    }
+
+    private TemplateContext fill(User user, Stock stock, Wishlist wishlist) {
+        return contexts.get().clear()
+                .setUserName(user != null ? user.getName() : null)
+                .setStockName(stock.getName())
+                .setStockSymbol(stock.getSymbol())
+                .setRuleValue(wishlist.getRuleValueInPercent())
+                .setRule(ruleFragment(wishlist));
+    }
+
+    private static Properties load(String location) {
+        Properties properties = new Properties();
+        try (Reader reader = new InputStreamReader(new ClassPathResource(location).getInputStream(), StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to load notification templates from " + location, e);
+        }
+        return properties;
+    }
+
+    private static Map<String, TemplateSet> compile(Properties properties) {
+        Map<String, Map<String, String>> sources = new HashMap<>();
+        for (String key : properties.stringPropertyNames()) {
+            int dot = key.lastIndexOf('.');
+            if (dot < 0) {
+                throw new IllegalArgumentException("Template key must be <name>.<part>, got: " + key);
+            }
+            sources.computeIfAbsent(key.substring(0, dot).toLowerCase(Locale.ROOT), name -> new HashMap<>())
+                    .put(key.substring(dot + 1), properties.getProperty(key));
+        }
+
+        Map<String, String> defaults = sources.get(DEFAULT_TEMPLATE);
+        if (defaults == null) {
+            throw new IllegalArgumentException("Notification templates must define a \"" + DEFAULT_TEMPLATE + "\" template");
+        }
+
+        Map<String, TemplateSet> compiled = new HashMap<>();
+        sources.forEach((name, parts) -> compiled.put(name, new TemplateSet(
+                compilePart(name, "subject", parts, defaults),
+                compilePart(name, "body", parts, defaults),
+                compilePart(name, "rule", parts, defaults),
+                compilePart(name, "alert", parts, defaults))));
+        return Map.copyOf(compiled);
+    }
+
+    private static NotificationTemplate compilePart(String name, String part, Map<String, String> parts, Map<String, String> defaults) {
+        String source = parts.getOrDefault(part, defaults.get(part));
+        if (source == null) {
+            throw new IllegalArgumentException("Notification template " + name + " has no " + part + " and no default");
+        }
+        return NotificationTemplate.compile(source);
+    }
+
+    public record TemplateSet(NotificationTemplate subject, NotificationTemplate body, NotificationTemplate rule,
+                              NotificationTemplate alert) {
+    }
+
+    private record RuleKey(String ruleType, String ruleValue) {
+    }
+}
\ No newline at end of file
@@ -0,0 +1,49 @@
+package com.stockpulse.consumernotificationservice.template;
+
+import lombok.Data;
+import lombok.experimental.Accessors;
+
+/**
+ * Placeholder values for one render. Mutable so a single instance can be reused per thread.
+ */
+@Data
+@Accessors(chain = true)
+public class TemplateContext {
+
+    private String userName;
+
+    private String stockName;
+
+    private String stockSymbol;
+
+    private byte[] rule; // pre-rendered UTF-8 rule fragment, e.g. "up by 5%"
+
+    private String ruleValue;
+
+    private Integer alertCount; // digest only
+
+    private byte[] alerts; // digest only: pre-rendered UTF-8 alert lines
+
+    public TemplateContext clear() {
+        userName = null;
+        stockName = null;
+        stockSymbol = null;
+        rule = null;
+        ruleValue = null;
+        alertCount = null;
+        alerts = null;
+        return this;
+    }
+
+    Object value(NotificationTemplate.Placeholder placeholder) {
+        return switch (placeholder) {
+            case USER_NAME -> userName;
+            case STOCK_NAME -> stockName;
+            case STOCK_SYMBOL -> stockSymbol;
+            case RULE -> rule;
+            case RULE_VALUE -> ruleValue;
+            case ALERT_COUNT -> alertCount;
+            case ALERTS -> alerts;
+        };
+    }
+}
@@ -0,0 +1,72 @@
+package com.stockpulse.consumernotificationservice.template;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Growable UTF-8 byte buffer meant to be reset and reused for every rendered message on a thread.
+ * The contents are only valid until the next {@link #reset()}.
+ */
+public final class Utf8Buffer {
+
+    private byte[] bytes;
+    private int length;
+
+    public Utf8Buffer(int initialCapacity) {
+        this.bytes = new byte[initialCapacity];
+    }
+
+    public Utf8Buffer reset() {
+        length = 0;
+        return this;
+    }
+
+    public Utf8Buffer append(byte[] utf8) {
+        ensureCapacity(utf8.length);
+        System.arraycopy(utf8, 0, bytes, length, utf8.length);
+        length += utf8.length;
+        return this;
+    }
+
+    /**
+     * Encode the text as UTF-8; ASCII is copied byte by byte without an intermediate array
+     */
+    public Utf8Buffer append(String text) {
+        if (text == null) {
+            return this;
+        }
+
+        ensureCapacity(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c >= 0x80) {
+                return append(text.substring(i).getBytes(StandardCharsets.UTF_8));
+            }
+            bytes[length++] = (byte) c;
+        }
+        return this;
+    }
+
+    public byte[] array() {
+        return bytes;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(bytes, length);
+    }
+
+    @Override
+    public String toString() {
+        return new String(bytes, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private void ensureCapacity(int additional) {
+        if (length + additional > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, length + additional));
+        }
+    }
+}
\ No newline at end of file
@@ -0,0 +1,87 @@
+package com.stockpulse.consumernotificationservice.tick;
+
+import com.stockpulse.consumernotificationservice.cache.LookupCache;
+import com.stockpulse.consumernotificationservice.consumer.IntakeQueue;
+import com.stockpulse.consumernotificationservice.consumer.QStacksMessageBatcher;
+import com.stockpulse.consumernotificationservice.model.PriceTick;
+import com.stockpulse.consumernotificationservice.model.QStacksMessage;
+import com.stockpulse.consumernotificationservice.service.WishlistNotificationProcessor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * Tick-driven alert detection: each price tick looks up the wishlists whose threshold it crosses in the
+ * {@link ThresholdIndex} and feeds them into the notification pipeline through the {@link IntakeQueue} and the
+ * micro-batcher, as if the upstream producer had enqueued their ids. Triggered wishlists count against the intake
+ * watermarks, and a tick waits while the intake queue is saturated.
+ * The tick's price is applied to the cached stock first, so the rule check before sending sees it.
+ */
+@Slf4j
+@Service
+public class PriceTickProcessor {
+
+    private final ThresholdIndex thresholdIndex;
+    private final LookupCache lookupCache;
+    private final IntakeQueue intakeQueue;
+    private final QStacksMessageBatcher qStacksMessageBatcher;
+
+    private final Counter ticks;
+    private final Counter triggered;
+    private final Counter restored;
+
+    public PriceTickProcessor(ThresholdIndex thresholdIndex, LookupCache lookupCache, IntakeQueue intakeQueue,
+                              QStacksMessageBatcher qStacksMessageBatcher, MeterRegistry meterRegistry) {
+        this.thresholdIndex = thresholdIndex;
+        this.lookupCache = lookupCache;
+        this.intakeQueue = intakeQueue;
+        this.qStacksMessageBatcher = qStacksMessageBatcher;
+
+        this.ticks = Counter.builder("notification.ticks.received")
+                .description("Price ticks received")
+                .register(meterRegistry);
+        this.triggered = Counter.builder("notification.ticks.triggered")
+                .description("Wishlists whose threshold a tick crossed")
+                .register(meterRegistry);
+        this.restored = Counter.builder("notification.ticks.restored")
+                .description("Crossed thresholds put back into the index because the alert was outdated")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Feed every wishlist the tick crosses into the pipeline
+     * @return number of wishlists triggered
+     * @throws IllegalArgumentException if the tick has no stock id or an invalid price
+     * @throws InterruptedException if interrupted while waiting for the intake queue to admit a triggered wishlist
+     */
+    public int onTick(PriceTick tick) throws InterruptedException {
+        if (tick.stockId() == null || tick.stockId().isBlank() || !(tick.price() > 0) || Double.isInfinite(tick.price())) {
+            throw new IllegalArgumentException("Invalid price tick: " + tick);
+        }
+        ticks.increment();
+        lookupCache.updateStockPrice(tick.stockId(), tick.price());
+
+        List<Threshold> crossed = thresholdIndex.takeCrossed(tick.stockId(), tick.price());
+        if (crossed.isEmpty()) {
+            return 0;
+        }
+        triggered.increment(crossed.size());
+        log.debug("Tick {} {} crossed {} wishlist thresholds", tick.stockId(), tick.price(), crossed.size());
+
+        for (Threshold threshold : crossed) {
+            QStacksMessage message = new QStacksMessage(threshold.wishlistId());
+            intakeQueue.put(() -> qStacksMessageBatcher.submit(message).join())
+                    .whenComplete((result, e) -> {
+                        // The rule still stands, only the price moved back: keep watching the wishlist
+                        if (result != null && WishlistNotificationProcessor.OUTDATED.equals(result.getSkipReason())) {
+                            thresholdIndex.restore(threshold);
+                            restored.increment();
+                        }
+                    });
+        }
+        return crossed.size();
+    }
+}
@@ -0,0 +1,183 @@
+package com.stockpulse.consumernotificationservice.tick;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Trigger prices of one stock's wishlists in primitive arrays sorted by price: upper thresholds are crossed by every
+ * price at or above them, lower thresholds by every price at or below them. A tick finds all crossed wishlists with
+ * one binary search per side: a prefix of the upper thresholds and a suffix of the lower ones.
+ * Immutable; updates return a copy, which costs O(n) in the stock's wishlists but keeps ticks lock-free.
+ */
+final class StockThresholds {
+
+    static final StockThresholds EMPTY = new StockThresholds(new double[0], new String[0], new double[0], new String[0]);
+
+    private final double[] upperPrices;
+    private final String[] upperIds;
+    private final double[] lowerPrices;
+    private final String[] lowerIds;
+
+    private StockThresholds(double[] upperPrices, String[] upperIds, double[] lowerPrices, String[] lowerIds) {
+        this.upperPrices = upperPrices;
+        this.upperIds = upperIds;
+        this.lowerPrices = lowerPrices;
+        this.lowerIds = lowerIds;
+    }
+
+    /**
+     * Build from thresholds of one stock in any order, with at most one threshold per wishlist
+     */
+    static StockThresholds of(List<Threshold> thresholds) {
+        List<Threshold> upper = new ArrayList<>();
+        List<Threshold> lower = new ArrayList<>();
+        for (Threshold threshold : thresholds) {
+            (threshold.upper() ? upper : lower).add(threshold);
+        }
+        upper.sort(Comparator.comparingDouble(Threshold::price));
+        lower.sort(Comparator.comparingDouble(Threshold::price));
+
+        return new StockThresholds(
+                upper.stream().mapToDouble(Threshold::price).toArray(), upper.stream().map(Threshold::wishlistId).toArray(String[]::new),
+                lower.stream().mapToDouble(Threshold::price).toArray(), lower.stream().map(Threshold::wishlistId).toArray(String[]::new));
+    }
+
+    int size() {
+        return upperIds.length + lowerIds.length;
+    }
+
+    /**
+     * Add the threshold, replacing any earlier one of the same wishlist
+     */
+    StockThresholds with(Threshold threshold) {
+        StockThresholds base = without(threshold.wishlistId());
+        if (threshold.upper()) {
+            int position = firstAbove(base.upperPrices, threshold.price());
+            return new StockThresholds(insert(base.upperPrices, position, threshold.price()),
+                    insert(base.upperIds, position, threshold.wishlistId()), base.lowerPrices, base.lowerIds);
+        }
+        int position = firstAbove(base.lowerPrices, threshold.price());
+        return new StockThresholds(base.upperPrices, base.upperIds,
+                insert(base.lowerPrices, position, threshold.price()), insert(base.lowerIds, position, threshold.wishlistId()));
+    }
+
+    /**
+     * Remove the wishlist's threshold; a linear scan, as thresholds are ordered by price rather than id
+     */
+    StockThresholds without(String wishlistId) {
+        int upper = indexOf(upperIds, wishlistId);
+        if (upper >= 0) {
+            return new StockThresholds(remove(upperPrices, upper), remove(upperIds, upper), lowerPrices, lowerIds);
+        }
+        int lower = indexOf(lowerIds, wishlistId);
+        if (lower >= 0) {
+            return new StockThresholds(upperPrices, upperIds, remove(lowerPrices, lower), remove(lowerIds, lower));
+        }
+        return this;
+    }
+
+    /**
+     * Upper thresholds at or below the price and lower thresholds at or above it
+     */
+    List<Threshold> crossedAt(double price) {
+        int upperEnd = firstAbove(upperPrices, price);
+        int lowerStart = firstAtOrAbove(lowerPrices, price);
+        List<Threshold> crossed = new ArrayList<>(upperEnd + lowerPrices.length - lowerStart);
+        for (int i = 0; i < upperEnd; i++) {
+            crossed.add(new Threshold(upperIds[i], upperPrices[i], true));
+        }
+        for (int i = lowerStart; i < lowerPrices.length; i++) {
+            crossed.add(new Threshold(lowerIds[i], lowerPrices[i], false));
+        }
+        return crossed;
+    }
+
+    /**
+     * The thresholds a tick at this price leaves uncrossed
+     */
+    StockThresholds withoutCrossedAt(double price) {
+        int upperEnd = firstAbove(upperPrices, price);
+        int lowerStart = firstAtOrAbove(lowerPrices, price);
+        if (upperEnd == 0 && lowerStart == lowerPrices.length) {
+            return this;
+        }
+        return new StockThresholds(
+                Arrays.copyOfRange(upperPrices, upperEnd, upperPrices.length), Arrays.copyOfRange(upperIds, upperEnd, upperIds.length),
+                Arrays.copyOf(lowerPrices, lowerStart), Arrays.copyOf(lowerIds, lowerStart));
+    }
+
+    /**
+     * Index of the first price greater than the given one, prices.length if there is none
+     */
+    private static int firstAbove(double[] prices, double price) {
+        int low = 0;
+        int high = prices.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (prices[mid] <= price) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Index of the first price greater than or equal to the given one, prices.length if there is none
+     */
+    private static int firstAtOrAbove(double[] prices, double price) {
+        int low = 0;
+        int high = prices.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (prices[mid] < price) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static int indexOf(String[] ids, String id) {
+        for (int i = 0; i < ids.length; i++) {
+            if (ids[i].equals(id)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static double[] insert(double[] prices, int position, double price) {
+        double[] result = new double[prices.length + 1];
+        System.arraycopy(prices, 0, result, 0, position);
+        result[position] = price;
+        System.arraycopy(prices, position, result, position + 1, prices.length - position);
+        return result;
+    }
+
+    private static String[] insert(String[] ids, int position, String id) {
+        String[] result = new String[ids.length + 1];
+        System.arraycopy(ids, 0, result, 0, position);
+        result[position] = id;
+        System.arraycopy(ids, position, result, position + 1, ids.length - position);
+        return result;
+    }
+
+    private static double[] remove(double[] prices, int position) {
+        double[] result = new double[prices.length - 1];
+        System.arraycopy(prices, 0, result, 0, position);
+        System.arraycopy(prices, position + 1, result, position, prices.length - position - 1);
+        return result;
+    }
+
+    private static String[] remove(String[] ids, int position) {
+        String[] result = new String[ids.length - 1];
+        System.arraycopy(ids, 0, result, 0, position);
+        System.arraycopy(ids, position + 1, result, position, ids.length - position - 1);
+        return result;
+    }
+}
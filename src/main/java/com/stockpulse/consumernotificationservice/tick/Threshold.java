@@ -0,0 +1,9 @@
+package com.stockpulse.consumernotificationservice.tick;
+
+/**
+ * Trigger price of one wishlist
+ * @param upper true if the wishlist is due once the price is at or above the threshold (percentage_increase),
+ *              false if once it is at or below (percentage_drop)
+ */
+public record Threshold(String wishlistId, double price, boolean upper) {
+}
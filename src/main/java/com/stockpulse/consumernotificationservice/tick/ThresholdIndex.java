@@ -0,0 +1,274 @@
+package com.stockpulse.consumernotificationservice.tick;
+
+import com.stockpulse.consumernotificationservice.config.NotificationProperties;
+import com.stockpulse.consumernotificationservice.model.QStacksMessage;
+import com.stockpulse.consumernotificationservice.model.Wishlist;
+import com.stockpulse.consumernotificationservice.repository.WishlistRepository;
+import com.stockpulse.consumernotificationservice.rule.WishlistRule;
+import com.stockpulse.consumernotificationservice.rule.WishlistRules;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.stream.Stream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.UnaryOperator;
+
+/**
+ * In-memory index of the trigger prices of all active, unnotified wishlists, per stock, built from
+ * {@link WishlistRepository#streamActiveUnnotifiedWishlists} once the application is ready and again every
+ * notification.ticks.rebuild-interval. The wishlists are read page by page through the cursor and only their
+ * thresholds are kept, so a rebuild never holds the whole collection. Wishlists whose rule cannot be evaluated are
+ * not indexed.
+ *
+ * A tick takes the crossed thresholds out of the index, so the next tick does not trigger them again. In between
+ * rebuilds the index is kept current by {@link #upsert} for new and changed wishlists and {@link #remove} for
+ * deleted or notified ones. Changes made while a rebuild is loading are recorded and applied again on top of the
+ * rebuilt index before it replaces the current one, so none of them is lost to the rebuild.
+ */
+@Slf4j
+@Component
+public class ThresholdIndex {
+
+    private final WishlistRepository wishlistRepository;
+    private final WishlistRules wishlistRules;
+    private final NotificationProperties.Ticks ticksProperties;
+    private final ScheduledExecutorService rebuildScheduler;
+
+    private volatile Map<String, StockThresholds> thresholdsByStock = new ConcurrentHashMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final ReentrantReadWriteLock swapLock = new ReentrantReadWriteLock(); // changes share it, the swap owns it
+    private Queue<Change> changesDuringRebuild; // non-null while a rebuild is loading; guarded by swapLock
+
+    public ThresholdIndex(WishlistRepository wishlistRepository, WishlistRules wishlistRules,
+                          NotificationProperties notificationProperties, MeterRegistry meterRegistry) {
+        this.wishlistRepository = wishlistRepository;
+        this.wishlistRules = wishlistRules;
+        this.ticksProperties = notificationProperties.getTicks();
+        this.rebuildScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "threshold-index-rebuild");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Gauge.builder("notification.ticks.index.size", size, AtomicInteger::get)
+                .description("Wishlist thresholds in the tick index")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!ticksProperties.isEnabled()) {
+            return;
+        }
+        long interval = ticksProperties.getRebuildInterval().toMillis();
+        if (interval > 0) {
+            rebuildScheduler.scheduleWithFixedDelay(this::rebuildQuietly, 0, interval, TimeUnit.MILLISECONDS);
+        } else {
+            rebuildScheduler.execute(this::rebuildQuietly);
+        }
+    }
+
+    /**
+     * Replace the index with the thresholds of all active, unnotified wishlists, with the changes made while they
+     * were loading applied on top
+     * @return number of wishlists indexed
+     */
+    public synchronized int rebuild() {
+        long start = System.nanoTime();
+        setChangesDuringRebuild(new ConcurrentLinkedQueue<>());
+        try {
+            Map<String, List<Threshold>> grouped = new HashMap<>();
+            int pageSize = Math.max(1, ticksProperties.getPageSize());
+            try (Stream<Wishlist> wishlists = wishlistRepository.streamActiveUnnotifiedWishlists(null, pageSize)) {
+                wishlists.forEach(wishlist -> {
+                    Threshold threshold = thresholdOf(wishlist);
+                    if (threshold != null) {
+                        grouped.computeIfAbsent(wishlist.getStockId(), stockId -> new ArrayList<>()).add(threshold);
+                    }
+                });
+            }
+
+            Map<String, StockThresholds> rebuilt = new ConcurrentHashMap<>(Math.max(16, grouped.size() * 2));
+            int indexed = 0;
+            for (Map.Entry<String, List<Threshold>> entry : grouped.entrySet()) {
+                rebuilt.put(entry.getKey(), StockThresholds.of(entry.getValue()));
+                indexed += entry.getValue().size();
+            }
+
+            int replayed = 0;
+            swapLock.writeLock().lock();
+            try {
+                for (Change change : changesDuringRebuild) {
+                    indexed += apply(rebuilt, change.stockId(), change.replay(), () -> { });
+                    replayed++;
+                }
+                thresholdsByStock = rebuilt;
+                size.set(indexed);
+                changesDuringRebuild = null;
+            } finally {
+                swapLock.writeLock().unlock();
+            }
+
+            log.info("Indexed {} wishlist thresholds of {} stocks in {} ms, {} changes applied during the rebuild",
+                    indexed, rebuilt.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), replayed);
+            return indexed;
+        } finally {
+            setChangesDuringRebuild(null);
+        }
+    }
+
+    /**
+     * Index a new or changed wishlist; one that is inactive, notified or has no evaluable rule is removed instead
+     * @return true if the wishlist is indexed afterwards
+     */
+    public boolean upsert(Wishlist wishlist) {
+        Threshold threshold = thresholdOf(wishlist);
+        UnaryOperator<StockThresholds> change = thresholds -> {
+            StockThresholds base = thresholds.without(wishlist.getId());
+            return threshold != null ? base.with(threshold) : base;
+        };
+        update(wishlist.getStockId(), change, change);
+        return threshold != null;
+    }
+
+    /**
+     * Remove a deleted or notified wishlist
+     */
+    public void remove(String wishlistId) {
+        String stockId = new QStacksMessage(wishlistId).getStockId();
+        if (stockId != null) {
+            UnaryOperator<StockThresholds> change = thresholds -> thresholds.without(wishlistId);
+            update(stockId, change, change);
+        }
+    }
+
+    /**
+     * Put back a threshold taken by a tick whose alert turned out to be outdated
+     */
+    public void restore(Threshold threshold) {
+        String stockId = new QStacksMessage(threshold.wishlistId()).getStockId();
+        if (stockId != null) {
+            UnaryOperator<StockThresholds> change = thresholds -> thresholds.with(threshold);
+            update(stockId, change, change);
+        }
+    }
+
+    /**
+     * Take every threshold of the stock that the price crosses out of the index
+     * @return the crossed thresholds, upper ones first
+     */
+    public List<Threshold> takeCrossed(String stockId, double price) {
+        List<List<Threshold>> crossed = new ArrayList<>(1);
+        update(stockId, thresholds -> {
+            crossed.add(thresholds.crossedAt(price));
+            return thresholds.withoutCrossedAt(price);
+        }, thresholds -> {
+            // a rebuild may have loaded thresholds this tick did not take: drop only the ones it did
+            StockThresholds remaining = thresholds;
+            for (Threshold threshold : crossed.getFirst()) {
+                remaining = remaining.without(threshold.wishlistId());
+            }
+            return remaining;
+        });
+        return crossed.isEmpty() ? List.of() : crossed.getFirst();
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    public int stockCount() {
+        return thresholdsByStock.size();
+    }
+
+    /**
+     * Apply a change to the current index, and record it while a rebuild is loading
+     * @param replay the same change, applied to the rebuilt index; it runs after change
+     */
+    private void update(String stockId, UnaryOperator<StockThresholds> change, UnaryOperator<StockThresholds> replay) {
+        swapLock.readLock().lock();
+        try {
+            Queue<Change> changes = changesDuringRebuild;
+            // recorded inside compute, so changes of one stock are replayed in the order they were applied
+            size.addAndGet(apply(thresholdsByStock, stockId, change, () -> {
+                if (changes != null) {
+                    changes.add(new Change(stockId, replay));
+                }
+            }));
+        } finally {
+            swapLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @param applied run while the stock's entry is still locked
+     * @return the change in the number of thresholds
+     */
+    private static int apply(Map<String, StockThresholds> index, String stockId, UnaryOperator<StockThresholds> change,
+                             Runnable applied) {
+        int[] delta = new int[1];
+        index.compute(stockId, (id, thresholds) -> {
+            StockThresholds current = thresholds != null ? thresholds : StockThresholds.EMPTY;
+            StockThresholds updated = change.apply(current);
+            delta[0] = updated.size() - current.size();
+            applied.run();
+            return updated.size() > 0 ? updated : null;
+        });
+        return delta[0];
+    }
+
+    private void setChangesDuringRebuild(Queue<Change> changes) {
+        swapLock.writeLock().lock();
+        try {
+            changesDuringRebuild = changes;
+        } finally {
+            swapLock.writeLock().unlock();
+        }
+    }
+
+    private Threshold thresholdOf(Wishlist wishlist) {
+        if (!Boolean.TRUE.equals(wishlist.getActive()) || Boolean.TRUE.equals(wishlist.getNotified())) {
+            return null;
+        }
+        return switch (wishlistRules.ruleFor(wishlist)) {
+            case WishlistRule.AtOrAbove rule -> new Threshold(wishlist.getId(), rule.threshold(), true);
+            case WishlistRule.AtOrBelow rule -> new Threshold(wishlist.getId(), rule.threshold(), false);
+            case WishlistRule.Unevaluable rule -> null;
+        };
+    }
+
+    private void rebuildQuietly() {
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.error("Failed to rebuild the tick threshold index, keeping the current one", e);
+        }
+    }
+
+    /**
+     * A change to the index recorded during a rebuild
+     */
+    private record Change(String stockId, UnaryOperator<StockThresholds> replay) {
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildScheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,85 @@
+package com.stockpulse.consumernotificationservice.cache;
+
+import com.stockpulse.consumernotificationservice.config.NotificationProperties;
+import com.stockpulse.consumernotificationservice.model.Stock;
+import com.stockpulse.consumernotificationservice.model.User;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LookupCacheTest {
+
+    private final User alice = User.builder().id("user-1").name("Alice").email("alice@example.com").build();
+    private final Stock reliance = Stock.builder().id("stock-1").symbol("RELIANCE").name("Reliance Industries Ltd")
+            .currentPrice(2310.0).exchange("NSE").sector("Energy").build();
+
+    private SimpleMeterRegistry meterRegistry;
+    private LookupCache cache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new LookupCache(new NotificationProperties(), meterRegistry);
+    }
+
+    @Test
+    void loadsAUserOnceAndServesItFromTheCache() {
+        AtomicInteger loads = new AtomicInteger();
+        Function<String, User> loader = id -> {
+            loads.incrementAndGet();
+            return alice;
+        };
+
+        assertThat(cache.getUser("user-1", loader)).isSameAs(alice);
+        assertThat(cache.getUser("user-1", loader)).isSameAs(alice);
+
+        assertThat(loads).hasValue(1);
+        assertThat(meterRegistry.get("cache.gets").tag("cache", "users").tag("result", "hit").functionCounter()
+                .count()).isEqualTo(1);
+    }
+
+    @Test
+    void doesNotCacheAMissingEntity() {
+        assertThat(cache.getStock("stock-1", id -> null)).isNull();
+
+        assertThat(cache.getStock("stock-1", id -> reliance)).isSameAs(reliance);
+    }
+
+    @Test
+    void appliesAPriceTickToACachedStock() {
+        cache.getStock("stock-1", id -> reliance);
+
+        cache.updateStockPrice("stock-1", 2400.0);
+
+        Stock updated = cache.getStock("stock-1", id -> reliance);
+        assertThat(updated.getCurrentPrice()).isEqualTo(2400.0);
+        assertThat(updated).usingRecursiveComparison().ignoringFields("currentPrice").isEqualTo(reliance);
+        assertThat(reliance.getCurrentPrice()).isEqualTo(2310.0); // the cached instance is replaced, not changed
+    }
+
+    @Test
+    void leavesAnUncachedStockToBeLoadedWithItsStoredPrice() {
+        cache.updateStockPrice("stock-1", 2400.0);
+
+        assertThat(cache.getStock("stock-1", id -> reliance).getCurrentPrice()).isEqualTo(2310.0);
+    }
+
+    @Test
+    void reloadsAnInvalidatedEntry() {
+        User renamed = User.builder().id("user-1").name("Alice B").build();
+        cache.getUser("user-1", id -> alice);
+        cache.getStock("stock-1", id -> reliance);
+
+        cache.invalidateUser("user-1");
+        assertThat(cache.getUser("user-1", id -> renamed)).isSameAs(renamed);
+
+        cache.invalidateAll();
+        assertThat(cache.getUser("user-1", id -> alice)).isSameAs(alice);
+        assertThat(cache.getStock("stock-1", id -> null)).isNull();
+    }
+}
@@ -0,0 +1,221 @@
+package com.stockpulse.consumernotificationservice.channel;
+
+import com.stockpulse.consumernotificationservice.config.NotificationProperties;
+import com.stockpulse.consumernotificationservice.model.ChannelAlert;
+import com.stockpulse.consumernotificationservice.model.User;
+import com.stockpulse.consumernotificationservice.model.Wishlist;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ChannelPipelineTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private final CountDownLatch gate = new CountDownLatch(1);
+    private final List<List<ChannelAlert>> batches = new CopyOnWriteArrayList<>();
+    private NotificationProperties.Channel channelProperties;
+    private SimpleMeterRegistry meterRegistry;
+    private ChannelPipeline pipeline;
+
+    @BeforeEach
+    void setUp() {
+        channelProperties = new NotificationProperties.Channel(true, true);
+        channelProperties.setConcurrency(1);
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void shutdown() throws InterruptedException {
+        gate.countDown();
+        if (pipeline != null) {
+            pipeline.shutdown();
+        }
+    }
+
+    @Test
+    void deliversEachAlertOfABatch() {
+        pipeline = newPipeline(alerts -> Collections.nCopies(alerts.size(), true));
+
+        assertThat(pipeline.submit(alert("u1::s1"))).succeedsWithin(TIMEOUT).isEqualTo(true);
+        assertThat(meterRegistry.get("notification.channel.latency").tag("outcome", "delivered").timer().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void growsTheNextBatchWhileAllSendThreadsAreBusy() throws InterruptedException {
+        channelProperties.setBatchSize(3);
+        pipeline = newPipeline(gated(alerts -> Collections.nCopies(alerts.size(), true)));
+
+        CompletableFuture<Boolean> first = pipeline.submit(alert("u1::s1"));
+        List<CompletableFuture<Boolean>> queued = new ArrayList<>();
+        awaitBatches(1);
+        for (int i = 2; i <= 5; i++) {
+            queued.add(pipeline.submit(alert("u1::s" + i)));
+        }
+        gate.countDown();
+
+        assertThat(first).succeedsWithin(TIMEOUT);
+        queued.forEach(delivered -> assertThat(delivered).succeedsWithin(TIMEOUT).isEqualTo(true));
+        assertThat(batches).extracting(List::size).containsExactly(1, 3, 1);
+    }
+
+    @Test
+    void waitsUpToMaxWaitForABatchToFill() {
+        channelProperties.setBatchSize(2);
+        channelProperties.setMaxWait(Duration.ofMillis(500));
+        pipeline = newPipeline(alerts -> Collections.nCopies(alerts.size(), true));
+
+        CompletableFuture<Boolean> first = pipeline.submit(alert("u1::s1"));
+        CompletableFuture<Boolean> second = pipeline.submit(alert("u1::s2"));
+
+        assertThat(first).succeedsWithin(TIMEOUT);
+        assertThat(second).succeedsWithin(TIMEOUT);
+        assertThat(batches).extracting(List::size).containsExactly(2);
+    }
+
+    @Test
+    void failsTheAlertsTheChannelDidNotDeliver() {
+        channelProperties.setBatchSize(3);
+        channelProperties.setMaxWait(Duration.ofMillis(500));
+        pipeline = newPipeline(alerts -> List.of(true, false)); // shorter than the batch
+
+        CompletableFuture<Boolean> first = pipeline.submit(alert("u1::s1"));
+        CompletableFuture<Boolean> second = pipeline.submit(alert("u1::s2"));
+        CompletableFuture<Boolean> third = pipeline.submit(alert("u1::s3"));
+
+        assertThat(first).succeedsWithin(TIMEOUT).isEqualTo(true);
+        assertThat(second).succeedsWithin(TIMEOUT).isEqualTo(false);
+        assertThat(third).succeedsWithin(TIMEOUT).isEqualTo(false);
+    }
+
+    @Test
+    void failsTheWholeBatchWhenTheChannelThrows() {
+        pipeline = newPipeline(alerts -> {
+            throw new IllegalStateException("provider unavailable");
+        });
+
+        assertThat(pipeline.submit(alert("u1::s1"))).succeedsWithin(TIMEOUT).isEqualTo(false);
+        assertThat(pipeline.submit(alert("u1::s2"))).succeedsWithin(TIMEOUT).isEqualTo(false); // still sending
+    }
+
+    @Test
+    void failsRightAwayWhenTheQueueIsFull() throws InterruptedException {
+        channelProperties.setQueueCapacity(1);
+        pipeline = newPipeline(gated(alerts -> Collections.nCopies(alerts.size(), true)));
+
+        pipeline.submit(alert("u1::s1"));
+        awaitBatches(1);
+        CompletableFuture<Boolean> queued = pipeline.submit(alert("u1::s2"));
+        CompletableFuture<Boolean> rejected = pipeline.submit(alert("u1::s3"));
+
+        assertThat(rejected).isCompletedWithValue(false);
+        assertThat(queued).isNotDone();
+        assertThat(meterRegistry.get("notification.channel.rejected").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void failsQueuedAlertsOnShutdown() throws InterruptedException {
+        pipeline = newPipeline(gated(alerts -> Collections.nCopies(alerts.size(), true)));
+        CompletableFuture<Boolean> sending = pipeline.submit(alert("u1::s1"));
+        awaitBatches(1);
+        CompletableFuture<Boolean> queued = pipeline.submit(alert("u1::s2"));
+
+        CompletableFuture<Void> shutdown = CompletableFuture.runAsync(() -> {
+            try {
+                pipeline.shutdown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        assertThat(queued).succeedsWithin(TIMEOUT).isEqualTo(false);
+        assertThat(pipeline.submit(alert("u1::s3"))).isCompletedWithValue(false);
+        gate.countDown();
+        assertThat(sending).succeedsWithin(TIMEOUT).isEqualTo(true); // a batch being sent is left to finish
+        assertThat(shutdown).succeedsWithin(TIMEOUT);
+    }
+
+    @Test
+    void failsQueuedAlertsWhenShutdownIsInterrupted() throws InterruptedException {
+        pipeline = newPipeline(gated(alerts -> Collections.nCopies(alerts.size(), true)));
+        pipeline.submit(alert("u1::s1"));
+        awaitBatches(1);
+        CompletableFuture<Boolean> queued = pipeline.submit(alert("u1::s2"));
+
+        Thread.currentThread().interrupt();
+        try {
+            pipeline.shutdown();
+        } catch (InterruptedException e) {
+            // join() gave up waiting for the dispatcher
+        } finally {
+            Thread.interrupted();
+        }
+
+        assertThat(queued).succeedsWithin(TIMEOUT).isEqualTo(false);
+    }
+
+    private void awaitBatches(int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TIMEOUT.toNanos();
+        while (batches.size() < count && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(5);
+        }
+        assertThat(batches).hasSize(count);
+    }
+
+    /**
+     * Records each batch as it arrives, then holds it until the gate opens
+     */
+    private Function<List<ChannelAlert>, List<Boolean>> gated(Function<List<ChannelAlert>, List<Boolean>> send) {
+        return alerts -> {
+            try {
+                gate.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return send.apply(alerts);
+        };
+    }
+
+    private ChannelPipeline newPipeline(Function<List<ChannelAlert>, List<Boolean>> send) {
+        return new ChannelPipeline(new NotificationChannel() {
+            @Override
+            public String name() {
+                return "test";
+            }
+
+            @Override
+            public NotificationProperties.Channel properties() {
+                return channelProperties;
+            }
+
+            @Override
+            public boolean canDeliver(User user) {
+                return true;
+            }
+
+            @Override
+            public List<Boolean> send(List<ChannelAlert> alerts) {
+                batches.add(List.copyOf(alerts));
+                return send.apply(alerts);
+            }
+        }, meterRegistry);
+    }
+
+    private static ChannelAlert alert(String wishlistId) {
+        return new ChannelAlert(User.builder().id("user-1").build(), null, Wishlist.builder().id(wishlistId).build());
+    }
+}
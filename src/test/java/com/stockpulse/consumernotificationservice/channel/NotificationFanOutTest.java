@@ -0,0 +1,196 @@
+package com.stockpulse.consumernotificationservice.channel;
+
+import com.stockpulse.consumernotificationservice.channel.NotificationFanOut.Delivery;
+import com.stockpulse.consumernotificationservice.config.NotificationProperties;
+import com.stockpulse.consumernotificationservice.model.ChannelAlert;
+import com.stockpulse.consumernotificationservice.model.Stock;
+import com.stockpulse.consumernotificationservice.model.User;
+import com.stockpulse.consumernotificationservice.model.Wishlist;
+import com.stockpulse.consumernotificationservice.model.WishlistNotificationView;
+import com.stockpulse.consumernotificationservice.template.NotificationTemplates;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class NotificationFanOutTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private final Stock stock = Stock.builder().id("stock-1").name("Reliance Industries Ltd").symbol("RELIANCE")
+            .currentPrice(2310.0).build();
+    private final Wishlist wishlist = Wishlist.builder().id("user-1::stock-1").userId("user-1").stockId("stock-1")
+            .ruleType("percentage_increase").ruleValueInPercent("5%").rateValueTargeted(2300.0).build();
+
+    private NotificationProperties properties;
+    private SmsTransport smsTransport;
+    private NotificationFanOut fanOut;
+
+    @BeforeEach
+    void setUp() {
+        properties = new NotificationProperties();
+        NotificationProperties.Channel sms = properties.getChannels().getSms();
+        sms.setEnabled(true);
+        sms.setRequired(true);
+        smsTransport = mock(SmsTransport.class);
+    }
+
+    @AfterEach
+    void shutdown() throws InterruptedException {
+        if (fanOut != null) {
+            fanOut.shutdown();
+        }
+    }
+
+    @Test
+    void reachesTheUserOfANotificationViewBySms() {
+        fanOut = new NotificationFanOut(List.of(smsChannel()), new SimpleMeterRegistry());
+        User user = view("+919800000001").toUser();
+
+        assertThat(fanOut.send(user, stock, wishlist)).succeedsWithin(TIMEOUT)
+                .isEqualTo(new Delivery(true, Set.of()));
+
+        verify(smsTransport).send(List.of(new SmsTransport.SmsMessage("+919800000001",
+                new NotificationTemplates(properties).renderSubject(user, stock, wishlist))));
+    }
+
+    @Test
+    void sendsNothingWhenARequiredChannelCannotReachTheUser() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        StubChannel email = new StubChannel("email", true, true);
+        fanOut = new NotificationFanOut(List.of(email, smsChannel()), meterRegistry);
+
+        assertThat(fanOut.send(view(null).toUser(), stock, wishlist)).succeedsWithin(TIMEOUT)
+                .isEqualTo(new Delivery(false, Set.of(), Set.of("sms")));
+
+        assertThat(email.sent).isEmpty();
+        verify(smsTransport, never()).send(anyList());
+        assertThat(meterRegistry.get("notification.channel.unreachable").tag("channel", "sms").counter().count())
+                .isEqualTo(1);
+    }
+
+    @Test
+    void skipsAnOptionalChannelThatCannotReachTheUser() {
+        properties.getChannels().getSms().setRequired(false);
+        StubChannel email = new StubChannel("email", true, true);
+        fanOut = new NotificationFanOut(List.of(email, smsChannel()), new SimpleMeterRegistry());
+
+        assertThat(fanOut.send(view(null).toUser(), stock, wishlist)).succeedsWithin(TIMEOUT)
+                .isEqualTo(new Delivery(true, Set.of()));
+
+        assertThat(email.sent).hasSize(1);
+        verify(smsTransport, never()).send(anyList());
+    }
+
+    @Test
+    void recordsTheChannelsThatDeliveredWhenARequiredOneFails() {
+        StubChannel email = new StubChannel("email", true, false);
+        StubChannel webhook = new StubChannel("webhook", false, true);
+        fanOut = new NotificationFanOut(List.of(email, webhook), new SimpleMeterRegistry());
+        email.delay = Duration.ofMillis(100); // the optional webhook is done by the time the required email fails
+
+        assertThat(fanOut.send(view(null).toUser(), stock, wishlist)).succeedsWithin(TIMEOUT)
+                .isEqualTo(new Delivery(false, Set.of("webhook")));
+    }
+
+    @Test
+    void skipsTheChannelsThatDeliveredOnAnEarlierAttempt() {
+        StubChannel email = new StubChannel("email", true, true);
+        fanOut = new NotificationFanOut(List.of(email, smsChannel()), new SimpleMeterRegistry());
+        wishlist.setDeliveredChannels(Set.of("email"));
+
+        assertThat(fanOut.send(view("+919800000001").toUser(), stock, wishlist)).succeedsWithin(TIMEOUT)
+                .isEqualTo(new Delivery(true, Set.of("email")));
+
+        assertThat(email.sent).isEmpty();
+        verify(smsTransport).send(anyList());
+    }
+
+    @Test
+    void refusesToStartWithoutARequiredChannel() {
+        properties.getChannels().getSms().setRequired(false);
+        List<NotificationChannel> channels = List.of(new StubChannel("email", false, true), smsChannel());
+
+        assertThatThrownBy(() -> new NotificationFanOut(channels, new SimpleMeterRegistry()))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private SmsChannel smsChannel() {
+        return new SmsChannel(smsTransport, new NotificationTemplates(properties), properties);
+    }
+
+    /**
+     * Reaches every user and delivers, or fails, every alert it is given after an optional delay
+     */
+    private static class StubChannel implements NotificationChannel {
+
+        private final String name;
+        private final NotificationProperties.Channel channelProperties;
+        private final boolean delivers;
+        private final List<ChannelAlert> sent = new CopyOnWriteArrayList<>();
+        private volatile Duration delay = Duration.ZERO;
+
+        private StubChannel(String name, boolean required, boolean delivers) {
+            this.name = name;
+            this.channelProperties = new NotificationProperties.Channel(true, required);
+            this.delivers = delivers;
+        }
+
+        @Override
+        public String name() {
+            return name;
+        }
+
+        @Override
+        public NotificationProperties.Channel properties() {
+            return channelProperties;
+        }
+
+        @Override
+        public boolean canDeliver(User user) {
+            return true;
+        }
+
+        @Override
+        public List<Boolean> send(List<ChannelAlert> alerts) {
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            sent.addAll(alerts);
+            return Collections.nCopies(alerts.size(), delivers);
+        }
+    }
+
+    private static WishlistNotificationView view(String phone) {
+        return WishlistNotificationView.builder()
+                .id("user-1::stock-1")
+                .userId("user-1")
+                .stockId("stock-1")
+                .active(true)
+                .notified(false)
+                .userFound(true)
+                .userName("Alice")
+                .email("alice@example.com")
+                .phone(phone)
+                .stockFound(true)
+                .stockName("Reliance Industries Ltd")
+                .stockSymbol("RELIANCE")
+                .currentPrice(2310.0)
+                .build();
+    }
+}
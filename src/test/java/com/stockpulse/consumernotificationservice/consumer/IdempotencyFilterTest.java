@@ -0,0 +1,91 @@
+package com.stockpulse.consumernotificationservice.consumer;
+
+import com.stockpulse.consumernotificationservice.config.NotificationProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IdempotencyFilterTest {
+
+    private NotificationProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        properties = new NotificationProperties();
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void dropsAnIdThatIsInFlight() {
+        IdempotencyFilter filter = new IdempotencyFilter(properties, meterRegistry);
+
+        assertThat(filter.tryAcquire("u1::s1")).isTrue();
+        assertThat(filter.tryAcquire("u1::s1")).isFalse();
+        assertThat(filter.tryAcquire("u1::s2")).isTrue();
+        assertThat(dropped("in_flight")).isEqualTo(1);
+    }
+
+    @Test
+    void dropsACompletedIdForTheRestOfTheWindow() {
+        IdempotencyFilter filter = new IdempotencyFilter(properties, meterRegistry);
+
+        filter.tryAcquire("u1::s1");
+        filter.complete("u1::s1");
+
+        assertThat(filter.tryAcquire("u1::s1")).isFalse();
+        assertThat(dropped("completed")).isEqualTo(1);
+    }
+
+    @Test
+    void letsAReleasedIdThrough() {
+        IdempotencyFilter filter = new IdempotencyFilter(properties, meterRegistry);
+
+        filter.tryAcquire("u1::s1");
+        filter.release("u1::s1");
+
+        assertThat(filter.tryAcquire("u1::s1")).isTrue();
+    }
+
+    @Test
+    void releaseDoesNotForgetACompletedId() {
+        IdempotencyFilter filter = new IdempotencyFilter(properties, meterRegistry);
+
+        filter.tryAcquire("u1::s1");
+        filter.complete("u1::s1");
+        filter.release("u1::s1");
+
+        assertThat(filter.tryAcquire("u1::s1")).isFalse();
+    }
+
+    @Test
+    void forgetsCompletedIdsOnceTheWindowHasPassed() throws InterruptedException {
+        properties.getIdempotency().setWindow(Duration.ofMillis(50));
+        IdempotencyFilter filter = new IdempotencyFilter(properties, meterRegistry);
+
+        filter.tryAcquire("u1::s1");
+        filter.complete("u1::s1");
+        Thread.sleep(100);
+
+        assertThat(filter.tryAcquire("u1::s1")).isTrue();
+    }
+
+    @Test
+    void letsEverythingThroughWhenDisabled() {
+        properties.getIdempotency().setEnabled(false);
+        IdempotencyFilter filter = new IdempotencyFilter(properties, meterRegistry);
+
+        filter.tryAcquire("u1::s1");
+        filter.complete("u1::s1");
+
+        assertThat(filter.tryAcquire("u1::s1")).isTrue();
+    }
+
+    private double dropped(String state) {
+        return meterRegistry.get("notification.idempotency.dropped").tag("state", state).counter().count();
+    }
+}
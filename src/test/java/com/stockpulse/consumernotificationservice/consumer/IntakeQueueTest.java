@@ -0,0 +1,164 @@
+package com.stockpulse.consumernotificationservice.consumer;
+
+import com.stockpulse.consumernotificationservice.config.NotificationProperties;
+import com.stockpulse.consumernotificationservice.exception.IntakeSaturatedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+class IntakeQueueTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private final CountDownLatch gate = new CountDownLatch(1);
+    private NotificationProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private IntakeQueue intakeQueue;
+
+    @BeforeEach
+    void setUp() {
+        properties = new NotificationProperties();
+        NotificationProperties.Intake intake = properties.getIntake();
+        intake.setHighWatermark(4);
+        intake.setLowWatermark(1);
+        intake.setMaxInFlight(1);
+        intake.setRetryAfter(Duration.ofSeconds(3));
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @AfterEach
+    void shutdown() {
+        gate.countDown();
+        if (intakeQueue != null) {
+            intakeQueue.shutdown();
+        }
+    }
+
+    @Test
+    void rejectsNewWorkOnceTheHighWatermarkIsReached() throws InterruptedException {
+        intakeQueue = newIntakeQueue();
+        fillToHighWatermark();
+
+        assertThat(intakeQueue.isSaturated()).isTrue();
+        assertThat(intakeQueue.size()).isEqualTo(4);
+        assertThatThrownBy(() -> intakeQueue.submit(() -> "rejected"))
+                .isInstanceOfSatisfying(IntakeSaturatedException.class,
+                        e -> assertThat(e.getRetryAfter()).isEqualTo(Duration.ofSeconds(3)));
+        assertThatThrownBy(() -> intakeQueue.checkAdmitting()).isInstanceOf(IntakeSaturatedException.class);
+        assertThat(meterRegistry.get("notification.intake.rejected").counter().count()).isEqualTo(2);
+    }
+
+    @Test
+    void admitsAgainOnceDrainedToTheLowWatermark() throws Exception {
+        intakeQueue = newIntakeQueue();
+        List<CompletableFuture<String>> queued = fillToHighWatermark();
+        assertThat(intakeQueue.awaitAdmitting(Duration.ofMillis(50))).isFalse();
+
+        gate.countDown();
+
+        assertThat(intakeQueue.awaitAdmitting(TIMEOUT)).isTrue();
+        assertThat(intakeQueue.size()).isLessThanOrEqualTo(1);
+        assertThat(intakeQueue.submit(() -> "admitted").get(TIMEOUT.toSeconds(), TimeUnit.SECONDS)).isEqualTo("admitted");
+        for (CompletableFuture<String> result : queued) {
+            assertThat(result).succeedsWithin(TIMEOUT);
+        }
+    }
+
+    @Test
+    void putWaitsWhileSaturatedInsteadOfRejecting() throws Exception {
+        intakeQueue = newIntakeQueue();
+        fillToHighWatermark();
+
+        CompletableFuture<CompletableFuture<String>> put = CompletableFuture.supplyAsync(() -> {
+            try {
+                return intakeQueue.put(() -> "put");
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        Thread.sleep(100);
+        assertThat(put).isNotDone();
+
+        gate.countDown();
+
+        assertThat(put.get(TIMEOUT.toSeconds(), TimeUnit.SECONDS).get(TIMEOUT.toSeconds(), TimeUnit.SECONDS))
+                .isEqualTo("put");
+    }
+
+    @Test
+    void failsQueuedWorkOnShutdown() throws InterruptedException {
+        intakeQueue = newIntakeQueue();
+        List<CompletableFuture<String>> queued = fillToHighWatermark();
+
+        intakeQueue.shutdown();
+
+        for (CompletableFuture<String> result : queued.subList(1, queued.size())) {
+            assertThat(result).failsWithin(TIMEOUT).withThrowableOfType(ExecutionException.class)
+                    .withCauseInstanceOf(RejectedExecutionException.class);
+        }
+        assertThat(queued.getFirst()).isNotDone(); // already running, left to finish
+        assertThat(intakeQueue.isSaturated()).isFalse();
+    }
+
+    @Test
+    void runsWorkRightAwayWhenDisabled() throws Exception {
+        properties.getIntake().setEnabled(false);
+        intakeQueue = newIntakeQueue();
+
+        for (int i = 0; i < 10; i++) {
+            intakeQueue.submit(this::awaitGate);
+        }
+
+        assertThat(intakeQueue.isSaturated()).isFalse();
+        assertThat(intakeQueue.awaitAdmitting(Duration.ZERO)).isTrue();
+        assertThat(intakeQueue.submit(() -> "direct").get(TIMEOUT.toSeconds(), TimeUnit.SECONDS)).isEqualTo("direct");
+    }
+
+    @Test
+    void rejectsWatermarksOutOfOrder() {
+        properties.getIntake().setLowWatermark(4);
+
+        assertThatThrownBy(this::newIntakeQueue).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    /**
+     * Occupy the only in-flight slot with work held at the gate, then queue up to the high watermark
+     */
+    private List<CompletableFuture<String>> fillToHighWatermark() throws InterruptedException {
+        CountDownLatch started = new CountDownLatch(1);
+        List<CompletableFuture<String>> queued = new ArrayList<>();
+        queued.add(intakeQueue.submit(() -> {
+            started.countDown();
+            return awaitGate();
+        }));
+        assertThat(started.await(TIMEOUT.toSeconds(), TimeUnit.SECONDS)).isTrue();
+
+        for (int i = 0; i < 4; i++) {
+            queued.add(intakeQueue.submit(this::awaitGate));
+        }
+        return queued;
+    }
+
+    private String awaitGate() throws InterruptedException {
+        gate.await();
+        return "done";
+    }
+
+    private IntakeQueue newIntakeQueue() {
+        return new IntakeQueue(mock(QStacksConsumer.class), mock(QStacksMessageBatcher.class), properties, meterRegistry);
+    }
+}
@@ -0,0 +1,68 @@
+package com.stockpulse.consumernotificationservice.consumer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stockpulse.consumernotificationservice.config.NotificationProperties;
+import com.stockpulse.consumernotificationservice.deadletter.DeadLetterLog;
+import com.stockpulse.consumernotificationservice.events.ProcessingEventRecorder;
+import com.stockpulse.consumernotificationservice.exception.WishlistProcessingException;
+import com.stockpulse.consumernotificationservice.model.ProcessingResult;
+import com.stockpulse.consumernotificationservice.retry.RetryScheduler;
+import com.stockpulse.consumernotificationservice.service.WishlistNotificationProcessor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class QStacksConsumerTest {
+
+    private static final String PAYLOAD = "{\"id\":\"user-1::stock-1\"}";
+
+    private final WishlistNotificationProcessor processor = mock(WishlistNotificationProcessor.class);
+    private final IdempotencyFilter idempotencyFilter = mock(IdempotencyFilter.class);
+    private final DeadLetterLog deadLetterLog = mock(DeadLetterLog.class);
+    private QStacksConsumer consumer;
+
+    @BeforeEach
+    void setUp() {
+        NotificationProperties properties = new NotificationProperties();
+        when(idempotencyFilter.tryAcquire(anyString())).thenReturn(true);
+        consumer = new QStacksConsumer(processor, new QStacksPayloadDecoder(new ObjectMapper()), idempotencyFilter,
+                mock(VirtualThreadMessageExecutor.class), properties, mock(RetryScheduler.class), deadLetterLog,
+                new ProcessingEventRecorder(properties));
+    }
+
+    @Test
+    void reportsAFailedMessageByItsWishlistId() {
+        WishlistProcessingException failure = new WishlistProcessingException("Stock not found: stock-1");
+        when(processor.processWishlistNotificationAsync(any())).thenReturn(CompletableFuture.failedFuture(failure));
+
+        CompletableFuture<ProcessingResult> result = consumer.consumeQStacksMessageAsync(PAYLOAD);
+
+        assertThat(result).succeedsWithin(Duration.ofSeconds(5)).satisfies(failed -> {
+            assertThat(failed.isSuccess()).isFalse();
+            assertThat(failed.getId()).isEqualTo("user-1::stock-1");
+            assertThat(failed.getCause()).isSameAs(failure);
+        });
+        verify(idempotencyFilter).release("user-1::stock-1");
+        verify(deadLetterLog).append(eq(PAYLOAD), eq(failure), eq(1)); // the payload is kept for a replay
+    }
+
+    @Test
+    void reportsASucceededMessageByItsWishlistId() {
+        when(processor.processWishlistNotificationAsync(any()))
+                .thenReturn(CompletableFuture.completedFuture(ProcessingResult.success("user-1::stock-1")));
+
+        assertThat(consumer.consumeQStacksMessageAsync(PAYLOAD)).succeedsWithin(Duration.ofSeconds(5))
+                .extracting(ProcessingResult::getId).isEqualTo("user-1::stock-1");
+        verify(idempotencyFilter).complete("user-1::stock-1");
+    }
+}
@@ -0,0 +1,97 @@
+package com.stockpulse.consumernotificationservice.consumer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stockpulse.consumernotificationservice.exception.WishlistProcessingException;
+import com.stockpulse.consumernotificationservice.model.QStacksMessage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class QStacksPayloadDecoderTest {
+
+    private final QStacksPayloadDecoder decoder = new QStacksPayloadDecoder(new ObjectMapper());
+
+    @Test
+    void decodesTheIdAndItsParts() {
+        QStacksMessage message = decoder.decode("{\"id\":\"user-1::stock-1\"}");
+
+        assertThat(message.getId()).isEqualTo("user-1::stock-1");
+        assertThat(message.getUserId()).isEqualTo("user-1");
+        assertThat(message.getStockId()).isEqualTo("stock-1");
+    }
+
+    @Test
+    void skipsOtherFieldsIncludingNestedOnes() {
+        QStacksMessage message = decoder.decode(
+                "{\"meta\":{\"tags\":[1,{\"id\":\"nested\"}]},\"id\":\"user-1::stock-1\",\"attempt\":2}");
+
+        assertThat(message.getId()).isEqualTo("user-1::stock-1");
+    }
+
+    @Test
+    void unescapesTheId() {
+        assertThat(decoder.decode("{\"id\":\"user-\\u0031::stock-1\"}").getId()).isEqualTo("user-1::stock-1");
+    }
+
+    @Test
+    void leavesAMissingOrNullIdNull() {
+        assertThat(decoder.decode("{}").getId()).isNull();
+        assertThat(decoder.decode("{\"id\":null}").getId()).isNull();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"", "   ", "[]", "\"user-1::stock-1\"", "{\"id\":", "{\"id\":\"user-1::stock-1\"", "not json"})
+    void rejectsPayloadsThatAreNotAnObject(String payload) {
+        assertThatThrownBy(() -> decoder.decode(payload))
+                .isInstanceOf(WishlistProcessingException.class)
+                .hasMessageStartingWith("Invalid message format: ");
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', quoteCharacter = '\'', textBlock = """
+            {"id":42}                  | VALUE_NUMBER_INT
+            {"id":true}                | VALUE_TRUE
+            {"id":{"userId":"user-1"}} | START_OBJECT
+            {"id":["user-1"]}          | START_ARRAY
+            """)
+    void rejectsIdsThatAreNotStrings(String payload, String token) {
+        assertThatThrownBy(() -> decoder.decode(payload))
+                .isInstanceOf(WishlistProcessingException.class)
+                .hasRootCauseMessage("Expected a string id, got: " + token);
+    }
+
+    @Test
+    void decodesNewlineDelimitedPayloadsInOrder() {
+        List<QStacksMessage> messages = new ArrayList<>();
+
+        decoder.decodeAll(new StringReader("{\"id\":\"u1::s1\"}\n\n{\"id\":\"u2::s2\",\"x\":[1]}\n{\"id\":\"u3::s3\"}"),
+                messages::add);
+
+        assertThat(messages).extracting(QStacksMessage::getId).containsExactly("u1::s1", "u2::s2", "u3::s3");
+    }
+
+    @Test
+    void stopsTheStreamAtAMalformedPayloadAfterHandingOnTheOnesBefore() {
+        List<QStacksMessage> messages = new ArrayList<>();
+
+        assertThatThrownBy(() -> decoder.decodeAll(new StringReader("{\"id\":\"u1::s1\"}\n{\"id\":"), messages::add))
+                .isInstanceOf(WishlistProcessingException.class)
+                .hasMessage("Invalid message format in payload stream");
+        assertThat(messages).extracting(QStacksMessage::getId).containsExactly("u1::s1");
+    }
+
+    @Test
+    void rejectsAStreamedValueThatIsNotAnObject() {
+        assertThatThrownBy(() -> decoder.decodeAll(new StringReader("{\"id\":\"u1::s1\"}\n42"), message -> { }))
+                .isInstanceOf(WishlistProcessingException.class)
+                .hasMessage("Expected a JSON object, got: VALUE_NUMBER_INT");
+    }
+}
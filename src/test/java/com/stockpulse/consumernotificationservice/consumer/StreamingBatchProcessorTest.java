@@ -0,0 +1,140 @@
+package com.stockpulse.consumernotificationservice.consumer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stockpulse.consumernotificationservice.config.NotificationProperties;
+import com.stockpulse.consumernotificationservice.exception.WishlistProcessingException;
+import com.stockpulse.consumernotificationservice.model.ProcessingResult;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StreamingBatchProcessorTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final IntakeQueue intakeQueue = mock(IntakeQueue.class);
+    private final List<ProcessingResult> reported = new CopyOnWriteArrayList<>();
+    private NotificationProperties properties;
+
+    @BeforeEach
+    void setUp() throws InterruptedException {
+        properties = new NotificationProperties();
+        when(intakeQueue.putMessage(anyString())).thenAnswer(invocation ->
+                CompletableFuture.completedFuture(ProcessingResult.success(idOf(invocation.getArgument(0)))));
+    }
+
+    @Test
+    void processesEveryItemOfAJsonArray() throws Exception {
+        StreamingBatchProcessor.BatchSummary summary = process("[{\"id\":\"u1::s1\"}, \"u1::s2\"]");
+
+        assertThat(summary).isEqualTo(new StreamingBatchProcessor.BatchSummary(2, 2, 0, 0));
+        assertThat(reported).extracting(ProcessingResult::getId).containsExactlyInAnyOrder("u1::s1", "u1::s2");
+        verify(intakeQueue).putMessage("{\"id\":\"u1::s1\"}");
+        verify(intakeQueue).putMessage("{\"id\":\"u1::s2\"}"); // a bare id is wrapped into a message
+    }
+
+    @Test
+    void processesEveryLineOfNdjson() throws Exception {
+        StreamingBatchProcessor.BatchSummary summary = process("{\"id\":\"u1::s1\"}\n{\"id\":\"u1::s2\"}\n\n{\"id\":\"u1::s3\"}\n");
+
+        assertThat(summary.items()).isEqualTo(3);
+        assertThat(reported).extracting(ProcessingResult::getId)
+                .containsExactlyInAnyOrder("u1::s1", "u1::s2", "u1::s3");
+    }
+
+    @Test
+    void countsSkippedAndFailedItems() throws Exception {
+        when(intakeQueue.putMessage("{\"id\":\"u1::s1\"}"))
+                .thenReturn(CompletableFuture.completedFuture(ProcessingResult.skipped("u1::s1", "duplicate")));
+        when(intakeQueue.putMessage("{\"id\":\"u1::s2\"}"))
+                .thenReturn(CompletableFuture.failedFuture(new WishlistProcessingException("boom")));
+
+        StreamingBatchProcessor.BatchSummary summary = process("[\"u1::s1\", \"u1::s2\", \"u1::s3\", 42]");
+
+        assertThat(summary).isEqualTo(new StreamingBatchProcessor.BatchSummary(4, 1, 1, 2));
+        assertThat(reported).filteredOn(result -> !result.isSuccess())
+                .extracting(ProcessingResult::getId)
+                .containsExactlyInAnyOrder("\"u1::s2\"", "42");
+    }
+
+    @Test
+    void reportsTheItemsReadBeforeAMalformedBody() throws InterruptedException {
+        assertThatThrownBy(() -> process("{\"id\":\"u1::s1\"}\n{\"id\": oops}\n{\"id\":\"u1::s3\"}"))
+                .isInstanceOf(JsonProcessingException.class);
+
+        assertThat(reported).extracting(ProcessingResult::getId).containsExactly("u1::s1");
+        verify(intakeQueue, times(1)).putMessage(anyString());
+    }
+
+    @Test
+    void stopsReadingOnceTheListenerFails() throws InterruptedException {
+        StreamingBatchProcessor processor = new StreamingBatchProcessor(intakeQueue, objectMapper, properties);
+
+        assertThatThrownBy(() -> processor.process(body("[\"u1::s1\", \"u1::s2\", \"u1::s3\"]"), result -> {
+            throw new IllegalStateException("client went away");
+        })).isInstanceOf(IOException.class).hasRootCauseMessage("client went away");
+
+        verify(intakeQueue, times(1)).putMessage(anyString());
+    }
+
+    @Test
+    void boundsTheItemsOfARequestInFlight() throws Exception {
+        properties.getBatch().setRequestMaxInFlight(2);
+        List<CompletableFuture<ProcessingResult>> pending = new CopyOnWriteArrayList<>();
+        doAnswer(invocation -> {
+            CompletableFuture<ProcessingResult> result = new CompletableFuture<>();
+            pending.add(result);
+            return result;
+        }).when(intakeQueue).putMessage(anyString());
+        StreamingBatchProcessor processor = new StreamingBatchProcessor(intakeQueue, objectMapper, properties);
+
+        CompletableFuture<StreamingBatchProcessor.BatchSummary> summary = CompletableFuture.supplyAsync(() -> {
+            try {
+                return processor.process(body("[\"u1::s1\", \"u1::s2\", \"u1::s3\"]"), reported::add);
+            } catch (IOException | InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        verify(intakeQueue, timeout(5_000).times(2)).putMessage(anyString());
+        Thread.sleep(100);
+        verify(intakeQueue, times(2)).putMessage(anyString());
+
+        pending.getFirst().complete(ProcessingResult.success("u1::s1"));
+        verify(intakeQueue, timeout(5_000).times(3)).putMessage(anyString());
+        assertThat(summary).isNotDone(); // the rest is still in flight
+
+        pending.forEach(result -> result.complete(ProcessingResult.success("done")));
+        assertThat(summary).succeedsWithin(Duration.ofSeconds(5))
+                .extracting(StreamingBatchProcessor.BatchSummary::succeeded).isEqualTo(3L);
+    }
+
+    private StreamingBatchProcessor.BatchSummary process(String body) throws IOException, InterruptedException {
+        return new StreamingBatchProcessor(intakeQueue, objectMapper, properties).process(body(body), reported::add);
+    }
+
+    private static InputStream body(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private String idOf(String payload) throws IOException {
+        return objectMapper.readTree(payload).get("id").asText();
+    }
+}
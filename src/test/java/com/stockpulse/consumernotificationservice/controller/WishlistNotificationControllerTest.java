@@ -0,0 +1,115 @@
+package com.stockpulse.consumernotificationservice.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.stockpulse.consumernotificationservice.cache.LookupCache;
+import com.stockpulse.consumernotificationservice.config.NotificationProperties;
+import com.stockpulse.consumernotificationservice.config.ObjectMapperConfig;
+import com.stockpulse.consumernotificationservice.consumer.IntakeQueue;
+import com.stockpulse.consumernotificationservice.consumer.QStacksConsumer;
+import com.stockpulse.consumernotificationservice.consumer.StreamingBatchProcessor;
+import com.stockpulse.consumernotificationservice.deadletter.DeadLetterLog;
+import com.stockpulse.consumernotificationservice.deadletter.DeadLetterReplayer;
+import com.stockpulse.consumernotificationservice.model.ProcessingResult;
+import com.stockpulse.consumernotificationservice.reconcile.ReconciliationSweep;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class WishlistNotificationControllerTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapperConfig().objectMapper();
+    private final IntakeQueue intakeQueue = mock(IntakeQueue.class);
+    private WishlistNotificationController controller;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() throws InterruptedException {
+        NotificationProperties properties = new NotificationProperties();
+        when(intakeQueue.putMessage(anyString())).thenAnswer(invocation -> CompletableFuture.completedFuture(
+                ProcessingResult.success(objectMapper.readTree((String) invocation.getArgument(0)).get("id").asText())));
+        controller = new WishlistNotificationController(mock(QStacksConsumer.class),
+                new StreamingBatchProcessor(intakeQueue, objectMapper, properties), intakeQueue,
+                mock(LookupCache.class), mock(DeadLetterLog.class), mock(DeadLetterReplayer.class), objectMapper,
+                mock(ObjectProvider.class), mock(ReconciliationSweep.class), properties);
+    }
+
+    @Test
+    void streamsOneResultLinePerItem() throws IOException {
+        List<JsonNode> lines = processBatch("[\"u1::s1\", \"u1::s2\", \"u1::s3\"]");
+
+        assertThat(lines).extracting(line -> line.get("id").asText())
+                .containsExactlyInAnyOrder("u1::s1", "u1::s2", "u1::s3");
+        assertThat(lines).allSatisfy(line -> assertThat(line.get("success").asBoolean()).isTrue());
+    }
+
+    @Test
+    void endsAMalformedBodyWithAFailureLine() throws IOException {
+        List<JsonNode> lines = processBatch("{\"id\":\"u1::s1\"}\n{\"id\":\"u1::s2\"}\n{oops");
+
+        assertThat(lines).hasSize(3);
+        assertThat(lines.subList(0, 2)).extracting(line -> line.get("id").asText())
+                .containsExactlyInAnyOrder("u1::s1", "u1::s2");
+        assertThat(lines.getLast().get("id").asText()).isEqualTo("body");
+        assertThat(lines.getLast().get("success").asBoolean()).isFalse();
+    }
+
+    private List<JsonNode> processBatch(String body) throws IOException {
+        ResponseEntity<StreamingResponseBody> response = controller.processWishlistNotificationBatch(
+                new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+        ResponseStream out = new ResponseStream();
+        response.getBody().writeTo(out);
+
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            lines.add(objectMapper.readTree(line));
+        }
+        return lines;
+    }
+
+    /**
+     * Like a servlet response stream, refuses writes once it has been closed
+     */
+    private static class ResponseStream extends ByteArrayOutputStream {
+
+        private boolean closed;
+
+        @Override
+        public void write(int b) {
+            checkOpen();
+            super.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            checkOpen();
+            super.write(b, off, len);
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+
+        private void checkOpen() {
+            if (closed) {
+                throw new IllegalStateException("Response stream is closed");
+            }
+        }
+    }
+}
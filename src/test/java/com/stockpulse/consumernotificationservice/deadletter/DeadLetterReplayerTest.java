@@ -0,0 +1,130 @@
+package com.stockpulse.consumernotificationservice.deadletter;
+
+import com.stockpulse.consumernotificationservice.config.NotificationProperties;
+import com.stockpulse.consumernotificationservice.consumer.QStacksConsumer;
+import com.stockpulse.consumernotificationservice.exception.TransientProcessingException;
+import com.stockpulse.consumernotificationservice.exception.WishlistProcessingException;
+import com.stockpulse.consumernotificationservice.model.DeadLetterRecord;
+import com.stockpulse.consumernotificationservice.model.ProcessingResult;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class DeadLetterReplayerTest {
+
+    @TempDir
+    Path directory;
+
+    private final QStacksConsumer qStacksConsumer = mock(QStacksConsumer.class);
+    private final List<CompletableFuture<Void>> retries = new CopyOnWriteArrayList<>();
+    private NotificationProperties properties;
+    private DeadLetterLog deadLetterLog;
+    private DeadLetterReplayer replayer;
+
+    @BeforeEach
+    void setUp() {
+        properties = new NotificationProperties();
+        properties.getDeadLetter().setDirectory(directory.toString());
+        properties.getDeadLetter().setSegmentSize(DataSize.ofBytes(256)); // a few records per segment
+        properties.getDeadLetter().setReplayRate(10_000);
+        deadLetterLog = new DeadLetterLog(properties, new SimpleMeterRegistry());
+        replayer = new DeadLetterReplayer(deadLetterLog, qStacksConsumer, properties);
+
+        when(qStacksConsumer.submitQStacksMessage(any(), any())).thenAnswer(invocation -> {
+            String payload = invocation.getArgument(0);
+            CompletableFuture<Void> settled = invocation.getArgument(1);
+            if (payload.startsWith("retry")) {
+                retries.add(settled);
+                return CompletableFuture.completedFuture(
+                        ProcessingResult.failure(payload, new TransientProcessingException("timeout")));
+            }
+            settled.complete(null);
+            return CompletableFuture.completedFuture(ProcessingResult.success(payload));
+        });
+    }
+
+    @AfterEach
+    void close() {
+        deadLetterLog.close();
+    }
+
+    @Test
+    void dropsReplayedRecordsOnCompaction() throws InterruptedException {
+        for (int i = 0; i < 8; i++) {
+            deadLetter("ok-" + i);
+        }
+        List<DeadLetterReplayer.ReplayOutcome> outcomes = new CopyOnWriteArrayList<>();
+
+        DeadLetterReplayer.ReplaySummary summary = replayer.replay(null, outcomes::add);
+
+        assertThat(summary.replayed()).isEqualTo(8);
+        assertThat(outcomes).extracting(DeadLetterReplayer.ReplayOutcome::outcome)
+                .containsOnly(DeadLetterReplayer.Outcome.REPLAYED);
+        assertThat(summary.compaction().removedSegments()).isPositive();
+        assertThat(payloads()).isEmpty();
+    }
+
+    @Test
+    void keepsAnUnsettledRetryInPlaceUntilItSettles() throws InterruptedException {
+        deadLetter("retry-1");
+        for (int i = 0; i < 8; i++) {
+            deadLetter("ok-" + i);
+        }
+        properties.getDeadLetter().setReplayTimeout(Duration.ofMillis(50)); // stops waiting for the retry
+
+        DeadLetterReplayer.ReplaySummary summary = replayer.replay(null, outcome -> { });
+
+        assertThat(summary.retrying()).isEqualTo(1);
+        assertThat(summary.retried()).isZero();
+        assertThat(payloads()).containsExactly("retry-1"); // its segment was not rewritten
+
+        retries.getFirst().complete(null);
+        replayer.compact();
+
+        assertThat(payloads()).isEmpty();
+    }
+
+    @Test
+    void keepsARecordWhoseRetryFailedUnexpectedly() throws InterruptedException {
+        deadLetter("retry-1");
+
+        CompletableFuture<DeadLetterReplayer.ReplaySummary> summary = CompletableFuture.supplyAsync(() -> {
+            try {
+                return replayer.replay(null, outcome -> { });
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        while (retries.isEmpty()) {
+            Thread.onSpinWait();
+        }
+        retries.getFirst().completeExceptionally(new IllegalStateException("retry scheduler shut down"));
+
+        assertThat(summary).succeedsWithin(Duration.ofSeconds(5))
+                .extracting(DeadLetterReplayer.ReplaySummary::retried).isEqualTo(0);
+        assertThat(payloads()).containsExactly("retry-1");
+    }
+
+    private void deadLetter(String payload) {
+        deadLetterLog.append(payload, new WishlistProcessingException("failed"), 1);
+    }
+
+    private List<String> payloads() {
+        return deadLetterLog.read(0, 100).records().stream().map(DeadLetterRecord::getPayload).toList();
+    }
+}
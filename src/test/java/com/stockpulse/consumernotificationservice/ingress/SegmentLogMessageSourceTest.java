@@ -0,0 +1,131 @@
+package com.stockpulse.consumernotificationservice.ingress;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SegmentLogMessageSourceTest {
+
+    // A 10-byte payload takes 19 bytes with its header, so three messages fit a 64-byte segment
+    private static final int SEGMENT_SIZE = 64;
+    private static final Duration POLL_TIMEOUT = Duration.ofMillis(50);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void pollsPublishedMessagesWithTheOffsetToAcknowledge() throws Exception {
+        try (SegmentLogMessageSource source = open()) {
+            publish(source, 3);
+
+            List<SourceMessage> messages = source.poll(2, POLL_TIMEOUT);
+
+            assertThat(messages).containsExactly(
+                    new SourceMessage(0, 19, "message-00"),
+                    new SourceMessage(19, 38, "message-01"));
+            assertThat(source.backlog()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    void resumesAfterTheAcknowledgedOffsetOnRestart() throws Exception {
+        try (SegmentLogMessageSource source = open()) {
+            publish(source, 4);
+            List<SourceMessage> messages = source.poll(10, POLL_TIMEOUT);
+            source.acknowledge(messages.get(1).nextOffset());
+        }
+
+        try (SegmentLogMessageSource source = open()) {
+            assertThat(source.getAcknowledgedOffset()).isEqualTo(38);
+            assertThat(source.backlog()).isEqualTo(2);
+            assertThat(payloads(source.poll(10, POLL_TIMEOUT))).containsExactly("message-02", "message-03");
+        }
+    }
+
+    @Test
+    void deliversUnacknowledgedMessagesAgainOnRestart() throws Exception {
+        try (SegmentLogMessageSource source = open()) {
+            publish(source, 2);
+            assertThat(source.poll(10, POLL_TIMEOUT)).hasSize(2);
+        }
+
+        try (SegmentLogMessageSource source = open()) {
+            assertThat(payloads(source.poll(10, POLL_TIMEOUT))).containsExactly("message-00", "message-01");
+        }
+    }
+
+    @Test
+    void ignoresAcknowledgementsBehindTheCheckpoint() throws Exception {
+        try (SegmentLogMessageSource source = open()) {
+            publish(source, 3);
+            source.poll(10, POLL_TIMEOUT);
+            source.acknowledge(38);
+            source.acknowledge(19);
+
+            assertThat(source.getAcknowledgedOffset()).isEqualTo(38);
+        }
+    }
+
+    @Test
+    void deletesAcknowledgedSegments() throws Exception {
+        try (SegmentLogMessageSource source = open()) {
+            publish(source, 4);
+            List<SourceMessage> messages = source.poll(10, POLL_TIMEOUT);
+            source.acknowledge(messages.getLast().nextOffset());
+
+            assertThat(source.sizeBytes()).isEqualTo(19); // only the active segment is left
+        }
+    }
+
+    @Test
+    void rejectsPublishingOnceFull() throws Exception {
+        try (SegmentLogMessageSource source = SegmentLogMessageSource.open(directory, SEGMENT_SIZE, 38, Duration.ZERO)) {
+            publish(source, 2);
+
+            assertThatThrownBy(() -> source.publish("message-02")).isInstanceOf(RejectedExecutionException.class);
+        }
+    }
+
+    @Test
+    void returnsNothingWhenNoMessageArrivesInTime() throws Exception {
+        try (SegmentLogMessageSource source = open()) {
+            assertThat(source.poll(10, POLL_TIMEOUT)).isEmpty();
+        }
+    }
+
+    @Test
+    void flushesPeriodicallyWithoutLosingMessages() throws Exception {
+        try (SegmentLogMessageSource source = SegmentLogMessageSource.open(directory, SEGMENT_SIZE, Long.MAX_VALUE,
+                Duration.ofMillis(10))) {
+            publish(source, 3);
+            Thread.sleep(50);
+            source.acknowledge(19);
+        }
+
+        try (SegmentLogMessageSource source = open()) {
+            assertThat(payloads(source.poll(10, POLL_TIMEOUT))).containsExactly("message-01", "message-02");
+        }
+    }
+
+    private SegmentLogMessageSource open() throws IOException {
+        return SegmentLogMessageSource.open(directory, SEGMENT_SIZE, Long.MAX_VALUE, Duration.ZERO);
+    }
+
+    private static void publish(SegmentLogMessageSource source, int messages) {
+        for (int i = 0; i < messages; i++) {
+            source.publish(String.format("message-%02d", i));
+        }
+    }
+
+    private static List<String> payloads(List<SourceMessage> messages) {
+        return messages.stream().map(SourceMessage::payload).toList();
+    }
+}
@@ -0,0 +1,133 @@
+package com.stockpulse.consumernotificationservice.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AdaptiveConcurrencyLimitTest {
+
+    private static final long LATENCY_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    @Test
+    void growsAdditivelyWhileFullyUsedUpToTheMax() throws InterruptedException {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(4, 1, 10, 0.5, 2);
+
+        int previous = limit.getLimit();
+        for (int round = 0; round < 200; round++) {
+            int inFlight = limit.getLimit();
+            for (int i = 0; i < inFlight; i++) {
+                limit.acquire();
+            }
+            for (int i = 0; i < inFlight; i++) {
+                assertThat(limit.onSuccess(LATENCY_NANOS)).isTrue();
+            }
+            assertThat(limit.getLimit()).isBetween(previous, previous + 1);
+            previous = limit.getLimit();
+        }
+
+        assertThat(limit.getLimit()).isEqualTo(10);
+        assertThat(limit.getInFlight()).isZero();
+    }
+
+    @Test
+    void doesNotGrowWhileMostlyIdle() throws InterruptedException {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(4, 1, 10, 0.5, 2);
+
+        for (int i = 0; i < 1_000; i++) {
+            limit.acquire();
+            limit.onSuccess(LATENCY_NANOS);
+        }
+
+        assertThat(limit.getLimit()).isEqualTo(4);
+    }
+
+    @Test
+    void backsOffMultiplicativelyOnFailureDownToTheMin() throws InterruptedException {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(8, 2, 10, 0.5, 2);
+
+        limit.acquire();
+        assertThat(limit.onFailure()).isTrue();
+        assertThat(limit.getLimit()).isEqualTo(4);
+
+        for (int i = 0; i < 5; i++) {
+            limit.acquire();
+            limit.onFailure();
+        }
+        assertThat(limit.getLimit()).isEqualTo(2);
+    }
+
+    @Test
+    void countsABurstOfFailuresOnceWithinOneLatency() throws InterruptedException {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(8, 1, 10, 0.5, 2);
+        limit.acquire();
+        limit.onSuccess(TimeUnit.HOURS.toNanos(1));
+
+        limit.acquire();
+        limit.acquire();
+        assertThat(limit.onFailure()).isFalse();
+        assertThat(limit.onFailure()).isFalse();
+        assertThat(limit.getLimit()).isEqualTo(8);
+    }
+
+    @Test
+    void backsOffOnceLatencyRises() throws InterruptedException {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(8, 1, 10, 0.5, 2);
+        for (int i = 0; i < 50; i++) {
+            limit.acquire();
+            limit.onSuccess(LATENCY_NANOS);
+        }
+        Thread.sleep(50); // past the short-term latency since the limit was created
+
+        limit.acquire();
+        assertThat(limit.onSuccess(20 * LATENCY_NANOS)).isFalse();
+        assertThat(limit.getLimit()).isEqualTo(4);
+        assertThat(limit.getLatencyMillis()).isGreaterThan(1);
+    }
+
+    @Test
+    void ignoredCallsLeaveTheLimitAlone() throws InterruptedException {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(4, 1, 10, 0.5, 2);
+
+        limit.acquire();
+        limit.onIgnored();
+
+        assertThat(limit.getLimit()).isEqualTo(4);
+        assertThat(limit.getInFlight()).isZero();
+    }
+
+    @Test
+    void acquireWaitsForAFreeSlot() throws Exception {
+        AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(1, 1, 1, 0.5, 2);
+        limit.acquire();
+
+        CompletableFuture<Void> second = CompletableFuture.runAsync(() -> {
+            try {
+                limit.acquire();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        Thread.sleep(100);
+        assertThat(second).isNotDone();
+
+        limit.onIgnored();
+        assertThat(second).succeedsWithin(Duration.ofSeconds(5));
+        assertThat(limit.getInFlight()).isEqualTo(1);
+    }
+
+    @Test
+    void clampsTheInitialLimitAndRejectsInvalidConfiguration() {
+        assertThat(new AdaptiveConcurrencyLimit(50, 1, 10, 0.5, 2).getLimit()).isEqualTo(10);
+        assertThat(new AdaptiveConcurrencyLimit(0, 2, 10, 0.5, 2).getLimit()).isEqualTo(2);
+
+        assertThatThrownBy(() -> new AdaptiveConcurrencyLimit(4, 0, 10, 0.5, 2)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new AdaptiveConcurrencyLimit(4, 5, 4, 0.5, 2)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new AdaptiveConcurrencyLimit(4, 1, 10, 1, 2)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new AdaptiveConcurrencyLimit(4, 1, 10, 0.5, 1)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
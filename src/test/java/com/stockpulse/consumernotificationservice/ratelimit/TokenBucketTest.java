@@ -0,0 +1,83 @@
+package com.stockpulse.consumernotificationservice.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.offset;
+
+class TokenBucketTest {
+
+    @Test
+    void startsFullAndHandsOutTheBurst() {
+        TokenBucket bucket = new TokenBucket(0.001, 3);
+
+        assertThat(bucket.tryAcquire()).isTrue();
+        assertThat(bucket.tryAcquire()).isTrue();
+        assertThat(bucket.tryAcquire()).isTrue();
+        assertThat(bucket.tryAcquire()).isFalse();
+    }
+
+    @Test
+    void refillsAtTheRate() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(100, 1);
+        assertThat(bucket.tryAcquire()).isTrue();
+        assertThat(bucket.tryAcquire()).isFalse();
+
+        Thread.sleep(30);
+
+        assertThat(bucket.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void neverHoldsMoreThanTheBurst() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(1_000, 2);
+        Thread.sleep(20); // would refill 20 tokens without the cap
+
+        assertThat(bucket.tryAcquire()).isTrue();
+        assertThat(bucket.tryAcquire()).isTrue();
+        assertThat(bucket.tryAcquire()).isFalse();
+    }
+
+    @Test
+    void acquireSpacesCallersOutAtTheRate() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(50, 1);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < 6; i++) {
+            bucket.acquire();
+        }
+
+        // The first token is in the bucket, the other five refill at one per 20ms
+        assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(Duration.ofMillis(100).toNanos());
+    }
+
+    @Test
+    void acquireGoesIntoDebtThatTryAcquireRespects() throws InterruptedException {
+        TokenBucket bucket = new TokenBucket(20, 1);
+        bucket.acquire();
+        bucket.acquire(); // waited ~50ms for a token it took in advance
+
+        assertThat(bucket.tryAcquire()).isFalse();
+    }
+
+    @Test
+    void changesTheRateAndKeepsTheTokens() {
+        TokenBucket bucket = new TokenBucket(10, 2);
+
+        bucket.setRate(25);
+
+        assertThat(bucket.getRate()).isCloseTo(25, offset(1e-9));
+        assertThat(bucket.tryAcquire()).isTrue();
+        assertThat(bucket.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void rejectsInvalidConfiguration() {
+        assertThatThrownBy(() -> new TokenBucket(10, 0.5)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new TokenBucket(0, 1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new TokenBucket(10, 1).setRate(-1)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,142 @@
+package com.stockpulse.consumernotificationservice.reconcile;
+
+import com.stockpulse.consumernotificationservice.config.NotificationProperties;
+import com.stockpulse.consumernotificationservice.consumer.QStacksMessageBatcher;
+import com.stockpulse.consumernotificationservice.model.ProcessingResult;
+import com.stockpulse.consumernotificationservice.model.QStacksMessage;
+import com.stockpulse.consumernotificationservice.model.Stock;
+import com.stockpulse.consumernotificationservice.model.Wishlist;
+import com.stockpulse.consumernotificationservice.repository.StockRepository;
+import com.stockpulse.consumernotificationservice.repository.WishlistRepository;
+import com.stockpulse.consumernotificationservice.rule.WishlistRules;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReconciliationSweepTest {
+
+    private static final List<Wishlist> WISHLISTS = List.of(
+            wishlist("u1::s1"), wishlist("u2::s1"), wishlist("u3::s1"), wishlist("u4::s1"), wishlist("u5::s1"));
+
+    @TempDir
+    Path directory;
+
+    private final WishlistRepository wishlistRepository = mock(WishlistRepository.class);
+    private final StockRepository stockRepository = mock(StockRepository.class);
+    private final QStacksMessageBatcher batcher = mock(QStacksMessageBatcher.class);
+    private final List<ReconciliationSweep> sweeps = new ArrayList<>();
+    private NotificationProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new NotificationProperties();
+        properties.getReconciliation().setDirectory(directory.toString());
+        properties.getReconciliation().setPageSize(2);
+        properties.getReconciliation().setRate(0);
+        properties.getReconciliation().setParallelism(1);
+
+        when(wishlistRepository.streamActiveUnnotifiedWishlists(any(), any(Integer.class))).thenAnswer(invocation -> {
+            String afterId = invocation.getArgument(0);
+            return WISHLISTS.stream().filter(wishlist -> afterId == null || wishlist.getId().compareTo(afterId) > 0);
+        });
+        when(stockRepository.findAllById(anyIterable()))
+                .thenReturn(List.of(Stock.builder().id("s1").currentPrice(120.0).build()));
+        when(batcher.submit(any(QStacksMessage.class))).thenAnswer(invocation -> CompletableFuture.completedFuture(
+                ProcessingResult.success(invocation.<QStacksMessage>getArgument(0).getId())));
+    }
+
+    @AfterEach
+    void shutdown() {
+        sweeps.forEach(ReconciliationSweep::shutdown);
+    }
+
+    @Test
+    void feedsEveryDueWishlistIntoThePipeline() throws InterruptedException {
+        ReconciliationSweep sweep = newSweep();
+
+        assertThat(sweep.sweep()).isTrue();
+
+        assertThat(submitted()).containsExactly("u1::s1", "u2::s1", "u3::s1", "u4::s1", "u5::s1");
+        ReconciliationSweep.SweepStatus status = sweep.status();
+        assertThat(status.scanned()).isEqualTo(5);
+        assertThat(status.due()).isEqualTo(5);
+        assertThat(status.completedSweeps()).isEqualTo(1);
+        assertThat(status.resumeAfterId()).isNull();
+    }
+
+    @Test
+    void resumesAfterTheLastFinishedPageOnRestart() throws InterruptedException {
+        when(stockRepository.findAllById(anyIterable()))
+                .thenReturn(List.of(Stock.builder().id("s1").currentPrice(120.0).build()))
+                .thenThrow(new DataAccessResourceFailureException("connection reset"));
+        ReconciliationSweep interrupted = newSweep();
+
+        assertThatThrownBy(interrupted::sweep).isInstanceOf(DataAccessResourceFailureException.class);
+        assertThat(interrupted.status().resumeAfterId()).isEqualTo("u2::s1");
+        interrupted.shutdown();
+
+        doReturn(List.of(Stock.builder().id("s1").currentPrice(120.0).build()))
+                .when(stockRepository).findAllById(anyIterable());
+        ReconciliationSweep restarted = newSweep(); // reads the progress left on disk
+
+        assertThat(restarted.status().resumeAfterId()).isEqualTo("u2::s1");
+        assertThat(restarted.sweep()).isTrue();
+
+        verify(wishlistRepository).streamActiveUnnotifiedWishlists("u2::s1", 2);
+        assertThat(restarted.status().scanned()).isEqualTo(3);
+        assertThat(submitted()).containsExactly("u1::s1", "u2::s1", "u3::s1", "u4::s1", "u5::s1");
+        assertThat(restarted.status().resumeAfterId()).isNull(); // the next sweep starts over
+    }
+
+    @Test
+    void skipsWishlistsThatAreNotDue() throws InterruptedException {
+        when(stockRepository.findAllById(anyIterable()))
+                .thenReturn(List.of(Stock.builder().id("s1").currentPrice(105.0).build()));
+        ReconciliationSweep sweep = newSweep();
+
+        sweep.sweep();
+
+        assertThat(sweep.status().due()).isZero();
+        verify(batcher, never()).submit(any(QStacksMessage.class));
+    }
+
+    private List<String> submitted() {
+        ArgumentCaptor<QStacksMessage> messages = ArgumentCaptor.forClass(QStacksMessage.class);
+        verify(batcher, atLeastOnce()).submit(messages.capture());
+        return messages.getAllValues().stream().map(QStacksMessage::getId).toList();
+    }
+
+    private ReconciliationSweep newSweep() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        ReconciliationSweep sweep = new ReconciliationSweep(wishlistRepository, stockRepository,
+                new WishlistRules(properties, meterRegistry), batcher, properties, meterRegistry);
+        sweeps.add(sweep);
+        return sweep;
+    }
+
+    private static Wishlist wishlist(String id) {
+        return Wishlist.builder().id(id).userId(id.substring(0, 2)).stockId("s1").ruleType("percentage_increase")
+                .ruleValueInPercent("10%").rateValueTargeted(110.0).active(true).notified(false).build();
+    }
+}
@@ -0,0 +1,176 @@
+package com.stockpulse.consumernotificationservice.repository;
+
+import com.stockpulse.consumernotificationservice.model.Stock;
+import com.stockpulse.consumernotificationservice.model.User;
+import com.stockpulse.consumernotificationservice.model.Wishlist;
+import com.stockpulse.consumernotificationservice.model.WishlistNotificationView;
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationResults;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class WishlistRepositoryCustomImplTest {
+
+    private final MongoTemplate mongoTemplate = mock(MongoTemplate.class);
+    private final WishlistRepositoryCustomImpl repository = new WishlistRepositoryCustomImpl(mongoTemplate);
+
+    @Test
+    void joinsUsersAndStocksIntoOneProjectedView() {
+        when(mongoTemplate.getCollectionName(Wishlist.class)).thenReturn("wishlists");
+        when(mongoTemplate.getCollectionName(User.class)).thenReturn("users");
+        when(mongoTemplate.getCollectionName(Stock.class)).thenReturn("stocks");
+        WishlistNotificationView view = WishlistNotificationView.builder().id("u1::s1").build();
+        when(mongoTemplate.aggregate(any(Aggregation.class), eq("wishlists"), eq(WishlistNotificationView.class)))
+                .thenReturn(new AggregationResults<>(List.of(view), new Document()));
+
+        assertThat(repository.findNotificationViews(List.of("u1::s1", "u1::s2"))).containsExactly(view);
+
+        ArgumentCaptor<Aggregation> aggregation = ArgumentCaptor.forClass(Aggregation.class);
+        verify(mongoTemplate).aggregate(aggregation.capture(), eq("wishlists"), eq(WishlistNotificationView.class));
+        List<Document> pipeline = aggregation.getValue().toPipeline(Aggregation.DEFAULT_CONTEXT);
+        assertThat(pipeline).extracting(stage -> stage.keySet().iterator().next())
+                .containsExactly("$match", "$lookup", "$lookup", "$project");
+        assertThat(pipeline.get(1).get("$lookup", Document.class))
+                .containsEntry("from", "users").containsEntry("localField", "userId").containsEntry("as", "user");
+        assertThat(pipeline.get(2).get("$lookup", Document.class))
+                .containsEntry("from", "stocks").containsEntry("localField", "stockId").containsEntry("as", "stock");
+        Document projection = pipeline.get(3).get("$project", Document.class);
+        assertThat(projection).containsKeys("userFound", "userName", "email", "phone", "stockFound", "stockName",
+                "stockSymbol", "currentPrice");
+        assertThat(projection).doesNotContainKeys("user", "stock"); // the joined documents are not returned
+        assertThat(projection.get("phone")).isEqualTo(new Document("$arrayElemAt", List.of("$user.phone", 0)));
+    }
+
+    @Test
+    void readsNoViewsForNoIds() {
+        assertThat(repository.findNotificationViews(List.of())).isEmpty();
+
+        verify(mongoTemplate, never()).aggregate(any(Aggregation.class), any(String.class), eq(WishlistNotificationView.class));
+    }
+
+    @Test
+    void mapsAProjectedDocumentToTheUserAndStockOfANotification() {
+        MappingMongoConverter converter = new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext());
+        Document projected = new Document("_id", "u1::s1")
+                .append("userId", "u1")
+                .append("stockId", "s1")
+                .append("ruleType", "percentage_increase")
+                .append("ruleValueInPercent", "5%")
+                .append("active", true)
+                .append("notified", false)
+                .append("userFound", true)
+                .append("userName", "Alice")
+                .append("email", "alice@example.com")
+                .append("phone", "+919800000001")
+                .append("stockFound", true)
+                .append("stockName", "Reliance Industries Ltd")
+                .append("stockSymbol", "RELIANCE")
+                .append("currentPrice", 2310.0);
+
+        WishlistNotificationView view = converter.read(WishlistNotificationView.class, projected);
+
+        assertThat(view.getId()).isEqualTo("u1::s1");
+        assertThat(view.isUserFound()).isTrue();
+        assertThat(view.toUser()).isEqualTo(User.builder().id("u1").name("Alice").email("alice@example.com")
+                .phone("+919800000001").build());
+        assertThat(view.toStock()).isEqualTo(Stock.builder().id("s1").name("Reliance Industries Ltd").symbol("RELIANCE")
+                .currentPrice(2310.0).build());
+    }
+
+    @Test
+    void claimsAndReadsBackByTokenThenClearsTheToken() {
+        Wishlist claimed = Wishlist.builder().id("u1::s1").notified(true).build();
+        when(mongoTemplate.find(any(Query.class), eq(Wishlist.class))).thenReturn(List.of(claimed));
+
+        assertThat(repository.claimAllForNotification(List.of("u1::s1", "u1::s2"))).containsExactly(claimed);
+
+        List<Update> updates = updates(2);
+        String token = updates.getFirst().getUpdateObject().get("$set", Document.class).getString("claimToken");
+        assertThat(token).isNotBlank();
+        assertThat(updates.get(1).getUpdateObject().get("$unset", Document.class)).containsKey("claimToken");
+        assertThat(updates.get(1).getUpdateObject()).doesNotContainKey("$set");
+        assertThat(readBack().getQueryObject().getString("claimToken")).isEqualTo(token);
+    }
+
+    @Test
+    void releasesItsClaimsWhenTheReadBackFails() {
+        DataAccessResourceFailureException failure = new DataAccessResourceFailureException("connection reset");
+        when(mongoTemplate.find(any(Query.class), eq(Wishlist.class))).thenThrow(failure);
+
+        assertThatThrownBy(() -> repository.claimAllForNotification(List.of("u1::s1"))).isSameAs(failure);
+
+        List<Update> updates = updates(2);
+        String token = updates.getFirst().getUpdateObject().get("$set", Document.class).getString("claimToken");
+        Document release = updates.get(1).getUpdateObject();
+        assertThat(release.get("$set", Document.class)).containsEntry("notified", false);
+        assertThat(release.get("$unset", Document.class)).containsKey("claimToken");
+        assertThat(releaseQuery().getQueryObject().getString("claimToken")).isEqualTo(token);
+    }
+
+    @Test
+    void keepsTheClaimsWhenTheTokenCannotBeCleared() {
+        Wishlist claimed = Wishlist.builder().id("u1::s1").notified(true).build();
+        when(mongoTemplate.find(any(Query.class), eq(Wishlist.class))).thenReturn(List.of(claimed));
+        when(mongoTemplate.updateMulti(any(Query.class), any(Update.class), eq(Wishlist.class)))
+                .thenReturn(null)
+                .thenThrow(new DataAccessResourceFailureException("connection reset"));
+
+        assertThat(repository.claimAllForNotification(List.of("u1::s1"))).containsExactly(claimed);
+    }
+
+    @Test
+    void releasesAClaimAndItsToken() {
+        repository.releaseClaim("u1::s1", Set.of("email"));
+
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(any(Query.class), update.capture(), eq(Wishlist.class));
+        Document release = update.getValue().getUpdateObject();
+        assertThat(release.get("$set", Document.class)).containsEntry("notified", false);
+        assertThat(release.get("$unset", Document.class)).containsKey("claimToken");
+        assertThat(release).containsKey("$addToSet");
+    }
+
+    @Test
+    void claimsNothingForNoIds() {
+        assertThat(repository.claimAllForNotification(List.of())).isEmpty();
+    }
+
+    private List<Update> updates(int count) {
+        ArgumentCaptor<Update> updates = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, times(count)).updateMulti(any(Query.class), updates.capture(), eq(Wishlist.class));
+        return updates.getAllValues();
+    }
+
+    private Query readBack() {
+        ArgumentCaptor<Query> query = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate).find(query.capture(), eq(Wishlist.class));
+        return query.getValue();
+    }
+
+    private Query releaseQuery() {
+        ArgumentCaptor<Query> queries = ArgumentCaptor.forClass(Query.class);
+        verify(mongoTemplate, times(2)).updateMulti(queries.capture(), any(Update.class), eq(Wishlist.class));
+        return queries.getAllValues().get(1);
+    }
+}
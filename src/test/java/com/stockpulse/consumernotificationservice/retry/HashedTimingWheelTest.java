@@ -0,0 +1,97 @@
+package com.stockpulse.consumernotificationservice.retry;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HashedTimingWheelTest {
+
+    private HashedTimingWheel wheel;
+
+    @AfterEach
+    void stopWheel() {
+        if (wheel != null) {
+            wheel.stop();
+        }
+    }
+
+    @Test
+    void runsTaskNoEarlierThanItsDelay() throws InterruptedException {
+        wheel = new HashedTimingWheel("test-wheel", Duration.ofMillis(10), 8, Runnable::run);
+        CountDownLatch fired = new CountDownLatch(1);
+
+        long start = System.nanoTime();
+        wheel.schedule(fired::countDown, Duration.ofMillis(150));
+
+        assertThat(fired.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(Duration.ofMillis(150).toNanos());
+        assertThat(wheel.pendingCount()).isZero();
+    }
+
+    @Test
+    void keepsDelaysLongerThanOneRotationForLaterRounds() throws InterruptedException {
+        // 4 buckets of 10ms: a 120ms delay wraps the wheel three times before it fires
+        wheel = new HashedTimingWheel("test-wheel", Duration.ofMillis(10), 4, Runnable::run);
+        CountDownLatch fired = new CountDownLatch(1);
+
+        long start = System.nanoTime();
+        wheel.schedule(fired::countDown, Duration.ofMillis(120));
+
+        assertThat(fired.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(System.nanoTime() - start).isGreaterThanOrEqualTo(Duration.ofMillis(120).toNanos());
+    }
+
+    @Test
+    void firesTasksInDeadlineOrder() throws InterruptedException {
+        wheel = new HashedTimingWheel("test-wheel", Duration.ofMillis(10), 16, Runnable::run);
+        List<Integer> order = new CopyOnWriteArrayList<>();
+        CountDownLatch fired = new CountDownLatch(3);
+
+        wheel.schedule(() -> { order.add(3); fired.countDown(); }, Duration.ofMillis(300));
+        wheel.schedule(() -> { order.add(1); fired.countDown(); }, Duration.ofMillis(50));
+        wheel.schedule(() -> { order.add(2); fired.countDown(); }, Duration.ofMillis(150));
+
+        assertThat(fired.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(order).containsExactly(1, 2, 3);
+    }
+
+    @Test
+    void runsOverdueTaskOnTheNextTick() throws InterruptedException {
+        wheel = new HashedTimingWheel("test-wheel", Duration.ofMillis(10), 8, Runnable::run);
+        CountDownLatch fired = new CountDownLatch(1);
+
+        wheel.schedule(fired::countDown, Duration.ofMillis(-5));
+
+        assertThat(fired.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void stopDropsPendingTasksAndRejectsNewOnes() {
+        wheel = new HashedTimingWheel("test-wheel", Duration.ofMillis(10), 8, Runnable::run);
+        wheel.schedule(() -> { }, Duration.ofHours(1));
+        wheel.schedule(() -> { }, Duration.ofHours(2));
+
+        assertThat(wheel.pendingCount()).isEqualTo(2);
+        assertThat(wheel.stop()).isEqualTo(2);
+        assertThat(wheel.pendingCount()).isZero();
+        assertThatThrownBy(() -> wheel.schedule(() -> { }, Duration.ofMillis(1)))
+                .isInstanceOf(RejectedExecutionException.class);
+    }
+
+    @Test
+    void rejectsInvalidConfiguration() {
+        assertThatThrownBy(() -> new HashedTimingWheel("test-wheel", Duration.ZERO, 8, Runnable::run))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new HashedTimingWheel("test-wheel", Duration.ofMillis(10), 0, Runnable::run))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,107 @@
+package com.stockpulse.consumernotificationservice.retry;
+
+import com.stockpulse.consumernotificationservice.config.NotificationProperties;
+import com.stockpulse.consumernotificationservice.events.ProcessingEvent;
+import com.stockpulse.consumernotificationservice.events.ProcessingEventRecorder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RetrySchedulerTest {
+
+    private NotificationProperties properties;
+    private ProcessingEventRecorder processingEventRecorder;
+    private RetryScheduler retryScheduler;
+
+    @BeforeEach
+    void setUp() {
+        properties = new NotificationProperties();
+        NotificationProperties.Retry retry = properties.getRetry();
+        retry.setInitialBackoff(Duration.ofMillis(100));
+        retry.setMaxBackoff(Duration.ofMillis(1_000));
+        retry.setMultiplier(2.0);
+        retry.setJitter(0);
+        retry.setMaxAttempts(3);
+        retry.setTickDuration(Duration.ofMillis(10));
+        processingEventRecorder = new ProcessingEventRecorder(properties);
+    }
+
+    @AfterEach
+    void shutdown() {
+        if (retryScheduler != null) {
+            retryScheduler.shutdown();
+        }
+    }
+
+    @Test
+    void backoffGrowsExponentiallyUpToTheCap() {
+        retryScheduler = newRetryScheduler();
+
+        assertThat(retryScheduler.backoff(1)).isEqualTo(Duration.ofMillis(100));
+        assertThat(retryScheduler.backoff(2)).isEqualTo(Duration.ofMillis(200));
+        assertThat(retryScheduler.backoff(4)).isEqualTo(Duration.ofMillis(800));
+        assertThat(retryScheduler.backoff(5)).isEqualTo(Duration.ofMillis(1_000));
+        assertThat(retryScheduler.backoff(30)).isEqualTo(Duration.ofMillis(1_000));
+    }
+
+    @Test
+    void jitterSpreadsBackoffWithinItsFraction() {
+        properties.getRetry().setJitter(0.2);
+        retryScheduler = newRetryScheduler();
+
+        for (int i = 0; i < 1_000; i++) {
+            assertThat(retryScheduler.backoff(2).toMillis()).isBetween(160L, 240L);
+        }
+    }
+
+    @Test
+    void redeliversWithTheNextAttemptAndRecordsARetryEvent() throws Exception {
+        retryScheduler = newRetryScheduler();
+        CompletableFuture<Integer> redelivered = new CompletableFuture<>();
+
+        assertThat(retryScheduler.scheduleRetry("{\"id\":\"u1::s1\"}", 1, redelivered::complete)).isTrue();
+
+        assertThat(redelivered.get(5, TimeUnit.SECONDS)).isEqualTo(2);
+        List<ProcessingEvent> events = processingEventRecorder.recentFor("{\"id\":\"u1::s1\"}", 10);
+        assertThat(events).singleElement().satisfies(event -> {
+            assertThat(event.stage()).isEqualTo(ProcessingEventRecorder.Stage.RETRY);
+            assertThat(event.detail()).isEqualTo("attempt 2 in PT0.1S");
+        });
+    }
+
+    @Test
+    void givesUpOnceMaxAttemptsIsReached() {
+        retryScheduler = newRetryScheduler();
+
+        assertThat(retryScheduler.scheduleRetry("payload", 3, attempt -> { })).isFalse();
+        assertThat(retryScheduler.getPendingRetries()).isZero();
+    }
+
+    @Test
+    void givesUpWhenRetriesAreDisabled() {
+        properties.getRetry().setEnabled(false);
+        retryScheduler = newRetryScheduler();
+
+        assertThat(retryScheduler.scheduleRetry("payload", 1, attempt -> { })).isFalse();
+    }
+
+    @Test
+    void dropsRetriesAfterShutdown() {
+        retryScheduler = newRetryScheduler();
+        retryScheduler.shutdown();
+
+        assertThat(retryScheduler.scheduleRetry("payload", 1, attempt -> { })).isFalse();
+    }
+
+    private RetryScheduler newRetryScheduler() {
+        return new RetryScheduler(properties, new SimpleMeterRegistry(), processingEventRecorder);
+    }
+}
@@ -0,0 +1,118 @@
+package com.stockpulse.consumernotificationservice.rule;
+
+import com.stockpulse.consumernotificationservice.model.Wishlist;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.NullSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.offset;
+
+class WishlistRuleTest {
+
+    @Test
+    void increaseTriggersAtOrAboveTheTargetedRate() {
+        WishlistRule rule = WishlistRule.compile(wishlist("percentage_increase", "5%", 2310.0, 2200.0));
+
+        assertThat(rule).isEqualTo(new WishlistRule.AtOrAbove(rule.source(), 2310.0));
+        assertThat(rule.isTriggeredAt(2310.0)).isTrue();
+        assertThat(rule.isTriggeredAt(2400.0)).isTrue();
+        assertThat(rule.isTriggeredAt(2309.99)).isFalse();
+    }
+
+    @Test
+    void dropTriggersAtOrBelowTheTargetedRate() {
+        WishlistRule rule = WishlistRule.compile(wishlist("percentage_drop", "5%", 2090.0, 2200.0));
+
+        assertThat(rule).isInstanceOf(WishlistRule.AtOrBelow.class);
+        assertThat(rule.isTriggeredAt(2090.0)).isTrue();
+        assertThat(rule.isTriggeredAt(2000.0)).isTrue();
+        assertThat(rule.isTriggeredAt(2090.01)).isFalse();
+    }
+
+    @Test
+    void derivesTheThresholdFromThePercentWithoutATargetedRate() {
+        WishlistRule increase = WishlistRule.compile(wishlist("percentage_increase", "5%", null, 2200.0));
+        WishlistRule drop = WishlistRule.compile(wishlist("PERCENTAGE_DROP", " 10 % ", null, 2200.0));
+
+        assertThat(((WishlistRule.AtOrAbove) increase).threshold()).isCloseTo(2310.0, offset(1e-9));
+        assertThat(((WishlistRule.AtOrBelow) drop).threshold()).isCloseTo(1980.0, offset(1e-9));
+    }
+
+    @Test
+    void anUnknownPriceCannotDisproveATrigger() {
+        assertThat(WishlistRule.compile(wishlist("percentage_increase", "5%", 2310.0, 2200.0)).isTriggeredAt(null)).isTrue();
+        assertThat(WishlistRule.compile(wishlist("percentage_drop", "5%", 2090.0, 2200.0)).isTriggeredAt(null)).isTrue();
+    }
+
+    @Test
+    void rulesThatCannotBeEvaluatedNeverHoldAnAlertBack() {
+        assertUnevaluable(wishlist("price_target", "5%", 2310.0, 2200.0), "unknown rule type: price_target");
+        assertUnevaluable(wishlist(null, "5%", 2310.0, 2200.0), "unknown rule type: null");
+        assertUnevaluable(wishlist("percentage_increase", "5%", null, null), "no rateValueTargeted or ruleValueAtSet");
+        assertUnevaluable(wishlist("percentage_increase", "five", null, 2200.0), "unparseable ruleValueInPercent: five");
+        assertUnevaluable(wishlist("percentage_increase", null, null, 2200.0), "no ruleValueInPercent");
+    }
+
+    @Test
+    void aTargetedRateMakesThePercentIrrelevant() {
+        assertThat(WishlistRule.compile(wishlist("percentage_increase", "five", 2310.0, 2200.0)))
+                .isInstanceOf(WishlistRule.AtOrAbove.class);
+    }
+
+    @Test
+    void knowsWhetherItWasCompiledFromTheWishlistsCurrentRule() {
+        Wishlist wishlist = wishlist("percentage_increase", "5%", 2310.0, 2200.0);
+        WishlistRule rule = WishlistRule.compile(wishlist);
+        assertThat(rule.isCompiledFrom(wishlist)).isTrue();
+
+        wishlist.setNotified(true); // not a rule field
+        assertThat(rule.isCompiledFrom(wishlist)).isTrue();
+
+        wishlist.setRateValueTargeted(2400.0);
+        assertThat(rule.isCompiledFrom(wishlist)).isFalse();
+    }
+
+    @ParameterizedTest
+    @CsvSource(delimiter = '|', textBlock = """
+            5%      | 5.0
+            ' 5 % ' | 5.0
+            5       | 5.0
+            2.5%    | 2.5
+            -3%     | -3.0
+            0%      | 0.0
+            """)
+    void parsesPercent(String value, double expected) {
+        assertThat(WishlistRule.parsePercent(value)).isEqualTo(expected);
+    }
+
+    @ParameterizedTest
+    @NullSource
+    @ValueSource(strings = {"", "%", "five%", "5%%", "% 5"})
+    void rejectsPercentThatIsNotANumber(String value) {
+        assertThatThrownBy(() -> WishlistRule.parsePercent(value)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static void assertUnevaluable(Wishlist wishlist, String reason) {
+        WishlistRule rule = WishlistRule.compile(wishlist);
+        assertThat(rule).isInstanceOfSatisfying(WishlistRule.Unevaluable.class,
+                unevaluable -> assertThat(unevaluable.reason()).isEqualTo(reason));
+        assertThat(rule.isTriggeredAt(0.0)).isTrue();
+    }
+
+    private static Wishlist wishlist(String ruleType, String ruleValueInPercent, Double rateValueTargeted,
+                                     Double ruleValueAtSet) {
+        return Wishlist.builder()
+                .id("user-1::stock-1")
+                .ruleType(ruleType)
+                .ruleValueInPercent(ruleValueInPercent)
+                .rateValueTargeted(rateValueTargeted)
+                .ruleValueAtSet(ruleValueAtSet)
+                .active(true)
+                .notified(false)
+                .build();
+    }
+}
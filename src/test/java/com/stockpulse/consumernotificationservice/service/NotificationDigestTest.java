@@ -0,0 +1,169 @@
+package com.stockpulse.consumernotificationservice.service;
+
+import com.stockpulse.consumernotificationservice.config.NotificationProperties;
+import com.stockpulse.consumernotificationservice.events.ProcessingEventRecorder;
+import com.stockpulse.consumernotificationservice.exception.TransientProcessingException;
+import com.stockpulse.consumernotificationservice.metrics.PipelineMetrics;
+import com.stockpulse.consumernotificationservice.model.DigestAlert;
+import com.stockpulse.consumernotificationservice.model.Stock;
+import com.stockpulse.consumernotificationservice.model.User;
+import com.stockpulse.consumernotificationservice.model.Wishlist;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class NotificationDigestTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private final User alice = User.builder().id("user-1").name("Alice").email("alice@example.com").build();
+    private final User bob = User.builder().id("user-2").name("Bob").email("bob@example.com").build();
+    private final Stock stock = Stock.builder().id("stock-1").name("Reliance Industries Ltd").symbol("RELIANCE")
+            .currentPrice(2310.0).build();
+
+    private NotificationProperties properties;
+    private EmailService emailService;
+    private NotificationDigest digest;
+
+    @BeforeEach
+    void setUp() {
+        properties = new NotificationProperties();
+        properties.getDigest().setEnabled(true);
+        properties.getDigest().setWindow(Duration.ofMillis(200));
+        emailService = mock(EmailService.class);
+        when(emailService.sendDigestAsync(any(), anyList())).thenReturn(CompletableFuture.completedFuture(true));
+    }
+
+    @AfterEach
+    void shutdown() {
+        if (digest != null) {
+            digest.shutdown();
+        }
+    }
+
+    @Test
+    void coalescesTheAlertsOfAUserIntoOneEmailOnceTheWindowPasses() {
+        digest = newDigest();
+
+        CompletableFuture<Void> first = digest.add(alice, stock, wishlist("user-1::stock-1"));
+        CompletableFuture<Void> second = digest.add(alice, stock, wishlist("user-1::stock-2"));
+        CompletableFuture<Void> other = digest.add(bob, stock, wishlist("user-2::stock-1"));
+        assertThat(first).isNotDone();
+
+        assertThat(first).succeedsWithin(TIMEOUT);
+        assertThat(second).succeedsWithin(TIMEOUT);
+        assertThat(other).succeedsWithin(TIMEOUT);
+        assertThat(sentTo(alice)).extracting(alert -> alert.wishlist().getId())
+                .containsExactly("user-1::stock-1", "user-1::stock-2");
+        assertThat(sentTo(bob)).hasSize(1);
+    }
+
+    @Test
+    void sendsAFullDigestRightAway() {
+        properties.getDigest().setWindow(Duration.ofHours(1));
+        properties.getDigest().setMaxSize(2);
+        digest = newDigest();
+
+        CompletableFuture<Void> first = digest.add(alice, stock, wishlist("user-1::stock-1"));
+        CompletableFuture<Void> second = digest.add(alice, stock, wishlist("user-1::stock-2"));
+        CompletableFuture<Void> third = digest.add(alice, stock, wishlist("user-1::stock-3"));
+
+        assertThat(first).succeedsWithin(TIMEOUT);
+        assertThat(second).succeedsWithin(TIMEOUT);
+        assertThat(third).isNotDone(); // opened the next digest
+    }
+
+    @Test
+    void joinsAWishlistThatIsAlreadyWaiting() {
+        digest = newDigest();
+
+        CompletableFuture<Void> first = digest.add(alice, stock, wishlist("user-1::stock-1"));
+        CompletableFuture<Void> again = digest.add(alice, stock, wishlist("user-1::stock-1"));
+
+        assertThat(again).isSameAs(first);
+        assertThat(first).succeedsWithin(TIMEOUT);
+        assertThat(sentTo(alice)).hasSize(1);
+    }
+
+    @Test
+    void failsItsAlertsWhenTheEmailIsNotSent() {
+        when(emailService.sendDigestAsync(eq(alice), anyList())).thenReturn(CompletableFuture.completedFuture(false));
+        digest = newDigest();
+
+        CompletableFuture<Void> first = digest.add(alice, stock, wishlist("user-1::stock-1"));
+        CompletableFuture<Void> second = digest.add(alice, stock, wishlist("user-1::stock-2"));
+
+        for (CompletableFuture<Void> alerted : List.of(first, second)) {
+            assertThat(alerted).failsWithin(TIMEOUT)
+                    .withThrowableOfType(ExecutionException.class)
+                    .withCauseInstanceOf(TransientProcessingException.class);
+        }
+    }
+
+    @Test
+    void failsItsAlertsWhenTheSendThrows() {
+        when(emailService.sendDigestAsync(eq(alice), anyList())).thenThrow(new IllegalStateException("send stage is shut down"));
+        digest = newDigest();
+
+        CompletableFuture<Void> alerted = digest.add(alice, stock, wishlist("user-1::stock-1"));
+
+        assertThat(alerted).failsWithin(TIMEOUT).withThrowableOfType(ExecutionException.class);
+    }
+
+    @Test
+    void sendsOpenDigestsOnShutdown() {
+        properties.getDigest().setWindow(Duration.ofHours(1));
+        digest = newDigest();
+        CompletableFuture<Void> alerted = digest.add(alice, stock, wishlist("user-1::stock-1"));
+        verify(emailService, never()).sendDigestAsync(any(), anyList());
+
+        digest.shutdown();
+
+        assertThat(alerted).succeedsWithin(TIMEOUT);
+    }
+
+    @Test
+    void rejectsAlertsWhenDisabled() {
+        properties.getDigest().setEnabled(false);
+        NotificationDigest disabled = newDigest();
+
+        assertThat(disabled.isEnabled()).isFalse();
+        assertThatThrownBy(() -> disabled.add(alice, stock, wishlist("user-1::stock-1")))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<DigestAlert> sentTo(User user) {
+        ArgumentCaptor<List<DigestAlert>> alerts = ArgumentCaptor.forClass(List.class);
+        verify(emailService, timeout(TIMEOUT.toMillis())).sendDigestAsync(eq(user), alerts.capture());
+        return alerts.getValue();
+    }
+
+    private NotificationDigest newDigest() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        return new NotificationDigest(emailService, new PipelineMetrics(meterRegistry),
+                new ProcessingEventRecorder(properties), properties, meterRegistry);
+    }
+
+    private static Wishlist wishlist(String id) {
+        return Wishlist.builder().id(id).active(true).notified(true).build();
+    }
+}
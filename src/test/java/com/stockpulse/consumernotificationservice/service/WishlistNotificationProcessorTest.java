@@ -0,0 +1,294 @@
+package com.stockpulse.consumernotificationservice.service;
+
+import com.stockpulse.consumernotificationservice.cache.LookupCache;
+import com.stockpulse.consumernotificationservice.channel.NotificationFanOut;
+import com.stockpulse.consumernotificationservice.channel.NotificationFanOut.Delivery;
+import com.stockpulse.consumernotificationservice.config.NotificationProperties;
+import com.stockpulse.consumernotificationservice.events.ProcessingEventRecorder;
+import com.stockpulse.consumernotificationservice.exception.TransientProcessingException;
+import com.stockpulse.consumernotificationservice.exception.WishlistProcessingException;
+import com.stockpulse.consumernotificationservice.metrics.PipelineMetrics;
+import com.stockpulse.consumernotificationservice.model.ProcessingResult;
+import com.stockpulse.consumernotificationservice.model.QStacksMessage;
+import com.stockpulse.consumernotificationservice.model.Stock;
+import com.stockpulse.consumernotificationservice.model.User;
+import com.stockpulse.consumernotificationservice.model.Wishlist;
+import com.stockpulse.consumernotificationservice.model.WishlistNotificationView;
+import com.stockpulse.consumernotificationservice.repository.StockRepository;
+import com.stockpulse.consumernotificationservice.repository.UserRepository;
+import com.stockpulse.consumernotificationservice.repository.WishlistRepository;
+import com.stockpulse.consumernotificationservice.rule.WishlistRules;
+import com.stockpulse.consumernotificationservice.tick.ThresholdIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * The claim/release flow: a wishlist is claimed before it is sent, stays claimed once delivered and is released,
+ * with the channels that did deliver, when the send fails
+ */
+class WishlistNotificationProcessorTest {
+
+    private static final String WISHLIST_ID = "user-1::stock-1";
+    private static final String OTHER_WISHLIST_ID = "user-1::stock-2";
+
+    private final User user = User.builder().id("user-1").name("Alice").email("alice@example.com").build();
+    private final Stock stock = Stock.builder().id("stock-1").name("Reliance Industries Ltd").symbol("RELIANCE")
+            .currentPrice(2310.0).build();
+
+    private UserRepository userRepository;
+    private StockRepository stockRepository;
+    private WishlistRepository wishlistRepository;
+    private NotificationFanOut notificationFanOut;
+    private ThresholdIndex thresholdIndex;
+    private NotificationDigest notificationDigest;
+    private WishlistNotificationProcessor processor;
+
+    @BeforeEach
+    void setUp() {
+        NotificationProperties properties = new NotificationProperties();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+        userRepository = mock(UserRepository.class);
+        stockRepository = mock(StockRepository.class);
+        wishlistRepository = mock(WishlistRepository.class);
+        notificationFanOut = mock(NotificationFanOut.class);
+        thresholdIndex = mock(ThresholdIndex.class);
+        EmailService emailService = mock(EmailService.class);
+        notificationDigest = mock(NotificationDigest.class);
+
+        when(userRepository.findById("user-1")).thenReturn(Optional.of(user));
+        when(stockRepository.findById("stock-1")).thenReturn(Optional.of(stock));
+        when(emailService.isValidEmail(anyString())).thenReturn(true);
+
+        processor = new WishlistNotificationProcessor(
+                userRepository,
+                stockRepository,
+                wishlistRepository,
+                emailService,
+                new LookupCache(properties, meterRegistry),
+                new PipelineMetrics(meterRegistry),
+                new ProcessingEventRecorder(properties),
+                notificationDigest,
+                new WishlistRules(properties, meterRegistry),
+                notificationFanOut,
+                thresholdIndex);
+    }
+
+    @Test
+    void keepsTheClaimOnceDelivered() {
+        Wishlist wishlist = wishlist(WISHLIST_ID, 2300.0);
+        when(wishlistRepository.claimForNotification(WISHLIST_ID)).thenReturn(Optional.of(wishlist));
+        when(notificationFanOut.send(user, stock, wishlist)).thenReturn(delivered(Set.of("email")));
+
+        ProcessingResult result = processor.processWishlistNotification(new QStacksMessage(WISHLIST_ID));
+
+        assertThat(result.isSuccess()).isTrue();
+        assertThat(result.getSkipReason()).isNull();
+        verify(wishlistRepository, never()).releaseClaim(anyString(), anyCollection());
+        verify(wishlistRepository, never()).clearDeliveredChannels(anyString());
+        verify(thresholdIndex).remove(WISHLIST_ID);
+    }
+
+    @Test
+    void skipsWithoutSendingWhenTheClaimIsTaken() {
+        Wishlist notified = wishlist(WISHLIST_ID, 2300.0);
+        notified.setNotified(true);
+        when(wishlistRepository.claimForNotification(WISHLIST_ID)).thenReturn(Optional.empty());
+        when(wishlistRepository.findById(WISHLIST_ID)).thenReturn(Optional.of(notified));
+
+        ProcessingResult result = processor.processWishlistNotification(new QStacksMessage(WISHLIST_ID));
+
+        assertThat(result.getSkipReason()).isEqualTo("already notified");
+        verify(notificationFanOut, never()).send(any(), any(), any());
+    }
+
+    @Test
+    void failsPermanentlyWhenTheWishlistDoesNotExist() {
+        when(wishlistRepository.claimForNotification(WISHLIST_ID)).thenReturn(Optional.empty());
+        when(wishlistRepository.findById(WISHLIST_ID)).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> processor.processWishlistNotification(new QStacksMessage(WISHLIST_ID)))
+                .isExactlyInstanceOf(WishlistProcessingException.class)
+                .hasMessageContaining("Wishlist not found");
+    }
+
+    @Test
+    void releasesTheClaimWithTheChannelsThatDeliveredWhenARequiredChannelFails() {
+        Wishlist wishlist = wishlist(WISHLIST_ID, 2300.0);
+        when(wishlistRepository.claimForNotification(WISHLIST_ID)).thenReturn(Optional.of(wishlist));
+        when(notificationFanOut.send(user, stock, wishlist))
+                .thenReturn(CompletableFuture.completedFuture(new Delivery(false, Set.of("sms"))));
+
+        assertThatThrownBy(() -> processor.processWishlistNotification(new QStacksMessage(WISHLIST_ID)))
+                .isInstanceOf(TransientProcessingException.class);
+
+        verify(wishlistRepository).releaseClaim(WISHLIST_ID, Set.of("sms"));
+        verify(thresholdIndex, never()).remove(anyString());
+    }
+
+    @Test
+    void failsPermanentlyWhenARequiredChannelCannotReachTheUser() {
+        Wishlist wishlist = wishlist(WISHLIST_ID, 2300.0);
+        when(wishlistRepository.claimForNotification(WISHLIST_ID)).thenReturn(Optional.of(wishlist));
+        when(notificationFanOut.send(user, stock, wishlist))
+                .thenReturn(CompletableFuture.completedFuture(new Delivery(false, Set.of(), Set.of("sms"))));
+
+        assertThatThrownBy(() -> processor.processWishlistNotification(new QStacksMessage(WISHLIST_ID)))
+                .isExactlyInstanceOf(WishlistProcessingException.class)
+                .hasMessageContaining("cannot be reached on required channel(s) [sms]");
+
+        verify(wishlistRepository).releaseClaim(WISHLIST_ID, Set.of());
+    }
+
+    @Test
+    void releasesTheClaimWhenTheSendFails() {
+        Wishlist wishlist = wishlist(WISHLIST_ID, 2300.0);
+        when(wishlistRepository.claimForNotification(WISHLIST_ID)).thenReturn(Optional.of(wishlist));
+        when(notificationFanOut.send(user, stock, wishlist))
+                .thenReturn(CompletableFuture.failedFuture(new TransientProcessingException("SMTP unavailable")));
+
+        assertThatThrownBy(() -> processor.processWishlistNotification(new QStacksMessage(WISHLIST_ID)))
+                .isInstanceOf(TransientProcessingException.class)
+                .hasMessage("SMTP unavailable");
+
+        verify(wishlistRepository).releaseClaim(WISHLIST_ID, Set.of());
+    }
+
+    @Test
+    void clearsDeliveredChannelsOnceARetryDeliversTheRest() {
+        Wishlist wishlist = wishlist(WISHLIST_ID, 2300.0);
+        wishlist.setDeliveredChannels(Set.of("sms"));
+        when(wishlistRepository.claimForNotification(WISHLIST_ID)).thenReturn(Optional.of(wishlist));
+        when(notificationFanOut.send(user, stock, wishlist)).thenReturn(delivered(Set.of("sms", "email")));
+
+        assertThat(processor.processWishlistNotification(new QStacksMessage(WISHLIST_ID)).isSuccess()).isTrue();
+
+        verify(wishlistRepository).clearDeliveredChannels(WISHLIST_ID);
+    }
+
+    @Test
+    void releasesTheClaimOfAnOutdatedTriggerWithoutSending() {
+        Wishlist wishlist = wishlist(WISHLIST_ID, 2400.0); // the price of 2310 is below the target
+        when(wishlistRepository.claimForNotification(WISHLIST_ID)).thenReturn(Optional.of(wishlist));
+
+        ProcessingResult result = processor.processWishlistNotification(new QStacksMessage(WISHLIST_ID));
+
+        assertThat(result.getSkipReason()).isEqualTo(WishlistNotificationProcessor.OUTDATED);
+        verify(wishlistRepository).releaseClaim(WISHLIST_ID, Set.of());
+        verify(notificationFanOut, never()).send(any(), any(), any());
+    }
+
+    @Test
+    void batchSendsOnlyWhatItClaimedAndReleasesFailedSends() {
+        Wishlist claimed = wishlist(WISHLIST_ID, 2300.0);
+        Wishlist failing = wishlist(OTHER_WISHLIST_ID, 2300.0);
+        when(wishlistRepository.findNotificationViews(anyCollection())).thenReturn(List.of(
+                view(WISHLIST_ID), view(OTHER_WISHLIST_ID), view("user-1::stock-3")));
+        when(wishlistRepository.claimAllForNotification(anyCollection())).thenReturn(List.of(claimed, failing));
+        when(notificationFanOut.send(any(), any(), eq(claimed))).thenReturn(delivered(Set.of("email")));
+        when(notificationFanOut.send(any(), any(), eq(failing)))
+                .thenReturn(CompletableFuture.completedFuture(new Delivery(false, Set.of())));
+
+        List<ProcessingResult> results = processor.processWishlistNotifications(List.of(
+                new QStacksMessage(WISHLIST_ID), new QStacksMessage(OTHER_WISHLIST_ID),
+                new QStacksMessage("user-1::stock-3")));
+
+        assertThat(results.get(0).isSuccess()).isTrue();
+        assertThat(results.get(1).isSuccess()).isFalse();
+        assertThat(results.get(1).getCause()).isInstanceOf(TransientProcessingException.class);
+        assertThat(results.get(2).getSkipReason()).isEqualTo("already notified"); // claimed by someone else
+        verify(wishlistRepository).releaseClaim(OTHER_WISHLIST_ID, Set.of());
+        verify(wishlistRepository, never()).releaseClaim(eq(WISHLIST_ID), anyCollection());
+        verify(thresholdIndex).remove(WISHLIST_ID);
+    }
+
+    @Test
+    void digestModeSucceedsOnceTheDigestIsSent() {
+        Wishlist wishlist = claimForDigest(WISHLIST_ID);
+        when(notificationDigest.add(user, stock, wishlist)).thenReturn(CompletableFuture.completedFuture(null));
+
+        CompletableFuture<ProcessingResult> processed =
+                processor.processWishlistNotificationAsync(new QStacksMessage(WISHLIST_ID));
+
+        assertThat(processed).succeedsWithin(Duration.ofSeconds(5))
+                .extracting(ProcessingResult::isSuccess).isEqualTo(true);
+        verify(notificationFanOut, never()).send(any(), any(), any());
+    }
+
+    @Test
+    void digestModeFailsTheFutureWhenTheDigestCouldNotBeSent() {
+        Wishlist wishlist = claimForDigest(WISHLIST_ID);
+        when(notificationDigest.add(user, stock, wishlist)).thenReturn(
+                CompletableFuture.failedFuture(new TransientProcessingException("Failed to send digest email")));
+
+        CompletableFuture<ProcessingResult> processed =
+                processor.processWishlistNotificationAsync(new QStacksMessage(WISHLIST_ID));
+
+        assertThat(processed).failsWithin(Duration.ofSeconds(5))
+                .withThrowableOfType(ExecutionException.class)
+                .withCauseInstanceOf(TransientProcessingException.class);
+        verify(wishlistRepository).releaseClaim(WISHLIST_ID, Set.of());
+    }
+
+    private Wishlist claimForDigest(String id) {
+        Wishlist wishlist = wishlist(id, 2300.0);
+        when(notificationDigest.isEnabled()).thenReturn(true);
+        when(wishlistRepository.findNotificationViews(anyCollection())).thenReturn(List.of(view(id)));
+        when(wishlistRepository.claimAllForNotification(anyCollection())).thenReturn(List.of(wishlist));
+        return wishlist;
+    }
+
+    private static CompletableFuture<Delivery> delivered(Set<String> channels) {
+        return CompletableFuture.completedFuture(new Delivery(true, channels));
+    }
+
+    private static Wishlist wishlist(String id, double rateValueTargeted) {
+        return Wishlist.builder()
+                .id(id)
+                .userId("user-1")
+                .stockId(id.substring(id.indexOf("::") + 2))
+                .ruleType("percentage_increase")
+                .ruleValueInPercent("5%")
+                .rateValueTargeted(rateValueTargeted)
+                .ruleValueAtSet(2200.0)
+                .active(true)
+                .notified(false)
+                .build();
+    }
+
+    private static WishlistNotificationView view(String id) {
+        return WishlistNotificationView.builder()
+                .id(id)
+                .userId("user-1")
+                .stockId(id.substring(id.indexOf("::") + 2))
+                .active(true)
+                .notified(false)
+                .userFound(true)
+                .userName("Alice")
+                .email("alice@example.com")
+                .stockFound(true)
+                .stockName("Reliance Industries Ltd")
+                .stockSymbol("RELIANCE")
+                .currentPrice(2310.0)
+                .build();
+    }
+}
@@ -0,0 +1,207 @@
+package com.stockpulse.consumernotificationservice.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MappedSegmentLogTest {
+
+    // A 10-byte payload takes 19 bytes with its header, so three records fit a 64-byte segment
+    private static final int SEGMENT_SIZE = 64;
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void readsAppendedRecordsAtTheirOffsets() throws IOException {
+        try (MappedSegmentLog segmentLog = MappedSegmentLog.open(directory, SEGMENT_SIZE)) {
+            assertThat(segmentLog.append(record(0))).isZero();
+            assertThat(segmentLog.append(record(1))).isEqualTo(19);
+            assertThat(segmentLog.append(record(2))).isEqualTo(38);
+            assertThat(segmentLog.append(record(3))).isEqualTo(64); // does not fit the first segment
+
+            assertThat(payloads(segmentLog.read(0, 10))).containsExactly("record-000", "record-001", "record-002", "record-003");
+            assertThat(payloads(segmentLog.read(19, 2))).containsExactly("record-001", "record-002");
+            assertThat(segmentLog.read(19, 2).nextOffset()).isEqualTo(57);
+            assertThat(segmentLog.endOffset()).isEqualTo(83);
+            assertThat(segmentLog.segmentCount()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    void rejectsEmptyAndOversizedRecords() throws IOException {
+        try (MappedSegmentLog segmentLog = MappedSegmentLog.open(directory, SEGMENT_SIZE)) {
+            assertThatThrownBy(() -> segmentLog.append(new byte[0])).isInstanceOf(IllegalArgumentException.class);
+            assertThatThrownBy(() -> segmentLog.append(new byte[SEGMENT_SIZE])).isInstanceOf(IllegalArgumentException.class);
+        }
+    }
+
+    @Test
+    void recoversRecordsAndAppendPositionAfterReopen() throws IOException {
+        try (MappedSegmentLog segmentLog = MappedSegmentLog.open(directory, SEGMENT_SIZE)) {
+            for (int i = 0; i < 4; i++) {
+                segmentLog.append(record(i));
+            }
+        }
+
+        try (MappedSegmentLog segmentLog = MappedSegmentLog.open(directory, SEGMENT_SIZE)) {
+            assertThat(segmentLog.endOffset()).isEqualTo(83);
+            assertThat(payloads(segmentLog.read(0, 10))).containsExactly("record-000", "record-001", "record-002", "record-003");
+            assertThat(segmentLog.append(record(4))).isEqualTo(83);
+        }
+    }
+
+    @Test
+    void discardsPartiallyWrittenRecordOnReopen() throws IOException {
+        try (MappedSegmentLog segmentLog = MappedSegmentLog.open(directory, SEGMENT_SIZE)) {
+            segmentLog.append(record(0));
+            segmentLog.append(record(1));
+        }
+
+        // A record whose length was written but whose payload does not match its checksum
+        try (FileChannel channel = FileChannel.open(onlySegmentFile(), StandardOpenOption.WRITE)) {
+            ByteBuffer torn = ByteBuffer.allocate(Integer.BYTES * 2 + 1 + 4);
+            torn.putInt(10).putInt(12345).put((byte) 0).put("torn".getBytes(StandardCharsets.UTF_8)).flip();
+            channel.write(torn, 38);
+        }
+
+        try (MappedSegmentLog segmentLog = MappedSegmentLog.open(directory, SEGMENT_SIZE)) {
+            assertThat(segmentLog.endOffset()).isEqualTo(38);
+            assertThat(payloads(segmentLog.read(0, 10))).containsExactly("record-000", "record-001");
+            assertThat(segmentLog.append(record(2))).isEqualTo(38);
+        }
+    }
+
+    @Test
+    void keepsTheSegmentSizeOfExistingSegments() throws IOException {
+        try (MappedSegmentLog segmentLog = MappedSegmentLog.open(directory, SEGMENT_SIZE)) {
+            segmentLog.append(record(0));
+        }
+
+        try (MappedSegmentLog segmentLog = MappedSegmentLog.open(directory, SEGMENT_SIZE * 2)) {
+            segmentLog.append(record(1));
+            segmentLog.append(record(2));
+            assertThat(segmentLog.append(record(3))).isEqualTo(SEGMENT_SIZE);
+        }
+    }
+
+    @Test
+    void skipsDeletedRecordsAndKeepsTheFlagAfterReopen() throws IOException {
+        try (MappedSegmentLog segmentLog = MappedSegmentLog.open(directory, SEGMENT_SIZE)) {
+            segmentLog.append(record(0));
+            long deleted = segmentLog.append(record(1));
+            segmentLog.append(record(2));
+
+            segmentLog.markDeleted(deleted);
+            segmentLog.markDeleted(segmentLog.endOffset()); // beyond the end: ignored
+
+            assertThat(payloads(segmentLog.read(0, 10))).containsExactly("record-000", "record-002");
+        }
+
+        try (MappedSegmentLog segmentLog = MappedSegmentLog.open(directory, SEGMENT_SIZE)) {
+            assertThat(payloads(segmentLog.read(0, 10))).containsExactly("record-000", "record-002");
+        }
+    }
+
+    @Test
+    void compactionMovesLiveRecordsOutOfSegmentsWithDeletedOnes() throws IOException {
+        try (MappedSegmentLog segmentLog = MappedSegmentLog.open(directory, SEGMENT_SIZE)) {
+            for (int i = 0; i < 4; i++) {
+                segmentLog.append(record(i));
+            }
+            segmentLog.markDeleted(19);
+
+            MappedSegmentLog.CompactionResult result = segmentLog.compact();
+
+            assertThat(result).isEqualTo(new MappedSegmentLog.CompactionResult(1, 2));
+            assertThat(segmentLog.startOffset()).isEqualTo(SEGMENT_SIZE);
+            assertThat(payloads(segmentLog.read(0, 10))).containsExactly("record-003", "record-000", "record-002");
+        }
+    }
+
+    @Test
+    void compactionSealsAnActiveSegmentWithDeletedRecords() throws IOException {
+        try (MappedSegmentLog segmentLog = MappedSegmentLog.open(directory, SEGMENT_SIZE)) {
+            segmentLog.append(record(0));
+            segmentLog.append(record(1));
+            segmentLog.markDeleted(0);
+
+            MappedSegmentLog.CompactionResult result = segmentLog.compact();
+
+            assertThat(result).isEqualTo(new MappedSegmentLog.CompactionResult(1, 1));
+            assertThat(payloads(segmentLog.read(0, 10))).containsExactly("record-001");
+        }
+    }
+
+    @Test
+    void compactionLeavesSegmentsWithPinnedRecordsInPlace() throws IOException {
+        try (MappedSegmentLog segmentLog = MappedSegmentLog.open(directory, SEGMENT_SIZE)) {
+            for (int i = 0; i < 7; i++) {
+                segmentLog.append(record(i));
+            }
+            segmentLog.markDeleted(0);
+            segmentLog.markDeleted(SEGMENT_SIZE);
+
+            MappedSegmentLog.CompactionResult result = segmentLog.compact(new ConcurrentSkipListSet<>(Set.of(19L)));
+
+            assertThat(result).isEqualTo(new MappedSegmentLog.CompactionResult(1, 2));
+            assertThat(segmentLog.startOffset()).isZero();
+            assertThat(segmentLog.read(19, 1).records().getFirst().offset()).isEqualTo(19);
+        }
+    }
+
+    @Test
+    void compactionKeepsSegmentsWithoutDeletedRecords() throws IOException {
+        try (MappedSegmentLog segmentLog = MappedSegmentLog.open(directory, SEGMENT_SIZE)) {
+            for (int i = 0; i < 4; i++) {
+                segmentLog.append(record(i));
+            }
+
+            assertThat(segmentLog.compact()).isEqualTo(new MappedSegmentLog.CompactionResult(0, 0));
+            assertThat(segmentLog.startOffset()).isZero();
+        }
+    }
+
+    @Test
+    void deletesWholeSegmentsBelowAnOffsetButNotTheActiveOne() throws IOException {
+        try (MappedSegmentLog segmentLog = MappedSegmentLog.open(directory, SEGMENT_SIZE)) {
+            for (int i = 0; i < 7; i++) {
+                segmentLog.append(record(i));
+            }
+
+            assertThat(segmentLog.deleteSegmentsBefore(2 * SEGMENT_SIZE + 19)).isEqualTo(2);
+            assertThat(segmentLog.deleteSegmentsBefore(Long.MAX_VALUE / 2)).isZero();
+            assertThat(payloads(segmentLog.read(0, 10))).containsExactly("record-006");
+        }
+    }
+
+    private Path onlySegmentFile() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".seg")).findFirst().orElseThrow();
+        }
+    }
+
+    private static byte[] record(int i) {
+        return String.format("record-%03d", i).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static List<String> payloads(MappedSegmentLog.ReadBatch batch) {
+        return batch.records().stream()
+                .map(record -> new String(record.payload(), StandardCharsets.UTF_8))
+                .toList();
+    }
+}
@@ -0,0 +1,63 @@
+package com.stockpulse.consumernotificationservice.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OffsetCheckpointTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void startsAtZero() throws IOException {
+        try (OffsetCheckpoint checkpoint = OffsetCheckpoint.open(directory.resolve("nested/consumer.checkpoint"))) {
+            assertThat(checkpoint.read()).isZero();
+        }
+    }
+
+    @Test
+    void keepsTheLastWrittenOffsetAcrossReopen() throws IOException {
+        Path file = directory.resolve("consumer.checkpoint");
+        try (OffsetCheckpoint checkpoint = OffsetCheckpoint.open(file)) {
+            checkpoint.write(19);
+            checkpoint.write(38);
+            checkpoint.write(83);
+            assertThat(checkpoint.read()).isEqualTo(83);
+        }
+
+        try (OffsetCheckpoint checkpoint = OffsetCheckpoint.open(file)) {
+            assertThat(checkpoint.read()).isEqualTo(83);
+        }
+    }
+
+    @Test
+    void fallsBackToThePreviousOffsetWhenTheLastWriteIsTorn() throws IOException {
+        Path file = directory.resolve("consumer.checkpoint");
+        try (OffsetCheckpoint checkpoint = OffsetCheckpoint.open(file)) {
+            checkpoint.write(19); // sequence 1, second slot
+            checkpoint.write(38); // sequence 2, first slot
+        }
+
+        // Tear the second write: its offset changed but its check did not
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.allocate(Long.BYTES).putLong(0, 99), Long.BYTES);
+        }
+
+        try (OffsetCheckpoint checkpoint = OffsetCheckpoint.open(file)) {
+            assertThat(checkpoint.read()).isEqualTo(19);
+            checkpoint.write(57);
+        }
+
+        try (OffsetCheckpoint checkpoint = OffsetCheckpoint.open(file)) {
+            assertThat(checkpoint.read()).isEqualTo(57);
+        }
+    }
+}
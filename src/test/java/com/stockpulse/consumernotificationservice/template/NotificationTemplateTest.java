@@ -0,0 +1,58 @@
+package com.stockpulse.consumernotificationservice.template;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class NotificationTemplateTest {
+
+    private final TemplateContext context = new TemplateContext()
+            .setUserName("Zoë")
+            .setStockName("Reliance Industries Ltd")
+            .setStockSymbol("RELIANCE")
+            .setRule("up by 5%".getBytes(StandardCharsets.UTF_8));
+
+    @Test
+    void rendersLiteralsAndPlaceholders() {
+        NotificationTemplate template = NotificationTemplate.compile("Hi {userName}, {stockName} ({stockSymbol}) is {rule} ✓");
+
+        Utf8Buffer out = new Utf8Buffer(4); // grows while rendering
+        template.render(out, context);
+
+        String expected = "Hi Zoë, Reliance Industries Ltd (RELIANCE) is up by 5% ✓";
+        assertThat(out.toString()).isEqualTo(expected);
+        assertThat(out.toByteArray()).isEqualTo(expected.getBytes(StandardCharsets.UTF_8));
+        assertThat(template.renderToString(context)).isEqualTo(expected);
+    }
+
+    @Test
+    void rendersAMissingValueAsEmpty() {
+        NotificationTemplate template = NotificationTemplate.compile("{alertCount} alerts for {userName}");
+
+        assertThat(template.renderToString(new TemplateContext().setAlertCount(3))).isEqualTo("3 alerts for ");
+    }
+
+    @Test
+    void rejectsUnknownAndUnterminatedPlaceholders() {
+        assertThatThrownBy(() -> NotificationTemplate.compile("Hi {firstName}"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("{firstName}");
+        assertThatThrownBy(() -> NotificationTemplate.compile("Hi {userName"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Unterminated");
+    }
+
+    @Test
+    void reusesABufferAfterReset() {
+        Utf8Buffer buffer = new Utf8Buffer(8);
+        buffer.append("a long first message");
+
+        buffer.reset().append("naïve").append(new byte[] {'!'});
+
+        assertThat(buffer.toString()).isEqualTo("naïve!");
+        assertThat(buffer.length()).isEqualTo("naïve!".getBytes(StandardCharsets.UTF_8).length);
+    }
+}
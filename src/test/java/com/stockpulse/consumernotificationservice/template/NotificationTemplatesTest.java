@@ -0,0 +1,77 @@
+package com.stockpulse.consumernotificationservice.template;
+
+import com.stockpulse.consumernotificationservice.config.NotificationProperties;
+import com.stockpulse.consumernotificationservice.model.DigestAlert;
+import com.stockpulse.consumernotificationservice.model.Stock;
+import com.stockpulse.consumernotificationservice.model.User;
+import com.stockpulse.consumernotificationservice.model.Wishlist;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class NotificationTemplatesTest {
+
+    private final NotificationTemplates templates = new NotificationTemplates(new NotificationProperties());
+
+    private final User alice = User.builder().id("user-1").name("Alice").email("alice@example.com").build();
+    private final Stock reliance = Stock.builder().id("stock-1").name("Reliance Industries Ltd").symbol("RELIANCE")
+            .currentPrice(2310.0).build();
+    private final Stock tcs = Stock.builder().id("stock-2").name("Tata Consultancy Services").symbol("TCS")
+            .currentPrice(3400.0).build();
+
+    @Test
+    void picksTheTemplateOfTheRuleType() {
+        Wishlist increase = wishlist("PERCENTAGE_INCREASE", "5%");
+
+        assertThat(templates.renderSubject(alice, reliance, increase)).isEqualTo("Stock Alert - Reliance Industries Ltd");
+        assertThat(templates.renderBody(alice, reliance, increase).toString())
+                .startsWith("Your wishlisted stock Reliance Industries Ltd is up by 5%.");
+        assertThat(new String(templates.ruleFragment(wishlist("percentage_drop", "3%")), StandardCharsets.UTF_8))
+                .isEqualTo("down by 3%");
+    }
+
+    @Test
+    void fallsBackToTheDefaultTemplate() {
+        Wishlist unknown = wishlist("target_price", "5%");
+
+        assertThat(templates.forRuleType("target_price")).isSameAs(templates.forRuleType(null));
+        assertThat(templates.renderBody(alice, reliance, unknown).toString())
+                .startsWith("Your wishlisted stock Reliance Industries Ltd is meeting your criteria.");
+    }
+
+    @Test
+    void reusesTheBodyBufferOfAThread() {
+        Utf8Buffer first = templates.renderBody(alice, reliance, wishlist("percentage_increase", "5%"));
+        Utf8Buffer second = templates.renderBody(alice, tcs, wishlist("percentage_increase", "5%"));
+
+        assertThat(second).isSameAs(first);
+        assertThat(first.toString()).contains("Tata Consultancy Services");
+    }
+
+    @Test
+    void rendersADigestWithOneLinePerAlert() {
+        List<DigestAlert> alerts = List.of(
+                new DigestAlert(reliance, wishlist("percentage_increase", "5%")),
+                new DigestAlert(tcs, wishlist("percentage_drop", "2%")));
+
+        assertThat(templates.renderDigestSubject(alice, 2)).isEqualTo("Stock Alert - 2 of your wishlisted stocks");
+        assertThat(templates.renderDigestBody(alice, alerts).toString()).isEqualTo("""
+                Hi Alice, 2 stocks on your wishlist met your criteria:
+                - Reliance Industries Ltd (RELIANCE) is up by 5%
+                - Tata Consultancy Services (TCS) is down by 2%
+                Please buy the stocks quickly, before prices drop or rise. Thank you for choosing Stock Pulse.""");
+    }
+
+    @Test
+    void rejectsAnUnknownTemplateName() {
+        assertThatThrownBy(() -> templates.named("weekly")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static Wishlist wishlist(String ruleType, String ruleValueInPercent) {
+        return Wishlist.builder().id("user-1::stock-1").ruleType(ruleType).ruleValueInPercent(ruleValueInPercent).build();
+    }
+}
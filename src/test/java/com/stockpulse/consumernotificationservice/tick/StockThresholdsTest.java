@@ -0,0 +1,95 @@
+package com.stockpulse.consumernotificationservice.tick;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StockThresholdsTest {
+
+    private static final Threshold UP_100 = new Threshold("w-up-100", 100, true);
+    private static final Threshold UP_110 = new Threshold("w-up-110", 110, true);
+    private static final Threshold UP_120 = new Threshold("w-up-120", 120, true);
+    private static final Threshold DOWN_80 = new Threshold("w-down-80", 80, false);
+    private static final Threshold DOWN_90 = new Threshold("w-down-90", 90, false);
+
+    private final StockThresholds thresholds = StockThresholds.of(List.of(UP_120, DOWN_80, UP_100, DOWN_90, UP_110));
+
+    @Test
+    void crossesUpperThresholdsAtOrBelowThePrice() {
+        assertThat(thresholds.crossedAt(110)).containsExactly(UP_100, UP_110);
+        assertThat(thresholds.crossedAt(500)).containsExactly(UP_100, UP_110, UP_120);
+    }
+
+    @Test
+    void crossesLowerThresholdsAtOrAboveThePrice() {
+        assertThat(thresholds.crossedAt(90)).containsExactly(DOWN_90);
+        assertThat(thresholds.crossedAt(10)).containsExactly(DOWN_80, DOWN_90);
+    }
+
+    @Test
+    void crossesNothingBetweenTheSides() {
+        assertThat(thresholds.crossedAt(95)).isEmpty();
+        assertThat(thresholds.crossedAt(99.99)).isEmpty();
+        assertThat(StockThresholds.EMPTY.crossedAt(100)).isEmpty();
+    }
+
+    @Test
+    void addsAThresholdInPriceOrder() {
+        Threshold up105 = new Threshold("w-up-105", 105, true);
+        Threshold down85 = new Threshold("w-down-85", 85, false);
+
+        StockThresholds updated = thresholds.with(up105).with(down85);
+
+        assertThat(updated.size()).isEqualTo(7);
+        assertThat(updated.crossedAt(105)).containsExactly(UP_100, up105);
+        assertThat(updated.crossedAt(85)).containsExactly(down85, DOWN_90);
+        assertThat(thresholds.size()).isEqualTo(5); // the original is left alone
+    }
+
+    @Test
+    void replacesTheEarlierThresholdOfTheSameWishlist() {
+        Threshold moved = new Threshold("w-up-120", 95, false); // the rule flipped from increase to drop
+
+        StockThresholds updated = thresholds.with(moved);
+
+        assertThat(updated.size()).isEqualTo(5);
+        assertThat(updated.crossedAt(500)).containsExactly(UP_100, UP_110);
+        assertThat(updated.crossedAt(95)).containsExactly(moved);
+    }
+
+    @Test
+    void removesAWishlistFromEitherSide() {
+        StockThresholds updated = thresholds.without("w-up-110").without("w-down-80");
+
+        assertThat(updated.size()).isEqualTo(3);
+        assertThat(updated.crossedAt(500)).containsExactly(UP_100, UP_120);
+        assertThat(updated.crossedAt(10)).containsExactly(DOWN_90);
+    }
+
+    @Test
+    void removingAnUnknownWishlistReturnsTheSameInstance() {
+        assertThat(thresholds.without("w-unknown")).isSameAs(thresholds);
+    }
+
+    @Test
+    void keepsOnlyTheThresholdsATickLeavesUncrossed() {
+        StockThresholds remaining = thresholds.withoutCrossedAt(110);
+
+        assertThat(remaining.size()).isEqualTo(3);
+        assertThat(remaining.crossedAt(500)).containsExactly(UP_120);
+        assertThat(remaining.crossedAt(10)).containsExactly(DOWN_80, DOWN_90);
+        assertThat(thresholds.withoutCrossedAt(95)).isSameAs(thresholds);
+    }
+
+    @Test
+    void keepsThresholdsOfEqualPrice() {
+        Threshold other100 = new Threshold("w-other-100", 100, true);
+
+        StockThresholds updated = thresholds.with(other100);
+
+        assertThat(updated.crossedAt(100)).containsExactlyInAnyOrder(UP_100, other100);
+        assertThat(updated.withoutCrossedAt(100).crossedAt(100)).isEmpty();
+    }
+}
@@ -0,0 +1,93 @@
+package com.stockpulse.consumernotificationservice.tick;
+
+import com.stockpulse.consumernotificationservice.config.NotificationProperties;
+import com.stockpulse.consumernotificationservice.model.Wishlist;
+import com.stockpulse.consumernotificationservice.repository.WishlistRepository;
+import com.stockpulse.consumernotificationservice.rule.WishlistRules;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ThresholdIndexTest {
+
+    private final WishlistRepository wishlistRepository = mock(WishlistRepository.class);
+    private NotificationProperties properties;
+    private ThresholdIndex index;
+
+    @BeforeEach
+    void setUp() {
+        properties = new NotificationProperties();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        index = new ThresholdIndex(wishlistRepository, new WishlistRules(properties, meterRegistry), properties,
+                meterRegistry);
+    }
+
+    @Test
+    void rebuildsFromTheWishlistCursorInPages() {
+        properties.getTicks().setPageSize(2);
+        AtomicBoolean closed = new AtomicBoolean();
+        when(wishlistRepository.streamActiveUnnotifiedWishlists(null, 2)).thenReturn(Stream.of(
+                wishlist("u1::s1", "percentage_increase", 110.0),
+                wishlist("u2::s1", "percentage_drop", 90.0),
+                wishlist("u3::s2", "percentage_increase", 50.0),
+                wishlist("u4::s2", "no_such_rule", 10.0)).onClose(() -> closed.set(true)));
+
+        assertThat(index.rebuild()).isEqualTo(3);
+
+        assertThat(index.size()).isEqualTo(3);
+        assertThat(index.stockCount()).isEqualTo(2);
+        assertThat(closed).isTrue();
+        verify(wishlistRepository, never()).findActiveUnnotifiedWishlists();
+    }
+
+    @Test
+    void replacesTheIndexOnRebuild() {
+        when(wishlistRepository.streamActiveUnnotifiedWishlists(isNull(), anyInt()))
+                .thenReturn(Stream.of(wishlist("u1::s1", "percentage_increase", 110.0)))
+                .thenReturn(Stream.of(wishlist("u2::s1", "percentage_increase", 120.0)));
+        index.rebuild();
+
+        index.rebuild();
+
+        assertThat(index.takeCrossed("s1", 200)).extracting(Threshold::wishlistId).containsExactly("u2::s1");
+        assertThat(index.size()).isZero();
+    }
+
+    @Test
+    void takesCrossedThresholdsOutOfTheIndex() {
+        index.upsert(wishlist("u1::s1", "percentage_increase", 110.0));
+        index.upsert(wishlist("u2::s1", "percentage_drop", 90.0));
+
+        assertThat(index.takeCrossed("s1", 115)).extracting(Threshold::wishlistId).containsExactly("u1::s1");
+        assertThat(index.takeCrossed("s1", 115)).isEmpty();
+        assertThat(index.size()).isEqualTo(1);
+    }
+
+    @Test
+    void removesANotifiedWishlistOnUpsert() {
+        Wishlist wishlist = wishlist("u1::s1", "percentage_increase", 110.0);
+        assertThat(index.upsert(wishlist)).isTrue();
+
+        wishlist.setNotified(true);
+
+        assertThat(index.upsert(wishlist)).isFalse();
+        assertThat(index.size()).isZero();
+    }
+
+    private static Wishlist wishlist(String id, String ruleType, double target) {
+        String[] ids = id.split("::");
+        return Wishlist.builder().id(id).userId(ids[0]).stockId(ids[1]).ruleType(ruleType)
+                .ruleValueInPercent("5%").rateValueTargeted(target).active(true).notified(false).build();
+    }
+}